@@ -8,3 +8,12 @@
 #   http://developer.android.com/guide/developing/tools/proguard.html
 
 # Add any project specific keep options here:
+
+# Native modules: JS calls @ReactMethod methods by reflection, never from Java
+-keepclassmembers class com.leadwave.** {
+    @com.facebook.react.bridge.ReactMethod <methods>;
+}
+-keep class com.leadwave.** extends com.facebook.react.bridge.ReactContextBaseJavaModule
+
+# Headless JS tasks are started by class name from native code
+-keep class com.leadwave.RecordingUploadTaskService
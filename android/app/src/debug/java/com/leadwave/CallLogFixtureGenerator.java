@@ -0,0 +1,172 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.provider.CallLog;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * CallLogFixtureGenerator (debug builds only)
+ *
+ * Fills {@link FakeCallLogProvider} with rows shaped like a heavy user's
+ * call log:
+ *
+ * - a pool of rows/25 numbers drawn with a power-law skew, so a few numbers
+ *   (active leads) have hundreds of calls and most have one or two; numbers
+ *   come as 10 digits, +91 and 0-prefixed, like the real log;
+ * - two SIMs, about 65/35, using the device's subscription IDs when they
+ *   can be read so CallLogPage maps them to slots 1 and 2;
+ * - dates over the last `years` years, denser towards today and mostly in
+ *   working hours;
+ * - outgoing/incoming/missed/rejected at 45/30/20/5%, with unanswered
+ *   outgoing and missed calls at zero duration.
+ *
+ * The same seed gives the same rows.
+ */
+public final class CallLogFixtureGenerator {
+
+    static final int MAX_ROWS = 200_000;
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    public static final class Result {
+        public int rows;
+        public int distinctNumbers;
+        public String topNumber;
+        public long oldest;
+        public long ms;
+    }
+
+    private CallLogFixtureGenerator() {}
+
+    public static Result generate(Context context, int rows, int years, long seed) {
+        rows = Math.max(1, Math.min(rows, MAX_ROWS));
+        years = Math.max(1, years);
+        long started = System.nanoTime();
+
+        Random random = new Random(seed);
+        int distinct = Math.max(20, rows / 25);
+        String[] pool = new String[distinct];
+        for (int i = 0; i < distinct; i++) {
+            pool[i] = String.format(Locale.US, "%d%09d", 6 + random.nextInt(4), random.nextInt(1_000_000_000));
+        }
+        String[] sims = simAccounts(context);
+
+        long now = System.currentTimeMillis();
+        Calendar day = Calendar.getInstance();
+        int spanDays = years * 365;
+        long oldest = now;
+
+        SQLiteDatabase db = FakeCallLogProvider.Db.get(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(FakeCallLogProvider.TABLE, null, null);
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + FakeCallLogProvider.TABLE + " ("
+                + CallLog.Calls.NUMBER + ", " + CallLog.Calls.CACHED_NAME + ", " + CallLog.Calls.DATE + ", "
+                + CallLog.Calls.DURATION + ", " + CallLog.Calls.TYPE + ", " + CallLog.Calls.PHONE_ACCOUNT_ID
+                + ") VALUES (?, ?, ?, ?, ?, ?)");
+
+            for (int i = 0; i < rows; i++) {
+                // Power-law rank: the head of the pool gets most of the calls
+                int rank = (int) (distinct * Math.pow(random.nextDouble(), 2.5));
+                String number = format(pool[rank], random);
+
+                day.setTimeInMillis(now - (long) (spanDays * Math.pow(random.nextDouble(), 1.5)) * DAY_MS);
+                day.set(Calendar.HOUR_OF_DAY, random.nextInt(10) < 9 ? 9 + random.nextInt(12) : random.nextInt(24));
+                day.set(Calendar.MINUTE, random.nextInt(60));
+                day.set(Calendar.SECOND, random.nextInt(60));
+                long date = day.getTimeInMillis();
+                if (date > now) date -= DAY_MS; // later today: move to yesterday
+                oldest = Math.min(oldest, date);
+
+                int type;
+                int duration;
+                double p = random.nextDouble();
+                if (p < 0.45) {
+                    type = CallLog.Calls.OUTGOING_TYPE;
+                    duration = random.nextInt(4) == 0 ? 0 : talkTime(random, 95);
+                } else if (p < 0.75) {
+                    type = CallLog.Calls.INCOMING_TYPE;
+                    duration = talkTime(random, 120);
+                } else if (p < 0.95) {
+                    type = CallLog.Calls.MISSED_TYPE;
+                    duration = 0;
+                } else {
+                    type = CallLog.Calls.REJECTED_TYPE;
+                    duration = 0;
+                }
+
+                insert.clearBindings();
+                insert.bindString(1, number);
+                // About a third of the numbers are saved contacts
+                if (rank % 3 == 0) insert.bindString(2, "Contact " + rank);
+                insert.bindLong(3, date);
+                insert.bindLong(4, duration);
+                insert.bindLong(5, type);
+                insert.bindString(6, sims[sims.length > 1 && random.nextInt(100) >= 65 ? 1 : 0]);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        context.getContentResolver().notifyChange(FakeCallLogProvider.contentUri(context), null);
+
+        Result result = new Result();
+        result.rows = rows;
+        result.distinctNumbers = distinct;
+        result.topNumber = pool[0];
+        result.oldest = oldest;
+        result.ms = (System.nanoTime() - started) / 1_000_000;
+        return result;
+    }
+
+    public static void clear(Context context) {
+        FakeCallLogProvider.Db.get(context).getWritableDatabase().delete(FakeCallLogProvider.TABLE, null, null);
+        context.getContentResolver().notifyChange(FakeCallLogProvider.contentUri(context), null);
+    }
+
+    public static int count(Context context) {
+        return (int) DatabaseUtils.queryNumEntries(
+            FakeCallLogProvider.Db.get(context).getReadableDatabase(), FakeCallLogProvider.TABLE);
+    }
+
+    /** Exponential talk time with the given mean, capped at an hour. */
+    private static int talkTime(Random random, int meanSec) {
+        double exp = -Math.log(1 - random.nextDouble());
+        return (int) Math.min(3600, 1 + exp * meanSec);
+    }
+
+    private static String format(String tenDigits, Random random) {
+        int f = random.nextInt(10);
+        if (f < 6) return tenDigits;
+        if (f < 9) return "+91" + tenDigits;
+        return "0" + tenDigits;
+    }
+
+    /** PHONE_ACCOUNT_IDs for two SIMs: real subscription IDs when readable. */
+    private static String[] simAccounts(Context context) {
+        List<String> ids = new ArrayList<>();
+        try {
+            SubscriptionManager sm = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+            List<SubscriptionInfo> subs = sm != null ? sm.getActiveSubscriptionInfoList() : null;
+            if (subs != null) {
+                for (SubscriptionInfo info : subs) ids.add(String.valueOf(info.getSubscriptionId()));
+            }
+        } catch (SecurityException e) {
+            // No READ_PHONE_STATE: made-up IDs, rows go out without simId
+        }
+        if (ids.isEmpty()) ids.add("1");
+        if (ids.size() == 1) ids.add(ids.get(0).equals("1") ? "2" : "1");
+        return new String[]{ids.get(0), ids.get(1)};
+    }
+}
@@ -0,0 +1,254 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CallLogFixtureModule (debug builds only)
+ *
+ * JS entry point for the synthetic call log: generate rows, switch native
+ * readers between it and the system call log, and time the paths the app
+ * uses (paging, full load for analytics, number search, reconciliation).
+ * Timings are resolved as JSON and logged under the "CallLogFixtures" tag,
+ * so `adb logcat -s CallLogFixtures` shows them without JS.
+ */
+public class CallLogFixtureModule extends ReactContextBaseJavaModule {
+
+    private static final String TAG = "CallLogFixtures";
+
+    static final String PREFS_NAME = "LeadwaveCallLogFixtures";
+    static final String PREF_ENABLED = "enabled";
+    private static final String PREF_TOP_NUMBER = "top_number";
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public CallLogFixtureModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "CallLogFixtures";
+    }
+
+    /** Replaces the fixture rows; resolves { rows, distinctNumbers, topNumber, oldest, ms }. */
+    @ReactMethod
+    public void generate(final int rows, final int years, final double seed, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Context context = getReactApplicationContext();
+                    CallLogFixtureGenerator.Result result =
+                        CallLogFixtureGenerator.generate(context, rows, years, (long) seed);
+                    prefs(context).edit().putString(PREF_TOP_NUMBER, result.topNumber).apply();
+
+                    JSONObject out = new JSONObject();
+                    out.put("rows", result.rows);
+                    out.put("distinctNumbers", result.distinctNumbers);
+                    out.put("topNumber", result.topNumber);
+                    out.put("oldest", result.oldest);
+                    out.put("ms", result.ms);
+                    Log.i(TAG, "generated " + result.rows + " rows (" + result.distinctNumbers
+                        + " numbers) in " + result.ms + " ms");
+                    promise.resolve(out.toString());
+                } catch (Exception e) {
+                    promise.reject("ERR_FIXTURE", e);
+                }
+            }
+        });
+    }
+
+    /** Points CallLogPage / CallReconciler at the fixture (true) or the system call log (false). */
+    @ReactMethod
+    public void setEnabled(boolean enabled, Promise promise) {
+        Context context = getReactApplicationContext();
+        prefs(context).edit().putBoolean(PREF_ENABLED, enabled).apply();
+        CallLogSource.useFixture(enabled ? FakeCallLogProvider.contentUri(context) : null);
+        Log.i(TAG, enabled ? "native call-log readers now use the fixture" : "native call-log readers now use CallLog.Calls");
+        promise.resolve(enabled);
+    }
+
+    /** Resolves { enabled, rows }. */
+    @ReactMethod
+    public void getStatus(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSONObject out = new JSONObject();
+                    out.put("enabled", CallLogSource.isFixture());
+                    out.put("rows", CallLogFixtureGenerator.count(getReactApplicationContext()));
+                    promise.resolve(out.toString());
+                } catch (Exception e) {
+                    promise.reject("ERR_FIXTURE", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void clear(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                CallLogFixtureGenerator.clear(getReactApplicationContext());
+                promise.resolve(null);
+            }
+        });
+    }
+
+    /**
+     * Times each read path against whatever CallLogSource points at and
+     * resolves [{ name, ms, rows }]. Each case runs `runs` times and reports
+     * the median, after one untimed warm-up run.
+     */
+    @ReactMethod
+    public void benchmark(final int runs, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(runBenchmark(getReactApplicationContext(), Math.max(1, runs)).toString());
+                } catch (SecurityException e) {
+                    promise.reject("ERR_PERMISSION", "READ_CALL_LOG not granted", e);
+                } catch (Exception e) {
+                    promise.reject("ERR_FIXTURE", e);
+                }
+            }
+        });
+    }
+
+    private interface Case {
+        int run() throws Exception;
+    }
+
+    private static JSONArray runBenchmark(final Context context, int runs) throws Exception {
+        final long now = System.currentTimeMillis();
+        Calendar midnight = Calendar.getInstance();
+        midnight.set(Calendar.HOUR_OF_DAY, 0);
+        midnight.set(Calendar.MINUTE, 0);
+        midnight.set(Calendar.SECOND, 0);
+        midnight.set(Calendar.MILLISECOND, 0);
+        final long today = midnight.getTimeInMillis();
+        final String topNumber = prefs(context).getString(PREF_TOP_NUMBER, null);
+
+        Map<String, Case> cases = new LinkedHashMap<>();
+        // HistoryScreen: today's rows
+        cases.put("page_today", new Case() {
+            @Override
+            public int run() throws Exception {
+                return new JSONArray(CallLogPage.load(context, today, now, -1)).length();
+            }
+        });
+        cases.put("page_latest_200", new Case() {
+            @Override
+            public int run() throws Exception {
+                return new JSONArray(CallLogPage.load(context, 0, now, 200)).length();
+            }
+        });
+        cases.put("page_30_days", new Case() {
+            @Override
+            public int run() throws Exception {
+                return new JSONArray(CallLogPage.load(context, now - 30 * DAY_MS, now, -1)).length();
+            }
+        });
+        // CallLogService.getCallLogs: every row, the input to the analytics screens
+        cases.put("load_all_and_aggregate", new Case() {
+            @Override
+            public int run() throws Exception {
+                return aggregate(new JSONArray(CallLogPage.load(context, 0, Long.MAX_VALUE, -1)));
+            }
+        });
+        // Lead details: every call with one number, all time
+        if (topNumber != null) {
+            cases.put("search_top_number", new Case() {
+                @Override
+                public int run() {
+                    return CallReconciler.reconcile(context, 0, now, Collections.singletonList(topNumber)).size();
+                }
+            });
+        }
+        cases.put("reconcile_7_days", new Case() {
+            @Override
+            public int run() {
+                return CallReconciler.reconcile(context, now - 7 * DAY_MS, now, null).size();
+            }
+        });
+
+        JSONArray out = new JSONArray();
+        String source = CallLogSource.isFixture() ? "fixture" : "system";
+        for (Map.Entry<String, Case> entry : cases.entrySet()) {
+            entry.getValue().run(); // warm-up
+            List<Long> times = new ArrayList<>(runs);
+            int rows = 0;
+            for (int i = 0; i < runs; i++) {
+                long start = System.nanoTime();
+                rows = entry.getValue().run();
+                times.add((System.nanoTime() - start) / 1_000_000);
+            }
+            Collections.sort(times);
+            long median = times.get(times.size() / 2);
+
+            JSONObject result = new JSONObject();
+            result.put("name", entry.getKey());
+            result.put("ms", median);
+            result.put("rows", rows);
+            out.put(result);
+            Log.i(TAG, source + " " + entry.getKey() + ": " + median + " ms, " + rows + " rows");
+        }
+        return out;
+    }
+
+    /** Per-day, per-type counts and talk time, as the analytics screens compute them. */
+    private static int aggregate(JSONArray rows) throws JSONException {
+        Map<String, int[]> byDay = new HashMap<>();
+        for (int i = 0; i < rows.length(); i++) {
+            JSONObject row = rows.getJSONObject(i);
+            String day = row.getString("dateTime").substring(0, 10);
+            int[] totals = byDay.get(day);
+            if (totals == null) {
+                totals = new int[6];
+                byDay.put(day, totals);
+            }
+            switch (row.getString("type")) {
+                case "OUTGOING": totals[0]++; break;
+                case "INCOMING": totals[1]++; break;
+                case "MISSED": totals[2]++; break;
+                default: totals[3]++; break;
+            }
+            totals[4] += row.getInt("duration");
+            totals[5]++;
+        }
+        return rows.length();
+    }
+
+    static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
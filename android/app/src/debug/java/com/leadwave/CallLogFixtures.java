@@ -0,0 +1,23 @@
+package com.leadwave;
+
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import java.util.List;
+
+/**
+ * Debug build: registers {@link CallLogFixtureModule} and, if the fixture
+ * was left enabled, points native call-log readers back at it. The release
+ * source set has a no-op class of the same name.
+ */
+public final class CallLogFixtures {
+
+    private CallLogFixtures() {}
+
+    public static void addModules(ReactApplicationContext reactContext, List<NativeModule> modules) {
+        if (CallLogFixtureModule.prefs(reactContext).getBoolean(CallLogFixtureModule.PREF_ENABLED, false)) {
+            CallLogSource.useFixture(FakeCallLogProvider.contentUri(reactContext));
+        }
+        modules.add(new CallLogFixtureModule(reactContext));
+    }
+}
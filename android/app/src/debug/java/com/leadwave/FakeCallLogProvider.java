@@ -0,0 +1,106 @@
+package com.leadwave;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.net.Uri;
+import android.provider.CallLog;
+
+/**
+ * FakeCallLogProvider (debug builds only)
+ *
+ * A stand-in for CallLog.Calls backed by its own SQLite file. Columns carry
+ * the CallLog.Calls names, so the selections, projections and sort orders
+ * CallLogPage and CallReconciler send the system provider work unchanged.
+ * Rows come from {@link CallLogFixtureGenerator}; readers are pointed here
+ * through {@link CallLogSource} while the fixture is enabled.
+ */
+public class FakeCallLogProvider extends ContentProvider {
+
+    static final String TABLE = "calls";
+
+    public static Uri contentUri(Context context) {
+        return Uri.parse("content://" + context.getPackageName() + ".fakecalllog/" + TABLE);
+    }
+
+    static final class Db extends SQLiteOpenHelper {
+        private static final String DB_NAME = "leadwave_fake_calllog.db";
+        private static final int DB_VERSION = 1;
+
+        private static Db instance;
+
+        static synchronized Db get(Context context) {
+            if (instance == null) instance = new Db(context.getApplicationContext());
+            return instance;
+        }
+
+        private Db(Context context) {
+            super(context, DB_NAME, null, DB_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                + CallLog.Calls._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + CallLog.Calls.NUMBER + " TEXT, "
+                + CallLog.Calls.CACHED_NAME + " TEXT, "
+                + CallLog.Calls.DATE + " INTEGER NOT NULL, "
+                + CallLog.Calls.DURATION + " INTEGER NOT NULL DEFAULT 0, "
+                + CallLog.Calls.TYPE + " INTEGER NOT NULL, "
+                + CallLog.Calls.PHONE_ACCOUNT_ID + " TEXT)");
+            // The system call log is indexed on date; number searches are LIKE '%key' scans there too
+            db.execSQL("CREATE INDEX calls_date ON " + TABLE + " (" + CallLog.Calls.DATE + ")");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+        qb.setTables(TABLE);
+        Cursor c = qb.query(Db.get(getContext()).getReadableDatabase(), projection, selection, selectionArgs,
+            null, null, sortOrder, uri.getQueryParameter("limit"));
+        c.setNotificationUri(getContext().getContentResolver(), uri);
+        return c;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return CallLog.Calls.CONTENT_TYPE;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        long id = Db.get(getContext()).getWritableDatabase().insert(TABLE, null, values);
+        getContext().getContentResolver().notifyChange(uri, null);
+        return Uri.withAppendedPath(uri, String.valueOf(id));
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        int n = Db.get(getContext()).getWritableDatabase().delete(TABLE, selection, selectionArgs);
+        if (n > 0) getContext().getContentResolver().notifyChange(uri, null);
+        return n;
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        int n = Db.get(getContext()).getWritableDatabase().update(TABLE, values, selection, selectionArgs);
+        if (n > 0) getContext().getContentResolver().notifyChange(uri, null);
+        return n;
+    }
+}
@@ -0,0 +1,62 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * ApiSession
+ *
+ * Holds the backend base URL and the current access token for native code.
+ * The token lives in memory and is read by {@link LeadwaveHttp} on every API
+ * request. JS pushes it here on login/logout (see apiClient.setAuthToken);
+ * it is also persisted to SharedPreferences so receivers and background jobs
+ * can reach the API while the JS engine is not running.
+ */
+public final class ApiSession {
+
+    public static final String BASE_URL = "https://connect.leadvidya.in/api";
+
+    private static final String PREFS_NAME = "LeadwaveSession";
+    private static final String PREF_TOKEN = "token";
+
+    private static volatile String token = null;
+    private static volatile boolean loaded = false;
+
+    private ApiSession() {}
+
+    public static void setToken(Context context, String newToken) {
+        String normalized = (newToken == null || newToken.isEmpty()) ? null : newToken;
+        boolean changed = normalized == null ? getToken(context) != null : !normalized.equals(getToken(context));
+        token = normalized;
+        if (changed) {
+            // Cached profile/campaign responses belong to the previous agent.
+            LeadwaveHttp.evictCache();
+        }
+        loaded = true;
+        SharedPreferences.Editor editor = context.getApplicationContext()
+            .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+        if (normalized == null) {
+            editor.remove(PREF_TOKEN);
+        } else {
+            editor.putString(PREF_TOKEN, normalized);
+        }
+        editor.apply();
+    }
+
+    public static String getToken(Context context) {
+        if (!loaded) {
+            token = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getString(PREF_TOKEN, null);
+            loaded = true;
+        }
+        return token;
+    }
+
+    /** Value for the Authorization header, or null when logged out. */
+    public static String authorizationHeader(Context context) {
+        String t = getToken(context);
+        if (t == null) return null;
+        return t.startsWith("Bearer ") ? t : "Bearer " + t;
+    }
+}
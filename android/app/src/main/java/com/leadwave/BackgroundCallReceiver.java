@@ -3,10 +3,11 @@ package com.leadwave;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.telephony.TelephonyManager;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 /**
  * BackgroundCallReceiver
  *
@@ -16,6 +17,9 @@ import android.util.Log;
  *
  * When the app next comes to the foreground, HistoryScreen reads and clears this
  * pending record via PhoneModule.getPendingCall() and shows the CallEndPopup.
+ * If the app may draw over other apps, {@link DispositionOverlay} offers a native
+ * quick disposition as soon as the call ends; disposing there clears the
+ * pending record.
  *
  * This works even if the JS engine is not running, because BroadcastReceivers
  * are invoked by the Android OS regardless of app state.
@@ -23,17 +27,16 @@ import android.util.Log;
 public class BackgroundCallReceiver extends BroadcastReceiver {
 
     private static final String TAG = "BackgroundCallReceiver";
-    private static final String PREFS_NAME = "LeadwaveCallPrefs";
-    private static final String PREF_PENDING_PHONE    = "pending_phone";
-    private static final String PREF_PENDING_DURATION = "pending_duration";
-    private static final String PREF_PENDING_TYPE     = "pending_type";
-    private static final String PREF_HAS_PENDING      = "has_pending";
 
     // Per-receiver state (survives across broadcasts in the same process)
     private static String    lastNumber    = null;
     private static long      startTime     = 0;
+    // First RINGING; the call log dates incoming calls from here
+    private static long      ringTime      = 0;
     private static boolean   wasRinging    = false;
     private static boolean   wasOffhook    = false;
+    // The tracked number is on the do-not-call list
+    private static boolean   onDncList     = false;
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -48,19 +51,43 @@ public class BackgroundCallReceiver extends BroadcastReceiver {
 
         Log.d(TAG, "Phone state: " + state + ", number: " + phoneNumber);
 
+        long started = System.nanoTime();
+        String keyNumber = phoneNumber != null && !phoneNumber.isEmpty() ? phoneNumber : lastNumber;
+        handleState(context, state, phoneNumber);
+        FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_STATE, stateCode(state), keyNumber,
+            FlightRecorder.micros(started));
+    }
+
+    private void handleState(Context context, String state, String phoneNumber) {
         if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) {
+            if (wasOffhook) {
+                // Call waiting: the call in progress is still the one we track
+                return;
+            }
             if (phoneNumber != null && !phoneNumber.isEmpty()) {
                 lastNumber = phoneNumber;
+                if (!checkDnc(context, phoneNumber)) prefetchTimeline(context, phoneNumber);
             }
+            if (!wasRinging) ringTime = CallEvents.now();
             wasRinging = true;
             wasOffhook = false;
+            // The post-call UI is minutes away; bring React up meanwhile
+            ReactPrewarm.onCallStarted(context);
 
         } else if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) {
+            // Duplicate OFFHOOK broadcasts must not restart the duration
+            boolean started = !wasOffhook;
+            if (started) startTime = CallEvents.now();
             wasOffhook = true;
-            startTime  = System.currentTimeMillis();
             // Outgoing call: number may be in intent or already captured
             if (!wasRinging && phoneNumber != null && !phoneNumber.isEmpty()) {
                 lastNumber = phoneNumber;
+                if (!checkDnc(context, phoneNumber)) prefetchTimeline(context, phoneNumber);
+            }
+            if (started) {
+                // Inflate the disposition overlay while the call is up (DNC calls get none)
+                if (!onDncList) DispositionOverlay.prepare(context);
+                ReactPrewarm.onCallStarted(context);
             }
 
         } else if (TelephonyManager.EXTRA_STATE_IDLE.equals(state)) {
@@ -68,7 +95,7 @@ public class BackgroundCallReceiver extends BroadcastReceiver {
             if ((wasRinging || wasOffhook) && lastNumber != null && !lastNumber.isEmpty()) {
                 int durationSec = 0;
                 if (startTime > 0) {
-                    durationSec = (int) ((System.currentTimeMillis() - startTime) / 1000);
+                    durationSec = (int) ((CallEvents.now() - startTime) / 1000);
                 }
 
                 String callType;
@@ -81,22 +108,67 @@ public class BackgroundCallReceiver extends BroadcastReceiver {
                 }
 
                 // Write to SharedPreferences (safe to call without JS engine)
-                SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-                prefs.edit()
-                     .putString(PREF_PENDING_PHONE, lastNumber)
-                     .putInt(PREF_PENDING_DURATION, durationSec)
-                     .putString(PREF_PENDING_TYPE, callType)
-                     .putBoolean(PREF_HAS_PENDING, true)
-                     .apply();
+                CallJournal.record(context, lastNumber, wasRinging ? ringTime : startTime, durationSec, callType);
+                FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_PENDING_SAVED, 0, lastNumber, durationSec);
 
                 Log.d(TAG, "Pending call saved: " + lastNumber + " (" + callType + ", " + durationSec + "s)");
+                // No disposition for numbers we must not work
+                if (!onDncList) {
+                    DispositionOverlay.show(context, lastNumber, durationSec, callType);
+                } else {
+                    DispositionOverlay.skip();
+                }
+                ReactPrewarm.onCallEnded(context);
+            } else {
+                DispositionOverlay.skip();
             }
 
             // Reset
             lastNumber = null;
             startTime  = 0;
+            ringTime   = 0;
             wasRinging = false;
             wasOffhook = false;
+            onDncList  = false;
         }
     }
+
+    /** EXTRA_STATE as the matching TelephonyManager.CALL_STATE_* value. */
+    private static int stateCode(String state) {
+        if (TelephonyManager.EXTRA_STATE_RINGING.equals(state)) return TelephonyManager.CALL_STATE_RINGING;
+        if (TelephonyManager.EXTRA_STATE_OFFHOOK.equals(state)) return TelephonyManager.CALL_STATE_OFFHOOK;
+        return TelephonyManager.CALL_STATE_IDLE;
+    }
+
+    @VisibleForTesting
+    static void resetState() {
+        lastNumber = null;
+        startTime  = 0;
+        ringTime   = 0;
+        wasRinging = false;
+        wasOffhook = false;
+        onDncList  = false;
+    }
+
+    /** Looks the number up in {@link DncStore} (mapped, sub-millisecond) and records a hit. */
+    private static boolean checkDnc(Context context, String phoneNumber) {
+        onDncList = DncStore.get(context).isBlocked(phoneNumber);
+        if (onDncList) {
+            FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_DNC, 2, phoneNumber, 0);
+            Log.w(TAG, "Call with a do-not-call number");
+        }
+        return onDncList;
+    }
+
+    /** Warms the lead's timeline while the phone rings; keeps the receiver alive until done. */
+    private void prefetchTimeline(Context context, String phoneNumber) {
+        // null when onReceive is called directly rather than by the system (tests)
+        final PendingResult pending = goAsync();
+        TimelineCache.prefetchForNumber(context, phoneNumber, new Runnable() {
+            @Override
+            public void run() {
+                if (pending != null) pending.finish();
+            }
+        });
+    }
 }
@@ -0,0 +1,85 @@
+package com.leadwave;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+/**
+ * CallEvents
+ *
+ * The one path call-state code (PhoneModule's listener, CallService,
+ * BackgroundCallReceiver) uses to build event payloads, emit them to JS and
+ * read the clock. The JVM trace-replay tests install a {@link Sink} and a
+ * {@link Clock} here; with a sink installed payloads are JavaOnlyMaps,
+ * because WritableNativeMap needs the native bridge.
+ */
+public final class CallEvents {
+
+    public interface Sink {
+        void emit(String eventName, WritableMap params);
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long now() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private static volatile Sink sink = null;
+    private static volatile Clock clock = SYSTEM_CLOCK;
+
+    private CallEvents() {}
+
+    public static WritableMap newMap() {
+        return sink != null ? new JavaOnlyMap() : Arguments.createMap();
+    }
+
+    /** Wall-clock time in ms. */
+    public static long now() {
+        return clock.now();
+    }
+
+    /** Emits on the UI thread when JS is running; dropped otherwise. */
+    public static void emit(final ReactContext context, final String eventName, final WritableMap params) {
+        Sink s = sink;
+        if (s != null) {
+            s.emit(eventName, params);
+            return;
+        }
+        final int code = FlightRecorder.emittedCode(eventName);
+        if (context == null) {
+            FlightRecorder.record(FlightRecorder.SRC_BRIDGE, FlightRecorder.EV_EMIT_DROPPED, code, -1L, 0);
+            return;
+        }
+        final long queued = System.nanoTime();
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (context.hasActiveCatalystInstance()) {
+                    context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(eventName, params);
+                    FlightRecorder.record(FlightRecorder.SRC_BRIDGE, FlightRecorder.EV_EMIT, code, -1L,
+                        FlightRecorder.micros(queued));
+                } else {
+                    FlightRecorder.record(FlightRecorder.SRC_BRIDGE, FlightRecorder.EV_EMIT_DROPPED, code, -1L, 0);
+                }
+            }
+        });
+    }
+
+    @VisibleForTesting
+    static void install(Sink testSink, Clock testClock) {
+        sink = testSink;
+        clock = testClock != null ? testClock : SYSTEM_CLOCK;
+    }
+}
@@ -0,0 +1,268 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.provider.CallLog;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CallIndex
+ *
+ * Secondary index from call-log rows to lead numbers, so a lead's whole
+ * on-device history is one indexed query instead of a scan of the device
+ * log. Each CallLog.Calls row is copied (id, number key, date, duration,
+ * type, account) into call_index in {@link LeadStore}'s database; a lead's
+ * calls are then call_index JOIN lead_numbers on the last-10-digit key, which
+ * covers phone, mobile and alt_phone and follows lead edits for free.
+ *
+ * Kept current from a ContentObserver on the call log: new rows are picked
+ * up by _ID above the indexed maximum; when the log has fewer rows than the
+ * index (the user deleted calls) the missing ids are pruned. Pruning reads
+ * every _ID of the device log, so it only runs at start and on change
+ * notifications, never on the read path. A change of call-log source (the
+ * debug fixture) rebuilds the index.
+ *
+ * All index writes happen on the "call-index" thread.
+ */
+public final class CallIndex {
+
+    private static final String TAG = "CallIndex";
+
+    private static final String META_MAX_ID = "call_index_max_id";
+    private static final String META_SOURCE = "call_index_source";
+    // Coalesces the burst of notifications a call produces
+    private static final long REFRESH_DELAY_MS = 500;
+    private static final int BATCH = 1000;
+
+    private static volatile CallIndex instance;
+
+    private final Context context;
+    private final LeadStore store;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "call-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> pending;
+    private Uri observed;
+
+    public static synchronized CallIndex get(Context context) {
+        if (instance == null) {
+            instance = new CallIndex(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CallIndex(Context context) {
+        this.context = context;
+        this.store = LeadStore.get(context);
+    }
+
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS call_index ("
+            + "id INTEGER PRIMARY KEY, "
+            + "number_key TEXT, "
+            + "number TEXT, "
+            + "date INTEGER NOT NULL, "
+            + "duration INTEGER NOT NULL, "
+            + "type INTEGER NOT NULL, "
+            + "account TEXT)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_call_index_key_date ON call_index(number_key, date)");
+    }
+
+    /** Brings the index up to date in the background; also starts watching the call log. */
+    public void start() {
+        executor.execute(() -> refreshQuietly(true));
+    }
+
+    /**
+     * A lead's calls with date before beforeTs (0 = no bound), newest first,
+     * at most limit rows, as a JSON array string. Catches up with new call
+     * log rows first, which costs one query when nothing changed. Blocking.
+     */
+    public String callsForLead(String leadId, int limit, long beforeTs) throws Exception {
+        executor.submit(() -> {
+            refresh(false);
+            return null;
+        }).get();
+
+        long before = beforeTs > 0 ? beforeTs : Long.MAX_VALUE;
+        Map<String, Integer> simIds = CallLogPage.simIds(context);
+        JSONArray out = new JSONArray();
+        try (Cursor c = store.getReadableDatabase().rawQuery(
+                "SELECT c.id, c.number, c.number_key, c.date, c.duration, c.type, c.account "
+                    + "FROM call_index c JOIN lead_numbers n ON n.number_key = c.number_key "
+                    + "WHERE n.lead_id = ? AND c.date < ? "
+                    + "ORDER BY c.date DESC LIMIT ?",
+                new String[]{leadId, String.valueOf(before), String.valueOf(Math.max(1, limit))})) {
+            while (c.moveToNext()) {
+                long date = c.getLong(3);
+                int duration = c.getInt(4);
+                String account = c.getString(6);
+                Integer simId = account != null ? simIds.get(account) : null;
+                JSONObject row = new JSONObject();
+                row.put("callLogId", String.valueOf(c.getLong(0)));
+                row.put("phoneNumber", c.getString(1) != null ? c.getString(1) : "");
+                row.put("numberKey", c.getString(2));
+                row.put("timestamp", date);
+                row.put("endedAt", date + duration * 1000L);
+                row.put("duration", duration);
+                row.put("type", CallLogPage.typeName(c.getInt(5)));
+                row.put("phoneAccountId", account != null ? account : JSONObject.NULL);
+                row.put("simSlot", simId != null ? simId - 1 : JSONObject.NULL);
+                out.put(row);
+            }
+        }
+        return out.toString();
+    }
+
+    // ── Maintenance (executor thread) ──────────────────────────────────────
+
+    private void scheduleRefresh() {
+        executor.execute(() -> {
+            if (pending != null) return;
+            pending = executor.schedule(() -> {
+                pending = null;
+                refreshQuietly(true);
+            }, REFRESH_DELAY_MS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private void refreshQuietly(boolean prune) {
+        try {
+            refresh(prune);
+        } catch (SecurityException e) {
+            // No READ_CALL_LOG yet; the next query or change retries
+        } catch (Exception e) {
+            Log.w(TAG, "Refresh failed", e);
+        }
+    }
+
+    /** Indexes rows above the indexed maximum; prune also drops rows deleted from the log. */
+    private void refresh(boolean prune) {
+        Uri source = CallLogSource.calls();
+        observe(source);
+        SQLiteDatabase db = store.getWritableDatabase();
+        if (!source.toString().equals(store.getMeta(META_SOURCE))) {
+            db.delete("call_index", null, null);
+            store.putMeta(META_MAX_ID, null);
+            store.putMeta(META_SOURCE, source.toString());
+        }
+
+        long maxId = parseLong(store.getMeta(META_MAX_ID));
+        int added = 0;
+        String[] projection = {
+            CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.DATE,
+            CallLog.Calls.DURATION, CallLog.Calls.TYPE, CallLog.Calls.PHONE_ACCOUNT_ID
+        };
+        try (Cursor c = context.getContentResolver().query(source, projection,
+                CallLog.Calls._ID + " > ?", new String[]{String.valueOf(maxId)}, CallLog.Calls._ID + " ASC")) {
+            if (c != null && c.getCount() > 0) {
+                SQLiteStatement insert = db.compileStatement(
+                    "INSERT OR REPLACE INTO call_index (id, number_key, number, date, duration, type, account) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+                db.beginTransaction();
+                try {
+                    while (c.moveToNext()) {
+                        long id = c.getLong(0);
+                        String number = c.getString(1);
+                        String key = PhoneNumbers.key(number);
+                        insert.clearBindings();
+                        insert.bindLong(1, id);
+                        if (key != null) insert.bindString(2, key);
+                        if (number != null) insert.bindString(3, number);
+                        insert.bindLong(4, c.getLong(2));
+                        insert.bindLong(5, c.getLong(3));
+                        insert.bindLong(6, c.getInt(4));
+                        if (c.getString(5) != null) insert.bindString(7, c.getString(5));
+                        insert.executeInsert();
+                        maxId = Math.max(maxId, id);
+                        if (++added % BATCH == 0) {
+                            // Keep transactions short so queries are not starved on a first build
+                            db.setTransactionSuccessful();
+                            db.endTransaction();
+                            db.beginTransaction();
+                        }
+                    }
+                    store.putMeta(META_MAX_ID, String.valueOf(maxId));
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        }
+
+        int pruned = prune ? prune(db, source) : 0;
+        if (added > 0 || pruned > 0) {
+            Log.d(TAG, "Indexed " + added + " call(s), pruned " + pruned);
+        }
+    }
+
+    /** Drops index rows whose call-log row is gone. */
+    private int prune(SQLiteDatabase db, Uri source) {
+        long[] ids;
+        try (Cursor c = context.getContentResolver().query(source,
+                new String[]{CallLog.Calls._ID}, null, null, null)) {
+            if (c == null) return 0;
+            long indexed = DatabaseUtils.queryNumEntries(db, "call_index");
+            if (c.getCount() >= indexed) return 0;
+            ids = new long[c.getCount()];
+            int i = 0;
+            while (c.moveToNext() && i < ids.length) ids[i++] = c.getLong(0);
+        }
+        Arrays.sort(ids);
+
+        int pruned = 0;
+        db.beginTransaction();
+        try (Cursor c = db.rawQuery("SELECT id FROM call_index", null)) {
+            SQLiteStatement delete = db.compileStatement("DELETE FROM call_index WHERE id = ?");
+            while (c.moveToNext()) {
+                long id = c.getLong(0);
+                if (Arrays.binarySearch(ids, id) < 0) {
+                    delete.bindLong(1, id);
+                    delete.executeUpdateDelete();
+                    pruned++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return pruned;
+    }
+
+    private void observe(Uri source) {
+        if (source.equals(observed)) return;
+        observed = source;
+        context.getContentResolver().registerContentObserver(source, true, new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                scheduleRefresh();
+            }
+        });
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * CallJournal
+ *
+ * Records calls as our own listeners see them end. Two things are written
+ * to the "LeadwaveCallPrefs" SharedPreferences:
+ *
+ * - the single pending record (pending_phone / pending_duration /
+ *   pending_type / has_pending) that HistoryScreen drains through
+ *   PhoneModule.getPendingCall(). While the overlay is showing the call it
+ *   is claimed (pending_claimed) and getPendingCall() leaves it alone, so
+ *   the call gets one disposition UI;
+ * - a short journal of the last MAX_ENTRIES ended calls with their start
+ *   (first RINGING or OFFHOOK) and end time, which {@link CallReconciler}
+ *   uses for calls the system call log has not written yet. The journal is
+ *   not cleared by getPendingCall().
+ *
+ * Each journal entry gets a callId when it is written. Once the reconciler
+ * matches the entry to a call-log row it links the two (call_ids, the last
+ * MAX_LINKS calls), so the call keeps its first id after the entry is gone.
+ *
+ * PhoneModule's listener and BackgroundCallReceiver both see the same
+ * hangup; a second record for the same number within DUPLICATE_WINDOW_MS
+ * of the last entry is merged into it rather than appended.
+ */
+public final class CallJournal {
+
+    private static final String TAG = "CallJournal";
+
+    static final String PREFS_NAME = "LeadwaveCallPrefs";
+    static final String PREF_PENDING_PHONE    = "pending_phone";
+    static final String PREF_PENDING_DURATION = "pending_duration";
+    static final String PREF_PENDING_TYPE     = "pending_type";
+    static final String PREF_HAS_PENDING      = "has_pending";
+    static final String PREF_PENDING_CLAIMED  = "pending_claimed";
+    private static final String PREF_JOURNAL  = "journal";
+    private static final String PREF_CALL_IDS = "call_ids";
+
+    private static final int MAX_ENTRIES = 20;
+    private static final int MAX_LINKS = 500;
+    private static final long DUPLICATE_WINDOW_MS = 5_000;
+
+    public static final class Entry {
+        public String callId;
+        public String phoneNumber;
+        public int durationSec;
+        public String callType;
+        /** First RINGING or OFFHOOK; 0 for entries written before it was recorded. */
+        public long startedAt;
+        public long endedAt;
+    }
+
+    private CallJournal() {}
+
+    /**
+     * Saves an ended call as the pending record and appends it to the journal.
+     * startedAt is when the call first rang or went off hook (0 if unknown).
+     */
+    public static synchronized void record(Context context, String phoneNumber, long startedAt,
+                                           int durationSec, String callType) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        JSONArray journal = readJournal(prefs);
+        long now = CallEvents.now();
+        JSONObject last = journal.length() > 0 ? journal.optJSONObject(journal.length() - 1) : null;
+        if (last != null && now - last.optLong("endedAt", 0) <= DUPLICATE_WINDOW_MS
+                && sameNumber(last.optString("phone", null), phoneNumber)) {
+            mergeDuplicate(prefs, journal, last, phoneNumber, startedAt, durationSec);
+            return;
+        }
+        try {
+            JSONObject entry = new JSONObject();
+            entry.put("id", "pj:" + UUID.randomUUID());
+            entry.put("phone", phoneNumber);
+            entry.put("duration", durationSec);
+            entry.put("type", callType);
+            if (startedAt > 0) entry.put("startedAt", startedAt);
+            entry.put("endedAt", now);
+            journal.put(entry);
+        } catch (JSONException e) {
+            Log.w(TAG, "Journal entry not written", e);
+        }
+        // Keep only the newest MAX_ENTRIES
+        JSONArray trimmed = new JSONArray();
+        for (int i = Math.max(0, journal.length() - MAX_ENTRIES); i < journal.length(); i++) {
+            trimmed.put(journal.opt(i));
+        }
+
+        prefs.edit()
+            .putString(PREF_PENDING_PHONE, phoneNumber)
+            .putInt(PREF_PENDING_DURATION, durationSec)
+            .putString(PREF_PENDING_TYPE, callType)
+            .putBoolean(PREF_HAS_PENDING, true)
+            .putBoolean(PREF_PENDING_CLAIMED, false)
+            .putString(PREF_JOURNAL, trimmed.toString())
+            .apply();
+    }
+
+    /**
+     * The other listener's report of the call just recorded: keeps the longer
+     * duration and the earlier start, and leaves the pending record alone once
+     * it was drained so the call is not offered for disposition twice.
+     */
+    private static void mergeDuplicate(SharedPreferences prefs, JSONArray journal, JSONObject last,
+                                       String phoneNumber, long startedAt, int durationSec) {
+        long lastStarted = last.optLong("startedAt", 0);
+        boolean earlier = startedAt > 0 && (lastStarted == 0 || startedAt < lastStarted);
+        boolean longer = durationSec > last.optInt("duration", 0);
+        if (!earlier && !longer) return;
+        try {
+            if (earlier) last.put("startedAt", startedAt);
+            if (longer) last.put("duration", durationSec);
+        } catch (JSONException e) {
+            return;
+        }
+        SharedPreferences.Editor edit = prefs.edit().putString(PREF_JOURNAL, journal.toString());
+        if (longer && prefs.getBoolean(PREF_HAS_PENDING, false)
+                && sameNumber(prefs.getString(PREF_PENDING_PHONE, null), phoneNumber)) {
+            edit.putInt(PREF_PENDING_DURATION, durationSec);
+        }
+        edit.apply();
+    }
+
+    /** By number key; short or unparseable numbers only match exactly. */
+    private static boolean sameNumber(String a, String b) {
+        String keyA = PhoneNumbers.key(a);
+        String keyB = PhoneNumbers.key(b);
+        if (keyA != null || keyB != null) return keyA != null && keyA.equals(keyB);
+        return a != null && a.equals(b);
+    }
+
+    /**
+     * Drops the pending record if it is still the given number's call, e.g.
+     * once it was disposed from the overlay. The journal is kept.
+     */
+    public static synchronized void clearPending(Context context, String phoneNumber) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(PREF_HAS_PENDING, false)) return;
+        String pending = PhoneNumbers.key(prefs.getString(PREF_PENDING_PHONE, null));
+        if (pending == null || !pending.equals(PhoneNumbers.key(phoneNumber))) return;
+        prefs.edit()
+            .remove(PREF_PENDING_PHONE)
+            .remove(PREF_PENDING_DURATION)
+            .remove(PREF_PENDING_TYPE)
+            .remove(PREF_PENDING_CLAIMED)
+            .putBoolean(PREF_HAS_PENDING, false)
+            .apply();
+    }
+
+    /**
+     * Marks the pending record as handled by the overlay (claimed) or hands
+     * it back to the app's popup. No-op when it is another number's call.
+     */
+    public static synchronized void claimPending(Context context, String phoneNumber, boolean claimed) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(PREF_HAS_PENDING, false)) return;
+        if (!sameNumber(prefs.getString(PREF_PENDING_PHONE, null), phoneNumber)) return;
+        prefs.edit().putBoolean(PREF_PENDING_CLAIMED, claimed).apply();
+    }
+
+    /** Journal entries, oldest first. */
+    public static synchronized List<Entry> entries(Context context) {
+        JSONArray journal = readJournal(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        List<Entry> entries = new ArrayList<>(journal.length());
+        for (int i = 0; i < journal.length(); i++) {
+            JSONObject obj = journal.optJSONObject(i);
+            if (obj == null) continue;
+            Entry entry = new Entry();
+            entry.phoneNumber = obj.optString("phone", "");
+            entry.durationSec = obj.optInt("duration", 0);
+            entry.callType = obj.optString("type", "incoming");
+            entry.startedAt = obj.optLong("startedAt", 0);
+            entry.endedAt = obj.optLong("endedAt", 0);
+            entry.callId = obj.optString("id", null);
+            if (entry.callId == null) {
+                // Written before entries had ids: the id they were shown with
+                entry.callId = "pj:" + PhoneNumbers.key(entry.phoneNumber) + ":" + (entry.endedAt / 1000);
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /** callIds linked to call-log rows, by CallLog _ID. */
+    public static synchronized Map<Long, String> linkedCallIds(Context context) {
+        JSONArray links = readArray(context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE), PREF_CALL_IDS);
+        Map<Long, String> ids = new HashMap<>();
+        for (int i = 0; i < links.length(); i++) {
+            JSONArray link = links.optJSONArray(i);
+            if (link != null) ids.put(link.optLong(0), link.optString(1));
+        }
+        return ids;
+    }
+
+    /** Remembers the callId first issued for a call once its call-log row exists. */
+    public static synchronized void linkCallIds(Context context, Map<Long, String> added) {
+        if (added.isEmpty()) return;
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        JSONArray links = readArray(prefs, PREF_CALL_IDS);
+        for (Map.Entry<Long, String> link : added.entrySet()) {
+            links.put(new JSONArray().put(link.getKey()).put(link.getValue()));
+        }
+        JSONArray trimmed = new JSONArray();
+        for (int i = Math.max(0, links.length() - MAX_LINKS); i < links.length(); i++) {
+            trimmed.put(links.opt(i));
+        }
+        prefs.edit().putString(PREF_CALL_IDS, trimmed.toString()).apply();
+    }
+
+    private static JSONArray readJournal(SharedPreferences prefs) {
+        return readArray(prefs, PREF_JOURNAL);
+    }
+
+    private static JSONArray readArray(SharedPreferences prefs, String pref) {
+        String raw = prefs.getString(pref, null);
+        if (raw == null) return new JSONArray();
+        try {
+            return new JSONArray(raw);
+        } catch (JSONException e) {
+            return new JSONArray();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.provider.CallLog;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CallLogExport
+ *
+ * Writes CallLog.Calls rows for a date range to a file, oldest first, one
+ * row at a time from the cursor through a buffered writer: memory stays the
+ * same for a hundred rows or a million. Each row is joined with the stored
+ * lead for its number (LeadStore), looked up once per number through a
+ * small bounded cache.
+ *
+ * Formats: "csv" (RFC 4180, header row) or "ndjson" (one JSON object per
+ * line), optionally gzip-compressed. CSV cells starting with = + - @ are
+ * prefixed with ' so spreadsheets do not run them as formulas; phone
+ * numbers such as +91... are left alone. Files go to
+ * getExternalFilesDir("exports"); the file only appears under its final name
+ * once complete, and a cancelled or failed export leaves nothing behind.
+ */
+public final class CallLogExport {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String[] COLUMNS = {
+        "timestamp", "dateTime", "phoneNumber", "type", "duration", "simSlot", "contactName", "leadId", "leadName"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Numbers whose lead lookup is kept; a lookup is one indexed query
+    private static final int LEAD_CACHE_SIZE = 512;
+    private static final int PROGRESS_EVERY_ROWS = 500;
+    private static final long PROGRESS_EVERY_MS = 250;
+
+    public interface Progress {
+        void onProgress(int rows, int total);
+    }
+
+    public static final class CancelledException extends IOException {
+        CancelledException() {
+            super("Export cancelled");
+        }
+    }
+
+    public static final class Result {
+        public final String path;
+        public final int rows;
+        public final long bytes;
+        public final long ms;
+
+        Result(String path, int rows, long bytes, long ms) {
+            this.path = path;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.ms = ms;
+        }
+    }
+
+    private CallLogExport() {}
+
+    /**
+     * Exports rows with DATE in [fromMs, toMs]. Blocking; checks cancelled
+     * between rows and throws {@link CancelledException} once it is set.
+     */
+    public static Result export(Context context, long fromMs, long toMs, String format, boolean gzip,
+                                AtomicBoolean cancelled, Progress progress) throws IOException {
+        long started = System.nanoTime();
+        boolean csv = !FORMAT_NDJSON.equals(format);
+        File dir = new File(context.getExternalFilesDir(null), "exports");
+        if (!dir.exists()) dir.mkdirs();
+        SimpleDateFormat stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US);
+        String name = "calls-" + stamp.format(new Date()) + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        File target = new File(dir, name);
+        File partial = new File(dir, name + ".part");
+
+        String[] projection = {
+            CallLog.Calls.DATE, CallLog.Calls.NUMBER, CallLog.Calls.TYPE,
+            CallLog.Calls.DURATION, CallLog.Calls.PHONE_ACCOUNT_ID, CallLog.Calls.CACHED_NAME
+        };
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
+        Map<String, Integer> slots = CallLogPage.simIds(context);
+        LeadCache leads = new LeadCache(LeadStore.get(context));
+
+        int rows = 0;
+        boolean done = false;
+        try (Cursor c = context.getContentResolver().query(CallLogSource.calls(), projection,
+                CallLog.Calls.DATE + " >= ? AND " + CallLog.Calls.DATE + " <= ?",
+                new String[]{String.valueOf(fromMs), String.valueOf(toMs)}, CallLog.Calls.DATE + " ASC");
+             OutputStream file = new FileOutputStream(partial);
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                 gzip ? new GZIPOutputStream(file, BUFFER_SIZE) : file, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+
+            int total = c != null ? c.getCount() : 0;
+            if (csv) writeCsvRow(out, COLUMNS);
+            long lastReport = 0;
+            String[] values = new String[COLUMNS.length];
+
+            while (c != null && c.moveToNext()) {
+                if (cancelled.get()) throw new CancelledException();
+
+                long date = c.getLong(0);
+                String number = c.getString(1);
+                Integer slot = slots.get(c.getString(4));
+                String[] lead = leads.get(number);
+
+                values[0] = String.valueOf(date);
+                values[1] = iso.format(new Date(date));
+                values[2] = number != null ? number : "";
+                values[3] = CallLogPage.typeName(c.getInt(2));
+                values[4] = String.valueOf(c.getLong(3));
+                values[5] = slot != null ? String.valueOf(slot) : "";
+                values[6] = c.getString(5) != null ? c.getString(5) : "";
+                values[7] = lead != null ? lead[0] : "";
+                values[8] = lead != null ? lead[1] : "";
+                if (csv) {
+                    writeCsvRow(out, values);
+                } else {
+                    writeJsonRow(out, values);
+                }
+                rows++;
+
+                if (progress != null && rows % PROGRESS_EVERY_ROWS == 0) {
+                    long now = System.nanoTime();
+                    if (now - lastReport >= PROGRESS_EVERY_MS * 1_000_000) {
+                        lastReport = now;
+                        progress.onProgress(rows, total);
+                    }
+                }
+            }
+            if (progress != null) progress.onProgress(rows, total);
+            done = true;
+        } finally {
+            if (!done) partial.delete();
+        }
+
+        if (!partial.renameTo(target)) {
+            partial.delete();
+            throw new IOException("Could not write " + target);
+        }
+        return new Result(target.getAbsolutePath(), rows, target.length(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static void writeCsvRow(Writer out, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            String v = neutralize(values[i]);
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(v.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(v);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    /** Formula-leading text gets a ' in front; a plain dial string cannot be a formula. */
+    static String neutralize(String v) {
+        if (v.isEmpty()) return v;
+        char first = v.charAt(0);
+        if (first != '=' && first != '+' && first != '-' && first != '@' && first != '\t' && first != '\r') return v;
+        if (first != '=' && first != '@' && isDialString(v)) return v;
+        return "'" + v;
+    }
+
+    private static boolean isDialString(String v) {
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '+' && c != ' ' && c != '-' && c != '(' && c != ')') return false;
+        }
+        return true;
+    }
+
+    private static void writeJsonRow(Writer out, String[] values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(JSONObject.quote(COLUMNS[i]));
+            out.write(':');
+            // timestamp, duration and simSlot are numbers
+            if ((i == 0 || i == 4 || i == 5) && !values[i].isEmpty()) {
+                out.write(values[i]);
+            } else if (i == 5) {
+                out.write("null");
+            } else {
+                out.write(JSONObject.quote(values[i]));
+            }
+        }
+        out.write("}\n");
+    }
+
+    /** number key → {leadId, name}, LRU-bounded; misses are cached too. */
+    private static final class LeadCache {
+        private static final String[] NONE = new String[0];
+
+        private final LeadStore store;
+        private final Map<String, String[]> cache = new LinkedHashMap<String, String[]>(LEAD_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+                return size() > LEAD_CACHE_SIZE;
+            }
+        };
+
+        LeadCache(LeadStore store) {
+            this.store = store;
+        }
+
+        String[] get(String number) {
+            String key = PhoneNumbers.key(number);
+            if (key == null) return null;
+            String[] hit = cache.get(key);
+            if (hit == null) {
+                hit = load(number);
+                cache.put(key, hit);
+            }
+            return hit.length > 0 ? hit : null;
+        }
+
+        private String[] load(String number) {
+            String json = store.findByNumber(number);
+            if (json == null) return NONE;
+            try {
+                JSONObject lead = new JSONObject(json);
+                String name = lead.optString("name", "");
+                if (name.isEmpty()) {
+                    name = (lead.optString("firstName", "") + " " + lead.optString("lastName", "")).trim();
+                }
+                return new String[]{lead.optString("_id", lead.optString("id", "")), name};
+            } catch (Exception e) {
+                return NONE;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.provider.CallLog;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * CallLogPage
+ *
+ * Reads a page of CallLog.Calls rows with contact names already resolved
+ * by {@link ContactNames} (one batch per page instead of one bridge call per
+ * row). Rows have the same shape as react-native-call-log's load(), so
+ * CallLogService.mapLogs handles both.
+ */
+public final class CallLogPage {
+
+    private CallLogPage() {}
+
+    /** Rows with DATE in [minTs, maxTs], newest first; limit <= 0 means no limit. */
+    public static String load(Context context, long minTs, long maxTs, int limit) throws JSONException {
+        String[] projection = {
+            CallLog.Calls.NUMBER, CallLog.Calls.CACHED_NAME, CallLog.Calls.DATE,
+            CallLog.Calls.DURATION, CallLog.Calls.TYPE, CallLog.Calls.PHONE_ACCOUNT_ID
+        };
+
+        List<JSONObject> rows = new ArrayList<>();
+        List<String> numbers = new ArrayList<>();
+        List<String> cachedNames = new ArrayList<>();
+        Map<String, Integer> simIds = simIds(context);
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        try (Cursor c = context.getContentResolver().query(CallLogSource.calls(), projection,
+                CallLog.Calls.DATE + " >= ? AND " + CallLog.Calls.DATE + " <= ?",
+                new String[]{String.valueOf(minTs), String.valueOf(maxTs)}, CallLog.Calls.DATE + " DESC")) {
+            if (c == null) return "[]";
+            while (c.moveToNext() && (limit <= 0 || rows.size() < limit)) {
+                String number = c.getString(0);
+                long date = c.getLong(2);
+                JSONObject row = new JSONObject();
+                row.put("phoneNumber", number != null ? number : "");
+                row.put("timestamp", String.valueOf(date));
+                row.put("dateTime", iso.format(new Date(date)));
+                row.put("duration", c.getInt(3));
+                row.put("type", typeName(c.getInt(4)));
+                Integer simId = simIds.get(c.getString(5));
+                if (simId != null) row.put("simId", String.valueOf(simId));
+                rows.add(row);
+                numbers.add(number);
+                cachedNames.add(c.getString(1));
+            }
+        }
+
+        // Without READ_CONTACTS the system's cached name is the best we have
+        boolean live = ContactNames.canRead(context);
+        Map<String, String> names = live ? ContactNames.resolve(context, numbers) : new HashMap<String, String>();
+        JSONArray out = new JSONArray();
+        for (int i = 0; i < rows.size(); i++) {
+            JSONObject row = rows.get(i);
+            String name = live ? names.get(numbers.get(i)) : cachedNames.get(i);
+            if (name != null && !name.isEmpty()) row.put("name", name);
+            out.put(row);
+        }
+        return out.toString();
+    }
+
+    /** PHONE_ACCOUNT_ID (subscription id or ICCID, depending on OEM) to 1-based SIM slot. */
+    static Map<String, Integer> simIds(Context context) {
+        Map<String, Integer> ids = new HashMap<>();
+        try {
+            SubscriptionManager sm = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+            List<SubscriptionInfo> subs = sm != null ? sm.getActiveSubscriptionInfoList() : null;
+            if (subs == null) return ids;
+            for (SubscriptionInfo info : subs) {
+                int slot = info.getSimSlotIndex() + 1;
+                ids.put(String.valueOf(info.getSubscriptionId()), slot);
+                if (info.getIccId() != null) ids.put(info.getIccId(), slot);
+            }
+        } catch (SecurityException e) {
+            // READ_PHONE_STATE missing: rows go out without simId (slot 0 in JS)
+        }
+        return ids;
+    }
+
+    static String typeName(int type) {
+        switch (type) {
+            case CallLog.Calls.INCOMING_TYPE:
+                return "INCOMING";
+            case CallLog.Calls.OUTGOING_TYPE:
+                return "OUTGOING";
+            case CallLog.Calls.MISSED_TYPE:
+                return "MISSED";
+            case CallLog.Calls.REJECTED_TYPE:
+                return "REJECTED";
+            case CallLog.Calls.BLOCKED_TYPE:
+                return "BLOCKED";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.leadwave;
+
+import android.net.Uri;
+import android.provider.CallLog;
+
+/**
+ * CallLogSource
+ *
+ * The content URI native call-log readers ({@link CallLogPage},
+ * {@link CallReconciler}) query. It is CallLog.Calls.CONTENT_URI except in
+ * debug builds with the synthetic call-log fixture switched on, where it
+ * points at the fixture provider (src/debug, FakeCallLogProvider) so paging,
+ * search and reconciliation can be measured against 100k rows.
+ * {@link LogSyncer} does not use it: it uploads, so it only ever reads the
+ * system call log.
+ */
+public final class CallLogSource {
+
+    private static volatile Uri override = null;
+
+    private CallLogSource() {}
+
+    public static Uri calls() {
+        Uri uri = override;
+        return uri != null ? uri : CallLog.Calls.CONTENT_URI;
+    }
+
+    public static boolean isFixture() {
+        return override != null;
+    }
+
+    /** Debug builds only; null restores the system call log. */
+    static void useFixture(Uri uri) {
+        override = uri;
+    }
+}
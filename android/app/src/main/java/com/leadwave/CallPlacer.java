@@ -0,0 +1,261 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * CallPlacer
+ *
+ * Places outgoing calls with TelecomManager.placeCall, which hands the call
+ * to Telecom (and to {@link CallService} when we hold the dialer role)
+ * without starting an activity. ACTION_CALL is only the fallback when
+ * placeCall is refused.
+ *
+ * The SIM is picked by slot (0-based, -1 = the system default). Slots map to
+ * PhoneAccountHandles from getCallCapablePhoneAccounts(); the list is cached
+ * and dropped whenever the set of subscriptions changes (SIM swapped,
+ * enabled or disabled).
+ *
+ * Tap-to-dialing latency is measured per path: from the JS tap to the first
+ * sign of the outgoing call (CallService.onCallAdded, or OFFHOOK on the
+ * listener when another app is the dialer). {@link #stats()} reports the
+ * recent samples.
+ */
+public final class CallPlacer {
+
+    private static final String TAG = "CallPlacer";
+
+    public static final String VIA_TELECOM = "telecom";
+    public static final String VIA_INTENT = "intent";
+
+    // A dial that has not shown up by then is not matched any more
+    private static final long PENDING_MAX_MS = 30_000;
+    private static final int SAMPLES = 32;
+
+    private static volatile List<PhoneAccountHandle> accounts;
+    private static boolean watching;
+
+    // Outgoing call waiting for its first state; guarded by CallPlacer.class
+    private static String pendingKey;
+    private static String pendingVia;
+    private static long pendingTappedAt;
+
+    private static final Latency telecomLatency = new Latency();
+    private static final Latency intentLatency = new Latency();
+
+    private CallPlacer() {}
+
+    public static boolean isDefaultDialer(Context context) {
+        TelecomManager telecom = (TelecomManager) context.getSystemService(Context.TELECOM_SERVICE);
+        return telecom != null && context.getPackageName().equals(telecom.getDefaultDialerPackage());
+    }
+
+    /**
+     * Places the call from the given SIM slot (-1 for the default) and returns
+     * the path used (VIA_*). tappedAt is the wall-clock ms of the user's tap,
+     * 0 when there was none.
+     */
+    public static String place(Context context, String phoneNumber, int simSlot, long tappedAt) {
+        Uri uri = Uri.fromParts("tel", phoneNumber, null);
+        PhoneAccountHandle account = simSlot >= 0 ? accountForSlot(context, simSlot) : null;
+
+        String via;
+        TelecomManager telecom = (TelecomManager) context.getSystemService(Context.TELECOM_SERVICE);
+        try {
+            if (telecom == null) throw new SecurityException("No TelecomManager");
+            Bundle extras = new Bundle();
+            if (account != null) extras.putParcelable(TelecomManager.EXTRA_PHONE_ACCOUNT_HANDLE, account);
+            telecom.placeCall(uri, extras);
+            via = VIA_TELECOM;
+        } catch (SecurityException e) {
+            Log.w(TAG, "placeCall refused, using ACTION_CALL: " + e.getMessage());
+            Intent intent = new Intent(Intent.ACTION_CALL, uri);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            if (account != null) intent.putExtra(TelecomManager.EXTRA_PHONE_ACCOUNT_HANDLE, account);
+            context.startActivity(intent);
+            via = VIA_INTENT;
+        }
+
+        expect(phoneNumber, via, tappedAt);
+        return via;
+    }
+
+    @VisibleForTesting
+    static synchronized void expect(String phoneNumber, String via, long tappedAt) {
+        pendingKey = PhoneNumbers.key(phoneNumber);
+        pendingVia = via;
+        pendingTappedAt = tappedAt > 0 ? tappedAt : System.currentTimeMillis();
+    }
+
+    /**
+     * The outgoing call showed up (number may be null when the source does
+     * not carry it). Records the tap-to-dialing time of the matching dial.
+     */
+    public static void onDialing(String phoneNumber) {
+        String via;
+        long latency;
+        synchronized (CallPlacer.class) {
+            if (pendingVia == null) return;
+            latency = System.currentTimeMillis() - pendingTappedAt;
+            if (latency > PENDING_MAX_MS) {
+                pendingVia = null;
+                return;
+            }
+            if (phoneNumber != null && !phoneNumber.isEmpty()) {
+                // Short codes and service numbers have no key: never the pending dial
+                String key = PhoneNumbers.key(phoneNumber);
+                if (key == null || !Objects.equals(key, pendingKey)) return;
+            }
+            via = pendingVia;
+            pendingVia = null;
+        }
+        (VIA_TELECOM.equals(via) ? telecomLatency : intentLatency).add(latency);
+        FlightRecorder.record(FlightRecorder.SRC_MODULE, FlightRecorder.EV_DIALING,
+            VIA_TELECOM.equals(via) ? 1 : 2, phoneNumber, latency * 1000);
+        Log.d(TAG, "Tap to dialing via " + via + ": " + latency + " ms");
+    }
+
+    /** Number of SIMs that can place calls (0 without READ_PHONE_STATE). */
+    public static int simCount(Context context) {
+        return accounts(context).size();
+    }
+
+    /** { telecom: { count, lastMs, medianMs, p90Ms }, intent: { ... } } over the recent dials. */
+    public static JSONObject stats() throws JSONException {
+        JSONObject out = new JSONObject();
+        out.put(VIA_TELECOM, telecomLatency.toJson());
+        out.put(VIA_INTENT, intentLatency.toJson());
+        return out;
+    }
+
+    // ── Phone accounts ─────────────────────────────────────────────────────
+
+    private static PhoneAccountHandle accountForSlot(Context context, int slot) {
+        List<PhoneAccountHandle> list = accounts(context);
+        return slot < list.size() ? list.get(slot) : null;
+    }
+
+    /** Call-capable SIM accounts in slot order, cached until the subscriptions change. */
+    static List<PhoneAccountHandle> accounts(Context context) {
+        List<PhoneAccountHandle> cached = accounts;
+        if (cached != null) return cached;
+        Context app = context.getApplicationContext();
+        List<PhoneAccountHandle> list = Collections.emptyList();
+        try {
+            TelecomManager telecom = (TelecomManager) app.getSystemService(Context.TELECOM_SERVICE);
+            if (telecom != null) list = sortBySlot(app, telecom.getCallCapablePhoneAccounts());
+        } catch (SecurityException e) {
+            // No READ_PHONE_STATE: calls go out on the default SIM
+            return list;
+        }
+        watchSubscriptions(app);
+        accounts = list;
+        return list;
+    }
+
+    private static List<PhoneAccountHandle> sortBySlot(Context context, List<PhoneAccountHandle> handles) {
+        SubscriptionManager sm = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+        List<SubscriptionInfo> subs = sm != null ? sm.getActiveSubscriptionInfoList() : null;
+        if (subs == null || subs.isEmpty()) return new ArrayList<>(handles);
+
+        PhoneAccountHandle[] bySlot = new PhoneAccountHandle[handles.size() + subs.size()];
+        List<PhoneAccountHandle> unmatched = new ArrayList<>();
+        TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        for (PhoneAccountHandle handle : handles) {
+            int slot = -1;
+            for (SubscriptionInfo info : subs) {
+                if (matches(tm, handle, info)) {
+                    slot = info.getSimSlotIndex();
+                    break;
+                }
+            }
+            if (slot >= 0 && slot < bySlot.length && bySlot[slot] == null) {
+                bySlot[slot] = handle;
+            } else {
+                unmatched.add(handle);
+            }
+        }
+        List<PhoneAccountHandle> out = new ArrayList<>();
+        for (PhoneAccountHandle handle : bySlot) {
+            if (handle != null) out.add(handle);
+        }
+        out.addAll(unmatched);
+        return out;
+    }
+
+    /** The handle's id is the subscription id or the ICCID, depending on OEM. */
+    private static boolean matches(TelephonyManager tm, PhoneAccountHandle handle, SubscriptionInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && tm != null) {
+            return tm.getSubscriptionId(handle) == info.getSubscriptionId();
+        }
+        String id = handle.getId();
+        return id != null && (id.equals(String.valueOf(info.getSubscriptionId()))
+            || (info.getIccId() != null && id.startsWith(info.getIccId())));
+    }
+
+    private static synchronized void watchSubscriptions(final Context context) {
+        if (watching) return;
+        watching = true;
+        // The listener needs a Looper; the main one outlives every caller
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                SubscriptionManager sm = (SubscriptionManager) context.getSystemService(Context.TELEPHONY_SUBSCRIPTION_SERVICE);
+                if (sm == null) return;
+                sm.addOnSubscriptionsChangedListener(new SubscriptionManager.OnSubscriptionsChangedListener() {
+                    @Override
+                    public void onSubscriptionsChanged() {
+                        accounts = null;
+                    }
+                });
+            }
+        });
+    }
+
+    // ── Latency samples ────────────────────────────────────────────────────
+
+    private static final class Latency {
+        private final long[] samples = new long[SAMPLES];
+        private int count;
+        private long last = -1;
+
+        synchronized void add(long ms) {
+            samples[count % SAMPLES] = ms;
+            count++;
+            last = ms;
+        }
+
+        synchronized JSONObject toJson() throws JSONException {
+            long[] sorted = Arrays.copyOf(samples, Math.min(count, SAMPLES));
+            Arrays.sort(sorted);
+            JSONObject out = new JSONObject();
+            out.put("count", count);
+            out.put("lastMs", last);
+            out.put("medianMs", sorted.length > 0 ? sorted[sorted.length / 2] : -1);
+            out.put("p90Ms", sorted.length > 0 ? sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.9) - 1)] : -1);
+            return out;
+        }
+    }
+}
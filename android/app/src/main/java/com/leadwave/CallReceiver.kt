@@ -1,30 +0,0 @@
-package com.leadwave
-
-import android.content.BroadcastReceiver
-import android.content.Context
-import android.content.Intent
-import android.telephony.TelephonyManager
-import androidx.core.content.ContextCompat
-
-class CallReceiver : BroadcastReceiver() {
-
-    companion object {
-        private var lastState: String? = ""
-    }
-
-    override fun onReceive(context: Context, intent: Intent) {
-
-        val state = intent.getStringExtra(TelephonyManager.EXTRA_STATE)
-
-        if (TelephonyManager.EXTRA_STATE_IDLE == state &&
-            lastState != TelephonyManager.EXTRA_STATE_IDLE
-        ) {
-
-            // Call ended → Start overlay service
-            val serviceIntent = Intent(context, OverlayService::class.java)
-            ContextCompat.startForegroundService(context, serviceIntent)
-        }
-
-        lastState = state
-    }
-}
\ No newline at end of file
@@ -0,0 +1,392 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.provider.CallLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CallReconciler
+ *
+ * Joins the three places a call leaves a trace into one record per call:
+ *
+ * - CallLog.Calls rows (the system call log),
+ * - {@link CallJournal} entries (our own listeners; ahead of the call log
+ *   for a few seconds after hangup),
+ * - recording files written by CallService
+ *   (recordings/Call_<number>_<startMillis>.mp4, last modified at stop).
+ *
+ * Each source is sorted by (number key, start) and merged in a single pass:
+ * two spans match when they share the normalized number and their time
+ * windows overlap, allowing SLACK_MS for ringing time and clock skew.
+ * Recordings with no usable number in their name are matched on time alone.
+ *
+ * The result carries the recording path, the lead ID from {@link LeadStore}
+ * and a callId that stays the same while the sources catch up. A call is
+ * seen first by its recording (written from answer), then by the journal
+ * (at hangup), then by the call log (seconds later), so the id is taken in
+ * that order: "rec:<file>", the journal entry's "pj:..." id, "cl:<_ID>".
+ * Once a call-log row carries a recording or journal id the pair is linked
+ * in {@link CallJournal}, and the row keeps that id after the journal entry
+ * has rolled off.
+ */
+public final class CallReconciler {
+
+    // Ringing before answer is not part of CallLog DURATION; recordings start on answer
+    private static final long SLACK_MS = 45_000;
+
+    private static final String NO_KEY = "";
+
+    /** A time window on one number. */
+    private abstract static class Span {
+        String key = NO_KEY;
+        long start;
+        long end;
+    }
+
+    public static final class Call extends Span {
+        public String callId;
+        public long callLogId = -1;
+        public String number;
+        public String type;
+        public int durationSec;
+        public String phoneAccountId;
+        public String recordingPath;
+        public String leadId;
+        String journalId;
+        boolean fromCallLog;
+        boolean fromJournal;
+
+        JSONObject toJson() throws JSONException {
+            JSONObject obj = new JSONObject();
+            obj.put("callId", callId);
+            if (callLogId >= 0) obj.put("callLogId", String.valueOf(callLogId));
+            obj.put("phoneNumber", number != null ? number : "");
+            obj.put("numberKey", key.isEmpty() ? JSONObject.NULL : key);
+            obj.put("timestamp", start);
+            obj.put("endedAt", end);
+            obj.put("duration", durationSec);
+            obj.put("type", type);
+            obj.put("phoneAccountId", phoneAccountId != null ? phoneAccountId : JSONObject.NULL);
+            obj.put("recordingPath", recordingPath != null ? recordingPath : JSONObject.NULL);
+            obj.put("leadId", leadId != null ? leadId : JSONObject.NULL);
+            JSONArray sources = new JSONArray();
+            if (fromCallLog) sources.put("calllog");
+            if (fromJournal) sources.put("journal");
+            if (recordingPath != null) sources.put("recording");
+            obj.put("sources", sources);
+            return obj;
+        }
+    }
+
+    private static final class Recording extends Span {
+        String path;
+        boolean used;
+    }
+
+    private interface OnMatch<A, B> {
+        void match(A a, B b);
+    }
+
+    private static final Comparator<Span> BY_KEY_THEN_START = new Comparator<Span>() {
+        @Override
+        public int compare(Span a, Span b) {
+            int c = a.key.compareTo(b.key);
+            return c != 0 ? c : Long.compare(a.start, b.start);
+        }
+    };
+
+    private static final Comparator<Span> BY_START = new Comparator<Span>() {
+        @Override
+        public int compare(Span a, Span b) {
+            return Long.compare(a.start, b.start);
+        }
+    };
+
+    private CallReconciler() {}
+
+    /**
+     * Calls that overlap [fromMs, toMs], newest first. When numbers is not
+     * null only calls on those numbers (by last-10-digit key) are returned.
+     * Needs READ_CALL_LOG; throws SecurityException without it.
+     */
+    public static List<Call> reconcile(Context context, long fromMs, long toMs, Collection<String> numbers) {
+        Set<String> keys = null;
+        if (numbers != null) {
+            keys = new HashSet<>();
+            for (String n : numbers) {
+                String key = PhoneNumbers.key(n);
+                if (key != null) keys.add(key);
+            }
+            if (keys.isEmpty()) return new ArrayList<>();
+        }
+
+        List<Call> calls = queryCallLog(context, fromMs, toMs, keys);
+        List<Call> journal = journalCalls(context, fromMs, toMs, keys);
+        List<Recording> recordings = recordings(context, fromMs, toMs, keys);
+
+        // 1. Journal vs call log: a matched entry is the same call; the rest
+        //    are calls the system log has not written yet.
+        Collections.sort(calls, BY_KEY_THEN_START);
+        Collections.sort(journal, BY_KEY_THEN_START);
+        mergeJoin(calls, journal, new OnMatch<Call, Call>() {
+            @Override
+            public void match(Call call, Call entry) {
+                call.fromJournal = true;
+                call.journalId = entry.journalId;
+                entry.fromCallLog = true; // marks it as consumed
+            }
+        });
+        for (Call entry : journal) {
+            if (!entry.fromCallLog) calls.add(entry);
+        }
+        Collections.sort(calls, BY_KEY_THEN_START);
+
+        // 2. Calls vs recordings on the same number
+        Collections.sort(recordings, BY_KEY_THEN_START);
+        mergeJoin(calls, recordings, new OnMatch<Call, Recording>() {
+            @Override
+            public void match(Call call, Recording rec) {
+                call.recordingPath = rec.path;
+                rec.used = true;
+            }
+        });
+
+        // 3. Recordings without a number in the name: match on time alone
+        List<Call> unrecorded = new ArrayList<>();
+        for (Call call : calls) {
+            if (call.recordingPath == null) unrecorded.add(call);
+        }
+        List<Recording> anonymous = new ArrayList<>();
+        for (Recording rec : recordings) {
+            if (!rec.used && rec.key.equals(NO_KEY)) anonymous.add(rec);
+        }
+        if (!unrecorded.isEmpty() && !anonymous.isEmpty()) {
+            Collections.sort(unrecorded, BY_START);
+            Collections.sort(anonymous, BY_START);
+            mergeOnTime(unrecorded, anonymous);
+        }
+
+        // 4. Recordings nothing matched still identify a call we took part in
+        for (Recording rec : recordings) {
+            if (rec.used || (keys != null && !keys.contains(rec.key))) continue;
+            Call call = new Call();
+            call.key = rec.key;
+            call.start = rec.start;
+            call.end = rec.end;
+            call.durationSec = (int) Math.max(0, (rec.end - rec.start) / 1000);
+            call.type = "UNKNOWN";
+            call.recordingPath = rec.path;
+            calls.add(call);
+        }
+
+        assignCallIds(context, calls);
+
+        // 5. Lead IDs, one lookup per distinct number
+        LeadStore store = LeadStore.get(context);
+        Map<String, String> leadByKey = new HashMap<>();
+        for (Call call : calls) {
+            if (call.key.equals(NO_KEY)) continue;
+            if (!leadByKey.containsKey(call.key)) {
+                leadByKey.put(call.key, store.leadIdForKey(call.key));
+            }
+            call.leadId = leadByKey.get(call.key);
+        }
+
+        Collections.sort(calls, new Comparator<Call>() {
+            @Override
+            public int compare(Call a, Call b) {
+                return Long.compare(b.start, a.start);
+            }
+        });
+        return calls;
+    }
+
+    /** First-issued id per call (see class doc); links new call-log matches. */
+    private static void assignCallIds(Context context, List<Call> calls) {
+        Map<Long, String> linked = CallJournal.linkedCallIds(context);
+        Map<Long, String> added = new HashMap<>();
+        for (Call call : calls) {
+            String id = call.callLogId >= 0 ? linked.get(call.callLogId) : null;
+            if (id == null && call.recordingPath != null) id = "rec:" + new File(call.recordingPath).getName();
+            if (id == null) id = call.journalId;
+            if (id == null) {
+                id = "cl:" + call.callLogId;
+            } else if (call.callLogId >= 0 && !linked.containsKey(call.callLogId)) {
+                added.put(call.callLogId, id);
+            }
+            call.callId = id;
+        }
+        CallJournal.linkCallIds(context, added);
+    }
+
+    public static String toJson(List<Call> calls) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (Call call : calls) array.put(call.toJson());
+        return array.toString();
+    }
+
+    /**
+     * Sort-merge interval join. Both lists must be sorted by (key, start);
+     * each element matches at most one element of the other list.
+     */
+    private static <A extends Span, B extends Span> void mergeJoin(List<A> a, List<B> b, OnMatch<A, B> onMatch) {
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            A x = a.get(i);
+            B y = b.get(j);
+            int c = x.key.compareTo(y.key);
+            if (c < 0 || (c == 0 && x.key.equals(NO_KEY))) {
+                i++;
+            } else if (c > 0) {
+                j++;
+            } else if (x.end + SLACK_MS < y.start) {
+                i++;
+            } else if (y.end + SLACK_MS < x.start) {
+                j++;
+            } else {
+                onMatch.match(x, y);
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static void mergeOnTime(List<Call> calls, List<Recording> recordings) {
+        int i = 0;
+        int j = 0;
+        while (i < calls.size() && j < recordings.size()) {
+            Call call = calls.get(i);
+            Recording rec = recordings.get(j);
+            if (call.end + SLACK_MS < rec.start) {
+                i++;
+            } else if (rec.end + SLACK_MS < call.start) {
+                j++;
+            } else {
+                call.recordingPath = rec.path;
+                rec.used = true;
+                i++;
+                j++;
+            }
+        }
+    }
+
+    // ── Sources ────────────────────────────────────────────────────────────
+
+    private static List<Call> queryCallLog(Context context, long fromMs, long toMs, Set<String> keys) {
+        StringBuilder selection = new StringBuilder(CallLog.Calls.DATE + " >= ? AND " + CallLog.Calls.DATE + " <= ?");
+        List<String> args = new ArrayList<>();
+        // A call that started just before the window can still overlap it
+        args.add(String.valueOf(fromMs - 2 * 60 * 60 * 1000L));
+        args.add(String.valueOf(toMs));
+        if (keys != null) {
+            selection.append(" AND (");
+            int n = 0;
+            for (String key : keys) {
+                if (n++ > 0) selection.append(" OR ");
+                selection.append(CallLog.Calls.NUMBER).append(" LIKE ?");
+                args.add("%" + key);
+            }
+            selection.append(")");
+        }
+
+        List<Call> calls = new ArrayList<>();
+        String[] projection = {
+            CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.DATE,
+            CallLog.Calls.DURATION, CallLog.Calls.TYPE, CallLog.Calls.PHONE_ACCOUNT_ID
+        };
+        try (Cursor c = context.getContentResolver().query(CallLogSource.calls(), projection,
+                selection.toString(), args.toArray(new String[0]), CallLog.Calls.DATE + " ASC")) {
+            if (c == null) return calls;
+            while (c.moveToNext()) {
+                Call call = new Call();
+                call.callLogId = c.getLong(0);
+                call.number = c.getString(1);
+                String key = PhoneNumbers.key(call.number);
+                if (keys != null && (key == null || !keys.contains(key))) continue;
+                call.key = key != null ? key : NO_KEY;
+                call.start = c.getLong(2);
+                call.durationSec = c.getInt(3);
+                call.end = call.start + call.durationSec * 1000L;
+                if (call.end < fromMs) continue;
+                call.type = CallLogPage.typeName(c.getInt(4));
+                call.phoneAccountId = c.getString(5);
+                call.fromCallLog = true;
+                calls.add(call);
+            }
+        }
+        return calls;
+    }
+
+    private static List<Call> journalCalls(Context context, long fromMs, long toMs, Set<String> keys) {
+        List<Call> calls = new ArrayList<>();
+        for (CallJournal.Entry entry : CallJournal.entries(context)) {
+            String key = PhoneNumbers.key(entry.phoneNumber);
+            if (key == null || (keys != null && !keys.contains(key))) continue;
+            Call call = new Call();
+            call.key = key;
+            call.number = entry.phoneNumber;
+            call.end = entry.endedAt;
+            call.durationSec = entry.durationSec;
+            // From the first ring, like the call log, so a long unanswered ring still matches its row
+            call.start = entry.startedAt > 0 ? entry.startedAt : entry.endedAt - entry.durationSec * 1000L;
+            if (call.end < fromMs || call.start > toMs) continue;
+            call.type = entry.callType != null ? entry.callType.toUpperCase(Locale.ROOT) : "UNKNOWN";
+            call.journalId = entry.callId;
+            call.fromJournal = true;
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    static File recordingsDir(Context context) {
+        return new File(context.getExternalFilesDir(null), "recordings");
+    }
+
+    private static List<Recording> recordings(Context context, long fromMs, long toMs, Set<String> keys) {
+        List<Recording> recordings = new ArrayList<>();
+        File[] files = recordingsDir(context).listFiles();
+        if (files == null) return recordings;
+        for (File f : files) {
+            // Call_<number>_<startMillis>.mp4
+            String name = f.getName();
+            if (!name.startsWith("Call_") || !name.endsWith(".mp4")) continue;
+            int sep = name.lastIndexOf('_');
+            if (sep <= 5) continue;
+            long start;
+            try {
+                start = Long.parseLong(name.substring(sep + 1, name.length() - 4));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            long end = Math.max(start, f.lastModified());
+            if (end < fromMs || start > toMs) continue;
+
+            String key = PhoneNumbers.key(name.substring(5, sep));
+            if (keys != null && key != null && !keys.contains(key)) continue;
+            Recording rec = new Recording();
+            rec.key = key != null ? key : NO_KEY;
+            rec.start = start;
+            rec.end = end;
+            rec.path = f.getAbsolutePath();
+            recordings.add(rec);
+        }
+        return recordings;
+    }
+}
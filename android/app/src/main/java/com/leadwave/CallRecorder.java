@@ -0,0 +1,321 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.media.MediaRecorder;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CallRecorder
+ *
+ * Owns the one MediaRecorder used for call audio. Every prepare/start/stop/
+ * release, the recordings directory and the current file path are handled on
+ * a single "call-recorder" thread, so telephony callbacks on the main thread
+ * only queue work and return. CallService (default dialer) and the manual
+ * path used from PhoneModule's listener both go through here; whoever starts
+ * or stops gets the outcome through a {@link Callback} on the recorder
+ * thread, where it builds its events.
+ *
+ * Health probe: some OEMs start the recorder fine and then capture silence.
+ * While recording, getMaxAmplitude() is sampled every PROBE_INTERVAL_MS.
+ * If a segment stays flat for SILENT_SAMPLES samples in a row from its
+ * start, it is closed, marked silent, and recording carries on in a new
+ * segment (a new Call_ file) with the next untried audio source. A file that
+ * ends up flat overall is marked too. Marks are empty files of the same name
+ * in recordings/.silent; {@link #isSilent} reads them so uploads can skip
+ * dead audio. Marked files stay on disk: the probe is a heuristic, and a
+ * quiet call that trips it must not lose its recording.
+ *
+ * State below is only touched on the recorder thread.
+ */
+public final class CallRecorder {
+
+    private static final String TAG = "CallRecorder";
+
+    public interface Callback {
+        /** path of the started/finished file, or null with error (start) / nothing recorded (stop). */
+        void onResult(String path, String error);
+    }
+
+    private static final ExecutorService defaultExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "call-recorder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Only posts probe ticks onto the recorder thread
+    private static final ScheduledExecutorService probeTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "call-recorder-probe");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static final long PROBE_INTERVAL_MS = 1_000;
+    // Flat this long from a segment's start means the source captures nothing
+    static final int SILENT_SAMPLES = 8;
+    // getMaxAmplitude() peak (0..32767) below which a sample counts as flat
+    static final int SILENCE_THRESHOLD = 120;
+    // Tried mid-call after the caller's sources, when not among them already
+    private static final int[] EXTRA_SOURCES = {MediaRecorder.AudioSource.VOICE_RECOGNITION};
+
+    private static volatile Executor executor = defaultExecutor;
+    private static volatile boolean probing = true;
+
+    // Recorder thread only
+    private static MediaRecorder recorder;
+    private static String path;
+    private static Context appContext;
+    private static String callNumber;
+    private static int[] pendingSources = new int[0];
+    private static int source;
+    private static ScheduledFuture<?> probe;
+    private static int samples;
+    private static int flatRun;
+    private static int peak;
+    // Last segment when a mid-call switch found no source that opens
+    private static String orphan;
+
+    private CallRecorder() {}
+
+    /**
+     * Starts recording to recordings/Call_<number>_<time>.mp4, trying each
+     * audio source in order. Does nothing (and does not call back) when a
+     * recording is already running.
+     */
+    public static void start(final Context context, final String number, final int[] sources, final Callback done) {
+        executor.execute(() -> {
+            if (recorder != null) return;
+            File dir = new File(context.getExternalFilesDir(null), "recordings");
+            if (!dir.exists()) dir.mkdirs();
+            String target = new File(dir, "Call_" + (number != null ? number : "unknown") + "_"
+                + CallEvents.now() + ".mp4").getAbsolutePath();
+
+            for (int i = 0; i < sources.length; i++) {
+                if (i > 0) Log.w(TAG, "Audio source " + sources[i - 1] + " failed, trying " + sources[i]);
+                if (open(sources[i], target, number)) {
+                    path = target;
+                    orphan = null;
+                    appContext = context.getApplicationContext();
+                    callNumber = number;
+                    pendingSources = fallbacks(sources, i);
+                    startProbe();
+                    if (done != null) done.onResult(target, null);
+                    return;
+                }
+            }
+            Log.e(TAG, "All recording sources failed");
+            if (done != null) done.onResult(null, "Failed to start recording with audio sources " + describe(sources));
+        });
+    }
+
+    /** Stops the running recording; the callback gets its path, or null when nothing was recording. */
+    public static void stop(final Callback done) {
+        executor.execute(() -> {
+            String finished = close();
+            if (finished == null) finished = orphan;
+            orphan = null;
+            if (done != null) done.onResult(finished, null);
+        });
+    }
+
+    /** True when the file was marked as captured silence. */
+    public static boolean isSilent(String filePath) {
+        if (filePath == null) return false;
+        File file = new File(filePath);
+        return file.getParentFile() != null && marker(file).exists();
+    }
+
+    private static boolean open(int audioSource, String target, String number) {
+        long started = System.nanoTime();
+        MediaRecorder r = new MediaRecorder();
+        try {
+            r.setAudioSource(audioSource);
+            r.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4);
+            r.setAudioEncoder(MediaRecorder.AudioEncoder.AAC);
+            r.setOutputFile(target);
+            r.prepare();
+            r.start();
+            recorder = r;
+            source = audioSource;
+            samples = 0;
+            flatRun = 0;
+            peak = 0;
+            // The first reading covers everything since start; take it as the baseline
+            r.getMaxAmplitude();
+            FlightRecorder.record(FlightRecorder.SRC_RECORDER, FlightRecorder.EV_REC_START, audioSource, number,
+                FlightRecorder.micros(started));
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to init recorder with source: " + audioSource, e);
+            FlightRecorder.record(FlightRecorder.SRC_RECORDER, FlightRecorder.EV_REC_FAILED, audioSource, number,
+                FlightRecorder.micros(started));
+            try {
+                r.reset();
+                r.release();
+            } catch (Exception ignored) {
+                // Already unusable
+            }
+            return false;
+        }
+    }
+
+    private static String close() {
+        if (recorder == null) return null;
+        stopProbe();
+        long started = System.nanoTime();
+        String finished = path;
+        // Flat from start to end (and long enough to tell)
+        boolean silent = samples >= SILENT_SAMPLES && peak < SILENCE_THRESHOLD;
+        try {
+            recorder.stop();
+        } catch (Exception e) {
+            // Stopped right after start: no valid audio was written
+            Log.e(TAG, "Error stopping recorder", e);
+        } finally {
+            try {
+                recorder.reset();
+                recorder.release();
+            } catch (Exception e) {
+                Log.e(TAG, "Error releasing recorder", e);
+            }
+            recorder = null;
+            path = null;
+            FlightRecorder.record(FlightRecorder.SRC_RECORDER, FlightRecorder.EV_REC_STOP, 0, -1L,
+                FlightRecorder.micros(started));
+        }
+        if (silent) markSilent(finished, peak);
+        return finished;
+    }
+
+    // ── Health probe (recorder thread) ─────────────────────────────────────
+
+    private static void startProbe() {
+        stopProbe();
+        if (!probing) return;
+        probe = probeTimer.scheduleAtFixedRate(() -> executor.execute(CallRecorder::sample),
+            PROBE_INTERVAL_MS, PROBE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void stopProbe() {
+        if (probe != null) {
+            probe.cancel(false);
+            probe = null;
+        }
+    }
+
+    /** One probe tick: reads the peak since the last tick and switches source on a flat start. */
+    @VisibleForTesting
+    static void sample() {
+        if (recorder == null) return;
+        int amplitude;
+        try {
+            amplitude = recorder.getMaxAmplitude();
+        } catch (RuntimeException e) {
+            // Recorder in a bad state; stop() deals with it
+            return;
+        }
+        samples++;
+        peak = Math.max(peak, amplitude);
+        flatRun = amplitude < SILENCE_THRESHOLD ? flatRun + 1 : 0;
+        // Only a segment that has been flat since its start is judged; silence later on is the call
+        if (flatRun < SILENT_SAMPLES || samples != flatRun || pendingSources.length == 0) return;
+
+        int next = pendingSources[0];
+        int[] rest = new int[pendingSources.length - 1];
+        System.arraycopy(pendingSources, 1, rest, 0, rest.length);
+        Log.w(TAG, "Audio source " + source + " is silent, switching to " + next);
+
+        String number = callNumber;
+        Context context = appContext;
+        String dead = close();
+        if (dead != null && !isSilent(dead)) markSilent(dead, peak);
+
+        String target = new File(dead != null ? new File(dead).getParentFile() : new File(context.getExternalFilesDir(null), "recordings"),
+            "Call_" + (number != null ? number : "unknown") + "_" + CallEvents.now() + ".mp4").getAbsolutePath();
+        pendingSources = rest;
+        while (!open(next, target, number)) {
+            if (pendingSources.length == 0) {
+                // Nothing else opens: the silent file stays the call's recording
+                orphan = dead;
+                return;
+            }
+            next = pendingSources[0];
+            rest = new int[pendingSources.length - 1];
+            System.arraycopy(pendingSources, 1, rest, 0, rest.length);
+            pendingSources = rest;
+        }
+        path = target;
+        appContext = context;
+        callNumber = number;
+        startProbe();
+    }
+
+    /** Sources after the one that opened, then EXTRA_SOURCES not among them. */
+    private static int[] fallbacks(int[] sources, int opened) {
+        int[] out = new int[sources.length - opened - 1 + EXTRA_SOURCES.length];
+        int n = 0;
+        for (int i = opened + 1; i < sources.length; i++) out[n++] = sources[i];
+        for (int extra : EXTRA_SOURCES) {
+            boolean listed = false;
+            for (int s : sources) listed |= s == extra;
+            if (!listed) out[n++] = extra;
+        }
+        int[] trimmed = new int[n];
+        System.arraycopy(out, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    private static File marker(File file) {
+        return new File(new File(file.getParentFile(), ".silent"), file.getName());
+    }
+
+    private static void markSilent(String filePath, int peakAmplitude) {
+        if (filePath == null) return;
+        File mark = marker(new File(filePath));
+        File dir = mark.getParentFile();
+        if (dir != null && !dir.exists()) dir.mkdirs();
+        try {
+            mark.createNewFile();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not mark " + filePath + " as silent", e);
+        }
+        FlightRecorder.record(FlightRecorder.SRC_RECORDER, FlightRecorder.EV_REC_SILENT, source, -1L, peakAmplitude);
+    }
+
+    private static String describe(int[] sources) {
+        StringBuilder sb = new StringBuilder();
+        for (int source : sources) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(source == MediaRecorder.AudioSource.VOICE_COMMUNICATION ? "VOICE_COMMUNICATION"
+                : source == MediaRecorder.AudioSource.MIC ? "MIC" : String.valueOf(source));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs recorder work on the given executor instead (the trace replay
+     * tests use the calling thread), or on the recorder thread again for
+     * null. Drops any recorder left over from the previous trace.
+     */
+    @VisibleForTesting
+    static void install(Executor testExecutor) {
+        executor = testExecutor != null ? testExecutor : defaultExecutor;
+        // Ticks from the timer thread would race the test's own thread; tests call sample()
+        probing = testExecutor == null;
+        stopProbe();
+        recorder = null;
+        path = null;
+        orphan = null;
+        pendingSources = new int[0];
+    }
+}
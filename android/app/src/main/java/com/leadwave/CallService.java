@@ -5,14 +5,13 @@ import android.os.Bundle;
 import android.telecom.Call;
 import android.telecom.InCallService;
 import android.util.Log;
-import com.facebook.react.bridge.UiThreadUtil;
-import com.facebook.react.bridge.Arguments;
+import androidx.annotation.VisibleForTesting;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 public class CallService extends InCallService {
-    public static CallService instance;
+    // Set on the main thread, read from the JS module thread
+    public static volatile CallService instance;
     public Call currentCall;
 
     public static ReactApplicationContext reactContext;
@@ -24,6 +23,17 @@ public class CallService extends InCallService {
         this.currentCall = call;
         instance = this;
         call.registerCallback(callCallback);
+        FlightRecorder.record(FlightRecorder.SRC_SERVICE, FlightRecorder.EV_CALL_ADDED, call.getState(), numberOf(call), 0);
+        if (call.getState() != Call.STATE_RINGING) {
+            String number = numberOf(call);
+            if (DncStore.get(this).isBlocked(number)) {
+                // Dialled from outside the app (or a stale screen): never let it connect
+                FlightRecorder.record(FlightRecorder.SRC_SERVICE, FlightRecorder.EV_DNC, 1, number, 0);
+                call.disconnect();
+            } else {
+                CallPlacer.onDialing(number);
+            }
+        }
         
         // Notify React Native
         sendEvent("CallAdded", getCallParams(call));
@@ -40,135 +50,109 @@ public class CallService extends InCallService {
     @Override
     public void onCallRemoved(Call call) {
         super.onCallRemoved(call);
+        handleCallRemoved(numberOf(call));
+        call.unregisterCallback(callCallback);
+    }
+
+    @VisibleForTesting
+    void handleCallRemoved(final String phoneNumber) {
         currentCall = null;
-        stopRecording();
-        
-        WritableMap params = Arguments.createMap();
-        if (lastRecordingPath != null) {
-            params.putString("recordingPath", lastRecordingPath);
-
-            // Start Headless JS Task for upload
-            Intent service = new Intent(this, RecordingUploadTaskService.class);
-            Bundle bundle = new Bundle();
-            bundle.putString("path", lastRecordingPath);
-            if (call.getDetails() != null && call.getDetails().getHandle() != null) {
-                 bundle.putString("phoneNumber", call.getDetails().getHandle().getSchemeSpecificPart());
+        // CallRemoved goes out once the recorder thread has finalised the file
+        CallRecorder.stop((stopped, error) -> {
+            String path = stopped != null ? stopped : finishedPath;
+            finishedPath = null;
+            FlightRecorder.record(FlightRecorder.SRC_SERVICE, FlightRecorder.EV_CALL_REMOVED,
+                path != null ? 1 : 0, phoneNumber, 0);
+
+            WritableMap params = CallEvents.newMap();
+            if (path != null) {
+                params.putString("recordingPath", path);
+                boolean silent = CallRecorder.isSilent(path);
+                if (silent) params.putBoolean("recordingSilent", true);
+
+                // Start Headless JS Task for upload
+                Intent service = new Intent(this, RecordingUploadTaskService.class);
+                Bundle bundle = new Bundle();
+                bundle.putString("path", path);
+                bundle.putBoolean("silent", silent);
+                if (phoneNumber != null) {
+                     bundle.putString("phoneNumber", phoneNumber);
+                }
+                service.putExtras(bundle);
+                this.startService(service);
             }
-            service.putExtras(bundle);
-            this.startService(service);
-        }
-        sendEvent("CallRemoved", params);
-        call.unregisterCallback(callCallback);
+            sendEvent("CallRemoved", params);
+        });
+        PowerDialer.notifyCallEnded(phoneNumber);
     }
 
-    private android.media.MediaRecorder recorder;
-    private boolean isRecording = false;
-    private String lastRecordingPath = null; // Added this line
+    // File stopped at STATE_DISCONNECTED, reported with CallRemoved; recorder thread only
+    private String finishedPath;
 
     private final Call.Callback callCallback = new Call.Callback() {
         @Override
         public void onStateChanged(Call call, int state) {
-            Log.d("CallService", "onStateChanged: " + state);
-            WritableMap params = getCallParams(call);
-            sendEvent("CallStateChanged", params);
-            
-            if (state == Call.STATE_ACTIVE) {
-                startRecording(call);
-            } else if (state == Call.STATE_DISCONNECTED) {
-                stopRecording();
-            }
+            onCallStateChanged(call, state);
         }
     };
 
-    private void startRecording(Call call) {
-        if (isRecording) return;
-        
-        String number = "unknown";
-        if (call.getDetails() != null && call.getDetails().getHandle() != null) {
-             number = call.getDetails().getHandle().getSchemeSpecificPart();
-        }
-        
-        // File path: Internal storage or scoped storage
-        java.io.File dir = new java.io.File(getExternalFilesDir(null), "recordings");
-        if (!dir.exists()) dir.mkdirs();
-        
-        String fileName = "Call_" + number + "_" + System.currentTimeMillis() + ".mp4";
-        java.io.File file = new java.io.File(dir, fileName);
-        String finalPath = file.getAbsolutePath();
-
-        if (initRecorder(android.media.MediaRecorder.AudioSource.VOICE_COMMUNICATION, finalPath)) {
-            isRecording = true;
-            notifyRecordingStart(true, finalPath, null);
-            return;
-        }
+    @VisibleForTesting
+    void onCallStateChanged(Call call, int state) {
+        Log.d("CallService", "onStateChanged: " + state);
+        long started = System.nanoTime();
+        WritableMap params = getCallParams(call, state);
+        sendEvent("CallStateChanged", params);
 
-        Log.w("CallService", "VOICE_COMMUNICATION failed, trying MIC");
-        
-        if (initRecorder(android.media.MediaRecorder.AudioSource.MIC, finalPath)) {
-            isRecording = true;
-            notifyRecordingStart(true, finalPath, null);
-        } else {
-             Log.e("CallService", "All recording sources failed");
-             notifyRecordingStart(false, null, "Failed to start recording with both VOICE_COMMUNICATION and MIC");
+        if (state == Call.STATE_ACTIVE) {
+            startRecording(call);
+        } else if (state == Call.STATE_DISCONNECTED) {
+            stopRecording();
         }
+        FlightRecorder.record(FlightRecorder.SRC_SERVICE, FlightRecorder.EV_STATE, state, numberOf(call),
+            FlightRecorder.micros(started));
     }
 
-    private boolean initRecorder(int audioSource, String path) {
-        try {
-            recorder = new android.media.MediaRecorder();
-            recorder.setAudioSource(audioSource);
-            recorder.setOutputFormat(android.media.MediaRecorder.OutputFormat.MPEG_4);
-            recorder.setAudioEncoder(android.media.MediaRecorder.AudioEncoder.AAC);
-            recorder.setOutputFile(path);
-            recorder.prepare();
-            recorder.start();
-            return true;
-        } catch (Exception e) {
-            Log.e("CallService", "Failed to init recorder with source: " + audioSource, e);
-            if (recorder != null) {
-                recorder.reset();
-                recorder.release();
-                recorder = null;
-            }
-            return false;
-        }
+    private void startRecording(Call call) {
+        CallRecorder.start(this, numberOf(call), SERVICE_SOURCES, CallService::notifyRecordingStart);
     }
 
-    private void notifyRecordingStart(boolean success, String path, String error) {
-        WritableMap params = Arguments.createMap();
-        params.putBoolean("isRecording", success);
-        if (success) {
+    private static void notifyRecordingStart(String path, String error) {
+        WritableMap params = CallEvents.newMap();
+        params.putBoolean("isRecording", path != null);
+        if (path != null) {
             params.putString("path", path);
         } else {
              params.putString("error", error);
         }
-        sendEvent("RecordingState", params);
+        emitStaticEvent("RecordingState", params);
     }
 
+    /** Stops the recording without an event; handleCallRemoved reports the file. */
     private void stopRecording() {
-        if (!isRecording || recorder == null) return;
-        try {
-            recorder.stop();
-        } catch (Exception e) {
-            Log.e("CallService", "Error stopping recorder", e);
-        } finally {
-            try {
-                recorder.reset();
-                recorder.release();
-            } catch (Exception e) {
-                Log.e("CallService", "Error releasing recorder", e);
-            }
-            recorder = null;
-            isRecording = false;
+        CallRecorder.stop((path, error) -> {
+            if (path != null) finishedPath = path;
+        });
+    }
+
+    /** The call's number (tel: handle), or null. */
+    private static String numberOf(Call call) {
+        if (call != null && call.getDetails() != null && call.getDetails().getHandle() != null) {
+            return call.getDetails().getHandle().getSchemeSpecificPart();
         }
+        return null;
     }
 
     private WritableMap getCallParams(Call call) {
-        WritableMap params = Arguments.createMap();
-        params.putInt("state", call.getState());
+        return getCallParams(call, call.getState());
+    }
+
+    private WritableMap getCallParams(Call call, int state) {
+        WritableMap params = CallEvents.newMap();
+        params.putInt("state", state);
         
-        if (call.getDetails() != null && call.getDetails().getHandle() != null) {
-             params.putString("number", call.getDetails().getHandle().getSchemeSpecificPart());
+        String number = numberOf(call);
+        if (number != null) {
+             params.putString("number", number);
         }
         return params;
     }
@@ -193,81 +177,43 @@ public class CallService extends InCallService {
         }
     }
 
-    private static android.media.MediaRecorder manualRecorder;
-    private static String manualPath;
+    // Voice channel first; MIC when the device does not allow it to third parties
+    private static final int[] SERVICE_SOURCES = {
+        android.media.MediaRecorder.AudioSource.VOICE_COMMUNICATION,
+        android.media.MediaRecorder.AudioSource.MIC
+    };
+    // Use MIC for wider compatibility
+    private static final int[] MANUAL_SOURCES = {android.media.MediaRecorder.AudioSource.MIC};
 
     private static void startRecordingWithContext(String number) {
         if (reactContext == null) return;
-        try {
-            java.io.File dir = new java.io.File(reactContext.getExternalFilesDir(null), "recordings");
-            if (!dir.exists()) dir.mkdirs();
-            String fileName = "Call_" + (number != null ? number : "unknown") + "_" + System.currentTimeMillis() + ".mp4";
-            java.io.File file = new java.io.File(dir, fileName);
-            manualPath = file.getAbsolutePath();
-
-            manualRecorder = new android.media.MediaRecorder();
-            manualRecorder.setAudioSource(android.media.MediaRecorder.AudioSource.MIC); // Use MIC for wider compatibility
-            manualRecorder.setOutputFormat(android.media.MediaRecorder.OutputFormat.MPEG_4);
-            manualRecorder.setAudioEncoder(android.media.MediaRecorder.AudioEncoder.AAC);
-            manualRecorder.setOutputFile(manualPath);
-            manualRecorder.prepare();
-            manualRecorder.start();
-
-            WritableMap params = Arguments.createMap();
-            params.putBoolean("isRecording", true);
-            params.putString("path", manualPath);
-            emitStaticEvent("RecordingState", params);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        CallRecorder.start(reactContext, number, MANUAL_SOURCES, (path, error) -> {
+            if (path != null) notifyRecordingStart(path, null);
+        });
     }
 
     private static void stopRecordingContext() {
-        if (manualRecorder != null) {
-            try {
-                manualRecorder.stop();
-            } catch (Exception e) {
-                Log.e("CallService", "Error stopping manual recorder", e);
-            } finally {
-                try {
-                    manualRecorder.reset();
-                    manualRecorder.release();
-                } catch (Exception e) {
-                   Log.e("CallService", "Error resetting manual recorder", e);
-                }
-                manualRecorder = null;
-                
-                WritableMap params = Arguments.createMap();
-                params.putString("recordingPath", manualPath);
-                emitStaticEvent("CallRemoved", params);
-            }
-        }
+        CallRecorder.stop((path, error) -> {
+            if (path == null) return;
+            WritableMap params = CallEvents.newMap();
+            params.putString("recordingPath", path);
+            if (CallRecorder.isSilent(path)) params.putBoolean("recordingSilent", true);
+            emitStaticEvent("CallRemoved", params);
+        });
     }
 
     private static void emitStaticEvent(final String eventName, final WritableMap params) {
-        if (reactContext != null) {
-            UiThreadUtil.runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    if (reactContext.hasActiveCatalystInstance()) {
-                        reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, params);
-                    }
-                }
-            });
-        }
+        CallEvents.emit(reactContext, eventName, params);
     }
 
     private void sendEvent(final String eventName, final WritableMap params) {
-        if (reactContext != null) {
-            UiThreadUtil.runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    if (reactContext.hasActiveCatalystInstance()) {
-                        reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(eventName, params);
-                    }
-                }
-            });
-        }
+        CallEvents.emit(reactContext, eventName, params);
+    }
+
+    /** Drops the static service state between replayed traces. */
+    @VisibleForTesting
+    static void resetStatic() {
+        instance = null;
     }
 
     // Static methods for PhoneModule to call
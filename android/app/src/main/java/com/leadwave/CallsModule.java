@@ -0,0 +1,239 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CallsModule
+ *
+ * JS entry point for call-log queries that need native joins. Results are
+ * JSON strings parsed by src/services/CallLogService.ts.
+ *
+ * Exports run on their own thread so a long export does not hold up the
+ * queries; they emit "CallLogExportProgress" { id, rows, total }.
+ *
+ * getCallsForLead reads {@link CallIndex} instead of the device log.
+ *
+ * Log sync: scheduleLogSync/cancelLogSync drive {@link LogSyncJob};
+ * syncLogsNow runs one {@link LogSyncer} pass right away.
+ */
+public class CallsModule extends ReactContextBaseJavaModule {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final ExecutorService exportExecutor = Executors.newSingleThreadExecutor();
+    private static final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+    // Running (or queued) exports by id, for cancelExport
+    private static final Map<String, AtomicBoolean> exports = new ConcurrentHashMap<>();
+
+    public CallsModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        CallIndex.get(reactContext).start();
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "CallsModule";
+    }
+
+    /**
+     * Reconciled calls in [fromMs, toMs], newest first (see {@link CallReconciler}).
+     * numbers may be null for every number.
+     */
+    @ReactMethod
+    public void reconcile(final double fromMs, final double toMs, final ReadableArray numbers, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    List<String> filter = null;
+                    if (numbers != null) {
+                        filter = new ArrayList<>(numbers.size());
+                        for (int i = 0; i < numbers.size(); i++) {
+                            String n = numbers.getString(i);
+                            if (n != null) filter.add(n);
+                        }
+                    }
+                    List<CallReconciler.Call> calls = CallReconciler.reconcile(
+                        getReactApplicationContext(), (long) fromMs, (long) toMs, filter);
+                    promise.resolve(CallReconciler.toJson(calls));
+                } catch (SecurityException e) {
+                    promise.reject("ERR_PERMISSION", "READ_CALL_LOG not granted", e);
+                } catch (Exception e) {
+                    promise.reject("ERR_RECONCILE", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * CallLog.Calls rows with DATE in [minTs, maxTs], newest first, with
+     * contact names already resolved (see {@link CallLogPage}).
+     */
+    @ReactMethod
+    public void loadCallLogs(final double minTs, final double maxTs, final int limit, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(CallLogPage.load(getReactApplicationContext(), (long) minTs, (long) maxTs, limit));
+                } catch (SecurityException e) {
+                    promise.reject("ERR_PERMISSION", "READ_CALL_LOG not granted", e);
+                } catch (Exception e) {
+                    promise.reject("ERR_CALL_LOG", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * A lead's on-device calls before beforeTs (0 = now), newest first, at
+     * most limit, from {@link CallIndex}. Page with the last row's timestamp.
+     */
+    @ReactMethod
+    public void getCallsForLead(final String leadId, final int limit, final double beforeTs, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(CallIndex.get(getReactApplicationContext())
+                        .callsForLead(leadId, limit, (long) beforeTs));
+                } catch (SecurityException e) {
+                    promise.reject("ERR_PERMISSION", "READ_CALL_LOG not granted", e);
+                } catch (Exception e) {
+                    promise.reject("ERR_CALL_INDEX", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Streams CallLog rows in [fromMs, toMs] to a file (see {@link CallLogExport}).
+     * format: "csv" or "ndjson". Resolves { path, rows, bytes, ms } as JSON;
+     * rejects with ERR_CANCELLED after cancelExport(id).
+     */
+    @ReactMethod
+    public void exportCallLog(final String id, final double fromMs, final double toMs, final String format,
+                              final boolean gzip, final Promise promise) {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        exports.put(id, cancelled);
+        exportExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    CallLogExport.Result result = CallLogExport.export(getReactApplicationContext(),
+                        (long) fromMs, (long) toMs, format, gzip, cancelled, new CallLogExport.Progress() {
+                            @Override
+                            public void onProgress(int rows, int total) {
+                                WritableMap params = Arguments.createMap();
+                                params.putString("id", id);
+                                params.putInt("rows", rows);
+                                params.putInt("total", total);
+                                sendEvent("CallLogExportProgress", params);
+                            }
+                        });
+                    JSONObject out = new JSONObject();
+                    out.put("path", result.path);
+                    out.put("rows", result.rows);
+                    out.put("bytes", result.bytes);
+                    out.put("ms", result.ms);
+                    promise.resolve(out.toString());
+                } catch (CallLogExport.CancelledException e) {
+                    promise.reject("ERR_CANCELLED", e);
+                } catch (SecurityException e) {
+                    promise.reject("ERR_PERMISSION", "READ_CALL_LOG not granted", e);
+                } catch (Exception e) {
+                    promise.reject("ERR_EXPORT", e);
+                } finally {
+                    exports.remove(id);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void cancelExport(String id) {
+        AtomicBoolean cancelled = exports.get(id);
+        if (cancelled != null) cancelled.set(true);
+    }
+
+    /** Stores the user and (re)schedules the periodic sync; resolves false without JobScheduler. */
+    @ReactMethod
+    public void scheduleLogSync(String userId, double intervalMs, Promise promise) {
+        LogSyncer.setUser(getReactApplicationContext(), userId);
+        promise.resolve(LogSyncJob.schedule(getReactApplicationContext(), (long) intervalMs));
+    }
+
+    /** Logout: stops the job and forgets the user (watermarks are kept per user). */
+    @ReactMethod
+    public void cancelLogSync() {
+        LogSyncJob.cancel(getReactApplicationContext());
+        LogSyncer.setUser(getReactApplicationContext(), null);
+    }
+
+    /** One pass now; resolves { chunks, rows, watermark, more } as JSON. */
+    @ReactMethod
+    public void syncLogsNow(final Promise promise) {
+        syncExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(LogSyncer.sync(getReactApplicationContext(), null).toJson().toString());
+                } catch (SecurityException e) {
+                    promise.reject("ERR_PERMISSION", "READ_CALL_LOG not granted", e);
+                } catch (Exception e) {
+                    promise.reject("ERR_LOG_SYNC", e);
+                }
+            }
+        });
+    }
+
+    /** { userId, watermark, lastRun } as JSON. */
+    @ReactMethod
+    public void getLogSyncStatus(Promise promise) {
+        try {
+            promise.resolve(LogSyncer.status(getReactApplicationContext()).toString());
+        } catch (Exception e) {
+            promise.reject("ERR_LOG_SYNC", e);
+        }
+    }
+
+    // Required for NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {}
+
+    @ReactMethod
+    public void removeListeners(double count) {}
+
+    private void sendEvent(final String eventName, final WritableMap params) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (context.hasActiveCatalystInstance()) {
+                    context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(eventName, params);
+                }
+            }
+        });
+    }
+}
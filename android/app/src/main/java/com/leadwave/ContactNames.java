@@ -0,0 +1,127 @@
+package com.leadwave;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.util.Log;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ContactNames
+ *
+ * Resolves phone numbers to contact display names in batches. Each distinct
+ * number (by last-10-digit key) costs at most one PhoneLookup query until the
+ * contacts change; hits and misses both go into a bounded LRU, which a
+ * ContentObserver on ContactsContract empties whenever a contact is added,
+ * renamed or removed.
+ */
+public final class ContactNames {
+
+    private static final String TAG = "ContactNames";
+
+    private static final int MAX_ENTRIES = 2000;
+    // Cached "not a contact" marker, so unsaved numbers are not looked up again
+    private static final String NO_NAME = "";
+
+    private static final Map<String, String> cache = new LinkedHashMap<String, String>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static boolean observing = false;
+    // Bumped on every contacts change; a lookup that raced a change is not cached
+    private static int generation = 0;
+    private static final AtomicInteger lookups = new AtomicInteger();
+
+    private ContactNames() {}
+
+    public static boolean canRead(Context context) {
+        return context.checkSelfPermission(Manifest.permission.READ_CONTACTS) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Names for the given numbers, keyed by the raw number passed in. Numbers
+     * that are not saved contacts are left out. Blocking; call off the UI thread.
+     */
+    public static Map<String, String> resolve(Context context, Collection<String> numbers) {
+        Map<String, String> result = new HashMap<>();
+        if (!canRead(context)) return result;
+        observe(context);
+
+        Map<String, String> byKey = new HashMap<>();
+        for (String number : numbers) {
+            String key = PhoneNumbers.key(number);
+            if (key == null) continue;
+
+            String name;
+            if (byKey.containsKey(key)) {
+                name = byKey.get(key);
+            } else {
+                int seen;
+                synchronized (cache) {
+                    name = cache.get(key);
+                    seen = generation;
+                }
+                if (name == null) {
+                    name = lookup(context, number);
+                    synchronized (cache) {
+                        if (seen == generation) cache.put(key, name);
+                    }
+                }
+                byKey.put(key, name);
+            }
+            if (!NO_NAME.equals(name)) result.put(number, name);
+        }
+        return result;
+    }
+
+    public static void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+            generation++;
+        }
+    }
+
+    /** PhoneLookup queries issued since process start. */
+    public static int lookupCount() {
+        return lookups.get();
+    }
+
+    private static String lookup(Context context, String number) {
+        lookups.incrementAndGet();
+        Uri uri = Uri.withAppendedPath(ContactsContract.PhoneLookup.CONTENT_FILTER_URI, Uri.encode(number));
+        try (Cursor c = context.getContentResolver().query(uri,
+                new String[]{ContactsContract.PhoneLookup.DISPLAY_NAME}, null, null, null)) {
+            if (c != null && c.moveToFirst()) {
+                String name = c.getString(0);
+                return name != null ? name : NO_NAME;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "PhoneLookup failed: " + e.getMessage());
+        }
+        return NO_NAME;
+    }
+
+    private static synchronized void observe(Context context) {
+        if (observing) return;
+        observing = true;
+        context.getApplicationContext().getContentResolver().registerContentObserver(
+            ContactsContract.Contacts.CONTENT_URI, true, new ContentObserver(null) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    invalidate();
+                }
+            });
+    }
+}
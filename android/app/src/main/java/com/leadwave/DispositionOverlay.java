@@ -0,0 +1,328 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.PixelFormat;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.Gravity;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.EditText;
+import android.widget.RadioButton;
+import android.widget.RadioGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DispositionOverlay
+ *
+ * Quick disposition over whatever app is in front once a call with a stored
+ * lead ends: status, note and follow-up, saved straight into the
+ * {@link Outbox} (the call as POST /calls, the disposition as PUT /leads/:id,
+ * the same requests LeadDisposeScreen makes). React is never started, so the
+ * agent can dispose while the app is in the background or not running.
+ *
+ * BackgroundCallReceiver calls prepare() when a call goes off-hook, so the
+ * view is inflated during the call, and show() or skip() when it ends. The
+ * view is inflated once and rebound for every call; it is kept for LINGER_MS
+ * after a disposition so back-to-back calls reuse it, and dropped right away
+ * when a call ends without the overlay.
+ *
+ * The window is added straight from the receiver, without a foreground
+ * service: from API 35, SYSTEM_ALERT_WINDOW only lets a background app start
+ * one while an overlay window is already visible, so a PHONE_STATE receiver
+ * could not start it whenever the app is not the default dialer. A visible
+ * overlay window keeps the process perceptible while the agent disposes.
+ * The lead lookup is one indexed query, done on the receiver's thread so the
+ * window is up before onReceive returns.
+ *
+ * Needs the "display over other apps" permission; without it nothing is
+ * shown and the JS CallEndPopup covers the call as before.
+ *
+ * One disposition UI per call: nothing is prepared or shown while the app is
+ * in front (its CallEndPopup has the call) or a power-dialer session runs
+ * (its dispose screen has it), nor for do-not-call numbers. A call the overlay
+ * shows is claimed in {@link CallJournal} so the app's popup skips it.
+ * Closing the overlay or "open app" hand it back.
+ *
+ * Main thread only, apart from the Outbox writes on {@link #executor}.
+ */
+public final class DispositionOverlay {
+
+    private static final String TAG = "DispositionOverlay";
+
+    // Kept inflated this long after the last call for the next one
+    private static final long LINGER_MS = 60_000;
+
+    // Same lists as LeadDisposeScreen
+    private static final String[] CONNECTED_STATUSES = {"Interested", "Callback", "Not Interested"};
+    private static final String[] NOT_CONNECTED_STATUSES = {"No Answer", "Busy", "Switch Off", "Not Reachable"};
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private static DispositionOverlay instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable release = this::release;
+    private final WindowManager windowManager;
+    private final View overlayView;
+    private boolean attached;
+
+    // The call being disposed
+    private String leadId;
+    private String phoneNumber;
+    private int durationSec;
+    private String callType;
+    private boolean connected;
+    private long endedAt;
+
+    /** A call went off-hook: inflate now so the end of the call only binds. */
+    public static void prepare(Context context) {
+        if (!mayShow(context)) return;
+        DispositionOverlay overlay = get(context);
+        overlay.handler.removeCallbacks(overlay.release);
+        // Opens the database off the main thread ahead of show()'s lookup
+        final Context app = context.getApplicationContext();
+        executor.execute(() -> LeadStore.get(app).getReadableDatabase());
+    }
+
+    /** A call ended; shows the overlay if the number belongs to a stored lead. */
+    public static void show(Context context, String phoneNumber, int durationSec, String callType) {
+        if (!mayShow(context)) {
+            skip();
+            return;
+        }
+        JSONObject lead = null;
+        try {
+            String json = phoneNumber != null ? LeadStore.get(context).findByNumber(phoneNumber) : null;
+            if (json != null) lead = new JSONObject(json);
+        } catch (Exception e) {
+            Log.w(TAG, "Lead lookup failed: " + e.getMessage());
+        }
+        if (lead == null) {
+            // Not a lead: nothing to dispose here; the app's popup offers to add it
+            skip();
+            return;
+        }
+        DispositionOverlay overlay = get(context);
+        // Claimed before the window is up, so a popup checking right away already skips it
+        CallJournal.claimPending(context, phoneNumber, true);
+        try {
+            overlay.bind(lead, phoneNumber, durationSec, callType);
+        } catch (RuntimeException e) {
+            // Permission revoked meanwhile, or the window was refused
+            Log.w(TAG, "Overlay not shown: " + e.getMessage());
+            CallJournal.claimPending(context, phoneNumber, false);
+            skip();
+        }
+    }
+
+    /** A call ended without the overlay: drops the view prepare() inflated. */
+    public static void skip() {
+        if (instance != null && !instance.attached) instance.release();
+    }
+
+    private static boolean mayShow(Context context) {
+        return Settings.canDrawOverlays(context)
+            && !MainActivity.isInFront()
+            && !PowerDialer.isSessionActive();
+    }
+
+    private static DispositionOverlay get(Context context) {
+        if (instance == null) instance = new DispositionOverlay(context.getApplicationContext());
+        return instance;
+    }
+
+    private DispositionOverlay(Context app) {
+        context = new ContextThemeWrapper(app, R.style.AppTheme);
+        windowManager = (WindowManager) app.getSystemService(Context.WINDOW_SERVICE);
+        overlayView = LayoutInflater.from(context).inflate(R.layout.overlay_layout, null);
+        overlayView.findViewById(R.id.btnClose).setOnClickListener(v -> {
+            // Not disposed here: the app's popup offers it again
+            CallJournal.claimPending(context, phoneNumber, false);
+            dismiss();
+        });
+        overlayView.findViewById(R.id.btnSave).setOnClickListener(v -> save());
+        overlayView.findViewById(R.id.btnOpenApp).setOnClickListener(v -> openApp());
+    }
+
+    private void release() {
+        handler.removeCallbacks(release);
+        if (!attached && instance == this) instance = null;
+    }
+
+    // ── View (main thread) ─────────────────────────────────────────────────
+
+    private void bind(JSONObject lead, String number, int duration, String type) {
+        leadId = LeadStore.leadId(lead);
+        phoneNumber = number;
+        durationSec = duration;
+        callType = type != null ? type : "outgoing";
+        connected = !"missed".equals(callType) && duration > 0;
+        endedAt = System.currentTimeMillis();
+
+        String name = (lead.optString("firstName", "") + " " + lead.optString("lastName", "")).trim();
+        if (name.isEmpty()) name = lead.optString("name", number);
+        ((TextView) overlayView.findViewById(R.id.overlayTitle)).setText(name);
+        ((TextView) overlayView.findViewById(R.id.overlaySubtitle)).setText(
+            number + " · " + callType + (connected ? " · " + duration / 60 + ":" + String.format(Locale.US, "%02d", duration % 60) : ""));
+
+        RadioGroup statuses = overlayView.findViewById(R.id.overlayStatus);
+        statuses.removeAllViews();
+        for (String status : connected ? CONNECTED_STATUSES : NOT_CONNECTED_STATUSES) {
+            RadioButton button = new RadioButton(context);
+            button.setText(status);
+            button.setTag(status);
+            statuses.addView(button);
+        }
+        ((EditText) overlayView.findViewById(R.id.overlayNote)).setText("");
+        ((RadioGroup) overlayView.findViewById(R.id.overlayFollowUp)).check(R.id.followUpNone);
+
+        if (!attached) {
+            int windowType = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+                    : WindowManager.LayoutParams.TYPE_PHONE;
+            // Focusable so the note can be typed; touches outside still reach the app below
+            WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                    WindowManager.LayoutParams.MATCH_PARENT,
+                    WindowManager.LayoutParams.WRAP_CONTENT,
+                    windowType,
+                    WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL,
+                    PixelFormat.TRANSLUCENT);
+            params.gravity = Gravity.TOP;
+            params.softInputMode = WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE;
+            windowManager.addView(overlayView, params);
+            attached = true;
+        }
+    }
+
+    private void save() {
+        RadioGroup statuses = overlayView.findViewById(R.id.overlayStatus);
+        View checked = statuses.findViewById(statuses.getCheckedRadioButtonId());
+        if (checked == null || leadId == null) {
+            Toast.makeText(context, "Please select a status.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        final String status = (String) checked.getTag();
+        final String note = ((EditText) overlayView.findViewById(R.id.overlayNote)).getText().toString().trim();
+        final long followUpAt = followUpAt(((RadioGroup) overlayView.findViewById(R.id.overlayFollowUp))
+            .getCheckedRadioButtonId());
+        final String lead = leadId;
+        final String name = ((TextView) overlayView.findViewById(R.id.overlayTitle)).getText().toString();
+        final String number = phoneNumber;
+        final int duration = durationSec;
+        final String type = callType;
+        final boolean wasConnected = connected;
+        final long ended = endedAt;
+        // A second tap while the rows are written finds nothing to save
+        leadId = null;
+
+        // The window stays until the rows are on disk: it is what keeps the process up
+        executor.execute(() -> {
+            try {
+                Outbox outbox = Outbox.get(context);
+                outbox.enqueue(lead, Outbox.KIND_CALL, "POST", "/calls",
+                    callBody(lead, ended, duration, type, wasConnected, status, note), null);
+                outbox.enqueue(lead, Outbox.KIND_LEAD_STATUS, "PUT", "/leads/" + lead,
+                    statusBody(status, note, followUpAt), null);
+                // Reminder armed now rather than when the lead next syncs
+                if (followUpAt > 0) FollowUpReminders.get(context).put(lead, name, followUpAt);
+                CallJournal.clearPending(context, number);
+                PowerDialer.notifyDisposed(lead);
+            } catch (JSONException e) {
+                Log.e(TAG, "Disposition not queued", e);
+            } finally {
+                handler.post(this::dismiss);
+            }
+        });
+    }
+
+    private void openApp() {
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        if (launch != null) {
+            launch.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            context.startActivity(launch);
+        }
+        // The pending call is still journaled, so the app shows its own popup
+        CallJournal.claimPending(context, phoneNumber, false);
+        dismiss();
+    }
+
+    private void dismiss() {
+        if (attached) {
+            windowManager.removeView(overlayView);
+            attached = false;
+        }
+        leadId = null;
+        handler.removeCallbacks(release);
+        handler.postDelayed(release, LINGER_MS);
+    }
+
+    // ── Request bodies ─────────────────────────────────────────────────────
+
+    private static JSONObject callBody(String leadId, long endedAt, int duration, String type,
+                                       boolean connected, String status, String note) throws JSONException {
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        JSONObject body = new JSONObject();
+        body.put("leadId", leadId);
+        body.put("callTime", iso.format(new Date(endedAt - duration * 1000L)));
+        body.put("durationSeconds", duration);
+        body.put("callStatus", connected ? "connected" : "not_connected");
+        body.put("callType", type);
+        body.put("notes", "Dispose Status: " + status + ", Notes: " + note);
+        return body;
+    }
+
+    /** { status, notes } with notes as LeadDisposeScreen writes them (a JSON string). */
+    private static JSONObject statusBody(String status, String note, long followUpAt) throws JSONException {
+        // Date.toDateString(), as the JS form sends it
+        SimpleDateFormat dateString = new SimpleDateFormat("EEE MMM dd yyyy", Locale.US);
+        JSONObject notes = new JSONObject();
+        notes.put("description", note);
+        notes.put("expectedValue", "");
+        notes.put("followUpDate", dateString.format(new Date(followUpAt > 0 ? followUpAt : System.currentTimeMillis())));
+        if (followUpAt > 0) notes.put("followUpAt", followUpAt);
+        notes.put("disposeStatus", status);
+        JSONObject body = new JSONObject();
+        body.put("status", status);
+        body.put("notes", notes.toString());
+        return body;
+    }
+
+    private static long followUpAt(int checkedId) {
+        Calendar cal = Calendar.getInstance();
+        if (checkedId == R.id.followUpHour) {
+            cal.add(Calendar.HOUR_OF_DAY, 1);
+        } else if (checkedId == R.id.followUpTomorrow) {
+            cal.add(Calendar.DAY_OF_YEAR, 1);
+            cal.set(Calendar.HOUR_OF_DAY, 10);
+            cal.set(Calendar.MINUTE, 0);
+        } else if (checkedId == R.id.followUpDays) {
+            cal.add(Calendar.DAY_OF_YEAR, 3);
+            cal.set(Calendar.HOUR_OF_DAY, 10);
+            cal.set(Calendar.MINUTE, 0);
+        } else {
+            return 0;
+        }
+        return cal.getTimeInMillis();
+    }
+}
@@ -0,0 +1,63 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DncModule
+ *
+ * JS entry point for {@link DncStore}: pull the latest delta and check
+ * single numbers (e.g. before showing a call button). The dial paths check
+ * natively and do not depend on JS.
+ */
+public class DncModule extends ReactContextBaseJavaModule {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public DncModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "DncModule";
+    }
+
+    /** Applies the server's delta; resolves the list version now held. */
+    @ReactMethod
+    public void sync(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve((double) DncStore.get(getReactApplicationContext()).sync(getReactApplicationContext()));
+                } catch (Exception e) {
+                    promise.reject("ERR_DNC_SYNC", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void isBlocked(String phoneNumber, Promise promise) {
+        promise.resolve(DncStore.get(getReactApplicationContext()).isBlocked(phoneNumber));
+    }
+
+    /** { version, count, bytes, bloomBits } as JSON. */
+    @ReactMethod
+    public void getStatus(Promise promise) {
+        try {
+            promise.resolve(DncStore.get(getReactApplicationContext()).status().toString());
+        } catch (Exception e) {
+            promise.reject("ERR_DNC", e);
+        }
+    }
+}
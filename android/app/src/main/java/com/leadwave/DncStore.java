@@ -0,0 +1,320 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * DncStore
+ *
+ * The do-not-call list: every number as its last-10-digit key
+ * ({@link PhoneNumbers#numericKey}), sorted, in a memory-mapped file
+ * (files/dnc/dnc.bin) with a Bloom filter in front. Nothing of the list is
+ * on the Java heap; a lookup is k bit tests and, only for a filter hit, a
+ * binary search over the mapped longs (about 23 probes for 5M numbers).
+ *
+ * File (big-endian):
+ *
+ *   0  int   magic "DNC1"
+ *   4  int   k (Bloom hash count)
+ *   8  long  list version
+ *   16 long  count
+ *   24 long  m (Bloom bits, a multiple of 64)
+ *   32       Bloom filter, m / 8 bytes
+ *   ...      long[count] keys, ascending
+ *
+ * Updates come from GET /dnc/delta?since=&lt;version&gt; as a binary delta
+ * (application/octet-stream, 204 when current):
+ *
+ *   0  int   magic "DNCD"
+ *   4  int   format (1)
+ *   8  long  fromVersion (0: full list, replaces everything)
+ *   16 long  toVersion
+ *   24 int   removeCount
+ *   28 int   addCount
+ *   32       long[removeCount] ascending, then long[addCount] ascending
+ *
+ * A delta is merged with the mapped list straight from the response stream
+ * into a new file (only the removals are held in memory), which is then
+ * renamed over the old one and mapped in its place. Lookups never wait for
+ * an update.
+ */
+public final class DncStore {
+
+    private static final String TAG = "DncStore";
+
+    private static final int FILE_MAGIC = 0x444E4331;   // "DNC1"
+    private static final int DELTA_MAGIC = 0x444E4344;  // "DNCD"
+    private static final int DELTA_FORMAT = 1;
+    private static final int HEADER = 32;
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+
+    private static volatile DncStore instance;
+
+    private final File dir;
+    private final File file;
+    private volatile Snapshot snapshot;
+
+    public static synchronized DncStore get(Context context) {
+        if (instance == null) {
+            instance = new DncStore(new File(context.getFilesDir(), "dnc"));
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    DncStore(File dir) {
+        this.dir = dir;
+        this.file = new File(dir, "dnc.bin");
+        try {
+            if (file.exists()) snapshot = Snapshot.open(file);
+        } catch (IOException e) {
+            Log.w(TAG, "DNC list unreadable, starting empty", e);
+            file.delete();
+        }
+    }
+
+    /** True when the number is on the list. Never blocks. */
+    public boolean isBlocked(String phoneNumber) {
+        Snapshot s = snapshot;
+        if (s == null) return false;
+        long key = PhoneNumbers.numericKey(phoneNumber);
+        return key >= 0 && s.contains(key);
+    }
+
+    public long version() {
+        Snapshot s = snapshot;
+        return s != null ? s.version : 0;
+    }
+
+    /** { version, count, bytes, bloomBits } */
+    public JSONObject status() throws JSONException {
+        Snapshot s = snapshot;
+        JSONObject out = new JSONObject();
+        out.put("version", s != null ? s.version : 0);
+        out.put("count", s != null ? s.count : 0);
+        out.put("bytes", s != null ? file.length() : 0);
+        out.put("bloomBits", s != null ? s.bits : 0);
+        return out;
+    }
+
+    // ── Updates ────────────────────────────────────────────────────────────
+
+    /**
+     * Pulls and applies the delta since the current version. Blocking; call
+     * from a background thread. Returns the version now held.
+     */
+    public synchronized long sync(Context context) throws IOException {
+        if (ApiSession.getToken(context) == null) throw new IOException("Not logged in");
+        long since = version();
+        try {
+            return pull(context, since);
+        } catch (VersionMismatch e) {
+            // Our base is gone on the server (or never existed): take the full list
+            Log.w(TAG, "Delta does not apply to version " + since + ", fetching full list");
+            return pull(context, 0);
+        }
+    }
+
+    private long pull(Context context, long since) throws IOException {
+        Request request = new Request.Builder()
+            .url(LeadwaveHttp.url("/dnc/delta")
+                .addQueryParameter("since", String.valueOf(since))
+                .build())
+            .header("Accept", "application/octet-stream")
+            .build();
+        try (Response response = LeadwaveHttp.client(context).newCall(request).execute()) {
+            if (response.code() == 204 || response.code() == 304) return since;
+            if (response.code() == 409 && since > 0) throw new VersionMismatch();
+            if (!response.isSuccessful()) {
+                throw new IOException("GET /dnc/delta failed: HTTP " + response.code());
+            }
+            ResponseBody body = response.body();
+            if (body == null) return since;
+            apply(body.byteStream());
+            return version();
+        }
+    }
+
+    /** Applies one binary delta (format above) read from in. */
+    synchronized void apply(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (data.readInt() != DELTA_MAGIC) throw new IOException("Not a DNC delta");
+        if (data.readInt() != DELTA_FORMAT) throw new IOException("Unknown DNC delta format");
+        long from = data.readLong();
+        long to = data.readLong();
+        int removeCount = data.readInt();
+        int addCount = data.readInt();
+        if (removeCount < 0 || addCount < 0) throw new IOException("Corrupt DNC delta");
+
+        Snapshot base = from == 0 ? null : snapshot;
+        if (from != 0 && (base == null || base.version != from)) throw new VersionMismatch();
+
+        long[] removes = new long[removeCount];
+        for (int i = 0; i < removeCount; i++) removes[i] = data.readLong();
+        Arrays.sort(removes);
+
+        if (!dir.exists()) dir.mkdirs();
+        File tmp = new File(dir, "dnc.bin.tmp");
+        long maxCount = (base != null ? base.count : 0) + addCount;
+        long bits = Math.max(64, ((maxCount * BITS_PER_KEY + 63) / 64) * 64);
+        long keysOffset = HEADER + bits / 8;
+        long maxSize = keysOffset + maxCount * 8;
+        if (maxSize > Integer.MAX_VALUE) throw new IOException("DNC list too large");
+
+        long count = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(0);
+            raf.setLength(maxSize);
+            MappedByteBuffer out = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, maxSize);
+
+            // Merge the old keys and the streamed additions, both ascending
+            long oldIndex = 0;
+            long oldCount = base != null ? base.count : 0;
+            long nextOld = oldCount > 0 ? base.key(0) : Long.MAX_VALUE;
+            int addsRead = 0;
+            long nextAdd = addCount > 0 ? data.readLong() : Long.MAX_VALUE;
+            long last = -1;
+            while (nextOld != Long.MAX_VALUE || nextAdd != Long.MAX_VALUE) {
+                long key;
+                if (nextOld <= nextAdd) {
+                    key = nextOld;
+                    oldIndex++;
+                    nextOld = oldIndex < oldCount ? base.key(oldIndex) : Long.MAX_VALUE;
+                } else {
+                    key = nextAdd;
+                    addsRead++;
+                    nextAdd = addsRead < addCount ? data.readLong() : Long.MAX_VALUE;
+                }
+                if (key < last) throw new IOException("DNC delta additions are not sorted");
+                if (key == last || Arrays.binarySearch(removes, key) >= 0) continue;
+                out.putLong((int) (keysOffset + count * 8), key);
+                setBloomBits(out, bits, key);
+                last = key;
+                count++;
+            }
+
+            out.putInt(0, FILE_MAGIC);
+            out.putInt(4, HASHES);
+            out.putLong(8, to);
+            out.putLong(16, count);
+            out.putLong(24, bits);
+            out.force();
+            // Drop the slack reserved for additions that were duplicates or removed
+            raf.setLength(keysOffset + count * 8);
+        } catch (EOFException e) {
+            tmp.delete();
+            throw new IOException("Truncated DNC delta", e);
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+        snapshot = Snapshot.open(file);
+        Log.i(TAG, "DNC list at version " + to + ": " + count + " numbers");
+    }
+
+    // ── Bloom filter ───────────────────────────────────────────────────────
+
+    private static void setBloomBits(MappedByteBuffer out, long bits, long key) {
+        long h1 = mix(key);
+        long h2 = mix(key ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            int index = (int) (HEADER + (bit >>> 3));
+            out.put(index, (byte) (out.get(index) | (1 << (bit & 7))));
+        }
+    }
+
+    /** splitmix64 finaliser */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class VersionMismatch extends IOException {
+        VersionMismatch() {
+            super("DNC delta base version mismatch");
+        }
+    }
+
+    /** One mapped list file; immutable once opened. */
+    private static final class Snapshot {
+        final MappedByteBuffer buffer;
+        final long version;
+        final long count;
+        final long bits;
+        final int hashes;
+        final int keysOffset;
+
+        private Snapshot(MappedByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.capacity() < HEADER || buffer.getInt(0) != FILE_MAGIC) throw new IOException("Not a DNC list");
+            hashes = buffer.getInt(4);
+            version = buffer.getLong(8);
+            count = buffer.getLong(16);
+            bits = buffer.getLong(24);
+            keysOffset = (int) (HEADER + bits / 8);
+            if (bits <= 0 || keysOffset + count * 8 > buffer.capacity()) throw new IOException("Corrupt DNC list");
+        }
+
+        static Snapshot open(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                // The mapping stays valid after the channel is closed
+                return new Snapshot(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+            }
+        }
+
+        long key(long index) {
+            return buffer.getLong((int) (keysOffset + index * 8));
+        }
+
+        boolean contains(long key) {
+            long h1 = mix(key);
+            long h2 = mix(key ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+                if ((buffer.get((int) (HEADER + (bit >>> 3))) & (1 << (bit & 7))) == 0) return false;
+            }
+            long lo = 0;
+            long hi = count - 1;
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                long value = key(mid);
+                if (value < key) {
+                    lo = mid + 1;
+                } else if (value > key) {
+                    hi = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FlightRecorder
+ *
+ * Always-on black box for call handling. Telephony callbacks, the recorder
+ * and JS event delivery append fixed-size binary records to a ring buffer
+ * in a memory-mapped file (filesDir/flight_recorder.bin, 256 KB, the last
+ * CAPACITY events). The kernel writes the pages back, so the record
+ * survives the process being killed; a later export shows what happened
+ * around a "popup never showed" or "recording missing" report.
+ *
+ * Record (RECORD_SIZE bytes, big-endian):
+ *
+ *   0  long  wall-clock ms
+ *   8  long  sequence + 1 (0 while the slot is being written)
+ *   16 long  call key: last 10 digits of the number, -1 when unknown
+ *   24 byte  source (SRC_*)
+ *   25 byte  event (EV_*)
+ *   26 short state (TelephonyManager / Call state, or event-specific)
+ *   28 int   value: handler or delivery latency in µs, or seconds for
+ *            EV_PENDING_SAVED
+ *
+ * Writers only claim a slot with one atomic increment and then use absolute
+ * puts on their own 32 bytes: no lock, no allocation beyond the number key.
+ * The export skips slots whose sequence does not match (overwritten or
+ * torn while it was read).
+ */
+public final class FlightRecorder {
+
+    private static final String TAG = "FlightRecorder";
+
+    public static final int SRC_LISTENER = 1;   // PhoneModule's PhoneStateListener
+    public static final int SRC_RECEIVER = 2;   // BackgroundCallReceiver
+    public static final int SRC_SERVICE  = 3;   // CallService (InCallService)
+    public static final int SRC_RECORDER = 4;   // MediaRecorder, service or manual
+    public static final int SRC_BRIDGE   = 5;   // events to JS (CallEvents)
+    public static final int SRC_MODULE   = 6;   // calls from JS into PhoneModule
+
+    public static final int EV_STATE         = 1;
+    public static final int EV_CALL_ADDED    = 2;
+    public static final int EV_CALL_REMOVED  = 3;
+    public static final int EV_PENDING_SAVED = 4;
+    public static final int EV_REC_START     = 5;
+    public static final int EV_REC_STOP      = 6;
+    public static final int EV_REC_FAILED    = 7;
+    public static final int EV_EMIT          = 8;   // state = emitted event (EMITTED), value = queue-to-delivery µs
+    public static final int EV_EMIT_DROPPED  = 9;   // JS not running
+    public static final int EV_MAKE_CALL     = 10;
+    public static final int EV_DIALING       = 11;  // state = 1 placeCall / 2 ACTION_CALL, value = tap-to-dialing µs
+    public static final int EV_DNC           = 12;  // number on the do-not-call list; state = 1 dial refused / 2 call seen
+    public static final int EV_REC_SILENT    = 13;  // state = audio source, value = peak amplitude
+    public static final int EV_PREWARM       = 14;  // React host warm-up; state = ReactPrewarm.STATE_*, value per state
+
+    private static final String[] SOURCES = {"?", "listener", "receiver", "service", "recorder", "bridge", "module"};
+    private static final String[] EVENTS = {"?", "state", "call_added", "call_removed", "pending_saved",
+        "rec_start", "rec_stop", "rec_failed", "emit", "emit_dropped", "make_call", "dialing", "dnc", "rec_silent", "prewarm"};
+    private static final String[] EMITTED = {"other", "CallStateChanged", "CallEnded", "RecordingState",
+        "CallRemoved", "CallAdded"};
+
+    private static final int MAGIC = 0x4C574652; // "LWFR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 32;
+    static final int CAPACITY = 8192; // power of two
+
+    private static volatile MappedByteBuffer buffer;
+    private static final AtomicLong next = new AtomicLong();
+
+    private FlightRecorder() {}
+
+    /** Maps the file; call once from Application.onCreate. Records before that are dropped. */
+    public static synchronized void init(Context context) {
+        if (buffer != null) return;
+        File file = new File(context.getFilesDir(), "flight_recorder.bin");
+        long size = HEADER_SIZE + (long) CAPACITY * RECORD_SIZE;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+                    || map.getInt(8) != RECORD_SIZE || map.getInt(12) != CAPACITY) {
+                for (int i = 0; i < size; i += 8) map.putLong(i, 0L);
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                map.putInt(8, RECORD_SIZE);
+                map.putInt(12, CAPACITY);
+            }
+            // Continue after the newest record of the previous process
+            long last = 0;
+            for (int slot = 0; slot < CAPACITY; slot++) {
+                last = Math.max(last, map.getLong(HEADER_SIZE + slot * RECORD_SIZE + 8));
+            }
+            next.set(last);
+            buffer = map;
+        } catch (IOException e) {
+            Log.w(TAG, "Flight recorder disabled: " + e.getMessage());
+        }
+    }
+
+    public static void record(int source, int event, int state, String number, long value) {
+        if (buffer == null) return;
+        record(source, event, state, PhoneNumbers.numericKey(number), value);
+    }
+
+    public static void record(int source, int event, int state, long key, long value) {
+        MappedByteBuffer b = buffer;
+        if (b == null) return;
+        long seq = next.getAndIncrement();
+        int off = HEADER_SIZE + (int) (seq & (CAPACITY - 1)) * RECORD_SIZE;
+        b.putLong(off + 8, 0L);
+        b.putLong(off, CallEvents.now());
+        b.putLong(off + 16, key);
+        b.put(off + 24, (byte) source);
+        b.put(off + 25, (byte) event);
+        b.putShort(off + 26, (short) state);
+        b.putInt(off + 28, (int) Math.min(Integer.MAX_VALUE, Math.max(Integer.MIN_VALUE, value)));
+        b.putLong(off + 8, seq + 1);
+    }
+
+    /** Microseconds since a System.nanoTime() start, for the value field. */
+    public static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    /** Index into EMITTED for an event name sent to JS (0 = other). */
+    static int emittedCode(String eventName) {
+        for (int i = 1; i < EMITTED.length; i++) {
+            if (EMITTED[i].equals(eventName)) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * The buffered records, oldest first: a 16-byte header (magic, version,
+     * record size, count) followed by count records in the layout above.
+     */
+    public static byte[] dump() {
+        MappedByteBuffer b = buffer;
+        long end = b != null ? next.get() : 0;
+        long start = Math.max(0, end - CAPACITY);
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + (int) (end - start) * RECORD_SIZE);
+        out.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+        byte[] record = new byte[RECORD_SIZE];
+        int count = 0;
+        for (long seq = start; seq < end; seq++) {
+            int off = HEADER_SIZE + (int) (seq & (CAPACITY - 1)) * RECORD_SIZE;
+            if (b.getLong(off + 8) != seq + 1) continue;
+            for (int i = 0; i < RECORD_SIZE; i++) record[i] = b.get(off + i);
+            // Re-check: a writer may have lapped us while copying
+            if (b.getLong(off + 8) != seq + 1) continue;
+            out.put(record);
+            count++;
+        }
+        out.putInt(12, count);
+        return Arrays.copyOf(out.array(), HEADER_SIZE + count * RECORD_SIZE);
+    }
+
+    /** One line per record of a {@link #dump()}, for support tickets and logcat. */
+    public static String describe(byte[] dump) {
+        ByteBuffer in = ByteBuffer.wrap(dump);
+        int count = in.getInt(12);
+        SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        StringBuilder sb = new StringBuilder(count * 64);
+        for (int i = 0; i < count; i++) {
+            int off = HEADER_SIZE + i * RECORD_SIZE;
+            int source = in.get(off + 24);
+            int event = in.get(off + 25);
+            int state = in.getShort(off + 26);
+            long key = in.getLong(off + 16);
+            sb.append(time.format(new Date(in.getLong(off))))
+                .append(' ').append(name(SOURCES, source))
+                .append(' ').append(name(EVENTS, event));
+            if (event == EV_EMIT || event == EV_EMIT_DROPPED) {
+                sb.append(' ').append(name(EMITTED, state));
+            } else {
+                sb.append(" state=").append(state);
+            }
+            if (key >= 0) sb.append(" key=").append(String.format(Locale.US, "%010d", key));
+            sb.append(" value=").append(in.getInt(off + 28)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String name(String[] names, int code) {
+        return code >= 0 && code < names.length ? names[code] : String.valueOf(code);
+    }
+}
@@ -0,0 +1,45 @@
+package com.leadwave;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * FollowUpReceiver
+ *
+ * The single follow-up alarm ({@link FollowUpReminders#ACTION_FIRE}) and the
+ * broadcasts after which alarms must be set again: boot, app update and
+ * clock or time-zone changes. Database work runs off the main thread under
+ * goAsync().
+ */
+public class FollowUpReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "FollowUpReceiver";
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        final Context app = context.getApplicationContext();
+        final boolean fire = FollowUpReminders.ACTION_FIRE.equals(intent.getAction());
+        final PendingResult result = goAsync();
+        executor.execute(() -> {
+            try {
+                FollowUpReminders reminders = FollowUpReminders.get(app);
+                if (fire) {
+                    reminders.fire();
+                } else {
+                    reminders.rearm();
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Follow-up alarm handling failed", e);
+            } finally {
+                result.finish();
+            }
+        });
+    }
+}
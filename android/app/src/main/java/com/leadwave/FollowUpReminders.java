@@ -0,0 +1,323 @@
+package com.leadwave;
+
+import android.app.AlarmManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * FollowUpReminders
+ *
+ * Follow-up reminders with one alarm for all of them. Each lead with a
+ * follow-up has a row in the followups table of {@link LeadStore}'s database,
+ * and the index on (fired, remind_at) is the queue: the next reminder is the
+ * first index entry, whatever the number of follow-ups. Only that one is
+ * armed with AlarmManager; {@link FollowUpReceiver} posts whatever is due
+ * when it fires and arms the next. The armed time is kept in sync_meta, so
+ * adding a follow-up later than the next one costs no AlarmManager call.
+ *
+ * Rows follow the leads: {@link LeadStore} indexes next_followup_date (or
+ * followUpDate) inside the same transaction whenever a lead is written, so
+ * every delta sync or pushed change updates the queue incrementally and
+ * nothing is rescheduled from JS. Local dispositions (the overlay, the call
+ * summary) add theirs straight away with {@link #put}; the next sync of the
+ * lead confirms it.
+ *
+ * Alarms do not survive a reboot or a clock change; the receiver re-arms on
+ * both.
+ */
+public final class FollowUpReminders {
+
+    private static final String TAG = "FollowUpReminders";
+
+    static final String CHANNEL_ID = "followup_reminders";
+    static final String ACTION_FIRE = "com.leadwave.followup.FIRE";
+    private static final String META_ARMED = "followup_armed_at";
+
+    // Reminder goes out this long before the follow-up, as the JS scheduler did
+    static final long LEAD_TIME_MS = 60 * 60 * 1000L;
+    // Reminders found late (phone off, Doze) are still posted up to this long after the follow-up
+    private static final long STALE_MS = 6 * 60 * 60 * 1000L;
+    // Fired rows are kept for a day so a re-synced lead does not fire twice
+    private static final long KEEP_FIRED_MS = 24 * 60 * 60 * 1000L;
+
+    private static volatile FollowUpReminders instance;
+
+    private final Context context;
+    private final LeadStore store;
+
+    public static synchronized FollowUpReminders get(Context context) {
+        if (instance == null) {
+            instance = new FollowUpReminders(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private FollowUpReminders(Context context) {
+        this.context = context;
+        this.store = LeadStore.get(context);
+    }
+
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS followups ("
+            + "lead_id TEXT PRIMARY KEY, "
+            + "due_at INTEGER NOT NULL, "
+            + "remind_at INTEGER NOT NULL, "
+            + "name TEXT, "
+            + "status TEXT, "
+            + "fired INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_followups_queue ON followups(fired, remind_at)");
+    }
+
+    // ── Queue maintenance (inside LeadStore transactions) ──────────────────
+
+    /**
+     * Brings the lead's row in line with its follow-up date. Returns true when
+     * the queue changed. A row whose due time did not move keeps its fired flag.
+     */
+    static boolean index(SQLiteDatabase db, String leadId, JSONObject lead) {
+        long due = dueAt(lead);
+        if (due <= 0) return remove(db, leadId);
+        try (Cursor c = db.rawQuery("SELECT due_at FROM followups WHERE lead_id = ?", new String[]{leadId})) {
+            if (c.moveToFirst() && c.getLong(0) == due) {
+                // Name or status may have changed; the queue did not
+                db.update("followups", describe(lead), "lead_id = ?", new String[]{leadId});
+                return false;
+            }
+        }
+        ContentValues values = describe(lead);
+        values.put("lead_id", leadId);
+        values.put("due_at", due);
+        values.put("remind_at", remindAt(due));
+        // Already past (a full sync of old leads): nothing to remind of
+        values.put("fired", due < System.currentTimeMillis() ? 1 : 0);
+        db.insertWithOnConflict("followups", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        return true;
+    }
+
+    static boolean remove(SQLiteDatabase db, String leadId) {
+        return db.delete("followups", "lead_id = ?", new String[]{leadId}) > 0;
+    }
+
+    private static ContentValues describe(JSONObject lead) {
+        ContentValues values = new ContentValues();
+        values.put("name", leadName(lead));
+        String status = LeadStore.str(lead, "leadStatus");
+        values.put("status", status != null ? status : LeadStore.str(lead, "status"));
+        return values;
+    }
+
+    // ── Public API ─────────────────────────────────────────────────────────
+
+    /** Adds or moves one lead's follow-up ahead of the next sync, and re-arms. */
+    public void put(String leadId, String name, long dueAt) {
+        // A date left at "now" in the form is no follow-up
+        if (leadId == null || dueAt <= System.currentTimeMillis()) return;
+        SQLiteDatabase db = store.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put("lead_id", leadId);
+        values.put("due_at", dueAt);
+        values.put("remind_at", remindAt(dueAt));
+        values.put("name", name);
+        values.put("fired", 0);
+        db.insertWithOnConflict("followups", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        arm();
+    }
+
+    /**
+     * Pending follow-ups, soonest first, as a JSON array string of
+     * { leadId, name, status, dueAt, remindAt, notified }.
+     */
+    public String upcoming(int limit) throws JSONException {
+        JSONArray out = new JSONArray();
+        try (Cursor c = store.getReadableDatabase().rawQuery(
+                "SELECT lead_id, name, status, due_at, remind_at, fired FROM followups "
+                    + "WHERE due_at >= ? ORDER BY due_at LIMIT ?",
+                new String[]{String.valueOf(System.currentTimeMillis() - STALE_MS), String.valueOf(Math.max(1, limit))})) {
+            while (c.moveToNext()) {
+                JSONObject row = new JSONObject();
+                row.put("leadId", c.getString(0));
+                row.put("name", c.getString(1) != null ? c.getString(1) : JSONObject.NULL);
+                row.put("status", c.getString(2) != null ? c.getString(2) : JSONObject.NULL);
+                row.put("dueAt", c.getLong(3));
+                row.put("remindAt", c.getLong(4));
+                row.put("notified", c.getInt(5) == 1);
+                out.put(row);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Arms the alarm for the head of the queue, or cancels it when the queue
+     * is empty. No AlarmManager call when the head is already armed.
+     */
+    public synchronized void arm() {
+        long next = -1;
+        try (Cursor c = store.getReadableDatabase().rawQuery(
+                "SELECT remind_at FROM followups WHERE fired = 0 ORDER BY remind_at LIMIT 1", null)) {
+            if (c.moveToFirst()) next = c.getLong(0);
+        }
+        String armed = store.getMeta(META_ARMED);
+        // A force stop cancels our alarms but not the stored head; only trust it while the alarm exists
+        if (armed != null ? armed.equals(String.valueOf(next)) && isArmed() : next < 0) return;
+
+        AlarmManager alarms = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarms == null) return;
+        PendingIntent fire = PendingIntent.getBroadcast(context, 0, fireIntent(),
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        if (next < 0) {
+            alarms.cancel(fire);
+            store.putMeta(META_ARMED, null);
+            return;
+        }
+        long at = Math.max(next, System.currentTimeMillis());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarms.canScheduleExactAlarms()) {
+            // Exact alarms not granted: the system may batch this by a few minutes
+            alarms.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, at, fire);
+        } else {
+            alarms.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, at, fire);
+        }
+        store.putMeta(META_ARMED, String.valueOf(next));
+    }
+
+    /** Alarms were lost (reboot, clock change): forget the armed time and arm again. */
+    public void rearm() {
+        store.putMeta(META_ARMED, null);
+        arm();
+    }
+
+    private boolean isArmed() {
+        return PendingIntent.getBroadcast(context, 0, fireIntent(),
+            PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE) != null;
+    }
+
+    private Intent fireIntent() {
+        return new Intent(context, FollowUpReceiver.class).setAction(ACTION_FIRE);
+    }
+
+    /** Posts every due reminder, marks it fired and arms the next. Called by the receiver. */
+    public void fire() {
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db = store.getWritableDatabase();
+        int posted = 0;
+        try (Cursor c = db.rawQuery(
+                "SELECT lead_id, name, status, due_at FROM followups WHERE fired = 0 AND remind_at <= ? ORDER BY remind_at",
+                new String[]{String.valueOf(now)})) {
+            while (c.moveToNext()) {
+                long due = c.getLong(3);
+                if (due >= now - STALE_MS) {
+                    notify(c.getString(0), c.getString(1), c.getString(2), due);
+                    posted++;
+                }
+            }
+        }
+        ContentValues fired = new ContentValues();
+        fired.put("fired", 1);
+        db.update("followups", fired, "fired = 0 AND remind_at <= ?", new String[]{String.valueOf(now)});
+        db.delete("followups", "fired = 1 AND due_at < ?", new String[]{String.valueOf(now - KEEP_FIRED_MS)});
+        // The alarm that brought us here is spent
+        store.putMeta(META_ARMED, null);
+        arm();
+        if (posted > 0) Log.d(TAG, "Posted " + posted + " reminder(s)");
+    }
+
+    // ── Notifications ──────────────────────────────────────────────────────
+
+    private void notify(String leadId, String name, String status, long due) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Same channel the JS side (notifee) created; created here too when React never ran
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Follow-up Reminders",
+                NotificationManager.IMPORTANCE_HIGH);
+            channel.setLockscreenVisibility(android.app.Notification.VISIBILITY_PUBLIC);
+            context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        PendingIntent open = launch != null
+            ? PendingIntent.getActivity(context, leadId.hashCode(), launch, PendingIntent.FLAG_IMMUTABLE)
+            : null;
+        SimpleDateFormat time = new SimpleDateFormat("h:mm a 'on' dd.MM.yyyy", Locale.US);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setSmallIcon(R.mipmap.ic_launcher)
+            .setContentTitle("📞 Follow-up Reminder — " + (name != null ? name : "Lead"))
+            .setContentText((status != null ? "Status: " + status + " · " : "") + "Due at " + time.format(due))
+            .setWhen(due)
+            .setShowWhen(true)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_REMINDER)
+            .setAutoCancel(true);
+        if (open != null) builder.setContentIntent(open);
+        try {
+            NotificationManagerCompat.from(context).notify(leadId, CHANNEL_ID.hashCode(), builder.build());
+        } catch (SecurityException e) {
+            // POST_NOTIFICATIONS not granted (API 33+)
+            Log.w(TAG, "Cannot post reminder: " + e.getMessage());
+        }
+    }
+
+    // ── Lead fields ────────────────────────────────────────────────────────
+
+    /** LEAD_TIME_MS before the follow-up, or at it when that is already past ("in 1 hour"). */
+    private static long remindAt(long due) {
+        long early = due - LEAD_TIME_MS;
+        return early > System.currentTimeMillis() ? early : due;
+    }
+
+    /** Epoch ms of the lead's follow-up, or -1. */
+    static long dueAt(JSONObject lead) {
+        long due = parseTime(LeadStore.str(lead, "next_followup_date"));
+        return due > 0 ? due : parseTime(LeadStore.str(lead, "followUpDate"));
+    }
+
+    private static final String[] ISO_PATTERNS = {
+        "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'",
+        "yyyy-MM-dd'T'HH:mm:ss'Z'",
+    };
+
+    private static long parseTime(String value) {
+        if (value == null) return -1;
+        for (String pattern : ISO_PATTERNS) {
+            SimpleDateFormat iso = new SimpleDateFormat(pattern, Locale.US);
+            iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+            iso.setLenient(false);
+            try {
+                return iso.parse(value).getTime();
+            } catch (ParseException ignored) {
+                // Next pattern
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String leadName(JSONObject lead) {
+        String name = LeadStore.str(lead, "name");
+        if (name != null) return name;
+        String first = LeadStore.str(lead, "firstName");
+        String last = LeadStore.str(lead, "lastName");
+        if (first == null) return last;
+        return last != null ? first + " " + last : first;
+    }
+}
@@ -0,0 +1,53 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * HttpModule
+ *
+ * Lets JS hand its access token to the shared native client
+ * ({@link LeadwaveHttp}) and read its cache counters.
+ */
+public class HttpModule extends ReactContextBaseJavaModule {
+
+    public HttpModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "HttpModule";
+    }
+
+    /** Called on login/logout; null clears the token. */
+    @ReactMethod
+    public void setAuthToken(String token) {
+        ApiSession.setToken(getReactApplicationContext(), token);
+        if (token != null) {
+            Outbox.get(getReactApplicationContext()).onTokenChanged();
+        }
+    }
+
+    @ReactMethod
+    public void clearCache() {
+        LeadwaveHttp.evictCache();
+    }
+
+    /** { network, cache, conditionalHits } since process start. */
+    @ReactMethod
+    public void getStats(Promise promise) {
+        WritableMap stats = Arguments.createMap();
+        stats.putDouble("network", LeadwaveHttp.networkResponses.get());
+        stats.putDouble("cache", LeadwaveHttp.cacheResponses.get());
+        stats.putDouble("conditionalHits", LeadwaveHttp.conditionalHits.get());
+        promise.resolve(stats);
+    }
+}
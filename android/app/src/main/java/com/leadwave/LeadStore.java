@@ -0,0 +1,352 @@
+package com.leadwave;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * LeadStore
+ *
+ * On-disk copy of the leads assigned to the logged-in agent. Each lead is kept
+ * as the raw JSON the backend returned, plus a few extracted columns used for
+ * lookups (campaign, updatedAt) and a number table keyed by the last 10 digits
+ * of phone / mobile / alt_phone.
+ *
+ * Reads hand JSON strings straight to JS so a list of thousands of leads
+ * crosses the bridge as one string instead of a WritableArray of maps.
+ * Kept current by {@link LeadSyncer}.
+ *
+ * The same database holds {@link CallIndex}'s call_index table, so a lead's
+ * calls are one join through lead_numbers, and {@link FollowUpReminders}'
+ * followups table, kept in step with the leads in the same transactions.
+ */
+public class LeadStore extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "leadwave_leads.db";
+    private static final int DB_VERSION = 3;
+
+    private static LeadStore instance;
+
+    private final Context context;
+
+    public static synchronized LeadStore get(Context context) {
+        if (instance == null) {
+            instance = new LeadStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private LeadStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        this.context = context;
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE leads ("
+            + "id TEXT PRIMARY KEY, "
+            + "json TEXT NOT NULL, "
+            + "campaign_id TEXT, "
+            + "updated_at TEXT)");
+        db.execSQL("CREATE INDEX idx_leads_campaign ON leads(campaign_id)");
+        db.execSQL("CREATE TABLE lead_numbers ("
+            + "number_key TEXT NOT NULL, "
+            + "lead_id TEXT NOT NULL, "
+            + "PRIMARY KEY (number_key, lead_id)) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX idx_lead_numbers_lead ON lead_numbers(lead_id)");
+        db.execSQL("CREATE TABLE sync_meta (key TEXT PRIMARY KEY, value TEXT)");
+        CallIndex.createTables(db);
+        FollowUpReminders.createTables(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion == 1 || oldVersion == 2) {
+            // v2 added the call index, v3 the follow-up queue; the leads stay
+            CallIndex.createTables(db);
+            FollowUpReminders.createTables(db);
+            for (String id : leadIds(db)) {
+                try (Cursor c = db.rawQuery("SELECT json FROM leads WHERE id = ?", new String[]{id})) {
+                    if (c.moveToFirst()) FollowUpReminders.index(db, id, new JSONObject(c.getString(0)));
+                } catch (JSONException ignored) {
+                    // Replaced by the next sync
+                }
+            }
+            return;
+        }
+        db.execSQL("DROP TABLE IF EXISTS leads");
+        db.execSQL("DROP TABLE IF EXISTS lead_numbers");
+        db.execSQL("DROP TABLE IF EXISTS sync_meta");
+        db.execSQL("DROP TABLE IF EXISTS call_index");
+        db.execSQL("DROP TABLE IF EXISTS followups");
+        onCreate(db);
+    }
+
+    // ── Writes ─────────────────────────────────────────────────────────────
+
+    /** Inserts or replaces every lead in the array. Returns the max updatedAt seen. */
+    public String upsertAll(JSONArray leads) {
+        String maxUpdated = null;
+        boolean followUps = false;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement insertNumber = db.compileStatement(
+                "INSERT OR IGNORE INTO lead_numbers (number_key, lead_id) VALUES (?, ?)");
+            for (int i = 0; i < leads.length(); i++) {
+                JSONObject lead = leads.optJSONObject(i);
+                if (lead == null) continue;
+                String id = leadId(lead);
+                if (id == null) continue;
+
+                String updated = updatedAt(lead);
+                if (updated != null && (maxUpdated == null || updated.compareTo(maxUpdated) > 0)) {
+                    maxUpdated = updated;
+                }
+
+                if (lead.optBoolean("isDeleted", false)) {
+                    followUps |= FollowUpReminders.remove(db, id);
+                    deleteLead(db, id);
+                    continue;
+                }
+
+                ContentValues values = new ContentValues();
+                values.put("id", id);
+                values.put("json", lead.toString());
+                values.put("campaign_id", campaignId(lead));
+                values.put("updated_at", updated);
+                db.insertWithOnConflict("leads", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+                db.delete("lead_numbers", "lead_id = ?", new String[]{id});
+                for (String field : NUMBER_FIELDS) {
+                    String key = PhoneNumbers.key(str(lead, field));
+                    if (key == null) continue;
+                    insertNumber.bindString(1, key);
+                    insertNumber.bindString(2, id);
+                    insertNumber.executeInsert();
+                    insertNumber.clearBindings();
+                }
+                followUps |= FollowUpReminders.index(db, id, lead);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (followUps) FollowUpReminders.get(context).arm();
+        return maxUpdated;
+    }
+
+    /**
+     * Merges fields into the stored copy of one lead without touching its
+     * updated_at, so the next delta sync still replaces it with the server's view.
+     * The read and the write share one transaction, so a concurrent
+     * {@link #upsertAll} is never overwritten with the copy read before it.
+     */
+    public void patch(String leadId, JSONObject fields) throws JSONException {
+        boolean followUps;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            JSONObject lead;
+            try (Cursor c = db.rawQuery("SELECT json FROM leads WHERE id = ?", new String[]{leadId})) {
+                if (!c.moveToFirst()) return;
+                lead = new JSONObject(c.getString(0));
+            }
+            Iterator<String> keys = fields.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                lead.put(key, fields.get(key));
+            }
+            ContentValues values = new ContentValues();
+            values.put("json", lead.toString());
+            db.update("leads", values, "id = ?", new String[]{leadId});
+            followUps = FollowUpReminders.index(db, leadId, lead);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (followUps) FollowUpReminders.get(context).arm();
+    }
+
+    public int deleteAll(Collection<String> ids) {
+        if (ids.isEmpty()) return 0;
+        int removed = 0;
+        boolean followUps = false;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String id : ids) {
+                followUps |= FollowUpReminders.remove(db, id);
+                removed += deleteLead(db, id);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (followUps) FollowUpReminders.get(context).arm();
+        return removed;
+    }
+
+    /** Drops every lead that is not in {@code keep}. Used after a full pass. */
+    public int retainOnly(Set<String> keep) {
+        Set<String> stale = new HashSet<>();
+        for (String id : leadIds(getReadableDatabase())) {
+            if (!keep.contains(id)) stale.add(id);
+        }
+        return deleteAll(stale);
+    }
+
+    private static Set<String> leadIds(SQLiteDatabase db) {
+        Set<String> ids = new HashSet<>();
+        try (Cursor c = db.rawQuery("SELECT id FROM leads", null)) {
+            while (c.moveToNext()) ids.add(c.getString(0));
+        }
+        return ids;
+    }
+
+    public void clear() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("leads", null, null);
+            db.delete("lead_numbers", null, null);
+            db.delete("sync_meta", null, null);
+            // Its watermark lived in sync_meta; rebuilt on next use
+            db.delete("call_index", null, null);
+            // Logged out: no more reminders (a still armed alarm finds nothing)
+            db.delete("followups", null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private int deleteLead(SQLiteDatabase db, String id) {
+        db.delete("lead_numbers", "lead_id = ?", new String[]{id});
+        return db.delete("leads", "id = ?", new String[]{id});
+    }
+
+    // ── Reads ──────────────────────────────────────────────────────────────
+
+    /** All stored leads as a JSON array string, most recently updated first. */
+    public String leadsJson() {
+        return queryJson("SELECT json FROM leads ORDER BY updated_at DESC", null);
+    }
+
+    public String campaignLeadsJson(String campaignId) {
+        return queryJson("SELECT json FROM leads WHERE campaign_id = ? ORDER BY updated_at DESC",
+            new String[]{campaignId});
+    }
+
+    /** The stored lead whose phone, mobile or alt_phone matches, or null. */
+    public String findByNumber(String phoneNumber) {
+        String key = PhoneNumbers.key(phoneNumber);
+        if (key == null) return null;
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT l.json FROM lead_numbers n JOIN leads l ON l.id = n.lead_id "
+                    + "WHERE n.number_key = ? LIMIT 1", new String[]{key})) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    /** Lead ID for a normalized number key, or null. */
+    public String leadIdForKey(String key) {
+        if (key == null) return null;
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT lead_id FROM lead_numbers WHERE number_key = ? LIMIT 1", new String[]{key})) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    public String leadJson(String leadId) {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT json FROM leads WHERE id = ?", new String[]{leadId})) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    public int count() {
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM leads", null)) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    private String queryJson(String sql, String[] args) {
+        StringBuilder sb = new StringBuilder("[");
+        try (Cursor c = getReadableDatabase().rawQuery(sql, args)) {
+            boolean first = true;
+            while (c.moveToNext()) {
+                if (!first) sb.append(',');
+                sb.append(c.getString(0));
+                first = false;
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    // ── Sync metadata ──────────────────────────────────────────────────────
+
+    public String getMeta(String key) {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT value FROM sync_meta WHERE key = ?", new String[]{key})) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    public void putMeta(String key, String value) {
+        SQLiteDatabase db = getWritableDatabase();
+        if (value == null) {
+            db.delete("sync_meta", "key = ?", new String[]{key});
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put("key", key);
+        values.put("value", value);
+        db.insertWithOnConflict("sync_meta", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // ── JSON helpers ───────────────────────────────────────────────────────
+
+    static final String[] NUMBER_FIELDS = {"phone", "mobile", "number", "alt_phone", "alternateNumber"};
+
+    /** String field or null when missing, JSON null or empty. */
+    static String str(JSONObject obj, String key) {
+        if (obj == null || obj.isNull(key)) return null;
+        String value = obj.optString(key, null);
+        return (value == null || value.isEmpty()) ? null : value;
+    }
+
+    static String leadId(JSONObject lead) {
+        String id = str(lead, "_id");
+        return id != null ? id : str(lead, "id");
+    }
+
+    private static String updatedAt(JSONObject lead) {
+        String updated = str(lead, "updatedAt");
+        return updated != null ? updated : str(lead, "updated");
+    }
+
+    private static String campaignId(JSONObject lead) {
+        Object campaign = lead.opt("campaign");
+        if (campaign instanceof JSONObject) {
+            return str((JSONObject) campaign, "_id");
+        }
+        if (campaign instanceof String) {
+            return (String) campaign;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,260 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.Set;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * LeadStoreModule
+ *
+ * JS entry point for the on-disk lead store. Reads return JSON strings that
+ * src/services/LeadStore.ts parses; all disk and network work runs on a
+ * single background thread so calls never block the UI or JS thread.
+ * Emits "LeadsChanged" { upserted, removed, full } when {@link LeadStream}
+ * has applied pushed changes to the store. Also the JS face of
+ * {@link FollowUpReminders}.
+ */
+public class LeadStoreModule extends ReactContextBaseJavaModule {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Network refreshes must not queue behind a long lead sync
+    private static final ExecutorService timelineExecutor = Executors.newSingleThreadExecutor();
+
+    public LeadStoreModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        LeadStream.get(reactContext).setListener(new LeadStream.Listener() {
+            @Override
+            public void onLeadsChanged(Set<String> upserted, Set<String> removed, boolean full) {
+                WritableMap params = Arguments.createMap();
+                params.putArray("upserted", toArray(upserted));
+                params.putArray("removed", toArray(removed));
+                params.putBoolean("full", full);
+                sendEvent("LeadsChanged", params);
+            }
+        });
+        // Once per app start: covers install, upgrade and a force stop, which
+        // cancels our alarms without any broadcast. One AlarmManager call.
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                FollowUpReminders.get(getReactApplicationContext()).rearm();
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "LeadStoreModule";
+    }
+
+    @ReactMethod
+    public void sync(final boolean forceFull, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    LeadSyncer.Result result = LeadSyncer.sync(getReactApplicationContext(), forceFull);
+                    WritableMap map = Arguments.createMap();
+                    map.putBoolean("full", result.full);
+                    map.putBoolean("notModified", result.notModified);
+                    map.putBoolean("changed", result.changed());
+                    map.putInt("upserted", result.upserted);
+                    map.putInt("removed", result.removed);
+                    map.putInt("total", result.total);
+                    promise.resolve(map);
+                } catch (Exception e) {
+                    promise.reject("ERR_LEAD_SYNC", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getLeads(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(LeadStore.get(getReactApplicationContext()).leadsJson());
+                } catch (Exception e) {
+                    promise.reject("ERR_LEAD_STORE", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getCampaignLeads(final String campaignId, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(LeadStore.get(getReactApplicationContext()).campaignLeadsJson(campaignId));
+                } catch (Exception e) {
+                    promise.reject("ERR_LEAD_STORE", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void findByNumber(final String phoneNumber, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(LeadStore.get(getReactApplicationContext()).findByNumber(phoneNumber));
+                } catch (Exception e) {
+                    promise.reject("ERR_LEAD_STORE", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void clear(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    LeadStore.get(getReactApplicationContext()).clear();
+                    TimelineCache.clear(getReactApplicationContext());
+                    promise.resolve(true);
+                } catch (Exception e) {
+                    promise.reject("ERR_LEAD_STORE", e);
+                }
+            }
+        });
+    }
+
+    /** Cached timeline body for the lead as { json, ageMs }, or null. Never hits the network. */
+    @ReactMethod
+    public void getCachedTimeline(final String leadId, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                TimelineCache.Entry entry = TimelineCache.get(getReactApplicationContext(), leadId);
+                if (entry == null) {
+                    promise.resolve(null);
+                    return;
+                }
+                WritableMap map = Arguments.createMap();
+                map.putString("json", entry.json);
+                map.putDouble("ageMs", entry.ageMs);
+                promise.resolve(map);
+            }
+        });
+    }
+
+    /** Fetches the timeline, stores it and resolves the body. */
+    @ReactMethod
+    public void refreshTimeline(final String leadId, final Promise promise) {
+        timelineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(TimelineCache.fetch(getReactApplicationContext(), leadId));
+                } catch (Exception e) {
+                    promise.reject("ERR_TIMELINE", e);
+                }
+            }
+        });
+    }
+
+    /** Opens the push stream of lead changes; it reconnects by itself until stopStream(). */
+    @ReactMethod
+    public void startStream() {
+        LeadStream.get(getReactApplicationContext()).start();
+    }
+
+    @ReactMethod
+    public void stopStream() {
+        LeadStream.get(getReactApplicationContext()).stop();
+    }
+
+    /** Resolves { running, connected, events, connects, lastEventId } as a JSON string. */
+    @ReactMethod
+    public void getStreamStatus(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(LeadStream.get(getReactApplicationContext()).status().toString());
+                } catch (Exception e) {
+                    promise.reject("ERR_LEAD_STREAM", e);
+                }
+            }
+        });
+    }
+
+    /** Upcoming follow-ups, soonest first, as a JSON array string. */
+    @ReactMethod
+    public void getFollowUps(final int limit, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    promise.resolve(FollowUpReminders.get(getReactApplicationContext()).upcoming(limit));
+                } catch (Exception e) {
+                    promise.reject("ERR_FOLLOW_UPS", e);
+                }
+            }
+        });
+    }
+
+    /** Queues a follow-up set locally (dueAt in epoch ms) before the server echoes it back. */
+    @ReactMethod
+    public void setFollowUp(final String leadId, final String name, final double dueAt, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FollowUpReminders.get(getReactApplicationContext()).put(leadId, name, (long) dueAt);
+                    promise.resolve(true);
+                } catch (Exception e) {
+                    promise.reject("ERR_FOLLOW_UPS", e);
+                }
+            }
+        });
+    }
+
+    // Required for NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {}
+
+    @ReactMethod
+    public void removeListeners(double count) {}
+
+    private static WritableArray toArray(Set<String> ids) {
+        WritableArray array = Arguments.createArray();
+        for (String id : ids) array.pushString(id);
+        return array;
+    }
+
+    private void sendEvent(final String eventName, final WritableMap params) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (context.hasActiveCatalystInstance()) {
+                    context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(eventName, params);
+                }
+            }
+        });
+    }
+}
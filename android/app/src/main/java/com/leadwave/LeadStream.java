@@ -0,0 +1,380 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * LeadStream
+ *
+ * Server-sent events from GET /leads/stream, applied to {@link LeadStore} as
+ * they arrive, so assignments and status changes show up without a poll of
+ * /leads/assigned. Events:
+ *
+ *   event: lead         data: a lead (or array of leads) to upsert
+ *   event: lead_removed data: { id } or { ids: [...] }, no longer assigned
+ *   event: lead_status  data: { id, ...fields } merged into the stored lead
+ *   event: resync       the server cannot resume from our Last-Event-ID;
+ *                       a full {@link LeadSyncer} pass follows
+ *
+ * Every event carries an id, persisted in sync_meta after the event is
+ * applied and sent back as Last-Event-ID on reconnect, so nothing is missed
+ * across drops (re-applying an event is harmless). The server sends a
+ * ": ping" comment every 30 s; a read timeout of READ_TIMEOUT_S catches a
+ * dead connection. Reconnects back off exponentially with jitter (or use the
+ * server's retry: field), reset once an event gets through; a 401 stops the
+ * stream until the next start().
+ *
+ * Changes are coalesced for COALESCE_MS and reported to the listener as one
+ * call with the touched lead ids. Started from JS while the app is in the
+ * foreground and logged in; LeadSyncer's delta pass still covers anything
+ * that happened while it was stopped.
+ */
+public final class LeadStream {
+
+    private static final String TAG = "LeadStream";
+
+    static final String META_LAST_EVENT_ID = "stream_last_event_id";
+    private static final long READ_TIMEOUT_S = 75;
+    private static final long COALESCE_MS = 300;
+    private static final long BACKOFF_MAX_MS = 5 * 60 * 1000L;
+
+    public interface Listener {
+        /** full: the whole store may have changed (resync); the id sets are then empty. */
+        void onLeadsChanged(Set<String> upserted, Set<String> removed, boolean full);
+    }
+
+    private static volatile LeadStream instance;
+
+    private final Context context;
+    private final LeadStore store;
+    private final OkHttpClient client;
+    private final HttpUrl url;
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lead-stream");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService emitter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "lead-stream-emit");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @VisibleForTesting
+    long backoffBaseMs = 1_000;
+
+    private volatile Listener listener;
+    private Future<?> running;
+    private volatile Call call;
+    private volatile boolean connected;
+    private volatile long events;
+    private volatile long connects;
+
+    // Guarded by this; flushed by the emitter
+    private final Set<String> pendingUpserted = new HashSet<>();
+    private final Set<String> pendingRemoved = new HashSet<>();
+    private boolean pendingFull;
+    private ScheduledFuture<?> pendingEmit;
+
+    public static synchronized LeadStream get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            OkHttpClient client = LeadwaveHttp.client(app).newBuilder()
+                .readTimeout(READ_TIMEOUT_S, TimeUnit.SECONDS)
+                .build();
+            instance = new LeadStream(app, LeadStore.get(app), client, LeadwaveHttp.url("/leads/stream").build());
+        }
+        return instance;
+    }
+
+    @VisibleForTesting
+    LeadStream(Context context, LeadStore store, OkHttpClient client, HttpUrl url) {
+        this.context = context;
+        this.store = store;
+        this.client = client;
+        this.url = url;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Opens the stream (and keeps reopening it) until stop(). No-op when running. */
+    public synchronized void start() {
+        if (running != null && !running.isDone()) return;
+        running = reader.submit(this::run);
+    }
+
+    public synchronized void stop() {
+        Future<?> f = running;
+        running = null;
+        if (f != null) f.cancel(true);
+        Call c = call;
+        if (c != null) c.cancel();
+    }
+
+    /** { running, connected, events, connects, lastEventId } */
+    public synchronized JSONObject status() throws JSONException {
+        JSONObject out = new JSONObject();
+        out.put("running", running != null && !running.isDone());
+        out.put("connected", connected);
+        out.put("events", events);
+        out.put("connects", connects);
+        String last = store.getMeta(META_LAST_EVENT_ID);
+        out.put("lastEventId", last != null ? last : JSONObject.NULL);
+        return out;
+    }
+
+    // ── Connection (reader thread) ─────────────────────────────────────────
+
+    private void run() {
+        int failures = 0;
+        long retryMs = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Session session = new Session();
+            try {
+                connect(session);
+            } catch (Unauthorized e) {
+                Log.w(TAG, "Stream refused: " + e.getMessage());
+                break;
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) break;
+                Log.d(TAG, "Stream dropped: " + e.getMessage());
+            } finally {
+                connected = false;
+                call = null;
+            }
+            if (session.retryMs > 0) retryMs = session.retryMs;
+            failures = session.events > 0 ? 1 : failures + 1;
+            long delay = retryMs > 0 && session.events > 0 ? retryMs : backoffMs(failures);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private void connect(Session session) throws IOException {
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .header("Accept", "text/event-stream")
+            .header("Cache-Control", "no-cache");
+        String last = store.getMeta(META_LAST_EVENT_ID);
+        if (last != null) builder.header("Last-Event-ID", last);
+
+        Call c = client.newCall(builder.build());
+        call = c;
+        if (Thread.currentThread().isInterrupted()) return;
+        try (Response response = c.execute()) {
+            if (response.code() == 401 || response.code() == 403) {
+                throw new Unauthorized("HTTP " + response.code());
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("GET /leads/stream failed: HTTP " + response.code());
+            }
+            ResponseBody body = response.body();
+            if (body == null) return;
+            connected = true;
+            connects++;
+            read(body.source(), session);
+        }
+    }
+
+    /** Parses the text/event-stream framing and dispatches each complete event. */
+    private void read(BufferedSource source, Session session) throws IOException {
+        String event = null;
+        String id = null;
+        StringBuilder data = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (data != null || id != null) dispatch(event, id, data != null ? data.toString() : null, session);
+                event = null;
+                id = null;
+                data = null;
+                continue;
+            }
+            // Comment, used by the server as a heartbeat
+            if (line.charAt(0) == ':') continue;
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) value = value.substring(1);
+            switch (field) {
+                case "event":
+                    event = value;
+                    break;
+                case "data":
+                    if (data == null) {
+                        data = new StringBuilder(value);
+                    } else {
+                        data.append('\n').append(value);
+                    }
+                    break;
+                case "id":
+                    if (value.indexOf('\0') < 0) id = value;
+                    break;
+                case "retry":
+                    try {
+                        session.retryMs = Long.parseLong(value);
+                    } catch (NumberFormatException ignored) {
+                        // Not a number: ignored, as the SSE spec says
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void dispatch(String event, String id, String data, Session session) throws IOException {
+        if (data != null) {
+            try {
+                apply(event != null ? event : "message", data);
+            } catch (JSONException e) {
+                // One bad event must not wedge the stream; the next delta sync repairs the lead
+                Log.w(TAG, "Skipping malformed " + event + " event " + id, e);
+            }
+        }
+        if (id != null) store.putMeta(META_LAST_EVENT_ID, id);
+        session.events++;
+        events++;
+    }
+
+    private void apply(String event, String data) throws JSONException, IOException {
+        switch (event) {
+            case "lead": {
+                Object parsed = new JSONTokener(data).nextValue();
+                JSONArray leads = parsed instanceof JSONArray ? (JSONArray) parsed : new JSONArray().put(parsed);
+                store.upsertAll(leads);
+                Set<String> upserted = new HashSet<>();
+                Set<String> removed = new HashSet<>();
+                for (int i = 0; i < leads.length(); i++) {
+                    JSONObject lead = leads.optJSONObject(i);
+                    String leadId = lead != null ? LeadStore.leadId(lead) : null;
+                    if (leadId == null) continue;
+                    if (lead.optBoolean("isDeleted", false)) {
+                        removed.add(leadId);
+                    } else {
+                        upserted.add(leadId);
+                    }
+                }
+                changed(upserted, removed, false);
+                break;
+            }
+            case "lead_removed": {
+                JSONObject json = new JSONObject(data);
+                Set<String> ids = new HashSet<>();
+                String single = LeadStore.leadId(json);
+                if (single != null) ids.add(single);
+                JSONArray many = json.optJSONArray("ids");
+                if (many != null) {
+                    for (int i = 0; i < many.length(); i++) {
+                        String leadId = many.optString(i, null);
+                        if (leadId != null) ids.add(leadId);
+                    }
+                }
+                store.deleteAll(ids);
+                changed(new HashSet<>(), ids, false);
+                break;
+            }
+            case "lead_status": {
+                JSONObject fields = new JSONObject(data);
+                String leadId = LeadStore.leadId(fields);
+                if (leadId == null) break;
+                fields.remove("_id");
+                fields.remove("id");
+                store.patch(leadId, fields);
+                Set<String> upserted = new HashSet<>();
+                upserted.add(leadId);
+                changed(upserted, new HashSet<>(), false);
+                break;
+            }
+            case "resync":
+                LeadSyncer.sync(context, true);
+                changed(new HashSet<>(), new HashSet<>(), true);
+                break;
+            default:
+                Log.d(TAG, "Ignoring event " + event);
+                break;
+        }
+    }
+
+    // ── Coalesced change events ────────────────────────────────────────────
+
+    private synchronized void changed(Set<String> upserted, Set<String> removed, boolean full) {
+        pendingUpserted.removeAll(removed);
+        pendingUpserted.addAll(upserted);
+        pendingRemoved.removeAll(upserted);
+        pendingRemoved.addAll(removed);
+        pendingFull |= full;
+        if (pendingEmit == null) {
+            pendingEmit = emitter.schedule(this::emit, COALESCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void emit() {
+        Set<String> upserted;
+        Set<String> removed;
+        boolean full;
+        synchronized (this) {
+            pendingEmit = null;
+            full = pendingFull;
+            upserted = full ? new HashSet<>() : new HashSet<>(pendingUpserted);
+            removed = full ? new HashSet<>() : new HashSet<>(pendingRemoved);
+            pendingUpserted.clear();
+            pendingRemoved.clear();
+            pendingFull = false;
+        }
+        Listener l = listener;
+        if (l != null && (full || !upserted.isEmpty() || !removed.isEmpty())) {
+            l.onLeadsChanged(upserted, removed, full);
+        }
+    }
+
+    private long backoffMs(int failures) {
+        long delay = Math.min(BACKOFF_MAX_MS, backoffBaseMs << Math.min(Math.max(failures - 1, 0), 16));
+        // Jitter so a server restart is not met by every agent at once
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /** Per-connection counters. */
+    private static final class Session {
+        long events;
+        long retryMs;
+    }
+
+    private static final class Unauthorized extends IOException {
+        Unauthorized(String message) {
+            super(message);
+        }
+    }
+}
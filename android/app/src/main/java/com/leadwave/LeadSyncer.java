@@ -0,0 +1,219 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * LeadSyncer
+ *
+ * Keeps {@link LeadStore} in step with GET /leads/assigned.
+ *
+ * - First run (or once a day): pages through every assigned lead once and
+ *   drops anything that is no longer assigned.
+ * - Afterwards: asks only for leads changed since the stored watermark
+ *   (?updatedSince=<max updatedAt seen>) and sends the last ETag as
+ *   If-None-Match, so an unchanged list costs a single 304.
+ *
+ * Removals in a delta come either as leads with isDeleted=true or as
+ * meta.removedIds; anything the server does not report is caught by the
+ * daily full pass. The ETag is stored together with the new watermark once
+ * the last page is applied, so a pass that fails midway is retried in full.
+ */
+public final class LeadSyncer {
+
+    private static final String TAG = "LeadSyncer";
+
+    static final int PAGE_SIZE = 200;
+    private static final int MAX_PAGES = 500;
+    private static final long FULL_SYNC_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    private static final String META_WATERMARK = "updated_since";
+    private static final String META_ETAG = "delta_etag";
+    private static final String META_LAST_FULL = "last_full_sync";
+
+    public static final class Result {
+        public boolean full;
+        public boolean notModified;
+        public int upserted;
+        public int removed;
+        public int total;
+
+        public boolean changed() {
+            return upserted > 0 || removed > 0;
+        }
+    }
+
+    private LeadSyncer() {}
+
+    /** Runs one sync pass. Blocking; call from a background thread. */
+    public static synchronized Result sync(Context context, boolean forceFull) throws IOException, JSONException {
+        LeadStore store = LeadStore.get(context);
+        if (ApiSession.getToken(context) == null) {
+            throw new IOException("Not logged in");
+        }
+        return sync(store, LeadwaveHttp.client(context), LeadwaveHttp.url("/leads/assigned").build(), forceFull);
+    }
+
+    @VisibleForTesting
+    static Result sync(LeadStore store, OkHttpClient client, HttpUrl assigned, boolean forceFull)
+            throws IOException, JSONException {
+        String watermark = store.getMeta(META_WATERMARK);
+        long lastFull = parseLong(store.getMeta(META_LAST_FULL));
+        boolean full = forceFull || watermark == null
+            || System.currentTimeMillis() - lastFull > FULL_SYNC_INTERVAL_MS;
+
+        Result result = full ? fullSync(client, store, assigned) : deltaSync(client, store, assigned, watermark);
+        result.total = store.count();
+        Log.d(TAG, "Sync done: full=" + result.full + " notModified=" + result.notModified
+            + " upserted=" + result.upserted + " removed=" + result.removed + " total=" + result.total);
+        return result;
+    }
+
+    private static Result fullSync(OkHttpClient client, LeadStore store, HttpUrl assigned) throws IOException, JSONException {
+        Result result = new Result();
+        result.full = true;
+        Set<String> seen = new HashSet<>();
+        String maxUpdated = null;
+
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            Page p = fetch(client, assignedUrl(assigned, page, null), null);
+            JSONArray data = p.data;
+            for (int i = 0; i < data.length(); i++) {
+                JSONObject lead = data.optJSONObject(i);
+                String id = lead != null ? LeadStore.leadId(lead) : null;
+                if (id != null) seen.add(id);
+            }
+            maxUpdated = maxOf(maxUpdated, store.upsertAll(data));
+            result.upserted += data.length();
+            if (p.isLastPage(page)) break;
+        }
+
+        result.removed = store.retainOnly(seen);
+        store.putMeta(META_WATERMARK, maxUpdated != null ? maxUpdated : store.getMeta(META_WATERMARK));
+        store.putMeta(META_ETAG, null);
+        store.putMeta(META_LAST_FULL, String.valueOf(System.currentTimeMillis()));
+        return result;
+    }
+
+    private static Result deltaSync(OkHttpClient client, LeadStore store, HttpUrl assigned, String watermark)
+            throws IOException, JSONException {
+        Result result = new Result();
+        String etag = store.getMeta(META_ETAG);
+        String newEtag = null;
+        String maxUpdated = watermark;
+
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            Page p = fetch(client, assignedUrl(assigned, page, watermark), page == 1 ? etag : null);
+            if (p.notModified) {
+                result.notModified = true;
+                return result;
+            }
+            if (page == 1) newEtag = p.etag;
+            maxUpdated = maxOf(maxUpdated, store.upsertAll(p.data));
+            result.upserted += p.data.length();
+            result.removed += store.deleteAll(p.removedIds);
+            if (p.isLastPage(page)) break;
+        }
+
+        // Only now: an ETag stored before a later page failed would 304 the rest away
+        store.putMeta(META_WATERMARK, maxUpdated);
+        store.putMeta(META_ETAG, newEtag);
+        return result;
+    }
+
+    // ── HTTP ───────────────────────────────────────────────────────────────
+
+    private static final class Page {
+        boolean notModified;
+        String etag;
+        JSONArray data = new JSONArray();
+        Set<String> removedIds = new HashSet<>();
+        int totalPages = -1;
+
+        boolean isLastPage(int page) {
+            if (totalPages > 0) return page >= totalPages;
+            return data.length() < PAGE_SIZE;
+        }
+    }
+
+    private static HttpUrl assignedUrl(HttpUrl assigned, int page, String updatedSince) {
+        HttpUrl.Builder builder = assigned.newBuilder()
+            .addQueryParameter("page", String.valueOf(page))
+            .addQueryParameter("limit", String.valueOf(PAGE_SIZE));
+        if (updatedSince != null) {
+            builder.addQueryParameter("updatedSince", updatedSince);
+        }
+        return builder.build();
+    }
+
+    private static Page fetch(OkHttpClient client, HttpUrl url, String etag) throws IOException, JSONException {
+        // Authorization is added by LeadwaveHttp from ApiSession.
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .header("Accept", "application/json");
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+
+        try (Response response = client.newCall(builder.build()).execute()) {
+            Page page = new Page();
+            if (response.code() == 304) {
+                page.notModified = true;
+                return page;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("GET " + url.encodedPath() + " failed: HTTP " + response.code());
+            }
+            page.etag = response.header("ETag");
+
+            ResponseBody body = response.body();
+            JSONObject json = new JSONObject(body != null ? body.string() : "{}");
+            JSONArray data = json.optJSONArray("data");
+            if (data != null) page.data = data;
+
+            JSONObject meta = json.optJSONObject("meta");
+            if (meta != null) {
+                page.totalPages = meta.optInt("totalPages", meta.optInt("pages", -1));
+                JSONArray removed = meta.optJSONArray("removedIds");
+                if (removed != null) {
+                    for (int i = 0; i < removed.length(); i++) {
+                        String id = removed.optString(i, null);
+                        if (id != null) page.removedIds.add(id);
+                    }
+                }
+            }
+            return page;
+        }
+    }
+
+    private static String maxOf(String a, String b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.facebook.react.modules.network.OkHttpClientFactory;
+import com.facebook.react.modules.network.OkHttpClientProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * LeadwaveHttp
+ *
+ * The one OkHttp client of the app. Installed as React Native's
+ * OkHttpClientFactory in MainApplication, so axios (through RN networking),
+ * the headless upload task and native callers such as {@link LeadSyncer} all
+ * share the same connection pool, HTTP/2 sessions and disk cache.
+ *
+ * - Authorization is added from the in-memory token in {@link ApiSession};
+ *   JS no longer has to read AsyncStorage before every request.
+ * - GET /campaigns, /users/current/profile and /leads/timeline/* are kept in a
+ *   disk cache; OkHttp revalidates them with If-None-Match and serves the
+ *   cached body on 304. Every other response is marked no-store.
+ * - gzip is negotiated and decoded transparently by OkHttp.
+ */
+public final class LeadwaveHttp {
+
+    private static final String TAG = "LeadwaveHttp";
+
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static final String[] CACHED_PATH_PREFIXES = {
+        "/api/campaigns",
+        "/api/users/current/profile",
+        "/api/leads/timeline/",
+    };
+
+    private static volatile OkHttpClient client;
+    private static Cache cache;
+    private static HttpUrl apiBase;
+
+    static final AtomicLong networkResponses = new AtomicLong();
+    static final AtomicLong cacheResponses = new AtomicLong();
+    static final AtomicLong conditionalHits = new AtomicLong();
+
+    private LeadwaveHttp() {}
+
+    /** Registers the shared client with React Native. Call from Application.onCreate. */
+    public static void install(final Context context) {
+        final Context app = context.getApplicationContext();
+        OkHttpClientProvider.setOkHttpClientFactory(new OkHttpClientFactory() {
+            @Override
+            public OkHttpClient createNewNetworkModuleClient() {
+                return client(app);
+            }
+        });
+    }
+
+    public static OkHttpClient client(Context context) {
+        if (client == null) {
+            synchronized (LeadwaveHttp.class) {
+                if (client == null) {
+                    client = build(context.getApplicationContext());
+                }
+            }
+        }
+        return client;
+    }
+
+    /** Full URL for an API path such as "/leads/assigned". */
+    public static HttpUrl.Builder url(String path) {
+        return HttpUrl.parse(ApiSession.BASE_URL + path).newBuilder();
+    }
+
+    /** Drops cached responses, e.g. when a different agent logs in. */
+    public static void evictCache() {
+        Cache c = cache;
+        if (c == null) return;
+        try {
+            c.evictAll();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to evict HTTP cache", e);
+        }
+    }
+
+    private static OkHttpClient build(final Context context) {
+        apiBase = HttpUrl.parse(ApiSession.BASE_URL);
+        cache = new Cache(new File(context.getCacheDir(), "http"), CACHE_SIZE_BYTES);
+
+        // Start from RN's builder so NetworkingModule gets its cookie jar container.
+        return OkHttpClientProvider.createClientBuilder(context)
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .cache(cache)
+            .addInterceptor(new Interceptor() {
+                @Override
+                public Response intercept(Chain chain) throws IOException {
+                    Request request = chain.request();
+                    if (isApi(request.url()) && request.header("Authorization") == null) {
+                        String auth = ApiSession.authorizationHeader(context);
+                        if (auth != null) {
+                            request = request.newBuilder().header("Authorization", auth).build();
+                        }
+                    }
+                    Response response = chain.proceed(request);
+                    if (response.networkResponse() == null) {
+                        cacheResponses.incrementAndGet();
+                    } else {
+                        networkResponses.incrementAndGet();
+                        if (response.cacheResponse() != null) conditionalHits.incrementAndGet();
+                    }
+                    return response;
+                }
+            })
+            .addNetworkInterceptor(new Interceptor() {
+                @Override
+                public Response intercept(Chain chain) throws IOException {
+                    Request request = chain.request();
+                    Response response = chain.proceed(request);
+                    if (isCacheable(request)) {
+                        // Store, but always revalidate: the backend sends ETags, not lifetimes.
+                        return response.newBuilder()
+                            .removeHeader("Pragma")
+                            .header("Cache-Control", "private, no-cache")
+                            .build();
+                    }
+                    return response.newBuilder()
+                        .removeHeader("Pragma")
+                        .header("Cache-Control", "no-store")
+                        .build();
+                }
+            })
+            .build();
+    }
+
+    private static boolean isApi(HttpUrl url) {
+        return apiBase != null && apiBase.host().equals(url.host());
+    }
+
+    private static boolean isCacheable(Request request) {
+        if (!"GET".equals(request.method()) || !isApi(request.url())) return false;
+        String path = request.url().encodedPath();
+        for (String prefix : CACHED_PATH_PREFIXES) {
+            if (path.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+}
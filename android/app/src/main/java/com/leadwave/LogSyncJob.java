@@ -0,0 +1,99 @@
+package com.leadwave;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LogSyncJob
+ *
+ * Periodic JobScheduler job that runs {@link LogSyncer} and then pulls the
+ * {@link DncStore} delta, each whether or not the other failed. It only runs
+ * with a network connection and (API 26+) when the battery is not low,
+ * survives reboots (setPersisted), and is rescheduled with backoff when a
+ * pass fails on I/O. Scheduled from JS on login and cancelled on logout.
+ */
+public class LogSyncJob extends JobService {
+
+    private static final String TAG = "LogSyncJob";
+
+    static final int JOB_ID = 4301;
+    // JobScheduler's floor for periodic jobs
+    public static final long MIN_INTERVAL_MS = 15 * 60 * 1000L;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private volatile AtomicBoolean cancelled;
+
+    /** (Re)schedules the periodic job; intervalMs is raised to MIN_INTERVAL_MS. */
+    public static boolean schedule(Context context, long intervalMs) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) return false;
+        JobInfo.Builder builder = new JobInfo.Builder(JOB_ID, new ComponentName(context, LogSyncJob.class))
+            .setPeriodic(Math.max(intervalMs, MIN_INTERVAL_MS))
+            .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+            .setBackoffCriteria(60_000, JobInfo.BACKOFF_POLICY_EXPONENTIAL)
+            .setPersisted(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setRequiresBatteryNotLow(true);
+        }
+        return scheduler.schedule(builder.build()) == JobScheduler.RESULT_SUCCESS;
+    }
+
+    public static void cancel(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler != null) scheduler.cancel(JOB_ID);
+    }
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        final AtomicBoolean flag = new AtomicBoolean(false);
+        cancelled = flag;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean retry = false;
+                try {
+                    LogSyncer.sync(getApplicationContext(), flag);
+                } catch (IOException e) {
+                    Log.w(TAG, "Log sync failed: " + e.getMessage());
+                    // Logged out is not worth a retry; the job is cancelled on logout anyway
+                    retry = LogSyncer.getUser(getApplicationContext()) != null;
+                } catch (Exception e) {
+                    Log.e(TAG, "Log sync failed", e);
+                }
+                // Same constraints suit the do-not-call delta; pulled whatever /logs/sync did
+                if (!flag.get()) {
+                    try {
+                        DncStore.get(getApplicationContext()).sync(getApplicationContext());
+                    } catch (IOException e) {
+                        Log.w(TAG, "DNC sync failed: " + e.getMessage());
+                        retry |= LogSyncer.getUser(getApplicationContext()) != null;
+                    } catch (Exception e) {
+                        Log.e(TAG, "DNC sync failed", e);
+                    }
+                }
+                if (!flag.get()) jobFinished(params, retry);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Constraints lost (network gone, battery low): stop between chunks and retry later
+        AtomicBoolean flag = cancelled;
+        if (flag != null) flag.set(true);
+        return true;
+    }
+}
@@ -0,0 +1,305 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.provider.CallLog;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * LogSyncer
+ *
+ * Ships new CallLog.Calls rows to POST /logs/sync. Only rows after the
+ * watermark go out: the _ID of the last row the server acknowledged, kept
+ * per user in SharedPreferences (so clearing the lead cache does not resend
+ * the whole log). _ID is insert order; DATE is not (a row is written at
+ * hangup but dated at call start, so a call-waiting call can land behind a
+ * row that was already sent).
+ *
+ * - Rows are sent in insert order in chunks of at most CHUNK_SIZE, in the
+ *   same row shape as CallsModule.loadCallLogs.
+ * - Bodies are gzip-compressed (Content-Encoding: gzip). A server that
+ *   answers 415 gets plain JSON from then on.
+ * - Each chunk carries an Idempotency-Key derived from the user and the rows
+ *   it holds; a chunk resent after a lost response is the same key.
+ * - The watermark only moves after a 2xx. The server's "watermark" is a
+ *   DATE; when it returns one, the rows acknowledged are the chunk's leading
+ *   rows dated at or before it. Otherwise the whole chunk is.
+ *
+ * With no watermark yet, the first pass starts at the first row dated within
+ * INITIAL_LOOKBACK_MS (or after the DATE watermark older versions kept).
+ *
+ * Always reads the system call log, never {@link CallLogSource}'s debug
+ * fixture: synthetic rows must not reach the server, and the _ID watermark
+ * must stay in the system log's id space for background runs.
+ */
+public final class LogSyncer {
+
+    private static final String TAG = "LogSyncer";
+
+    static final int CHUNK_SIZE = 200;
+    // One pass stops after this many chunks; the next run carries on
+    private static final int MAX_CHUNKS = 25;
+    private static final long INITIAL_LOOKBACK_MS = 7L * 24 * 60 * 60 * 1000;
+
+    private static final String PREFS_NAME = "LeadwaveLogSync";
+    private static final String PREF_USER = "user_id";
+    private static final String PREF_WATERMARK = "row_watermark:";
+    // DATE watermark of older versions; read once to find the starting row
+    private static final String PREF_DATE_WATERMARK = "watermark:";
+    private static final String PREF_LAST_RUN = "last_run";
+    private static final String PREF_PLAIN = "plain_body";
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    public static final class Result {
+        public int chunks;
+        public int rows;
+        public long watermark;
+        /** More rows are waiting than one pass sends. */
+        public boolean more;
+
+        public JSONObject toJson() throws JSONException {
+            JSONObject out = new JSONObject();
+            out.put("chunks", chunks);
+            out.put("rows", rows);
+            out.put("watermark", watermark);
+            out.put("more", more);
+            return out;
+        }
+    }
+
+    private LogSyncer() {}
+
+    /** The user whose rows are synced; the job reads it while JS is not running. */
+    public static void setUser(Context context, String userId) {
+        SharedPreferences.Editor editor = prefs(context).edit();
+        if (userId == null || userId.isEmpty()) {
+            editor.remove(PREF_USER);
+        } else {
+            editor.putString(PREF_USER, userId);
+        }
+        editor.apply();
+    }
+
+    public static String getUser(Context context) {
+        return prefs(context).getString(PREF_USER, null);
+    }
+
+    /** { userId, watermark, lastRun } for the current user. */
+    public static JSONObject status(Context context) throws JSONException {
+        SharedPreferences prefs = prefs(context);
+        String user = prefs.getString(PREF_USER, null);
+        JSONObject out = new JSONObject();
+        out.put("userId", user != null ? user : JSONObject.NULL);
+        out.put("watermark", user != null ? prefs.getLong(PREF_WATERMARK + user, 0) : 0);
+        out.put("lastRun", prefs.getLong(PREF_LAST_RUN, 0));
+        return out;
+    }
+
+    /**
+     * Runs one pass for the stored user. Blocking; call from a background
+     * thread. Stops between chunks once cancelled is set (may be null).
+     */
+    public static synchronized Result sync(Context context, AtomicBoolean cancelled) throws IOException, JSONException {
+        String userId = getUser(context);
+        if (userId == null || ApiSession.getToken(context) == null) {
+            throw new IOException("Not logged in");
+        }
+        SharedPreferences prefs = prefs(context);
+        String watermarkKey = PREF_WATERMARK + userId;
+        long watermark = prefs.getLong(watermarkKey, -1);
+        if (watermark < 0) {
+            long since = prefs.getLong(PREF_DATE_WATERMARK + userId, 0);
+            watermark = startingRow(context, since > 0 ? since : System.currentTimeMillis() - INITIAL_LOOKBACK_MS);
+            prefs.edit().putLong(watermarkKey, watermark).remove(PREF_DATE_WATERMARK + userId).apply();
+        }
+
+        OkHttpClient client = LeadwaveHttp.client(context);
+        Map<String, Integer> simIds = CallLogPage.simIds(context);
+        Result result = new Result();
+        result.watermark = watermark;
+
+        while (result.chunks < MAX_CHUNKS) {
+            if (cancelled != null && cancelled.get()) break;
+            Chunk chunk = readChunk(context, watermark, simIds);
+            if (chunk.rows.length() == 0) break;
+
+            long next = chunk.ackedThrough(send(client, prefs, userId, chunk), watermark);
+            result.chunks++;
+            result.rows += chunk.rows.length();
+            if (next == watermark) break; // server kept nothing new; retry on the next run
+            watermark = next;
+            prefs.edit().putLong(watermarkKey, watermark).apply();
+            result.watermark = watermark;
+            if (!chunk.full) break;
+        }
+        result.more = result.chunks == MAX_CHUNKS;
+        prefs.edit().putLong(PREF_LAST_RUN, System.currentTimeMillis()).apply();
+        Log.d(TAG, "Sync done: chunks=" + result.chunks + " rows=" + result.rows + " watermark=" + result.watermark);
+        return result;
+    }
+
+    // ── Call log ───────────────────────────────────────────────────────────
+
+    private static final class Chunk {
+        final JSONArray rows = new JSONArray();
+        final long[] ids = new long[CHUNK_SIZE];
+        final long[] dates = new long[CHUNK_SIZE];
+        // Stopped at CHUNK_SIZE rather than at the end of the log
+        boolean full;
+
+        long firstId() {
+            return ids[0];
+        }
+
+        long lastId() {
+            return ids[rows.length() - 1];
+        }
+
+        /** _ID of the last row acknowledged by the server's DATE watermark (0 = all of them). */
+        long ackedThrough(long ackedDate, long previous) {
+            if (ackedDate <= 0) return lastId();
+            long through = previous;
+            for (int i = 0; i < rows.length() && dates[i] <= ackedDate; i++) through = ids[i];
+            return through;
+        }
+    }
+
+    /** _ID just before the first row dated after since, or the newest _ID when there is none. */
+    private static long startingRow(Context context, long since) {
+        try (Cursor c = context.getContentResolver().query(CallLog.Calls.CONTENT_URI, new String[]{CallLog.Calls._ID},
+                CallLog.Calls.DATE + " > ?", new String[]{String.valueOf(since)}, CallLog.Calls._ID + " ASC")) {
+            if (c != null && c.moveToFirst()) return c.getLong(0) - 1;
+        }
+        try (Cursor c = context.getContentResolver().query(CallLog.Calls.CONTENT_URI, new String[]{CallLog.Calls._ID},
+                null, null, CallLog.Calls._ID + " DESC")) {
+            return c != null && c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    private static Chunk readChunk(Context context, long after, Map<String, Integer> simIds) throws JSONException {
+        String[] projection = {
+            CallLog.Calls.NUMBER, CallLog.Calls.CACHED_NAME, CallLog.Calls.DATE,
+            CallLog.Calls.DURATION, CallLog.Calls.TYPE, CallLog.Calls.PHONE_ACCOUNT_ID, CallLog.Calls._ID
+        };
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        Chunk chunk = new Chunk();
+        try (Cursor c = context.getContentResolver().query(CallLog.Calls.CONTENT_URI, projection,
+                CallLog.Calls._ID + " > ?", new String[]{String.valueOf(after)}, CallLog.Calls._ID + " ASC")) {
+            if (c == null) return chunk;
+            while (c.moveToNext()) {
+                if (chunk.rows.length() >= CHUNK_SIZE) {
+                    chunk.full = true;
+                    break;
+                }
+                long date = c.getLong(2);
+                String number = c.getString(0);
+                String name = c.getString(1);
+                JSONObject row = new JSONObject();
+                row.put("phoneNumber", number != null ? number : "");
+                row.put("timestamp", String.valueOf(date));
+                row.put("dateTime", iso.format(new Date(date)));
+                row.put("duration", c.getInt(3));
+                row.put("type", CallLogPage.typeName(c.getInt(4)));
+                Integer simId = simIds.get(c.getString(5));
+                if (simId != null) row.put("simId", String.valueOf(simId));
+                if (name != null && !name.isEmpty()) row.put("name", name);
+                chunk.ids[chunk.rows.length()] = c.getLong(6);
+                chunk.dates[chunk.rows.length()] = date;
+                chunk.rows.put(row);
+            }
+        }
+        return chunk;
+    }
+
+    // ── HTTP ───────────────────────────────────────────────────────────────
+
+    /** Posts one chunk and returns the server's DATE watermark, 0 when it sent none. */
+    private static long send(OkHttpClient client, SharedPreferences prefs, String userId, Chunk chunk)
+            throws IOException, JSONException {
+        JSONObject body = new JSONObject();
+        body.put("userId", userId);
+        body.put("logs", chunk.rows);
+        byte[] json = body.toString().getBytes(StandardCharsets.UTF_8);
+        String key = "logs-" + userId + "-" + chunk.firstId() + "-" + chunk.lastId() + "-" + chunk.rows.length();
+
+        boolean plain = prefs.getBoolean(PREF_PLAIN, false);
+        try (Response response = client.newCall(buildRequest(json, key, !plain)).execute()) {
+            if (response.code() == 415 && !plain) {
+                Log.w(TAG, "Server refused gzip body, sending plain JSON from now on");
+                prefs.edit().putBoolean(PREF_PLAIN, true).apply();
+            } else {
+                return acknowledged(response);
+            }
+        }
+        try (Response response = client.newCall(buildRequest(json, key, false)).execute()) {
+            return acknowledged(response);
+        }
+    }
+
+    private static Request buildRequest(byte[] json, String idempotencyKey, boolean gzip) throws IOException {
+        Request.Builder builder = new Request.Builder()
+            .url(LeadwaveHttp.url("/logs/sync").build())
+            .header("Accept", "application/json")
+            .header("Idempotency-Key", idempotencyKey);
+        if (gzip) {
+            builder.header("Content-Encoding", "gzip");
+            builder.post(RequestBody.create(gzip(json), JSON));
+        } else {
+            builder.post(RequestBody.create(json, JSON));
+        }
+        return builder.build();
+    }
+
+    private static long acknowledged(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("POST /logs/sync failed: HTTP " + response.code());
+        }
+        ResponseBody body = response.body();
+        try {
+            JSONObject json = new JSONObject(body != null ? body.string() : "{}");
+            return Math.max(0, json.optLong("watermark", 0));
+        } catch (JSONException e) {
+            // 2xx without a JSON body still acknowledges the whole chunk
+            return 0;
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -19,4 +19,22 @@ class MainActivity : ReactActivity() {
    */
   override fun createReactActivityDelegate(): ReactActivityDelegate =
       DefaultReactActivityDelegate(this, mainComponentName, fabricEnabled)
+
+  override fun onResume() {
+    super.onResume()
+    isInFront = true
+  }
+
+  override fun onPause() {
+    isInFront = false
+    super.onPause()
+  }
+
+  companion object {
+    /** While the app is in front its own popup disposes calls, not the overlay. */
+    @JvmStatic
+    @Volatile
+    var isInFront = false
+      private set
+  }
 }
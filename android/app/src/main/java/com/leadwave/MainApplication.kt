@@ -23,6 +23,15 @@ class MainApplication : Application(), ReactApplication {
 
   override fun onCreate() {
     super.onCreate()
+    // First, so call events during startup are recorded too
+    FlightRecorder.init(this)
+    // Must run before React creates its networking module
+    LeadwaveHttp.install(this)
+    Outbox.get(this).start()
+    // Lets a call in progress start React before the app is opened
+    ReactPrewarm.install(this)
+    // Profile, leads and today's call log load while the JS bundle does
+    WarmUp.startOnFirstActivity(this)
     loadReactNative(this)
   }
 }
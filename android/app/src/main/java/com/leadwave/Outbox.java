@@ -0,0 +1,300 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Outbox
+ *
+ * Write-behind queue for lead mutations (status updates, dispositions, call
+ * posts, new leads). JS enqueues and returns immediately; this class sends
+ * the rows from {@link OutboxStore} in the background.
+ *
+ * - Per lead, rows go out strictly in the order they were queued; different
+ *   leads are sent side by side, up to BATCH_SIZE rows per round. A lead's
+ *   rows wait behind its parked (failed) row until that is retried or discarded.
+ * - Network errors, 408, 429 and 5xx are retried with exponential backoff
+ *   (Retry-After wins when present). Other 4xx are parked as failed.
+ * - A round is started after every enqueue, when the device gets a network,
+ *   when the token is set, and when the earliest backoff expires.
+ */
+public final class Outbox {
+
+    private static final String TAG = "Outbox";
+
+    public static final String KIND_LEAD_UPDATE = "lead_update";
+    public static final String KIND_LEAD_STATUS = "lead_status";
+    public static final String KIND_CALL = "call";
+    public static final String KIND_CREATE_LEAD = "create_lead";
+
+    private static final int BATCH_SIZE = 20;
+    private static final long BACKOFF_BASE_MS = 5_000;
+    private static final long BACKOFF_MAX_MS = 10 * 60_000;
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final MediaType AUDIO = MediaType.parse("audio/mp4");
+
+    public interface Listener {
+        void onOutboxChanged(int pending, int failed);
+    }
+
+    private static Outbox instance;
+
+    private final Context context;
+    private final OutboxStore store;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private ScheduledFuture<?> wakeUp;
+    private boolean started;
+    private volatile Listener listener;
+
+    public static synchronized Outbox get(Context context) {
+        if (instance == null) {
+            instance = new Outbox(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private Outbox(Context context) {
+        this.context = context;
+        this.store = OutboxStore.get(context);
+    }
+
+    /** Called once from MainApplication: recovers interrupted rows and watches connectivity. */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        executor.execute(store::resetSending);
+
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            try {
+                cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    @Override
+                    public void onAvailable(Network network) {
+                        kick();
+                    }
+                });
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Network callback not registered: " + e.getMessage());
+            }
+        }
+        kick();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queues a mutation. lead_update and lead_status rows for the same lead
+     * are merged field by field into the lead's newest unsent row of that kind.
+     */
+    public long[] enqueue(String leadKey, String kind, String method, String path,
+                          JSONObject body, String filePath) throws JSONException {
+        boolean coalescible = KIND_LEAD_UPDATE.equals(kind) || KIND_LEAD_STATUS.equals(kind);
+        long[] result = store.enqueue(leadKey, kind, method, path, body, filePath, coalescible);
+        applyLocally(kind, leadKey, body);
+        kick();
+        return result;
+    }
+
+    /** Starts a replay round now (no-op while one is queued behind it). */
+    public void kick() {
+        executor.execute(this::replay);
+    }
+
+    /** Runs a replay round and blocks until it is done. */
+    public void flush() throws InterruptedException {
+        try {
+            executor.submit(this::replay).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            Log.w(TAG, "Flush failed", e.getCause());
+        }
+    }
+
+    /** A new token makes rows parked on 401 worth trying again right away. */
+    public void onTokenChanged() {
+        executor.execute(() -> {
+            store.makeAllDue();
+            replay();
+        });
+    }
+
+    public void retryFailed() {
+        executor.execute(() -> {
+            store.retryFailed();
+            replay();
+        });
+    }
+
+    public void discardFailed() {
+        executor.execute(() -> {
+            store.discardFailed();
+            notifyChanged();
+        });
+    }
+
+    /** The queued row, or null once it was delivered. */
+    public OutboxStore.Mutation find(long id) {
+        return store.find(id);
+    }
+
+    public List<OutboxStore.Mutation> failed(int limit) {
+        return store.failed(limit);
+    }
+
+    public int pendingCount() {
+        return store.count(OutboxStore.STATUS_PENDING) + store.count(OutboxStore.STATUS_SENDING);
+    }
+
+    public int failedCount() {
+        return store.count(OutboxStore.STATUS_FAILED);
+    }
+
+    // ── Replay (executor thread only) ──────────────────────────────────────
+
+    private void replay() {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        if (ApiSession.getToken(context) == null) return;
+
+        OkHttpClient client = LeadwaveHttp.client(context);
+        boolean offline = false;
+        long resumeAt = 0;
+        int sent = 0;
+
+        while (!offline) {
+            List<OutboxStore.Mutation> batch = store.nextBatch(System.currentTimeMillis(), BATCH_SIZE);
+            if (batch.isEmpty()) break;
+            store.markSending(batch);
+
+            for (OutboxStore.Mutation m : batch) {
+                if (offline) {
+                    // Leave the rest for the next round without counting an attempt
+                    store.retryLater(m.id, m.attempts, resumeAt, m.lastError);
+                    continue;
+                }
+                try (Response response = client.newCall(buildRequest(m)).execute()) {
+                    int code = response.code();
+                    if (response.isSuccessful()) {
+                        store.delete(m.id);
+                        sent++;
+                    } else if (code == 408 || code == 429 || code >= 500) {
+                        long delay = retryAfterMs(response.header("Retry-After"), m.attempts);
+                        store.retryLater(m.id, m.attempts + 1, System.currentTimeMillis() + delay, "HTTP " + code);
+                    } else if (code == 401) {
+                        // Token expired: park until JS logs in again (see onTokenChanged)
+                        resumeAt = System.currentTimeMillis() + BACKOFF_MAX_MS;
+                        store.retryLater(m.id, m.attempts, resumeAt, "HTTP 401");
+                        offline = true;
+                    } else {
+                        Log.w(TAG, m.method + " " + m.path + " rejected: HTTP " + code);
+                        store.markFailed(m.id, "HTTP " + code);
+                    }
+                } catch (JSONException e) {
+                    store.markFailed(m.id, String.valueOf(e.getMessage()));
+                } catch (IOException e) {
+                    resumeAt = System.currentTimeMillis() + backoffMs(m.attempts);
+                    store.retryLater(m.id, m.attempts + 1, resumeAt, String.valueOf(e.getMessage()));
+                    offline = true;
+                }
+            }
+        }
+
+        if (sent > 0) Log.d(TAG, "Replayed " + sent + " mutation(s)");
+        notifyChanged();
+        scheduleWakeUp();
+    }
+
+    private void scheduleWakeUp() {
+        long next = store.nextWakeAt();
+        if (next < 0) return;
+        long delay = Math.max(1_000, next - System.currentTimeMillis());
+        wakeUp = executor.schedule(this::replay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private Request buildRequest(OutboxStore.Mutation m) throws JSONException {
+        JSONObject body = new JSONObject(m.body);
+        RequestBody requestBody;
+        File file = m.filePath != null ? new File(m.filePath) : null;
+        // Captured silence is not worth the upload; the call is logged like one without a recording
+        if (file != null && file.exists() && !CallRecorder.isSilent(m.filePath)) {
+            MultipartBody.Builder multipart = new MultipartBody.Builder().setType(MultipartBody.FORM);
+            Iterator<String> keys = body.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (body.isNull(key)) continue;
+                multipart.addFormDataPart(key, String.valueOf(body.get(key)));
+            }
+            multipart.addFormDataPart("recording", file.getName(), RequestBody.create(file, AUDIO));
+            requestBody = multipart.build();
+        } else {
+            // No recording (or it was cleaned up meanwhile): the call itself still gets logged
+            requestBody = RequestBody.create(body.toString(), JSON);
+        }
+        return new Request.Builder()
+            .url(ApiSession.BASE_URL + m.path)
+            .header("Accept", "application/json")
+            // Lets the server drop a replay of a request it already applied
+            .header("Idempotency-Key", "outbox-" + m.uuid)
+            .method(m.method, requestBody)
+            .build();
+    }
+
+    private static long backoffMs(int attempts) {
+        long delay = BACKOFF_BASE_MS << Math.min(attempts, 10);
+        return Math.min(BACKOFF_MAX_MS, delay);
+    }
+
+    private static long retryAfterMs(String header, int attempts) {
+        if (header != null) {
+            try {
+                return Math.max(1_000, Long.parseLong(header.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form is rare here; fall back to backoff
+            }
+        }
+        return backoffMs(attempts);
+    }
+
+    private void notifyChanged() {
+        Listener l = listener;
+        if (l != null) l.onOutboxChanged(pendingCount(), failedCount());
+    }
+
+    /** Reflects a queued status change in the local lead copy so lists update before the server does. */
+    private void applyLocally(String kind, String leadId, JSONObject body) {
+        if (!KIND_LEAD_UPDATE.equals(kind) && !KIND_LEAD_STATUS.equals(kind)) return;
+        String status = LeadStore.str(body, "status");
+        if (status == null) return;
+        try {
+            JSONObject patch = new JSONObject();
+            patch.put("leadStatus", status);
+            LeadStore.get(context).patch(leadId, patch);
+        } catch (JSONException e) {
+            Log.w(TAG, "Local patch failed", e);
+        }
+    }
+}
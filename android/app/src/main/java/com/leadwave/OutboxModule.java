@@ -0,0 +1,170 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * OutboxModule
+ *
+ * JS entry point for {@link Outbox}. enqueue() resolves as soon as the row is
+ * on disk; delivery happens later and can be checked with getMutation().
+ * Emits "OutboxChanged" { pending, failed } after every replay round.
+ */
+public class OutboxModule extends ReactContextBaseJavaModule {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public OutboxModule(final ReactApplicationContext reactContext) {
+        super(reactContext);
+        Outbox.get(reactContext).setListener(new Outbox.Listener() {
+            @Override
+            public void onOutboxChanged(int pending, int failed) {
+                WritableMap params = Arguments.createMap();
+                params.putInt("pending", pending);
+                params.putInt("failed", failed);
+                sendEvent("OutboxChanged", params);
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "OutboxModule";
+    }
+
+    /** Resolves { id, coalesced }. filePath is an optional recording to send as multipart. */
+    @ReactMethod
+    public void enqueue(final String kind, final String leadKey, final String method, final String path,
+                        final String bodyJson, final String filePath, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long[] result = Outbox.get(getReactApplicationContext())
+                        .enqueue(leadKey, kind, method, path, new JSONObject(bodyJson), filePath);
+                    WritableMap map = Arguments.createMap();
+                    map.putDouble("id", result[0]);
+                    map.putBoolean("coalesced", result[1] == 1);
+                    promise.resolve(map);
+                } catch (Exception e) {
+                    promise.reject("ERR_OUTBOX_ENQUEUE", e);
+                }
+            }
+        });
+    }
+
+    /** Sends what can be sent now; resolves { pending, failed } afterwards. */
+    @ReactMethod
+    public void flush(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Outbox outbox = Outbox.get(getReactApplicationContext());
+                    outbox.flush();
+                    promise.resolve(status(outbox));
+                } catch (Exception e) {
+                    promise.reject("ERR_OUTBOX_FLUSH", e);
+                }
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getStatus(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                promise.resolve(status(Outbox.get(getReactApplicationContext())));
+            }
+        });
+    }
+
+    /** Resolves { status: sent | pending | sending | failed, error } for a row enqueue() returned. */
+    @ReactMethod
+    public void getMutation(final double id, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                OutboxStore.Mutation m = Outbox.get(getReactApplicationContext()).find((long) id);
+                WritableMap map = Arguments.createMap();
+                map.putString("status", m != null ? m.status : "sent");
+                map.putString("error", m != null ? m.lastError : null);
+                promise.resolve(map);
+            }
+        });
+    }
+
+    /** Resolves [{ id, kind, leadKey, path, error }] for rows the server refused. */
+    @ReactMethod
+    public void getFailed(final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                WritableArray rows = Arguments.createArray();
+                for (OutboxStore.Mutation m : Outbox.get(getReactApplicationContext()).failed(50)) {
+                    WritableMap map = Arguments.createMap();
+                    map.putDouble("id", m.id);
+                    map.putString("kind", m.kind);
+                    map.putString("leadKey", m.leadKey);
+                    map.putString("path", m.path);
+                    map.putString("error", m.lastError);
+                    rows.pushMap(map);
+                }
+                promise.resolve(rows);
+            }
+        });
+    }
+
+    @ReactMethod
+    public void retryFailed() {
+        Outbox.get(getReactApplicationContext()).retryFailed();
+    }
+
+    @ReactMethod
+    public void discardFailed() {
+        Outbox.get(getReactApplicationContext()).discardFailed();
+    }
+
+    // Required for NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {}
+
+    @ReactMethod
+    public void removeListeners(double count) {}
+
+    private static WritableMap status(Outbox outbox) {
+        WritableMap map = Arguments.createMap();
+        map.putInt("pending", outbox.pendingCount());
+        map.putInt("failed", outbox.failedCount());
+        return map;
+    }
+
+    private void sendEvent(final String eventName, final WritableMap params) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (context.hasActiveCatalystInstance()) {
+                    context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(eventName, params);
+                }
+            }
+        });
+    }
+}
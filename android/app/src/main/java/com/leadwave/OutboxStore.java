@@ -0,0 +1,313 @@
+package com.leadwave;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * OutboxStore
+ *
+ * Durable queue of lead mutations waiting to be sent (see {@link Outbox}).
+ * Rows are ordered by id; rows that share a lead_key are always sent in that
+ * order, and a lead's rows wait behind an earlier row of that lead that was
+ * parked as failed until it is retried or discarded. A new update for a lead
+ * is merged into the lead's newest pending row of the same kind and path,
+ * field by field, last write wins, even when a row of another kind (a call
+ * post) was queued in between. Only rows never attempted are merged: a row that was sent may have reached
+ * the server, which would drop a changed body under the same Idempotency-Key.
+ *
+ * Each row gets a random uuid when it is queued, sent as its Idempotency-Key.
+ * Row ids restart after a reinstall and repeat across devices; the uuid does
+ * not, and a merge keeps the uuid of the row merged into.
+ */
+public class OutboxStore extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "leadwave_outbox.db";
+    private static final int DB_VERSION = 2;
+
+    static final String STATUS_PENDING = "pending";
+    static final String STATUS_SENDING = "sending";
+    static final String STATUS_FAILED = "failed";
+
+    /** Pending rows with no earlier parked or in-flight row of the same lead. */
+    private static final String RELEASED = "m.status = ? AND NOT EXISTS (SELECT 1 FROM mutations e "
+        + "WHERE e.lead_key = m.lead_key AND e.id < m.id AND e.status != ?)";
+
+    public static final class Mutation {
+        public long id;
+        public String uuid;
+        public String leadKey;
+        public String kind;
+        public String method;
+        public String path;
+        public String body;
+        public String filePath;
+        public int attempts;
+        public long nextAttemptAt;
+        public String lastError;
+        public String status;
+    }
+
+    private static OutboxStore instance;
+
+    public static synchronized OutboxStore get(Context context) {
+        if (instance == null) {
+            instance = new OutboxStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private OutboxStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE mutations ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "uuid TEXT NOT NULL, "
+            + "lead_key TEXT NOT NULL, "
+            + "kind TEXT NOT NULL, "
+            + "method TEXT NOT NULL, "
+            + "path TEXT NOT NULL, "
+            + "body TEXT NOT NULL, "
+            + "file_path TEXT, "
+            + "status TEXT NOT NULL, "
+            + "attempts INTEGER NOT NULL DEFAULT 0, "
+            + "next_attempt_at INTEGER NOT NULL DEFAULT 0, "
+            + "last_error TEXT, "
+            + "created_at INTEGER NOT NULL, "
+            + "updated_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_mutations_lead ON mutations(lead_key, id)");
+        db.execSQL("CREATE INDEX idx_mutations_status ON mutations(status, id)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Pending mutations must survive upgrades; add migrations here when the schema changes.
+        if (oldVersion < 2) {
+            db.execSQL("ALTER TABLE mutations ADD COLUMN uuid TEXT NOT NULL DEFAULT ''");
+            List<Long> ids = new ArrayList<>();
+            try (Cursor c = db.rawQuery("SELECT id FROM mutations", null)) {
+                while (c.moveToNext()) ids.add(c.getLong(0));
+            }
+            for (long id : ids) {
+                ContentValues values = new ContentValues();
+                values.put("uuid", UUID.randomUUID().toString());
+                db.update("mutations", values, "id = ?", new String[]{String.valueOf(id)});
+            }
+        }
+    }
+
+    /**
+     * Queues a mutation, or merges it into the lead's newest unsent row of the
+     * same kind and path. Returns the row id and whether it was coalesced.
+     */
+    public synchronized long[] enqueue(String leadKey, String kind, String method, String path,
+                                       JSONObject body, String filePath, boolean coalescible) throws JSONException {
+        SQLiteDatabase db = getWritableDatabase();
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            if (coalescible && filePath == null) {
+                try (Cursor c = db.rawQuery(
+                        "SELECT id, body FROM mutations WHERE lead_key = ? AND kind = ? AND path = ? "
+                            + "AND status = ? AND attempts = 0 AND file_path IS NULL ORDER BY id DESC LIMIT 1",
+                        new String[]{leadKey, kind, path, STATUS_PENDING})) {
+                    if (c.moveToFirst()) {
+                        long id = c.getLong(0);
+                        JSONObject merged = new JSONObject(c.getString(1));
+                        Iterator<String> keys = body.keys();
+                        while (keys.hasNext()) {
+                            String key = keys.next();
+                            merged.put(key, body.get(key));
+                        }
+                        ContentValues values = new ContentValues();
+                        values.put("body", merged.toString());
+                        values.put("updated_at", now);
+                        db.update("mutations", values, "id = ?", new String[]{String.valueOf(id)});
+                        db.setTransactionSuccessful();
+                        return new long[]{id, 1};
+                    }
+                }
+            }
+
+            ContentValues values = new ContentValues();
+            values.put("uuid", UUID.randomUUID().toString());
+            values.put("lead_key", leadKey);
+            values.put("kind", kind);
+            values.put("method", method);
+            values.put("path", path);
+            values.put("body", body.toString());
+            values.put("file_path", filePath);
+            values.put("status", STATUS_PENDING);
+            values.put("created_at", now);
+            values.put("updated_at", now);
+            long id = db.insert("mutations", null, values);
+            db.setTransactionSuccessful();
+            return new long[]{id, 0};
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Next rows to send: due pending rows, at most one per lead, skipping any
+     * lead whose earlier row is not yet due or is parked (keeps per-lead order).
+     */
+    public synchronized List<Mutation> nextBatch(long now, int limit) {
+        List<Mutation> batch = new ArrayList<>();
+        Set<String> blocked = new HashSet<>();
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT id, lead_key, kind, method, path, body, file_path, attempts, next_attempt_at, last_error, uuid "
+                    + "FROM mutations m WHERE " + RELEASED + " ORDER BY id LIMIT 500",
+                new String[]{STATUS_PENDING, STATUS_PENDING})) {
+            while (c.moveToNext() && batch.size() < limit) {
+                String leadKey = c.getString(1);
+                if (blocked.contains(leadKey)) continue;
+                blocked.add(leadKey);
+                if (c.getLong(8) > now) continue;
+
+                Mutation m = new Mutation();
+                m.id = c.getLong(0);
+                m.leadKey = leadKey;
+                m.kind = c.getString(2);
+                m.method = c.getString(3);
+                m.path = c.getString(4);
+                m.body = c.getString(5);
+                m.filePath = c.getString(6);
+                m.attempts = c.getInt(7);
+                m.nextAttemptAt = c.getLong(8);
+                m.lastError = c.getString(9);
+                m.uuid = c.getString(10);
+                batch.add(m);
+            }
+        }
+        return batch;
+    }
+
+    public synchronized void markSending(List<Mutation> batch) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("status", STATUS_SENDING);
+            for (Mutation m : batch) {
+                db.update("mutations", values, "id = ?", new String[]{String.valueOf(m.id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public synchronized void delete(long id) {
+        getWritableDatabase().delete("mutations", "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    public synchronized void retryLater(long id, int attempts, long nextAttemptAt, String error) {
+        ContentValues values = new ContentValues();
+        values.put("status", STATUS_PENDING);
+        values.put("attempts", attempts);
+        values.put("next_attempt_at", nextAttemptAt);
+        values.put("last_error", error);
+        getWritableDatabase().update("mutations", values, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    /** Permanent failure (4xx): kept for inspection, no longer sent. */
+    public synchronized void markFailed(long id, String error) {
+        ContentValues values = new ContentValues();
+        values.put("status", STATUS_FAILED);
+        values.put("last_error", error);
+        getWritableDatabase().update("mutations", values, "id = ?", new String[]{String.valueOf(id)});
+    }
+
+    /** Rows left in "sending" by a killed process go back to pending. */
+    public synchronized void resetSending() {
+        ContentValues values = new ContentValues();
+        values.put("status", STATUS_PENDING);
+        getWritableDatabase().update("mutations", values, "status = ?", new String[]{STATUS_SENDING});
+    }
+
+    public synchronized void makeAllDue() {
+        ContentValues values = new ContentValues();
+        values.put("next_attempt_at", 0);
+        getWritableDatabase().update("mutations", values, "status = ?", new String[]{STATUS_PENDING});
+    }
+
+    public synchronized void retryFailed() {
+        ContentValues values = new ContentValues();
+        values.put("status", STATUS_PENDING);
+        values.put("attempts", 0);
+        values.put("next_attempt_at", 0);
+        getWritableDatabase().update("mutations", values, "status = ?", new String[]{STATUS_FAILED});
+    }
+
+    public synchronized void discardFailed() {
+        getWritableDatabase().delete("mutations", "status = ?", new String[]{STATUS_FAILED});
+    }
+
+    /** The row as it is now, or null once it was sent (or discarded). */
+    public synchronized Mutation find(long id) {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT id, lead_key, kind, path, status, attempts, last_error FROM mutations WHERE id = ?",
+                new String[]{String.valueOf(id)})) {
+            return c.moveToFirst() ? summary(c) : null;
+        }
+    }
+
+    /** Parked rows, oldest first, for the UI to report. */
+    public synchronized List<Mutation> failed(int limit) {
+        List<Mutation> rows = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT id, lead_key, kind, path, status, attempts, last_error FROM mutations "
+                    + "WHERE status = ? ORDER BY id LIMIT " + limit,
+                new String[]{STATUS_FAILED})) {
+            while (c.moveToNext()) rows.add(summary(c));
+        }
+        return rows;
+    }
+
+    private static Mutation summary(Cursor c) {
+        Mutation m = new Mutation();
+        m.id = c.getLong(0);
+        m.leadKey = c.getString(1);
+        m.kind = c.getString(2);
+        m.path = c.getString(3);
+        m.status = c.getString(4);
+        m.attempts = c.getInt(5);
+        m.lastError = c.getString(6);
+        return m;
+    }
+
+    public int count(String status) {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT COUNT(*) FROM mutations WHERE status = ?", new String[]{status})) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Earliest next_attempt_at among pending rows that are not held back by a
+     * parked row, or -1 when none is left to send.
+     */
+    public long nextWakeAt() {
+        try (Cursor c = getReadableDatabase().rawQuery(
+                "SELECT MIN(next_attempt_at) FROM mutations m WHERE " + RELEASED,
+                new String[]{STATUS_PENDING, STATUS_PENDING})) {
+            return c.moveToFirst() && !c.isNull(0) ? c.getLong(0) : -1;
+        }
+    }
+}
@@ -1,84 +0,0 @@
-package com.leadwave;
-
-import android.app.Notification;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.Service;
-import android.content.Context;
-import android.content.Intent;
-import android.graphics.PixelFormat;
-import android.os.Build;
-import android.os.IBinder;
-import android.view.Gravity;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.WindowManager;
-
-import androidx.core.app.NotificationCompat;
-
-public class OverlayService extends Service {
-
-    private WindowManager windowManager;
-    private View overlayView;
-
-    @Override
-    public int onStartCommand(Intent intent, int flags, int startId) {
-        startForeground(1, createNotification());
-        showOverlay();
-        return START_NOT_STICKY;
-    }
-
-    private Notification createNotification() {
-        String channelId = "overlay_channel";
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                    channelId,
-                    "Overlay Service",
-                    NotificationManager.IMPORTANCE_LOW);
-            getSystemService(NotificationManager.class)
-                    .createNotificationChannel(channel);
-        }
-        return new NotificationCompat.Builder(this, channelId)
-                .setContentTitle("Call Ended")
-                .setContentText("Showing popup")
-                .setSmallIcon(R.mipmap.ic_launcher)
-                .build();
-    }
-
-    private void showOverlay() {
-        windowManager = (WindowManager) getSystemService(Context.WINDOW_SERVICE);
-
-        overlayView = LayoutInflater.from(this)
-                .inflate(R.layout.overlay_layout, null);
-
-        int type = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
-                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
-                : WindowManager.LayoutParams.TYPE_PHONE;
-
-        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
-                WindowManager.LayoutParams.MATCH_PARENT,
-                WindowManager.LayoutParams.WRAP_CONTENT,
-                type,
-                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE,
-                PixelFormat.TRANSLUCENT);
-
-        params.gravity = Gravity.TOP;
-        windowManager.addView(overlayView, params);
-
-        overlayView.findViewById(R.id.btnClose)
-                .setOnClickListener(v -> stopSelf());
-    }
-
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        if (overlayView != null) {
-            windowManager.removeView(overlayView);
-        }
-    }
-
-    @Override
-    public IBinder onBind(Intent intent) {
-        return null;
-    }
-}
\ No newline at end of file
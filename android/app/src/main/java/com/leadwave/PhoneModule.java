@@ -1,7 +1,6 @@
 package com.leadwave;
 
 import android.content.Intent;
-import android.net.Uri;
 import android.telecom.TelecomManager;
 import android.os.Build;
 import android.content.Context;
@@ -18,6 +17,7 @@ import android.telephony.TelephonyManager;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableMap;
+import androidx.annotation.VisibleForTesting;
 
 public class PhoneModule extends ReactContextBaseJavaModule {
     private TelephonyManager telephonyManager;
@@ -27,14 +27,15 @@ public class PhoneModule extends ReactContextBaseJavaModule {
     // Call tracking fields
     private static String lastRingingNumber = null;
     private static long callStartTime = 0;
+    private static long ringStartTime = 0;      // first RINGING; the call log dates incoming calls from here
     private static boolean wasRinging = false;  // true if call came in as ringing (incoming)
     private static boolean wasOffhook = false;  // true if call was active/offhook
 
-    private static final String PREFS_NAME = "LeadwaveCallPrefs";
-    private static final String PREF_PENDING_PHONE = "pending_phone";
-    private static final String PREF_PENDING_DURATION = "pending_duration";
-    private static final String PREF_PENDING_TYPE = "pending_type";
-    private static final String PREF_HAS_PENDING = "has_pending";
+    private static final String PREFS_NAME = CallJournal.PREFS_NAME;
+    private static final String PREF_PENDING_PHONE = CallJournal.PREF_PENDING_PHONE;
+    private static final String PREF_PENDING_DURATION = CallJournal.PREF_PENDING_DURATION;
+    private static final String PREF_PENDING_TYPE = CallJournal.PREF_PENDING_TYPE;
+    private static final String PREF_HAS_PENDING = CallJournal.PREF_HAS_PENDING;
 
     PhoneModule(ReactApplicationContext context) {
         super(context);
@@ -76,14 +77,25 @@ public class PhoneModule extends ReactContextBaseJavaModule {
         @Override
         public void onCallStateChanged(int state, String phoneNumber) {
             super.onCallStateChanged(state, phoneNumber);
-            WritableMap params = Arguments.createMap();
+            long started = System.nanoTime();
+            String keyNumber = phoneNumber != null && !phoneNumber.isEmpty() ? phoneNumber : lastRingingNumber;
+            WritableMap params = CallEvents.newMap();
             
             switch (state) {
                 case TelephonyManager.CALL_STATE_RINGING:
+                    if (isCallActive) {
+                        // Call waiting: keep tracking the call in progress
+                        params.putInt("state", 2);
+                        if (phoneNumber != null) params.putString("number", phoneNumber);
+                        sendEvent("CallStateChanged", params);
+                        break;
+                    }
                     // Incoming call ringing — capture the number
                     if (phoneNumber != null && !phoneNumber.isEmpty()) {
                         lastRingingNumber = phoneNumber;
+                        TimelineCache.prefetchForNumber(getReactApplicationContext(), phoneNumber, null);
                     }
+                    if (!wasRinging) ringStartTime = CallEvents.now();
                     wasRinging = true;
                     wasOffhook = false;
                     params.putInt("state", 2); // STATE_RINGING
@@ -95,11 +107,13 @@ public class PhoneModule extends ReactContextBaseJavaModule {
                     // Call started or active
                     if (!isCallActive) {
                         isCallActive = true;
-                        callStartTime = System.currentTimeMillis();
+                        callStartTime = CallEvents.now();
                         // Capture number for outgoing calls (phoneNumber may be empty here)
                         if (!wasRinging && phoneNumber != null && !phoneNumber.isEmpty()) {
                             lastRingingNumber = phoneNumber;
+                            TimelineCache.prefetchForNumber(getReactApplicationContext(), phoneNumber, null);
                         }
+                        if (!wasRinging) CallPlacer.onDialing(phoneNumber);
                         wasOffhook = true;
                         params.putInt("state", 4); // Simulate STATE_ACTIVE
                         sendEvent("CallStateChanged", params);
@@ -111,7 +125,7 @@ public class PhoneModule extends ReactContextBaseJavaModule {
                 case TelephonyManager.CALL_STATE_IDLE:
                     // Call ended
                     if (isCallActive || wasRinging) {
-                        long durationMs = (callStartTime > 0) ? (System.currentTimeMillis() - callStartTime) : 0;
+                        long durationMs = (callStartTime > 0) ? (CallEvents.now() - callStartTime) : 0;
                         int durationSec = (int)(durationMs / 1000);
 
                         // Determine call type
@@ -128,15 +142,16 @@ public class PhoneModule extends ReactContextBaseJavaModule {
 
                         if (isCallActive) {
                             isCallActive = false;
-                            WritableMap stateParams = Arguments.createMap();
+                            WritableMap stateParams = CallEvents.newMap();
                             stateParams.putInt("state", 7); // Simulate STATE_DISCONNECTED
                             sendEvent("CallStateChanged", stateParams);
                             CallService.stopRecordingManual();
+                            PowerDialer.notifyCallEnded(endedPhone);
                         }
 
                         // Emit CallEnded event for the popup
                         if (!endedPhone.isEmpty()) {
-                            WritableMap endParams = Arguments.createMap();
+                            WritableMap endParams = CallEvents.newMap();
                             endParams.putString("phoneNumber", endedPhone);
                             endParams.putInt("duration", durationSec);
                             endParams.putString("callType", callType);
@@ -144,14 +159,10 @@ public class PhoneModule extends ReactContextBaseJavaModule {
 
                             // Persist to SharedPreferences for background recovery
                             try {
-                                SharedPreferences prefs = getReactApplicationContext()
-                                    .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-                                prefs.edit()
-                                    .putString(PREF_PENDING_PHONE, endedPhone)
-                                    .putInt(PREF_PENDING_DURATION, durationSec)
-                                    .putString(PREF_PENDING_TYPE, callType)
-                                    .putBoolean(PREF_HAS_PENDING, true)
-                                    .apply();
+                                long startedAt = wasRinging ? ringStartTime : callStartTime;
+                                CallJournal.record(getReactApplicationContext(), endedPhone, startedAt, durationSec, callType);
+                                FlightRecorder.record(FlightRecorder.SRC_LISTENER, FlightRecorder.EV_PENDING_SAVED,
+                                    0, endedPhone, durationSec);
                             } catch (Exception e) {
                                 android.util.Log.w("PhoneModule", "Failed to save pending call", e);
                             }
@@ -162,32 +173,77 @@ public class PhoneModule extends ReactContextBaseJavaModule {
                         wasOffhook = false;
                         lastRingingNumber = null;
                         callStartTime = 0;
+                        ringStartTime = 0;
                     }
                     break;
             }
+            FlightRecorder.record(FlightRecorder.SRC_LISTENER, FlightRecorder.EV_STATE, state, keyNumber,
+                FlightRecorder.micros(started));
         }
     }
 
     private void sendEvent(final String eventName, final WritableMap params) {
-        UiThreadUtil.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                if (getReactApplicationContext().hasActiveCatalystInstance()) {
-                    getReactApplicationContext()
-                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit(eventName, params);
-                }
-            }
-        });
+        CallEvents.emit(getReactApplicationContext(), eventName, params);
     }
 
+    @VisibleForTesting
+    PhoneStateListener getPhoneStateListener() {
+        return phoneStateListener;
+    }
+
+    /** Clears the cross-call tracking state (static, so it outlives module instances). */
+    @VisibleForTesting
+    static void resetCallState() {
+        isCallActive = false;
+        lastRingingNumber = null;
+        callStartTime = 0;
+        ringStartTime = 0;
+        wasRinging = false;
+        wasOffhook = false;
+    }
+
+    /**
+     * simSlot: 0-based SIM to call from, -1 for the system default.
+     * tappedAt: Date.now() of the user's tap, for the tap-to-dialing latency (0 = unknown).
+     * Resolves the dial path ("telecom" / "intent"); rejects with ERR_DNC for
+     * numbers on the do-not-call list ({@link DncStore}).
+     */
     @ReactMethod
-    public void makeCall(String phoneNumber) {
+    public void makeCall(String phoneNumber, int simSlot, double tappedAt, Promise promise) {
+        if (DncStore.get(getReactApplicationContext()).isBlocked(phoneNumber)) {
+            FlightRecorder.record(FlightRecorder.SRC_MODULE, FlightRecorder.EV_DNC, 1, phoneNumber, 0);
+            promise.reject("ERR_DNC", "Number is on the do-not-call list");
+            return;
+        }
         isCallActive = false; // Reset for new call
-        Intent intent = new Intent(Intent.ACTION_CALL);
-        intent.setData(Uri.parse("tel:" + phoneNumber));
-        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-        getReactApplicationContext().startActivity(intent);
+        // Outgoing calls rarely carry the number on OFFHOOK, so warm the timeline here
+        TimelineCache.prefetchForNumber(getReactApplicationContext(), phoneNumber, null);
+        String via;
+        try {
+            via = CallPlacer.place(getReactApplicationContext(), phoneNumber, simSlot, (long) tappedAt);
+        } catch (RuntimeException e) {
+            promise.reject("ERR_CALL", e);
+            return;
+        }
+        FlightRecorder.record(FlightRecorder.SRC_MODULE, FlightRecorder.EV_MAKE_CALL,
+            CallPlacer.VIA_TELECOM.equals(via) ? 1 : 2, phoneNumber, simSlot);
+        promise.resolve(via);
+    }
+
+    /** Number of SIMs that can place calls; 0 without READ_PHONE_STATE. */
+    @ReactMethod
+    public void getSimCount(Promise promise) {
+        promise.resolve(CallPlacer.simCount(getReactApplicationContext()));
+    }
+
+    /** Tap-to-dialing latency per dial path, as JSON (see CallPlacer.stats). */
+    @ReactMethod
+    public void getDialStats(Promise promise) {
+        try {
+            promise.resolve(CallPlacer.stats().toString());
+        } catch (Exception e) {
+            promise.reject("ERR_DIAL_STATS", e);
+        }
     }
 
     @ReactMethod
@@ -210,7 +266,7 @@ public class PhoneModule extends ReactContextBaseJavaModule {
         // This ensures the app doesn't get stuck in "Connected" state if we can't kill the system call.
         if (isCallActive) {
             isCallActive = false;
-            WritableMap params = Arguments.createMap();
+            WritableMap params = CallEvents.newMap();
             params.putInt("state", 7); // Simulate STATE_DISCONNECTED
             sendEvent("CallStateChanged", params);
             CallService.stopRecordingManual();
@@ -305,7 +361,8 @@ public class PhoneModule extends ReactContextBaseJavaModule {
             SharedPreferences prefs = getReactApplicationContext()
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
             boolean hasPending = prefs.getBoolean(PREF_HAS_PENDING, false);
-            if (!hasPending) {
+            // Claimed by the overlay: it is being disposed there
+            if (!hasPending || prefs.getBoolean(CallJournal.PREF_PENDING_CLAIMED, false)) {
                 promise.resolve(null);
                 return;
             }
@@ -318,6 +375,7 @@ public class PhoneModule extends ReactContextBaseJavaModule {
                 .remove(PREF_PENDING_PHONE)
                 .remove(PREF_PENDING_DURATION)
                 .remove(PREF_PENDING_TYPE)
+                .remove(CallJournal.PREF_PENDING_CLAIMED)
                 .putBoolean(PREF_HAS_PENDING, false)
                 .apply();
 
@@ -331,6 +389,21 @@ public class PhoneModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * The flight recorder's buffered call events (see {@link FlightRecorder}):
+     * base64 of the binary dump, or one line per event when asText is true.
+     */
+    @ReactMethod
+    public void exportFlightRecord(boolean asText, Promise promise) {
+        try {
+            byte[] dump = FlightRecorder.dump();
+            promise.resolve(asText ? FlightRecorder.describe(dump)
+                : android.util.Base64.encodeToString(dump, android.util.Base64.NO_WRAP));
+        } catch (Exception e) {
+            promise.reject("ERR_FLIGHT_RECORD", e);
+        }
+    }
+
     @ReactMethod
     public void getCurrentCall(Promise promise) {
         try {
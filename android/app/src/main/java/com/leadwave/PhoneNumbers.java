@@ -0,0 +1,39 @@
+package com.leadwave;
+
+/**
+ * PhoneNumbers
+ *
+ * Number normalisation shared by the native stores. Matches the JS side
+ * (HistoryScreen.findLeadByNumber): two numbers are the same when their
+ * last 10 digits are equal, so "+91 98765-43210" and "09876543210" collide.
+ */
+public final class PhoneNumbers {
+
+    public static final int KEY_LENGTH = 10;
+
+    private PhoneNumbers() {}
+
+    /**
+     * Returns the last 10 digits of the number, or null when the number has
+     * fewer than 10 digits (short codes, "Unknown", private numbers).
+     */
+    public static String key(String raw) {
+        if (raw == null) return null;
+        char[] digits = new char[KEY_LENGTH];
+        int found = 0;
+        for (int i = raw.length() - 1; i >= 0 && found < KEY_LENGTH; i--) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[KEY_LENGTH - 1 - found] = c;
+                found++;
+            }
+        }
+        return found == KEY_LENGTH ? new String(digits) : null;
+    }
+
+    /** Same as {@link #key(String)} but as a number, or -1 when there is no key. */
+    public static long numericKey(String raw) {
+        String key = key(raw);
+        return key != null ? Long.parseLong(key) : -1L;
+    }
+}
@@ -20,6 +20,14 @@ public class PhonePackage implements ReactPackage {
         List<NativeModule> modules = new ArrayList<>();
         modules.add(new PhoneModule(reactContext));
         modules.add(new RoleManagerModule(reactContext));
+        modules.add(new LeadStoreModule(reactContext));
+        modules.add(new HttpModule(reactContext));
+        modules.add(new OutboxModule(reactContext));
+        modules.add(new CallsModule(reactContext));
+        modules.add(new WarmCacheModule(reactContext));
+        modules.add(new PowerDialerModule(reactContext));
+        modules.add(new DncModule(reactContext));
+        CallLogFixtures.addModules(reactContext, modules);
         return modules;
     }
 }
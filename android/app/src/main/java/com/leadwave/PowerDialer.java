@@ -0,0 +1,412 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PowerDialer
+ *
+ * Works through an ordered list of campaign leads without the agent going
+ * back to the list between calls:
+ *
+ *   dialing ──call ends──▶ wrap_up ──disposed──▶ next ──wrap-up time──▶ dialing (next lead)
+ *
+ * - Calls are placed with {@link CallPlacer} (TelecomManager.placeCall, so
+ *   straight to CallService when we hold the dialer role) on the default SIM.
+ * - The end of a call comes from CallService.onCallRemoved or PhoneModule's
+ *   listener (IDLE), whichever is first.
+ * - The session only moves on once the current lead has been disposed
+ *   ({@link #disposed}); then it waits the configured wrap-up time, so the
+ *   agent can pause or skip. Disposing during the call is remembered.
+ * - While a call is up, the next lead's stored details and timeline are
+ *   loaded so its screen renders at once.
+ * - Leads whose number is on the do-not-call list ({@link DncStore}) are
+ *   skipped without dialling; leads without a full number (no 10-digit key
+ *   to match the call against) are left out of the session.
+ *
+ * Metrics per session: calls placed, idle gap between the end of one call
+ * and the start of the next (disposition plus wrap-up), call time and calls
+ * per hour of session time.
+ *
+ * Session state is only touched on the dialer's own thread.
+ */
+public final class PowerDialer {
+
+    private static final String TAG = "PowerDialer";
+
+    public static final String STATE_IDLE = "idle";
+    public static final String STATE_DIALING = "dialing";
+    public static final String STATE_WRAP_UP = "wrap_up";
+    public static final String STATE_NEXT = "next";
+    public static final String STATE_PAUSED = "paused";
+    public static final String STATE_FINISHED = "finished";
+
+    public static final long DEFAULT_WRAP_UP_MS = 5_000;
+    private static final long MAX_WRAP_UP_MS = 120_000;
+
+    public interface Listener {
+        void onSessionChanged(JSONObject status);
+    }
+
+    private static final class Lead {
+        final String id;
+        final String number;
+        final JSONObject json;
+        // LeadStore's copy, loaded while the previous call is up
+        JSONObject stored;
+
+        Lead(JSONObject json) {
+            this.json = json;
+            this.id = orEmpty(LeadStore.leadId(json));
+            // A JSON null or empty phone falls back to number
+            String phone = LeadStore.str(json, "phone");
+            this.number = orEmpty(phone != null ? phone : LeadStore.str(json, "number"));
+        }
+
+        private static String orEmpty(String value) {
+            return value != null ? value : "";
+        }
+
+        JSONObject details() {
+            return stored != null ? stored : json;
+        }
+    }
+
+    private static volatile PowerDialer instance;
+
+    private final Context context;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "power-dialer");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Listener listener;
+
+    // ── Session (executor thread only) ─────────────────────────────────────
+    private List<Lead> leads = Collections.emptyList();
+    private int index = -1;
+    // Written on the dialer thread; read by isSessionActive()
+    private volatile String state = STATE_IDLE;
+    private boolean paused;
+    private boolean disposedDuringCall;
+    private long wrapUpMs = DEFAULT_WRAP_UP_MS;
+    private ScheduledFuture<?> advance;
+    private long advanceAt;
+    private String via;
+    private String error;
+
+    // ── Metrics (elapsedRealtime ms) ──────────────────────────────────────
+    private long startedAt;
+    private long finishedAt;
+    private long callStartedAt;
+    private long lastEndedAt;
+    private int callsPlaced;
+    private int callsEnded;
+    private int skippedDnc;
+    private long totalCallMs;
+    private long totalIdleMs;
+    private int idleGaps;
+    private long lastIdleMs = -1;
+
+    public static synchronized PowerDialer get(Context context) {
+        if (instance == null) {
+            instance = new PowerDialer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PowerDialer(Context context) {
+        this.context = context;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** From the call paths: a call ended. No-op when no session was ever started. */
+    public static void notifyCallEnded(String phoneNumber) {
+        PowerDialer dialer = instance;
+        if (dialer != null) dialer.onCallEnded(phoneNumber);
+    }
+
+    /** A session is running: its own dispose screen (CampaignLeadsScreen) handles each call. */
+    public static boolean isSessionActive() {
+        PowerDialer dialer = instance;
+        if (dialer == null) return false;
+        String s = dialer.state;
+        return !STATE_IDLE.equals(s) && !STATE_FINISHED.equals(s);
+    }
+
+    /** {@link #disposed} from outside JS (the overlay); no-op without a session. */
+    public static void notifyDisposed(String leadId) {
+        PowerDialer dialer = instance;
+        if (dialer != null) dialer.disposed(leadId);
+    }
+
+    /**
+     * Starts a session over leads (lead objects as JS has them) and dials the
+     * first one. Replaces any running session.
+     */
+    public void start(final JSONArray input, final long wrapUp) {
+        executor.execute(() -> {
+            cancelAdvance();
+            List<Lead> list = new ArrayList<>();
+            for (int i = 0; i < input.length(); i++) {
+                JSONObject json = input.optJSONObject(i);
+                if (json == null) continue;
+                Lead lead = new Lead(json);
+                if (PhoneNumbers.key(lead.number) == null) {
+                    Log.w(TAG, "Skipping lead " + json.optString("_id", json.optString("id", "?"))
+                        + ": no usable number '" + lead.number + "'");
+                    continue;
+                }
+                list.add(lead);
+            }
+            leads = list;
+            index = -1;
+            paused = false;
+            disposedDuringCall = false;
+            wrapUpMs = Math.max(0, Math.min(wrapUp, MAX_WRAP_UP_MS));
+            via = null;
+            error = null;
+            startedAt = SystemClock.elapsedRealtime();
+            finishedAt = 0;
+            lastEndedAt = 0;
+            callsPlaced = 0;
+            callsEnded = 0;
+            skippedDnc = 0;
+            totalCallMs = 0;
+            totalIdleMs = 0;
+            idleGaps = 0;
+            lastIdleMs = -1;
+            Log.i(TAG, "Session started: " + list.size() + " leads, wrap-up " + wrapUpMs + " ms");
+            dial(0);
+        });
+    }
+
+    /** The agent disposed leadId; moves on after the wrap-up time if it is the current lead. */
+    public void disposed(final String leadId) {
+        executor.execute(() -> {
+            Lead lead = current();
+            if (lead == null || !lead.id.equals(leadId)) return;
+            if (STATE_DIALING.equals(state)) {
+                disposedDuringCall = true;
+            } else if (STATE_WRAP_UP.equals(state)) {
+                afterDisposition();
+            }
+        });
+    }
+
+    /** Stops after the current call instead of dialing the next lead. */
+    public void pause() {
+        executor.execute(() -> {
+            paused = true;
+            if (STATE_NEXT.equals(state)) {
+                cancelAdvance();
+                state = STATE_PAUSED;
+            }
+            changed();
+        });
+    }
+
+    public void resume() {
+        executor.execute(() -> {
+            paused = false;
+            if (STATE_PAUSED.equals(state)) {
+                dial(index + 1);
+            } else {
+                changed();
+            }
+        });
+    }
+
+    /** Dials the next lead now; ignored while a call is up. */
+    public void skip() {
+        executor.execute(() -> {
+            if (STATE_IDLE.equals(state) || STATE_DIALING.equals(state) || STATE_FINISHED.equals(state)) return;
+            cancelAdvance();
+            dial(index + 1);
+        });
+    }
+
+    public void stop() {
+        executor.execute(() -> {
+            if (STATE_IDLE.equals(state) || STATE_FINISHED.equals(state)) return;
+            cancelAdvance();
+            finish();
+        });
+    }
+
+    /** Calls back with the current status on the dialer thread. */
+    public void status(final Listener callback) {
+        executor.execute(() -> callback.onSessionChanged(snapshot()));
+    }
+
+    private void onCallEnded(final String phoneNumber) {
+        executor.execute(() -> {
+            if (!STATE_DIALING.equals(state)) return;
+            Lead lead = current();
+            // An incoming call that ended while ours was being placed
+            if (phoneNumber != null && !phoneNumber.isEmpty()) {
+                String key = PhoneNumbers.key(phoneNumber);
+                if (key == null || !key.equals(PhoneNumbers.key(lead.number))) return;
+            }
+            long now = SystemClock.elapsedRealtime();
+            callsEnded++;
+            totalCallMs += now - callStartedAt;
+            lastEndedAt = now;
+            state = STATE_WRAP_UP;
+            if (disposedDuringCall) {
+                afterDisposition();
+            } else {
+                changed();
+            }
+        });
+    }
+
+    // ── Session steps (executor thread) ────────────────────────────────────
+
+    private Lead current() {
+        return index >= 0 && index < leads.size() ? leads.get(index) : null;
+    }
+
+    private void dial(int next) {
+        index = next;
+        disposedDuringCall = false;
+        Lead lead = current();
+        // Never dialled; the session moves straight on to the next lead
+        DncStore dnc = DncStore.get(context);
+        while (lead != null && dnc.isBlocked(lead.number)) {
+            FlightRecorder.record(FlightRecorder.SRC_MODULE, FlightRecorder.EV_DNC, 1, lead.number, 0);
+            skippedDnc++;
+            index++;
+            lead = current();
+        }
+        if (lead == null) {
+            finish();
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (lastEndedAt > 0) {
+            lastIdleMs = now - lastEndedAt;
+            totalIdleMs += lastIdleMs;
+            idleGaps++;
+        }
+        try {
+            via = CallPlacer.place(context, lead.number, -1, 0);
+        } catch (RuntimeException e) {
+            // No CALL_PHONE, no activity to handle ACTION_CALL: nothing to dial with
+            Log.w(TAG, "Could not place call", e);
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+            finish();
+            return;
+        }
+        FlightRecorder.record(FlightRecorder.SRC_MODULE, FlightRecorder.EV_MAKE_CALL, 0, lead.number, 0);
+        callsPlaced++;
+        callStartedAt = now;
+        state = STATE_DIALING;
+        changed();
+
+        TimelineCache.prefetch(context, lead.id, null);
+        prefetchNext();
+    }
+
+    /** Loads the next lead's stored details and starts its timeline fetch. */
+    private void prefetchNext() {
+        if (index + 1 >= leads.size()) return;
+        Lead next = leads.get(index + 1);
+        if (next.id.isEmpty()) return;
+        try {
+            String stored = LeadStore.get(context).leadJson(next.id);
+            if (stored != null) next.stored = new JSONObject(stored);
+        } catch (Exception e) {
+            Log.w(TAG, "Next lead not loaded: " + e.getMessage());
+        }
+        TimelineCache.prefetch(context, next.id, null);
+    }
+
+    private void afterDisposition() {
+        disposedDuringCall = false;
+        if (paused) {
+            state = STATE_PAUSED;
+        } else {
+            state = STATE_NEXT;
+            advanceAt = System.currentTimeMillis() + wrapUpMs;
+            advance = executor.schedule(() -> {
+                advance = null;
+                if (STATE_NEXT.equals(state)) dial(index + 1);
+            }, wrapUpMs, TimeUnit.MILLISECONDS);
+        }
+        changed();
+    }
+
+    private void cancelAdvance() {
+        if (advance != null) {
+            advance.cancel(false);
+            advance = null;
+        }
+    }
+
+    private void finish() {
+        state = STATE_FINISHED;
+        finishedAt = SystemClock.elapsedRealtime();
+        Log.i(TAG, "Session finished: " + callsPlaced + " calls, "
+            + snapshot().optJSONObject("metrics"));
+        changed();
+    }
+
+    private void changed() {
+        Listener l = listener;
+        if (l != null) l.onSessionChanged(snapshot());
+    }
+
+    private JSONObject snapshot() {
+        JSONObject out = new JSONObject();
+        try {
+            out.put("state", state);
+            out.put("paused", paused);
+            out.put("index", index);
+            out.put("total", leads.size());
+            Lead lead = current();
+            out.put("lead", lead != null ? lead.details() : JSONObject.NULL);
+            Lead next = index + 1 < leads.size() ? leads.get(index + 1) : null;
+            out.put("next", next != null ? next.details() : JSONObject.NULL);
+            out.put("wrapUpMs", wrapUpMs);
+            out.put("advanceAt", STATE_NEXT.equals(state) ? advanceAt : 0);
+            out.put("via", via != null ? via : JSONObject.NULL);
+            out.put("error", error != null ? error : JSONObject.NULL);
+            out.put("metrics", metrics());
+        } catch (JSONException e) {
+            // Not thrown for these values
+        }
+        return out;
+    }
+
+    private JSONObject metrics() throws JSONException {
+        long end = finishedAt > 0 ? finishedAt : SystemClock.elapsedRealtime();
+        long elapsed = startedAt > 0 ? end - startedAt : 0;
+        JSONObject m = new JSONObject();
+        m.put("callsPlaced", callsPlaced);
+        m.put("callsEnded", callsEnded);
+        m.put("skippedDnc", skippedDnc);
+        m.put("elapsedMs", elapsed);
+        m.put("callsPerHour", elapsed > 0 ? Math.round(callsPlaced * 3_600_000.0 / elapsed * 10) / 10.0 : 0);
+        m.put("avgIdleGapMs", idleGaps > 0 ? totalIdleMs / idleGaps : 0);
+        m.put("lastIdleGapMs", lastIdleMs);
+        m.put("avgCallMs", callsEnded > 0 ? totalCallMs / callsEnded : 0);
+        return m;
+    }
+}
@@ -0,0 +1,109 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * PowerDialerModule
+ *
+ * JS entry point for {@link PowerDialer}. Emits "PowerDialerChanged"
+ * { json } with the session status after every step; getStatus() resolves
+ * the same JSON string.
+ */
+public class PowerDialerModule extends ReactContextBaseJavaModule {
+
+    public PowerDialerModule(final ReactApplicationContext reactContext) {
+        super(reactContext);
+        PowerDialer.get(reactContext).setListener(new PowerDialer.Listener() {
+            @Override
+            public void onSessionChanged(JSONObject status) {
+                WritableMap params = Arguments.createMap();
+                params.putString("json", status.toString());
+                sendEvent("PowerDialerChanged", params);
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "PowerDialerModule";
+    }
+
+    /** leadsJson: JSON array of lead objects, in dialing order. */
+    @ReactMethod
+    public void start(String leadsJson, double wrapUpMs, Promise promise) {
+        try {
+            PowerDialer.get(getReactApplicationContext()).start(new JSONArray(leadsJson), (long) wrapUpMs);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("ERR_POWER_DIALER", e);
+        }
+    }
+
+    @ReactMethod
+    public void disposed(String leadId) {
+        PowerDialer.get(getReactApplicationContext()).disposed(leadId);
+    }
+
+    @ReactMethod
+    public void pause() {
+        PowerDialer.get(getReactApplicationContext()).pause();
+    }
+
+    @ReactMethod
+    public void resume() {
+        PowerDialer.get(getReactApplicationContext()).resume();
+    }
+
+    @ReactMethod
+    public void skip() {
+        PowerDialer.get(getReactApplicationContext()).skip();
+    }
+
+    @ReactMethod
+    public void stop() {
+        PowerDialer.get(getReactApplicationContext()).stop();
+    }
+
+    @ReactMethod
+    public void getStatus(final Promise promise) {
+        PowerDialer.get(getReactApplicationContext()).status(new PowerDialer.Listener() {
+            @Override
+            public void onSessionChanged(JSONObject status) {
+                promise.resolve(status.toString());
+            }
+        });
+    }
+
+    // Required for NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {}
+
+    @ReactMethod
+    public void removeListeners(double count) {}
+
+    private void sendEvent(final String eventName, final WritableMap params) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                if (context.hasActiveCatalystInstance()) {
+                    context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(eventName, params);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,244 @@
+package com.leadwave;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.facebook.react.ReactApplication;
+import com.facebook.react.ReactHost;
+import com.facebook.react.ReactInstanceEventListener;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.jstasks.HeadlessJsTaskContext;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * ReactPrewarm
+ *
+ * Starts the React host (JS bundle load, native modules, instance) while a
+ * call is ringing or in progress, so that opening the app after hangup
+ * attaches to a running instance instead of a cold start. BackgroundCallReceiver
+ * calls {@link #onCallStarted} on RINGING / OFFHOOK and {@link #onCallEnded}
+ * at IDLE.
+ *
+ * Speculative, so it stays out of the way:
+ * - only when logged in, no activity is up and the host is not running yet;
+ * - only with at least BUDGET_BYTES of memory available above the low-memory
+ *   threshold, on a device that is not low-RAM, and not while the process
+ *   was last trimmed for memory;
+ * - an onTrimMemory at MODERATE or worse before the app is opened destroys
+ *   the warmed host and suspends warm-ups for BACKOFF_MS;
+ * - a warmed host nobody opened is released RELEASE_AFTER_MS after hangup,
+ *   unless a headless task (the recording upload) is using it.
+ *
+ * Hangup-to-interactive is measured from IDLE to {@link #markInteractive}
+ * (the post-call popup on screen) and kept per start kind in
+ * SharedPreferences: "warm" (opened onto a warmed host), "cold" (the
+ * activity had to start React) and "resumed" (the app was already running).
+ *
+ * Main thread only, except {@link #stats}. The hangup time is kept in
+ * SharedPreferences too, so a cold start after the process died still counts.
+ */
+public final class ReactPrewarm {
+
+    private static final String TAG = "ReactPrewarm";
+
+    static final int STATE_STARTED = 1;    // value = 0
+    static final int STATE_READY = 2;      // value = start-to-ready micros
+    static final int STATE_RELEASED = 3;   // value = 1 memory pressure / 2 unused
+    static final int STATE_SKIPPED = 4;    // value = available bytes above the threshold
+    static final int STATE_INTERACTIVE = 5; // value = hangup-to-interactive ms
+
+    private static final String PREFS = "LeadwavePrewarm";
+    private static final String KEY_BACKOFF_UNTIL = "backoff_until";
+    // Hangup time and start kind of the last call; in prefs, as the process may die before the app is opened
+    private static final String KEY_HANGUP_AT = "hangup_at";
+    private static final String KEY_HANGUP_KIND = "hangup_kind";
+
+    // Room a React instance with our bundle takes, plus margin
+    private static final long BUDGET_BYTES = 200L * 1024 * 1024;
+    private static final long BACKOFF_MS = 30 * 60 * 1000L;
+    private static final long RELEASE_AFTER_MS = 10 * 60 * 1000L;
+    // Longer from hangup than this is not a post-call open
+    private static final long MEASURE_WINDOW_MS = 15 * 60 * 1000L;
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private static Application app;
+    private static int activities;
+    // Warm-up started by us and not yet handed to an activity
+    private static boolean warmed;
+
+    private static final Runnable releaseUnused = () -> release(2);
+
+    private ReactPrewarm() {}
+
+    /** Call from Application.onCreate. */
+    public static void install(final Application application) {
+        app = application;
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                SharedPreferences prefs = prefs(application);
+                if (activities++ == 0 && prefs.getLong(KEY_HANGUP_AT, 0) > 0 && !prefs.contains(KEY_HANGUP_KIND)) {
+                    prefs.edit().putString(KEY_HANGUP_KIND, warmed ? "warm" : "cold").apply();
+                }
+                // The app owns the host from here on
+                warmed = false;
+                handler.removeCallbacks(releaseUnused);
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+                activities = Math.max(0, activities - 1);
+            }
+
+            @Override public void onActivityStarted(Activity activity) {}
+            @Override public void onActivityResumed(Activity activity) {}
+            @Override public void onActivityPaused(Activity activity) {}
+            @Override public void onActivityStopped(Activity activity) {}
+            @Override public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+        });
+        application.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_MODERATE && warmed) {
+                    prefs(application).edit()
+                        .putLong(KEY_BACKOFF_UNTIL, System.currentTimeMillis() + BACKOFF_MS)
+                        .apply();
+                    release(1);
+                }
+            }
+
+            @Override public void onConfigurationChanged(Configuration newConfig) {}
+            @Override public void onLowMemory() {}
+        });
+    }
+
+    /** A call is ringing or off-hook. */
+    public static void onCallStarted(Context context) {
+        handler.removeCallbacks(releaseUnused);
+        final ReactHost host = host(context);
+        if (host == null || warmed || activities > 0 || host.getCurrentReactContext() != null) return;
+        if (ApiSession.getToken(context) == null) return;
+
+        long room = availableRoom(context);
+        if (room < BUDGET_BYTES
+                || System.currentTimeMillis() < prefs(context).getLong(KEY_BACKOFF_UNTIL, 0)) {
+            FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_PREWARM, STATE_SKIPPED, -1L, room);
+            return;
+        }
+
+        warmed = true;
+        final long started = System.nanoTime();
+        FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_PREWARM, STATE_STARTED, -1L, 0);
+        Log.d(TAG, "Warming React during the call");
+        host.addReactInstanceEventListener(new ReactInstanceEventListener() {
+            @Override
+            public void onReactContextInitialized(ReactContext context) {
+                host.removeReactInstanceEventListener(this);
+                FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_PREWARM, STATE_READY, -1L,
+                    FlightRecorder.micros(started));
+            }
+        });
+        // Asynchronous: the bundle loads on React's own threads
+        host.start();
+    }
+
+    /** The call went IDLE: start the clock and give an unopened warm-up a deadline. */
+    public static void onCallEnded(Context context) {
+        SharedPreferences.Editor edit = prefs(context).edit().putLong(KEY_HANGUP_AT, System.currentTimeMillis());
+        if (activities > 0) {
+            edit.putString(KEY_HANGUP_KIND, "resumed");
+        } else {
+            edit.remove(KEY_HANGUP_KIND);
+        }
+        edit.apply();
+        if (warmed) handler.postDelayed(releaseUnused, RELEASE_AFTER_MS);
+    }
+
+    /** The post-call UI is on screen; records hangup-to-interactive once per call. */
+    public static void markInteractive(Context context) {
+        SharedPreferences prefs = prefs(context);
+        long hangupAt = prefs.getLong(KEY_HANGUP_AT, 0);
+        if (hangupAt == 0) return;
+        long ms = System.currentTimeMillis() - hangupAt;
+        String kind = prefs.getString(KEY_HANGUP_KIND, "resumed");
+        prefs.edit().remove(KEY_HANGUP_AT).remove(KEY_HANGUP_KIND).apply();
+        if (ms < 0 || ms > MEASURE_WINDOW_MS) return;
+
+        prefs.edit()
+            .putLong(kind + ":count", prefs.getLong(kind + ":count", 0) + 1)
+            .putLong(kind + ":totalMs", prefs.getLong(kind + ":totalMs", 0) + ms)
+            .putLong(kind + ":lastMs", ms)
+            .apply();
+        FlightRecorder.record(FlightRecorder.SRC_MODULE, FlightRecorder.EV_PREWARM, STATE_INTERACTIVE, -1L, ms);
+        Log.d(TAG, "Hangup to interactive (" + kind + "): " + ms + " ms");
+    }
+
+    /** { warm|cold|resumed: { count, avgMs, lastMs }, backoffUntil } */
+    public static JSONObject stats(Context context) throws JSONException {
+        SharedPreferences prefs = prefs(context);
+        JSONObject out = new JSONObject();
+        for (String kind : new String[]{"warm", "cold", "resumed"}) {
+            long count = prefs.getLong(kind + ":count", 0);
+            JSONObject entry = new JSONObject();
+            entry.put("count", count);
+            entry.put("avgMs", count > 0 ? prefs.getLong(kind + ":totalMs", 0) / count : JSONObject.NULL);
+            entry.put("lastMs", count > 0 ? prefs.getLong(kind + ":lastMs", 0) : JSONObject.NULL);
+            out.put(kind, entry);
+        }
+        out.put("backoffUntil", prefs.getLong(KEY_BACKOFF_UNTIL, 0));
+        return out;
+    }
+
+    // ── Internals ──────────────────────────────────────────────────────────
+
+    /** Tears down a warmed host nobody opened. reason: 1 memory pressure, 2 unused. */
+    private static void release(int reason) {
+        if (!warmed || activities > 0 || app == null) return;
+        ReactHost host = host(app);
+        if (host == null) return;
+        ReactContext context = host.getCurrentReactContext();
+        if (reason == 2 && context != null && HeadlessJsTaskContext.getInstance(context).hasActiveTasks()) {
+            // The recording upload runs on this host; look again later
+            handler.postDelayed(releaseUnused, RELEASE_AFTER_MS);
+            return;
+        }
+        warmed = false;
+        host.destroy(reason == 1 ? "Released under memory pressure" : "Warm-up not used", null);
+        FlightRecorder.record(FlightRecorder.SRC_RECEIVER, FlightRecorder.EV_PREWARM, STATE_RELEASED, -1L, reason);
+        Log.d(TAG, "Released warmed React host (" + (reason == 1 ? "memory" : "unused") + ")");
+    }
+
+    private static ReactHost host(Context context) {
+        Context application = context.getApplicationContext();
+        // Plain Application in unit tests
+        return application instanceof ReactApplication ? ((ReactApplication) application).getReactHost() : null;
+    }
+
+    /** Bytes available above the low-memory threshold, or 0 when warming would not fit. */
+    private static long availableRoom(Context context) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am == null || am.isLowRamDevice()) return 0;
+        ActivityManager.RunningAppProcessInfo self = new ActivityManager.RunningAppProcessInfo();
+        ActivityManager.getMyMemoryState(self);
+        if (self.lastTrimLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) return 0;
+        ActivityManager.MemoryInfo info = new ActivityManager.MemoryInfo();
+        am.getMemoryInfo(info);
+        return info.lowMemory ? 0 : Math.max(0, info.availMem - info.threshold);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
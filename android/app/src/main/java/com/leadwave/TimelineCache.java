@@ -0,0 +1,199 @@
+package com.leadwave;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * TimelineCache
+ *
+ * On-disk copy of GET /leads/timeline/{id} responses, one file per lead
+ * under cacheDir/timeline. Filled ahead of time when a call to or from a
+ * known lead starts ringing, so LeadDetailsScreen can render the timeline
+ * immediately and revalidate it in the background.
+ *
+ * Bounded to MAX_ENTRIES files (oldest written go first); entries older than
+ * MAX_AGE_MS are treated as missing.
+ */
+public final class TimelineCache {
+
+    private static final String TAG = "TimelineCache";
+
+    private static final int MAX_ENTRIES = 200;
+    private static final long MAX_AGE_MS = 3 * 24 * 60 * 60 * 1000L;
+    // A prefetch is skipped when the copy on disk is younger than this
+    private static final long PREFETCH_FRESH_MS = 2 * 60 * 1000L;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Set<String> inFlight = Collections.synchronizedSet(new HashSet<String>());
+
+    public static final class Entry {
+        public final String json;
+        public final long ageMs;
+
+        Entry(String json, long ageMs) {
+            this.json = json;
+            this.ageMs = ageMs;
+        }
+    }
+
+    private TimelineCache() {}
+
+    private static File dir(Context context) {
+        File dir = new File(context.getCacheDir(), "timeline");
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private static File file(Context context, String leadId) {
+        // Lead IDs are Mongo ObjectIds; keep anything else from escaping the dir
+        return new File(dir(context), leadId.replaceAll("[^A-Za-z0-9_-]", "_") + ".json");
+    }
+
+    /** Cached response body for the lead, or null when missing or expired. */
+    public static Entry get(Context context, String leadId) {
+        File f = file(context, leadId);
+        if (!f.exists()) return null;
+        long age = System.currentTimeMillis() - f.lastModified();
+        if (age > MAX_AGE_MS) {
+            f.delete();
+            return null;
+        }
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] bytes = new byte[(int) f.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+            return new Entry(new String(bytes, 0, read, StandardCharsets.UTF_8), Math.max(0, age));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static synchronized void put(Context context, String leadId, String json) {
+        File f = file(context, leadId);
+        File tmp = new File(f.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.w(TAG, "Write failed for " + leadId, e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(f)) tmp.delete();
+        trim(context);
+    }
+
+    public static synchronized void clear(Context context) {
+        File[] files = dir(context).listFiles();
+        if (files == null) return;
+        for (File f : files) f.delete();
+    }
+
+    private static void trim(Context context) {
+        File[] files = dir(context).listFiles();
+        if (files == null || files.length <= MAX_ENTRIES) return;
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length - MAX_ENTRIES; i++) {
+            files[i].delete();
+        }
+    }
+
+    /**
+     * Fetches the timeline from the server and stores it. Blocking.
+     * Returns the body; throws when the request fails.
+     */
+    public static String fetch(Context context, String leadId) throws IOException {
+        Request request = new Request.Builder()
+            .url(LeadwaveHttp.url("/leads/timeline/" + leadId).build())
+            .header("Accept", "application/json")
+            .build();
+        try (Response response = LeadwaveHttp.client(context).newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("GET /leads/timeline failed: HTTP " + response.code());
+            }
+            ResponseBody body = response.body();
+            String json = body != null ? body.string() : null;
+            if (json != null) put(context, leadId, json);
+            return json;
+        }
+    }
+
+    /**
+     * Called on RINGING/OFFHOOK or when we place a call: if the number belongs
+     * to a stored lead and its timeline is not fresh on disk, fetch it in the
+     * background. onDone (may be null) runs when the attempt is over.
+     */
+    public static void prefetchForNumber(Context context, final String phoneNumber, final Runnable onDone) {
+        final Context app = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (ApiSession.getToken(app) == null) return;
+                    String leadId = LeadStore.get(app).leadIdForKey(PhoneNumbers.key(phoneNumber));
+                    if (leadId != null) fetchIfStale(app, leadId);
+                } catch (Exception e) {
+                    Log.w(TAG, "Prefetch failed: " + e.getMessage());
+                } finally {
+                    if (onDone != null) onDone.run();
+                }
+            }
+        });
+    }
+
+    /** Same as {@link #prefetchForNumber} for a lead that is already known, e.g. the power dialer's next one. */
+    public static void prefetch(Context context, final String leadId, final Runnable onDone) {
+        final Context app = context.getApplicationContext();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (ApiSession.getToken(app) != null) fetchIfStale(app, leadId);
+                } catch (Exception e) {
+                    Log.w(TAG, "Prefetch failed: " + e.getMessage());
+                } finally {
+                    if (onDone != null) onDone.run();
+                }
+            }
+        });
+    }
+
+    private static void fetchIfStale(Context app, String leadId) throws IOException {
+        Entry cached = get(app, leadId);
+        if (cached != null && cached.ageMs < PREFETCH_FRESH_MS) return;
+        if (!inFlight.add(leadId)) return;
+        try {
+            fetch(app, leadId);
+            Log.d(TAG, "Prefetched timeline for lead " + leadId);
+        } finally {
+            inFlight.remove(leadId);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.leadwave;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.UiThreadUtil;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * WarmCacheModule
+ *
+ * Hands the results of the launch warm-up ({@link WarmUp}) to JS. Results
+ * are JSON strings parsed by src/services/WarmCache.ts. Also reports the
+ * post-call UI to {@link ReactPrewarm} for its hangup-to-interactive timing.
+ */
+public class WarmCacheModule extends ReactContextBaseJavaModule {
+
+    // take() may wait for a load in flight; keep that off the other modules' executors
+    private static final ExecutorService executor = Executors.newCachedThreadPool();
+
+    public WarmCacheModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return "WarmCacheModule";
+    }
+
+    /** Resolves the warmed JSON for key (once), or null. */
+    @ReactMethod
+    public void take(final String key, final double timeoutMs, final Promise promise) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                promise.resolve(WarmUp.take(key, (long) timeoutMs));
+            }
+        });
+    }
+
+    /** Resolves { key: load ms (-1 failed) } as a JSON string. */
+    @ReactMethod
+    public void getStats(Promise promise) {
+        try {
+            promise.resolve(WarmUp.stats().toString());
+        } catch (Exception e) {
+            promise.reject("ERR_WARM_CACHE", e);
+        }
+    }
+
+    /** The post-call popup is on screen. */
+    @ReactMethod
+    public void markInteractive() {
+        UiThreadUtil.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                ReactPrewarm.markInteractive(getReactApplicationContext());
+            }
+        });
+    }
+
+    /** Resolves hangup-to-interactive timings per start kind as a JSON string. */
+    @ReactMethod
+    public void getPrewarmStats(Promise promise) {
+        try {
+            promise.resolve(ReactPrewarm.stats(getReactApplicationContext()).toString());
+        } catch (Exception e) {
+            promise.reject("ERR_WARM_CACHE", e);
+        }
+    }
+}
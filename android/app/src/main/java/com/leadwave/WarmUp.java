@@ -0,0 +1,229 @@
+package com.leadwave;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * WarmUp
+ *
+ * Starts the first screen's data loads in parallel while the JS bundle is
+ * still loading, instead of one after another once it has mounted:
+ *
+ * - "profile":   GET /users/current/profile (raw body, as api.getProfile returns it)
+ * - "leads":     one {@link LeadSyncer} pass into LeadStore (sync result, as LeadStoreModule.sync)
+ * - "todayLogs": today's call-log rows from {@link CallLogPage}
+ *
+ * Network loads use the stored token and are skipped when logged out; the
+ * call log is skipped without READ_CALL_LOG. JS collects each result once
+ * through WarmCacheModule.take(), waiting for it if it is still in flight;
+ * anything failed, stale or already taken yields null and JS loads as before.
+ *
+ * Runs on the first activity creation rather than in Application.onCreate
+ * itself: the process is also started cold for PHONE_STATE broadcasts and
+ * the InCallService, where these loads would be wasted.
+ */
+public final class WarmUp {
+
+    private static final String TAG = "WarmUp";
+
+    public static final String PROFILE = "profile";
+    public static final String LEADS = "leads";
+    public static final String TODAY_LOGS = "todayLogs";
+
+    // Older results are not handed out; JS loads fresh instead
+    private static final long MAX_AGE_MS = 60 * 1000L;
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        3, 3, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger n = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "warmup-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    static final class Result {
+        final String json;
+        final long readyAt;
+
+        Result(String json, long readyAt) {
+            this.json = json;
+            this.readyAt = readyAt;
+        }
+    }
+
+    private static final Map<String, Future<Result>> pending = new ConcurrentHashMap<>();
+    // Per key: load time in ms, -1 when it failed; kept after take() for getStats
+    private static final Map<String, Long> timings = new ConcurrentHashMap<>();
+    private static volatile boolean started = false;
+
+    private WarmUp() {}
+
+    /** Call from Application.onCreate; warms up when the first activity is created. */
+    public static void startOnFirstActivity(final Application app) {
+        app.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                app.unregisterActivityLifecycleCallbacks(this);
+                start(app);
+            }
+
+            @Override public void onActivityStarted(Activity activity) {}
+            @Override public void onActivityResumed(Activity activity) {}
+            @Override public void onActivityPaused(Activity activity) {}
+            @Override public void onActivityStopped(Activity activity) {}
+            @Override public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+            @Override public void onActivityDestroyed(Activity activity) {}
+        });
+    }
+
+    public static synchronized void start(Context context) {
+        if (started) return;
+        started = true;
+        final Context app = context.getApplicationContext();
+
+        if (ApiSession.getToken(app) != null) {
+            submit(PROFILE, new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    return fetchProfile(app);
+                }
+            });
+            submit(LEADS, new Callable<String>() {
+                @Override
+                public String call() throws IOException, JSONException {
+                    return syncLeads(app);
+                }
+            });
+        }
+        if (app.checkSelfPermission(Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
+            submit(TODAY_LOGS, new Callable<String>() {
+                @Override
+                public String call() throws JSONException {
+                    return CallLogPage.load(app, startOfToday(), System.currentTimeMillis(), -1);
+                }
+            });
+        }
+    }
+
+    /**
+     * The warmed result for key, waiting up to timeoutMs if it is still
+     * loading. A result is handed out at most once. Null when there is none, it
+     * failed, timed out or is older than MAX_AGE_MS.
+     */
+    public static String take(String key, long timeoutMs) {
+        Future<Result> future = pending.get(key);
+        if (future == null) return null;
+        try {
+            Result result = future.get(Math.max(0, timeoutMs), TimeUnit.MILLISECONDS);
+            pending.remove(key);
+            if (System.currentTimeMillis() - result.readyAt > MAX_AGE_MS) return null;
+            return result.json;
+        } catch (TimeoutException | ExecutionException e) {
+            // The caller loads on its own now; a late result would only be older than that
+            pending.remove(key);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /** { key: ms to load (-1 failed), ... } for the loads started so far. */
+    public static JSONObject stats() throws JSONException {
+        JSONObject out = new JSONObject();
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            out.put(entry.getKey(), entry.getValue());
+        }
+        return out;
+    }
+
+    private static void submit(final String key, final Callable<String> load) {
+        pending.put(key, executor.submit(new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                long start = System.nanoTime();
+                try {
+                    String json = load.call();
+                    long took = (System.nanoTime() - start) / 1_000_000;
+                    timings.put(key, took);
+                    Log.d(TAG, key + " ready in " + took + " ms");
+                    return new Result(json, System.currentTimeMillis());
+                } catch (Exception e) {
+                    timings.put(key, -1L);
+                    Log.w(TAG, key + " failed: " + e.getMessage());
+                    throw e;
+                }
+            }
+        }));
+    }
+
+    private static String fetchProfile(Context context) throws IOException {
+        Request request = new Request.Builder()
+            .url(LeadwaveHttp.url("/users/current/profile").build())
+            .header("Accept", "application/json")
+            .build();
+        try (Response response = LeadwaveHttp.client(context).newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("GET /users/current/profile failed: HTTP " + response.code());
+            }
+            ResponseBody body = response.body();
+            if (body == null) throw new IOException("Empty profile response");
+            return body.string();
+        }
+    }
+
+    private static String syncLeads(Context context) throws IOException, JSONException {
+        LeadSyncer.Result result = LeadSyncer.sync(context, false);
+        JSONObject out = new JSONObject();
+        out.put("full", result.full);
+        out.put("notModified", result.notModified);
+        out.put("changed", result.changed());
+        out.put("upserted", result.upserted);
+        out.put("removed", result.removed);
+        out.put("total", result.total);
+        return out.toString();
+    }
+
+    private static long startOfToday() {
+        Calendar c = Calendar.getInstance();
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        return c.getTimeInMillis();
+    }
+}
@@ -0,0 +1,17 @@
+package com.leadwave;
+
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import java.util.List;
+
+/**
+ * Release build: the synthetic call log (src/debug) is not shipped.
+ */
+public final class CallLogFixtures {
+
+    private CallLogFixtures() {}
+
+    public static void addModules(ReactApplicationContext reactContext, List<NativeModule> modules) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.leadwave;
+
+import android.app.Application;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+/** One hangup reported by both PhoneModule's listener and BackgroundCallReceiver. */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class CallJournalTest {
+
+    private Application app;
+    private long now = 1_700_000_000_000L;
+
+    @Before
+    public void setUp() {
+        app = ApplicationProvider.getApplicationContext();
+        app.getSharedPreferences(CallJournal.PREFS_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+        CallEvents.install(null, () -> now);
+    }
+
+    @After
+    public void tearDown() {
+        CallEvents.install(null, null);
+    }
+
+    @Test
+    public void sameHangupFromBothListenersIsOneEntry() {
+        CallJournal.record(app, "+91 98765 43210", now - 60_000, 41, "outgoing");
+        now += 800;
+        CallJournal.record(app, "09876543210", now - 60_000, 42, "outgoing");
+
+        List<CallJournal.Entry> entries = CallJournal.entries(app);
+        assertEquals(1, entries.size());
+        assertEquals(42, entries.get(0).durationSec);
+        assertEquals(42, app.getSharedPreferences(CallJournal.PREFS_NAME, Context.MODE_PRIVATE)
+            .getInt(CallJournal.PREF_PENDING_DURATION, 0));
+    }
+
+    @Test
+    public void duplicateDoesNotRestoreADrainedPendingRecord() {
+        CallJournal.record(app, "9876543210", now - 60_000, 30, "incoming");
+        CallJournal.clearPending(app, "9876543210");
+        now += 1_000;
+        CallJournal.record(app, "9876543210", now - 60_000, 30, "incoming");
+
+        assertEquals(1, CallJournal.entries(app).size());
+        assertFalse(app.getSharedPreferences(CallJournal.PREFS_NAME, Context.MODE_PRIVATE)
+            .getBoolean(CallJournal.PREF_HAS_PENDING, false));
+    }
+
+    @Test
+    public void laterOrDifferentCallsAreKept() {
+        CallJournal.record(app, "9876543210", now - 60_000, 30, "outgoing");
+        now += 1_000;
+        CallJournal.record(app, "121", now - 60_000, 5, "outgoing");
+        now += 1_000;
+        CallJournal.record(app, "121", now - 60_000, 5, "outgoing");
+        now += 60_000;
+        CallJournal.record(app, "9876543210", now - 60_000, 12, "outgoing");
+
+        assertEquals(3, CallJournal.entries(app).size());
+    }
+
+    @Test
+    public void duplicateKeepsTheFirstIdAndTheEarlierStart() {
+        long rang = now - 90_000;
+        CallJournal.record(app, "9876543210", rang + 2_000, 0, "missed");
+        String id = CallJournal.entries(app).get(0).callId;
+        now += 500;
+        CallJournal.record(app, "9876543210", rang, 0, "missed");
+
+        List<CallJournal.Entry> entries = CallJournal.entries(app);
+        assertEquals(1, entries.size());
+        assertEquals(id, entries.get(0).callId);
+        assertEquals(rang, entries.get(0).startedAt);
+
+        now += 60_000;
+        CallJournal.record(app, "9876543210", now - 1_000, 0, "missed");
+        assertNotEquals(id, CallJournal.entries(app).get(1).callId);
+    }
+
+    @Test
+    public void linkedCallIdsOutliveTheJournal() {
+        CallJournal.record(app, "9876543210", now - 30_000, 30, "outgoing");
+        String id = CallJournal.entries(app).get(0).callId;
+        CallJournal.linkCallIds(app, Collections.singletonMap(41L, id));
+
+        for (int i = 0; i < 25; i++) {
+            now += 60_000;
+            CallJournal.record(app, "98765432" + (10 + i), now - 10_000, 10, "outgoing");
+        }
+        assertEquals(id, CallJournal.linkedCallIds(app).get(41L));
+    }
+}
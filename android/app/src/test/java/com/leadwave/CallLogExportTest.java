@@ -0,0 +1,24 @@
+package com.leadwave;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/** CSV cells that a spreadsheet would otherwise run as formulas. */
+public class CallLogExportTest {
+
+    @Test
+    public void formulaCellsAreNeutralized() {
+        assertEquals("'=HYPERLINK(\"http://x\",\"y\")", CallLogExport.neutralize("=HYPERLINK(\"http://x\",\"y\")"));
+        assertEquals("'@SUM(A1)", CallLogExport.neutralize("@SUM(A1)"));
+        assertEquals("'+cmd|' /C calc'!A0", CallLogExport.neutralize("+cmd|' /C calc'!A0"));
+    }
+
+    @Test
+    public void numbersAndNamesAreLeftAlone() {
+        assertEquals("+91 98765 43210", CallLogExport.neutralize("+91 98765 43210"));
+        assertEquals("(022) 1234-5678", CallLogExport.neutralize("(022) 1234-5678"));
+        assertEquals("Ravi \"RK\" Kumar", CallLogExport.neutralize("Ravi \"RK\" Kumar"));
+        assertEquals("", CallLogExport.neutralize(""));
+    }
+}
@@ -0,0 +1,42 @@
+package com.leadwave;
+
+import android.app.Application;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/** Matching the first sign of an outgoing call to the dial that was placed. */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class CallPlacerTest {
+
+    @Test
+    public void shortNumberWhileADialIsPendingIsNotAMatch() throws Exception {
+        int before = telecomCount();
+        CallPlacer.expect("+91 98765 43210", CallPlacer.VIA_TELECOM, System.currentTimeMillis());
+
+        // A service number showing up meanwhile must neither crash nor match
+        CallPlacer.onDialing("121");
+        CallPlacer.onDialing("*99#");
+        assertEquals(before, telecomCount());
+
+        CallPlacer.onDialing("09876543210");
+        assertEquals(before + 1, telecomCount());
+    }
+
+    @Test
+    public void dialToAShortNumberIsNeverMatched() throws Exception {
+        int before = telecomCount();
+        CallPlacer.expect("121", CallPlacer.VIA_TELECOM, System.currentTimeMillis());
+        CallPlacer.onDialing("121");
+        assertEquals(before, telecomCount());
+    }
+
+    private static int telecomCount() throws Exception {
+        return CallPlacer.stats().getJSONObject(CallPlacer.VIA_TELECOM).getInt("count");
+    }
+}
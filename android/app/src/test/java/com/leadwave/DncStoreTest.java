@@ -0,0 +1,96 @@
+package com.leadwave;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class DncStoreTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        Application app = ApplicationProvider.getApplicationContext();
+        dir = new File(app.getFilesDir(), "dnc-test");
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+    }
+
+    @Test
+    public void fullListThenDelta() throws IOException {
+        DncStore store = new DncStore(dir);
+        int n = 200_000;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) keys[i] = 9_000_000_000L + i * 7L;
+        store.apply(delta(0, 1, new long[0], keys));
+
+        assertEquals(1, store.version());
+        assertTrue(store.isBlocked("+91 90000 00000"));
+        assertTrue(store.isBlocked("09000000007"));
+        assertFalse(store.isBlocked("9000000001"));
+        assertFalse(store.isBlocked("12345"));
+
+        long start = System.nanoTime();
+        int hits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (store.isBlocked(String.valueOf(9_000_000_000L + i))) hits++;
+        }
+        long perLookupNs = (System.nanoTime() - start) / 100_000;
+        assertEquals((100_000 + 6) / 7, hits);
+        assertTrue("lookup took " + perLookupNs + " ns", perLookupNs < 1_000_000);
+
+        store.apply(delta(1, 2, new long[]{9_000_000_000L}, new long[]{8_888_888_888L, 9_000_000_007L}));
+        assertEquals(2, store.version());
+        assertFalse(store.isBlocked("9000000000"));
+        assertTrue(store.isBlocked("8888888888"));
+        assertTrue(store.isBlocked("9000000007"));
+        assertEquals(n, store.status().getLong("count"));
+
+        // Survives a reopen from the file
+        DncStore reopened = new DncStore(dir);
+        assertEquals(2, reopened.version());
+        assertTrue(reopened.isBlocked("8888888888"));
+        System.out.println("DncStore: " + perLookupNs + " ns/lookup");
+    }
+
+    @Test
+    public void rejectsDeltaForAnotherVersion() throws Exception {
+        DncStore store = new DncStore(dir);
+        store.apply(delta(0, 5, new long[0], new long[]{9_876_543_210L}));
+        try {
+            store.apply(delta(4, 6, new long[0], new long[]{9_876_543_211L}));
+            fail("expected a version mismatch");
+        } catch (IOException expected) {
+            // keeps version 5
+        }
+        assertEquals(5, store.version());
+        assertTrue(store.isBlocked("9876543210"));
+        assertFalse(store.isBlocked("9876543211"));
+    }
+
+    private static ByteArrayInputStream delta(long from, long to, long[] removes, long[] adds) {
+        ByteBuffer b = ByteBuffer.allocate(32 + 8 * (removes.length + adds.length));
+        b.putInt(0x444E4344).putInt(1).putLong(from).putLong(to).putInt(removes.length).putInt(adds.length);
+        for (long r : removes) b.putLong(r);
+        for (long a : adds) b.putLong(a);
+        return new ByteArrayInputStream(b.array());
+    }
+}
@@ -0,0 +1,46 @@
+package com.leadwave;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class FlightRecorderTest {
+
+    @Test
+    public void keepsTheLastCapacityRecordsInOrder() {
+        FlightRecorder.init(ApplicationProvider.getApplicationContext());
+        int total = FlightRecorder.CAPACITY + 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            FlightRecorder.record(FlightRecorder.SRC_LISTENER, FlightRecorder.EV_STATE, i % 3, "+91 98765 43210", i);
+        }
+        long perRecordNs = (System.nanoTime() - start) / total;
+
+        ByteBuffer dump = ByteBuffer.wrap(FlightRecorder.dump());
+        int count = dump.getInt(12);
+        assertEquals(FlightRecorder.CAPACITY, count);
+
+        int first = 16;
+        int last = 16 + (count - 1) * FlightRecorder.RECORD_SIZE;
+        assertEquals(total - FlightRecorder.CAPACITY, dump.getInt(first + 28));
+        assertEquals(total - 1, dump.getInt(last + 28));
+        assertEquals(9876543210L, dump.getLong(last + 16));
+        assertEquals(FlightRecorder.SRC_LISTENER, dump.get(last + 24));
+
+        String text = FlightRecorder.describe(dump.array());
+        assertTrue(text.contains("listener state state=2 key=9876543210 value=" + (total - 1)));
+        System.out.println("FlightRecorder: " + perRecordNs + " ns/record");
+    }
+}
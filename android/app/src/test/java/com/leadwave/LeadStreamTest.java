@@ -0,0 +1,166 @@
+package com.leadwave;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** LeadStream against a stand-in SSE server on a loopback socket. */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class LeadStreamTest {
+
+    private static final String SSE_HEADERS = "HTTP/1.1 200 OK\r\n"
+        + "Content-Type: text/event-stream\r\n"
+        + "Connection: close\r\n\r\n";
+
+    private ServerSocket server;
+    private LeadStore store;
+    private LeadStream stream;
+    private final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+
+    private static final class Change {
+        final Set<String> upserted;
+        final Set<String> removed;
+
+        Change(Set<String> upserted, Set<String> removed) {
+            this.upserted = upserted;
+            this.removed = removed;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        Application app = ApplicationProvider.getApplicationContext();
+        store = LeadStore.get(app);
+        store.clear();
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(5_000);
+        OkHttpClient client = new OkHttpClient.Builder().readTimeout(5, TimeUnit.SECONDS).build();
+        stream = new LeadStream(app, store, client,
+            HttpUrl.get("http://127.0.0.1:" + server.getLocalPort() + "/api/leads/stream"));
+        stream.backoffBaseMs = 10;
+        stream.setListener((upserted, removed, full) -> changes.add(new Change(upserted, removed)));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        stream.stop();
+        server.close();
+    }
+
+    @Test
+    public void appliesCoalescesAndResumesFromLastEventId() throws Exception {
+        stream.start();
+
+        Socket first = server.accept();
+        assertNull(readHeaders(first).get("last-event-id"));
+        write(first, SSE_HEADERS
+            + ": ping\n\n"
+            + "id: 1\nevent: lead\ndata: {\"_id\":\"a\",\"name\":\"A\",\"phone\":\"+91 98765 43210\"}\n\n"
+            + "id: 2\nevent: lead\ndata: [{\"_id\":\"b\",\"name\":\"B\"},\ndata: {\"_id\":\"c\",\"name\":\"C\"}]\n\n"
+            + "id: 3\nevent: lead_status\ndata: {\"_id\":\"a\",\"leadStatus\":\"interested\"}\n\n");
+        first.close();
+
+        // Dropped after event 3: the reconnect asks to resume from there
+        Socket second = server.accept();
+        assertEquals("3", readHeaders(second).get("last-event-id"));
+
+        Change change = changes.poll(5, TimeUnit.SECONDS);
+        assertNotNull(change);
+        assertEquals(set("a", "b", "c"), change.upserted);
+        assertTrue(change.removed.isEmpty());
+        assertEquals("interested", new JSONObject(store.leadJson("a")).getString("leadStatus"));
+        assertNotNull(store.findByNumber("9876543210"));
+        assertEquals(3, store.count());
+
+        write(second, SSE_HEADERS + "id: 4\nevent: lead_removed\ndata: {\"ids\":[\"b\"]}\n\n");
+        change = changes.poll(5, TimeUnit.SECONDS);
+        assertNotNull(change);
+        assertEquals(set("b"), change.removed);
+        assertNull(store.leadJson("b"));
+
+        JSONObject status = stream.status();
+        assertEquals(2, status.getInt("connects"));
+        assertEquals(4, status.getInt("events"));
+        assertEquals("4", status.getString("lastEventId"));
+        second.close();
+    }
+
+    @Test
+    public void stopsOnUnauthorized() throws Exception {
+        stream.start();
+        Socket socket = server.accept();
+        readHeaders(socket);
+        write(socket, "HTTP/1.1 401 Unauthorized\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+        socket.close();
+
+        server.setSoTimeout(500);
+        try {
+            server.accept().close();
+            fail("reconnected after 401");
+        } catch (SocketTimeoutException expected) {
+            // No retry
+        }
+        assertFalse(stream.status().getBoolean("running"));
+    }
+
+    private static Map<String, String> readHeaders(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Map<String, String> headers = new HashMap<>();
+        String line = in.readLine();
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static void write(Socket socket, String text) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
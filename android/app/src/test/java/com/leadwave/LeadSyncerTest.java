@@ -0,0 +1,161 @@
+package com.leadwave;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** LeadSyncer against a stand-in /leads/assigned on a loopback socket. */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class LeadSyncerTest {
+
+    private ServerSocket server;
+    private Thread serving;
+    private LeadStore store;
+    private OkHttpClient client;
+    private HttpUrl assigned;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Map<String, String>> requests = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws IOException {
+        Application app = ApplicationProvider.getApplicationContext();
+        store = LeadStore.get(app);
+        store.clear();
+        store.putMeta("updated_since", null);
+        store.putMeta("delta_etag", null);
+        store.putMeta("last_full_sync", null);
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        client = new OkHttpClient.Builder().readTimeout(5, TimeUnit.SECONDS).build();
+        assigned = HttpUrl.get("http://127.0.0.1:" + server.getLocalPort() + "/api/leads/assigned");
+        serving = new Thread(this::serve, "leads-server");
+        serving.setDaemon(true);
+        serving.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        serving.interrupt();
+    }
+
+    @Test
+    public void etagIsKeptOnlyAfterTheLastDeltaPage() throws Exception {
+        respond(200, null, "{\"data\":[" + lead("a", "2026-01-01T00:00:00Z") + "],\"meta\":{\"totalPages\":1}}");
+        assertTrue(LeadSyncer.sync(store, client, assigned, true).full);
+        assertEquals("1", nextRequest().get("page"));
+        assertEquals("2026-01-01T00:00:00Z", store.getMeta("updated_since"));
+
+        // Page 2 of the delta fails: nothing of this pass may be trusted as synced
+        respond(200, "\"e1\"", "{\"data\":[" + lead("b", "2026-01-02T00:00:00Z") + "],\"meta\":{\"totalPages\":2}}");
+        respond(500, null, "{}");
+        try {
+            LeadSyncer.sync(store, client, assigned, false);
+            fail("page 2 failure not reported");
+        } catch (IOException expected) {
+            // Retried on the next pass
+        }
+        assertEquals("2026-01-01T00:00:00Z", nextRequest().get("updatedSince"));
+        assertEquals("2", nextRequest().get("page"));
+        assertNull(store.getMeta("delta_etag"));
+        assertEquals("2026-01-01T00:00:00Z", store.getMeta("updated_since"));
+
+        // The retry asks again without If-None-Match and gets page 2 this time
+        respond(200, "\"e1\"", "{\"data\":[" + lead("b", "2026-01-02T00:00:00Z") + "],\"meta\":{\"totalPages\":2}}");
+        respond(200, null, "{\"data\":[" + lead("c", "2026-01-03T00:00:00Z") + "],\"meta\":{\"totalPages\":2}}");
+        LeadSyncer.Result result = LeadSyncer.sync(store, client, assigned, false);
+        assertFalse(result.full);
+        assertEquals(2, result.upserted);
+        assertNull(nextRequest().get("if-none-match"));
+        assertEquals("2", nextRequest().get("page"));
+        assertEquals("\"e1\"", store.getMeta("delta_etag"));
+        assertEquals("2026-01-03T00:00:00Z", store.getMeta("updated_since"));
+        assertNotNull(store.leadJson("c"));
+        assertEquals(3, store.count());
+
+        respond(304, null, null);
+        assertTrue(LeadSyncer.sync(store, client, assigned, false).notModified);
+        assertEquals("\"e1\"", nextRequest().get("if-none-match"));
+    }
+
+    // ── Stand-in server ────────────────────────────────────────────────────
+
+    private void respond(int code, String etag, String body) {
+        StringBuilder sb = new StringBuilder("HTTP/1.1 ").append(code).append(" X\r\nConnection: close\r\n");
+        if (etag != null) sb.append("ETag: ").append(etag).append("\r\n");
+        byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        sb.append("Content-Type: application/json\r\nContent-Length: ").append(bytes.length).append("\r\n\r\n");
+        if (body != null) sb.append(body);
+        responses.add(sb.toString());
+    }
+
+    /** Query parameters and lower-cased headers of the next request served. */
+    private Map<String, String> nextRequest() throws InterruptedException {
+        Map<String, String> request = requests.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no request", request);
+        return request;
+    }
+
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Map<String, String> request = new HashMap<>();
+                String target = in.readLine().split(" ")[1];
+                HttpUrl url = HttpUrl.get("http://localhost" + target);
+                for (String name : url.queryParameterNames()) request.put(name, url.queryParameter(name));
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        request.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+                    }
+                }
+                requests.add(request);
+                String response = responses.poll(5, TimeUnit.SECONDS);
+                if (response == null) return;
+                OutputStream out = socket.getOutputStream();
+                out.write(response.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException | InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static String lead(String id, String updatedAt) {
+        return "{\"_id\":\"" + id + "\",\"name\":\"" + id.toUpperCase(Locale.ROOT) + "\",\"updatedAt\":\"" + updatedAt + "\"}";
+    }
+}
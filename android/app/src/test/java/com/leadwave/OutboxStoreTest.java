@@ -0,0 +1,98 @@
+package com.leadwave;
+
+import android.app.Application;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Merging and per-lead ordering of queued lead mutations. */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class OutboxStoreTest {
+
+    private OutboxStore store;
+
+    @Before
+    public void setUp() {
+        Application app = ApplicationProvider.getApplicationContext();
+        store = OutboxStore.get(app);
+        store.getWritableDatabase().delete("mutations", null, null);
+    }
+
+    @Test
+    public void redisposingMergesAcrossTheCallRowInBetween() throws Exception {
+        long first = enqueue("a", Outbox.KIND_LEAD_STATUS, "/leads/a", "{\"status\":\"callback\"}")[0];
+        enqueue("a", Outbox.KIND_CALL, "/calls", "{\"duration\":30}");
+        long[] second = enqueue("a", Outbox.KIND_LEAD_STATUS, "/leads/a", "{\"status\":\"won\",\"notes\":\"x\"}");
+
+        assertEquals(first, second[0]);
+        assertEquals(1, second[1]);
+        List<OutboxStore.Mutation> batch = store.nextBatch(Long.MAX_VALUE, 10);
+        assertEquals(1, batch.size());
+        JSONObject body = new JSONObject(batch.get(0).body);
+        assertEquals("won", body.getString("status"));
+        assertEquals("x", body.getString("notes"));
+    }
+
+    @Test
+    public void attemptedRowsAreNotMergedInto() throws Exception {
+        long first = enqueue("a", Outbox.KIND_LEAD_STATUS, "/leads/a", "{\"status\":\"callback\"}")[0];
+        OutboxStore.Mutation sent = store.nextBatch(Long.MAX_VALUE, 10).get(0);
+        store.retryLater(first, 1, 0, "HTTP 503");
+
+        long second = enqueue("a", Outbox.KIND_LEAD_STATUS, "/leads/a", "{\"status\":\"won\"}")[0];
+        assertNotEquals(first, second);
+        OutboxStore.Mutation retried = store.nextBatch(Long.MAX_VALUE, 10).get(0);
+        assertEquals(first, retried.id);
+        assertEquals(sent.uuid, retried.uuid);
+    }
+
+    @Test
+    public void parkedRowHoldsBackTheLeadsLaterRows() throws Exception {
+        long parked = enqueue("a", Outbox.KIND_CALL, "/calls", "{\"duration\":30}")[0];
+        enqueue("a", Outbox.KIND_LEAD_STATUS, "/leads/a", "{\"status\":\"won\"}");
+        long other = enqueue("b", Outbox.KIND_CALL, "/calls", "{\"duration\":12}")[0];
+        store.markFailed(parked, "HTTP 422");
+
+        List<OutboxStore.Mutation> batch = store.nextBatch(Long.MAX_VALUE, 10);
+        assertEquals(1, batch.size());
+        assertEquals(other, batch.get(0).id);
+        store.delete(other);
+        assertEquals(-1, store.nextWakeAt());
+
+        store.discardFailed();
+        batch = store.nextBatch(Long.MAX_VALUE, 10);
+        assertEquals(1, batch.size());
+        assertEquals(Outbox.KIND_LEAD_STATUS, batch.get(0).kind);
+        assertTrue(store.nextWakeAt() >= 0);
+    }
+
+    @Test
+    public void rowsGetDistinctIdempotencyKeys() throws Exception {
+        enqueue("a", Outbox.KIND_CALL, "/calls", "{}");
+        enqueue("b", Outbox.KIND_CALL, "/calls", "{}");
+        List<OutboxStore.Mutation> batch = store.nextBatch(Long.MAX_VALUE, 10);
+        assertEquals(2, batch.size());
+        assertEquals(36, batch.get(0).uuid.length());
+        assertNotEquals(batch.get(0).uuid, batch.get(1).uuid);
+        assertEquals(Collections.emptyList(), store.failed(10));
+    }
+
+    private long[] enqueue(String lead, String kind, String path, String body) throws Exception {
+        boolean coalescible = Outbox.KIND_LEAD_UPDATE.equals(kind) || Outbox.KIND_LEAD_STATUS.equals(kind);
+        return store.enqueue(lead, kind, "PUT", path, new JSONObject(body), null, coalescible);
+    }
+}
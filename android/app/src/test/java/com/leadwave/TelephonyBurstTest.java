@@ -0,0 +1,139 @@
+package com.leadwave;
+
+import android.app.Application;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pushes thousands of randomly shaped calls (incoming, missed, outgoing, with
+ * duplicated broadcasts and call-waiting rings) through the listener and the
+ * receiver back to back, and checks that every call is counted exactly once
+ * with the right type and duration.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class TelephonyBurstTest {
+
+    private static final int CALLS = 5000;
+    private static final long SEED = 20240611L;
+
+    private TraceReplayer replayer;
+
+    @Before
+    public void setUp() {
+        replayer = new TraceReplayer(ApplicationProvider.getApplicationContext());
+    }
+
+    @After
+    public void tearDown() {
+        replayer.close();
+    }
+
+    @Test
+    public void listenerBurst() {
+        Expected last = burst(true);
+        assertEquals(CALLS, replayer.eventCount("CallEnded"));
+        // Each answered or outgoing call starts and stops one manual recording
+        assertEquals(last.recorded, replayer.eventCount("RecordingState"));
+        assertEquals(last.recorded, replayer.eventCount("CallRemoved"));
+        assertLastCall(last);
+        System.out.println(replayer.costReport("listener burst"));
+    }
+
+    @Test
+    public void receiverBurst() {
+        Expected last = burst(false);
+        assertEquals(0, replayer.eventCount("CallEnded"));
+        assertLastCall(last);
+        System.out.println(replayer.costReport("receiver burst"));
+    }
+
+    private void assertLastCall(Expected last) {
+        SharedPreferences prefs = replayer.prefs();
+        assertEquals(last.number, prefs.getString(CallJournal.PREF_PENDING_PHONE, null));
+        assertEquals(last.type, prefs.getString(CallJournal.PREF_PENDING_TYPE, null));
+        assertEquals(last.durationSec, prefs.getInt(CallJournal.PREF_PENDING_DURATION, -1));
+
+        List<CallJournal.Entry> journal = CallJournal.entries(ApplicationProvider.getApplicationContext());
+        assertEquals(20, journal.size());
+        assertEquals(last.number, journal.get(journal.size() - 1).phoneNumber);
+    }
+
+    private static final class Expected {
+        String number;
+        String type;
+        int durationSec;
+        int recorded;
+    }
+
+    /** Drives CALLS calls at a few ms per step; returns what the last one should have recorded. */
+    private Expected burst(boolean listener) {
+        Random random = new Random(SEED);
+        Expected expected = new Expected();
+        for (int i = 0; i < CALLS; i++) {
+            String number = String.format(Locale.US, "98%08d", random.nextInt(100_000_000));
+            int kind = random.nextInt(3);
+            int durationSec = 1 + random.nextInt(600);
+
+            if (kind == 2) {
+                // Outgoing
+                step(listener, "OFFHOOK", number);
+                if (random.nextBoolean()) step(listener, "OFFHOOK", number);
+                replayer.advance(durationSec * 1000L);
+                expected.type = "outgoing";
+                expected.recorded++;
+            } else {
+                step(listener, "RINGING", number);
+                if (random.nextBoolean()) step(listener, "RINGING", number);
+                replayer.advance(1 + random.nextInt(20_000));
+                if (kind == 0) {
+                    // Answered, possibly with a second call ringing in the middle
+                    step(listener, "OFFHOOK", null);
+                    if (random.nextInt(4) == 0) {
+                        replayer.advance(durationSec * 500L);
+                        step(listener, "RINGING", "9000000000");
+                        step(listener, "OFFHOOK", null);
+                        replayer.advance(durationSec * 1000L - durationSec * 500L);
+                    } else {
+                        if (random.nextBoolean()) step(listener, "OFFHOOK", null);
+                        replayer.advance(durationSec * 1000L);
+                    }
+                    expected.type = "incoming";
+                    expected.recorded++;
+                } else {
+                    durationSec = 0;
+                    expected.type = "missed";
+                }
+            }
+            step(listener, "IDLE", null);
+            if (random.nextBoolean()) step(listener, "IDLE", null);
+
+            expected.number = number;
+            expected.durationSec = durationSec;
+            replayer.advance(1 + random.nextInt(5_000));
+        }
+        return expected;
+    }
+
+    private void step(boolean listener, String op, String number) {
+        if (listener) {
+            replayer.listenerStep(op, number);
+        } else {
+            replayer.receiverStep(op, number);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.leadwave;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A scripted telephony trace (src/test/resources/traces/*.trace).
+ *
+ * <pre>
+ * # comment
+ * target listener | receiver | service
+ * expect &lt;EventName&gt; &lt;count&gt;               exact count of emitted JS events
+ * expect pending &lt;number&gt; &lt;type&gt; &lt;seconds&gt;    pending record after the trace
+ * expect pending none
+ * expect journal &lt;count&gt;                   CallJournal entries after the trace
+ * expect upload &lt;count&gt;                    recording uploads started (RecordingUploadTaskService)
+ * at &lt;ms&gt; RINGING|OFFHOOK|IDLE [number]      listener / receiver
+ * at &lt;ms&gt; DIALING|ACTIVE|HOLDING|DISCONNECTED  service (Call.STATE_*)
+ * at &lt;ms&gt; REMOVED [number]                  service: onCallRemoved
+ * </pre>
+ *
+ * Times are offsets on the fake clock, so durations are exact.
+ */
+final class TelephonyTrace {
+
+    static final class Step {
+        final long atMs;
+        final String op;
+        final String number;
+
+        Step(long atMs, String op, String number) {
+            this.atMs = atMs;
+            this.op = op;
+            this.number = number;
+        }
+    }
+
+    final String name;
+    String target;
+    final List<Step> steps = new ArrayList<>();
+    final Map<String, Integer> expectedEvents = new LinkedHashMap<>();
+    boolean expectPending;
+    String pendingNumber;   // null with expectPending = "none"
+    String pendingType;
+    int pendingDuration;
+    int expectedJournal = -1;
+    int expectedUploads = -1;
+
+    private TelephonyTrace(String name) {
+        this.name = name;
+    }
+
+    static TelephonyTrace load(String name) throws IOException {
+        InputStream in = TelephonyTrace.class.getClassLoader().getResourceAsStream("traces/" + name + ".trace");
+        if (in == null) throw new IOException("Missing trace " + name);
+        TelephonyTrace trace = new TelephonyTrace(name);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                try {
+                    trace.parse(parts);
+                } catch (RuntimeException e) {
+                    throw new IOException(name + ":" + lineNo + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (trace.target == null) throw new IOException(name + ": no target");
+        return trace;
+    }
+
+    private void parse(String[] parts) {
+        switch (parts[0]) {
+            case "target":
+                target = parts[1];
+                break;
+            case "expect":
+                if (parts[1].equals("pending")) {
+                    expectPending = true;
+                    if (!parts[2].equals("none")) {
+                        pendingNumber = parts[2];
+                        pendingType = parts[3];
+                        pendingDuration = Integer.parseInt(parts[4]);
+                    }
+                } else if (parts[1].equals("journal")) {
+                    expectedJournal = Integer.parseInt(parts[2]);
+                } else if (parts[1].equals("upload")) {
+                    expectedUploads = Integer.parseInt(parts[2]);
+                } else {
+                    expectedEvents.put(parts[1], Integer.parseInt(parts[2]));
+                }
+                break;
+            case "at":
+                steps.add(new Step(Long.parseLong(parts[1]), parts[2], parts.length > 3 ? parts[3] : null));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown directive " + parts[0]);
+        }
+    }
+}
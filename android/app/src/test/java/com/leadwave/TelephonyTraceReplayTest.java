@@ -0,0 +1,97 @@
+package com.leadwave;
+
+import android.app.Application;
+import android.content.SharedPreferences;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays each scripted trace in src/test/resources/traces and checks the
+ * exact JS events, pending record and journal it should leave behind.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(application = Application.class, sdk = 34)
+public class TelephonyTraceReplayTest {
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> traces() {
+        return Arrays.asList(new Object[][]{
+            {"listener_incoming_answered"},
+            {"listener_missed"},
+            {"listener_outgoing"},
+            {"listener_duplicates"},
+            {"listener_call_waiting"},
+            {"receiver_incoming_answered"},
+            {"receiver_outgoing"},
+            {"receiver_call_waiting"},
+            {"receiver_missed_then_outgoing"},
+            {"service_answered"},
+            {"service_hold"},
+        });
+    }
+
+    private final String name;
+    private TraceReplayer replayer;
+
+    public TelephonyTraceReplayTest(String name) {
+        this.name = name;
+    }
+
+    @Before
+    public void setUp() {
+        replayer = new TraceReplayer(ApplicationProvider.getApplicationContext());
+    }
+
+    @After
+    public void tearDown() {
+        replayer.close();
+    }
+
+    @Test
+    public void replay() throws Exception {
+        TelephonyTrace trace = TelephonyTrace.load(name);
+        replayer.replay(trace);
+
+        for (Map.Entry<String, Integer> expected : trace.expectedEvents.entrySet()) {
+            assertEquals(name + ": " + expected.getKey() + " events",
+                (int) expected.getValue(), replayer.eventCount(expected.getKey()));
+        }
+
+        if (trace.expectPending) {
+            SharedPreferences prefs = replayer.prefs();
+            if (trace.pendingNumber == null) {
+                assertFalse(name + ": no pending record", prefs.getBoolean(CallJournal.PREF_HAS_PENDING, false));
+            } else {
+                assertTrue(name + ": pending record", prefs.getBoolean(CallJournal.PREF_HAS_PENDING, false));
+                assertEquals(trace.pendingNumber, prefs.getString(CallJournal.PREF_PENDING_PHONE, null));
+                assertEquals(trace.pendingType, prefs.getString(CallJournal.PREF_PENDING_TYPE, null));
+                assertEquals(trace.pendingDuration, prefs.getInt(CallJournal.PREF_PENDING_DURATION, -1));
+            }
+        }
+
+        if (trace.expectedJournal >= 0) {
+            assertEquals(name + ": journal entries", trace.expectedJournal, replayer.journalSize());
+        }
+
+        if (trace.expectedUploads >= 0) {
+            assertEquals(name + ": uploads started", trace.expectedUploads, replayer.uploadCount());
+        }
+
+        System.out.println(replayer.costReport(name));
+    }
+}
@@ -0,0 +1,228 @@
+package com.leadwave;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Looper;
+import android.telecom.Call;
+import android.telephony.PhoneStateListener;
+import android.telephony.TelephonyManager;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+
+import org.robolectric.Robolectric;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Drives PhoneModule's PhoneStateListener, BackgroundCallReceiver and
+ * CallService with telephony steps on a fake clock, counting the JS events
+ * they emit and timing each step.
+ */
+final class TraceReplayer implements CallEvents.Sink, CallEvents.Clock {
+
+    private final Context context;
+    private final Map<String, Integer> events = new HashMap<>();
+    private long now = 1_700_000_000_000L;
+    private final long origin = now;
+
+    private long[] costsNs = new long[256];
+    private int steps = 0;
+
+    private PhoneStateListener listener;
+    private BackgroundCallReceiver receiver;
+    private CallService service;
+
+    TraceReplayer(Context context) {
+        this.context = context;
+        reset();
+        CallEvents.install(this, this);
+        // Recorder work runs inline so each step's events are counted before the next
+        CallRecorder.install(Runnable::run);
+    }
+
+    /** Clears static call state and stored pending/journal records. */
+    private void reset() {
+        PhoneModule.resetCallState();
+        BackgroundCallReceiver.resetState();
+        CallService.resetStatic();
+        context.getSharedPreferences(CallJournal.PREFS_NAME, Context.MODE_PRIVATE).edit().clear().commit();
+    }
+
+    void close() {
+        CallEvents.install(null, null);
+        CallRecorder.install(null);
+        reset();
+    }
+
+    // ── CallEvents hooks ───────────────────────────────────────────────────
+
+    @Override
+    public void emit(String eventName, WritableMap params) {
+        Integer count = events.get(eventName);
+        events.put(eventName, count == null ? 1 : count + 1);
+    }
+
+    @Override
+    public long now() {
+        return now;
+    }
+
+    // ── Replay ─────────────────────────────────────────────────────────────
+
+    void replay(TelephonyTrace trace) {
+        for (TelephonyTrace.Step step : trace.steps) {
+            now = origin + step.atMs;
+            switch (trace.target) {
+                case "listener":
+                    listenerStep(step.op, step.number);
+                    break;
+                case "receiver":
+                    receiverStep(step.op, step.number);
+                    break;
+                case "service":
+                    serviceStep(step.op, step.number);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown target " + trace.target);
+            }
+        }
+    }
+
+    void advance(long ms) {
+        now += ms;
+    }
+
+    void listenerStep(String op, String number) {
+        if (listener == null) {
+            PhoneModule module = new PhoneModule(new ReactApplicationContext(context));
+            // The listener is created on the UI thread
+            shadowOf(Looper.getMainLooper()).idle();
+            listener = module.getPhoneStateListener();
+        }
+        int state = telephonyState(op);
+        long start = System.nanoTime();
+        listener.onCallStateChanged(state, number);
+        record(System.nanoTime() - start);
+    }
+
+    void receiverStep(String op, String number) {
+        if (receiver == null) receiver = new BackgroundCallReceiver();
+        Intent intent = new Intent(TelephonyManager.ACTION_PHONE_STATE_CHANGED);
+        intent.putExtra(TelephonyManager.EXTRA_STATE, extraState(op));
+        if (number != null) intent.putExtra(TelephonyManager.EXTRA_INCOMING_NUMBER, number);
+        long start = System.nanoTime();
+        receiver.onReceive(context, intent);
+        record(System.nanoTime() - start);
+    }
+
+    void serviceStep(String op, String number) {
+        if (service == null) service = Robolectric.buildService(CallService.class).create().get();
+        long start = System.nanoTime();
+        if (op.equals("REMOVED")) {
+            service.handleCallRemoved(number);
+        } else {
+            service.onCallStateChanged(null, callState(op));
+        }
+        record(System.nanoTime() - start);
+    }
+
+    private void record(long ns) {
+        if (steps == costsNs.length) costsNs = Arrays.copyOf(costsNs, steps * 2);
+        costsNs[steps++] = ns;
+    }
+
+    // ── Results ────────────────────────────────────────────────────────────
+
+    int eventCount(String name) {
+        Integer count = events.get(name);
+        return count == null ? 0 : count;
+    }
+
+    SharedPreferences prefs() {
+        return context.getSharedPreferences(CallJournal.PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    int journalSize() {
+        return CallJournal.entries(context).size();
+    }
+
+    /** Recording uploads started since the replay began. */
+    int uploadCount() {
+        int count = 0;
+        Intent started;
+        while ((started = shadowOf((Application) context).getNextStartedService()) != null) {
+            if (started.getComponent() != null
+                    && started.getComponent().getClassName().equals(RecordingUploadTaskService.class.getName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** "name: n steps, mean/p50/p99/max per step" for the build log. */
+    String costReport(String name) {
+        if (steps == 0) return name + ": no steps";
+        long[] sorted = Arrays.copyOf(costsNs, steps);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long ns : sorted) total += ns;
+        return String.format(Locale.US, "%s: %d steps, mean %.1fus, p50 %.1fus, p99 %.1fus, max %.1fus",
+            name, steps, total / 1000.0 / steps,
+            sorted[steps / 2] / 1000.0,
+            sorted[Math.min(steps - 1, (int) Math.ceil(steps * 0.99) - 1)] / 1000.0,
+            sorted[steps - 1] / 1000.0);
+    }
+
+    // ── Op names ───────────────────────────────────────────────────────────
+
+    private static int telephonyState(String op) {
+        switch (op) {
+            case "RINGING":
+                return TelephonyManager.CALL_STATE_RINGING;
+            case "OFFHOOK":
+                return TelephonyManager.CALL_STATE_OFFHOOK;
+            case "IDLE":
+                return TelephonyManager.CALL_STATE_IDLE;
+            default:
+                throw new IllegalArgumentException("Not a telephony state: " + op);
+        }
+    }
+
+    private static String extraState(String op) {
+        switch (op) {
+            case "RINGING":
+                return TelephonyManager.EXTRA_STATE_RINGING;
+            case "OFFHOOK":
+                return TelephonyManager.EXTRA_STATE_OFFHOOK;
+            case "IDLE":
+                return TelephonyManager.EXTRA_STATE_IDLE;
+            default:
+                throw new IllegalArgumentException("Not a telephony state: " + op);
+        }
+    }
+
+    private static int callState(String op) {
+        switch (op) {
+            case "DIALING":
+                return Call.STATE_DIALING;
+            case "RINGING":
+                return Call.STATE_RINGING;
+            case "ACTIVE":
+                return Call.STATE_ACTIVE;
+            case "HOLDING":
+                return Call.STATE_HOLDING;
+            case "DISCONNECTED":
+                return Call.STATE_DISCONNECTED;
+            default:
+                throw new IllegalArgumentException("Not a Call state: " + op);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.leadwave.benchmark
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Records the classes and methods used from launch to a scrolled Call
+ * History into the app's Baseline Profile (and its startup profile, which
+ * R8 uses to lay out the primary dex). Run through
+ * ./gradlew :app:generateReleaseBaselineProfile.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Test
+    fun generate() = baselineProfileRule.collect(
+        packageName = TARGET_PACKAGE,
+        includeInStartupProfile = true,
+    ) {
+        pressHome()
+        startActivityAndWait()
+        waitForHistory()
+        scrollHistory()
+    }
+}
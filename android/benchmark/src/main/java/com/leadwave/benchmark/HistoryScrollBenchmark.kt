@@ -0,0 +1,41 @@
+package com.leadwave.benchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Frame durations and overruns while flinging the Call History list. */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class HistoryScrollBenchmark {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun scrollNoCompilation() = scroll(CompilationMode.None())
+
+    @Test
+    fun scrollBaselineProfile() = scroll(CompilationMode.Partial(BaselineProfileMode.UseIfAvailable))
+
+    private fun scroll(compilationMode: CompilationMode) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.WARM,
+        iterations = 5,
+        setupBlock = {
+            startActivityAndWait()
+            waitForHistory()
+        },
+    ) {
+        scrollHistory()
+    }
+}
@@ -0,0 +1,31 @@
+package com.leadwave.benchmark
+
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.Until
+
+const val TARGET_PACKAGE = "com.leadwave"
+
+// testID of the "All" page of Call History's log list (HistoryScreen)
+private const val HISTORY_LIST = "history-list-all"
+
+/** Waits until Call History has rendered its log list (skeletons gone). */
+fun MacrobenchmarkScope.waitForHistory() {
+    check(device.wait(Until.hasObject(By.res(HISTORY_LIST)), 20_000)) {
+        "Call History list not shown; is the device logged in with call-log permission?"
+    }
+}
+
+/** Flings the Call History list down and back up. */
+fun MacrobenchmarkScope.scrollHistory() {
+    val list = device.findObject(By.res(HISTORY_LIST))
+    // Keep the gesture clear of the system navigation area
+    list.setGestureMargin(device.displayWidth / 5)
+    repeat(3) {
+        list.fling(Direction.DOWN)
+        device.waitForIdle()
+    }
+    list.fling(Direction.UP)
+    device.waitForIdle()
+}
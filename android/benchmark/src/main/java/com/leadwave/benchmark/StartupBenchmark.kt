@@ -0,0 +1,53 @@
+package com.leadwave.benchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.filters.LargeTest
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Cold and warm start to first frame, without any AOT compilation and with
+ * the Baseline Profile. The gap between the two is what the profile buys.
+ * The profile is used when the build has one; until one is checked in both
+ * runs measure the uncompiled app.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class StartupBenchmark(
+    private val startupMode: StartupMode,
+    private val compilationMode: CompilationMode,
+) {
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Test
+    fun startup() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = startupMode,
+        iterations = 10,
+        setupBlock = { pressHome() },
+    ) {
+        startActivityAndWait()
+    }
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "{0}-{1}")
+        fun parameters(): List<Array<Any>> =
+            listOf(StartupMode.COLD, StartupMode.WARM).flatMap { mode ->
+                listOf(
+                    CompilationMode.None(),
+                    CompilationMode.Partial(BaselineProfileMode.UseIfAvailable),
+                ).map { compilation -> arrayOf<Any>(mode, compilation) }
+            }
+    }
+}
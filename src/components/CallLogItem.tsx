@@ -38,6 +38,8 @@ import {
   UserCheck
 } from 'lucide-react-native';
 import { api } from '../services/api';
+import { PhoneLookup } from '../services/PhoneLookup';
+import { Dnc } from '../services/Dnc';
 
 const { PhoneModule } = NativeModules;
 
@@ -323,7 +325,8 @@ export const CallLogItem: React.FC<CallLogItemProps> = memo((
 
   const handleCall = useCallback(() => {
     if (PhoneModule?.makeCall) {
-      PhoneModule.makeCall(displayNumber, item.simSlot || 0);
+      // Call back from the SIM the call was on
+      PhoneModule.makeCall(displayNumber, item.simSlot ?? -1, Date.now()).catch(Dnc.alertIfBlocked);
     } else {
       Linking.openURL(`tel:${displayNumber}`);
     }
@@ -416,7 +419,7 @@ export const CallLogItem: React.FC<CallLogItemProps> = memo((
   const checkIfLeadExists = useCallback(async (): Promise<boolean> => {
     try {
       setCheckingLead(true);
-      const res = await api.checkLeadAssignment(displayNumber);
+      const res = await PhoneLookup.checkAssignment(displayNumber);
       if (res.assignedTo) {
         Alert.alert(
           'Already a Lead',
@@ -441,14 +444,19 @@ export const CallLogItem: React.FC<CallLogItemProps> = memo((
   }, [checkIfLeadExists]);
 
   const handleCreateLead = useCallback(async (data: { firstName: string; lastName: string; campaign: string }) => {
-    await api.createLead({
+    const result = await api.createLead({
       firstName: data.firstName,
       lastName: data.lastName,
       phone: displayNumber,
       campaign: data.campaign,
       date: new Date().toISOString(),
     });
-    Alert.alert('Success', 'Lead created successfully!');
+    PhoneLookup.invalidate(displayNumber);
+    if (result?.queued) {
+      Alert.alert('Saved', 'Lead saved. It will be created in the background.');
+    } else {
+      Alert.alert('Success', 'Lead created successfully!');
+    }
     if (onAddLead) onAddLead(displayNumber);
   }, [displayNumber, onAddLead]);
 
@@ -4,7 +4,10 @@ import { useNavigation } from '@react-navigation/native';
 import { colors } from '../theme/colors';
 import { Phone, X, Delete, UserPlus, AlertCircle, CheckCircle, UserCheck } from 'lucide-react-native';
 import { api } from '../services/api';
+import { PhoneLookup } from '../services/PhoneLookup';
+import { Dnc } from '../services/Dnc';
 import { useAuth } from '../context/AuthContext';
+import { SIMPickerModal } from './SIMPickerModal';
 
 const { PhoneModule } = NativeModules;
 const { width: SCREEN_WIDTH, height: SCREEN_HEIGHT } = Dimensions.get('window');
@@ -37,6 +40,8 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
   const [number, setNumber] = useState('');
   // Status state: 'checking' | 'not_exist' | 'assign_self' | 'assigned' | 'ok'
   const [leadStatus, setLeadStatus] = useState<any>(null);
+  const [simCount, setSimCount] = useState(0);
+  const [showSimPicker, setShowSimPicker] = useState(false);
   const [loading, setLoading] = useState(false);
   const [showAddForm, setShowAddForm] = useState(false);
 
@@ -54,6 +59,7 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
     if (isVisible) {
       setTimeout(() => inputRef.current?.focus(), 300);
       fetchCampaigns();
+      PhoneModule?.getSimCount?.().then(setSimCount).catch(() => setSimCount(0));
     } else {
       resetState();
     }
@@ -91,7 +97,7 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
     setLeadStatus({ status: 'checking' });
 
     try {
-      const res = await api.checkLeadAssignment(phone);
+      const res = await PhoneLookup.checkAssignment(phone);
 
       if (res.notexist) {
         setLeadStatus({ status: 'not_exist' });
@@ -164,8 +170,8 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
           PhoneModule.startCallListener();
         } catch (e) { console.log("Listener start error", e) }
 
-        // 2. Make Call (Single argument)
-        PhoneModule.makeCall(number);
+        // 2. Make Call from the chosen SIM (-1 = system default)
+        PhoneModule.makeCall(number, slot, Date.now()).catch(Dnc.alertIfBlocked);
 
         // 3. Navigate to CallScreen
         // onClose(); // Close modal first?
@@ -185,17 +191,24 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
 
     setLoading(true);
     try {
-      await api.createLead({
+      const result = await api.createLead({
         firstName,
         lastName,
         phone: number,
         campaign: selectedCampaign,
         date: new Date().toISOString()
       });
-      Alert.alert('Success', 'Lead created successfully!');
       setShowAddForm(false);
-      // Re-check status to enable call button
-      checkLead(number);
+      PhoneLookup.invalidate(number);
+      if (result?.queued) {
+        Alert.alert('Saved', 'Lead saved. It will be created in the background.');
+        // Not on the server yet, so a re-check would still say "not a lead"
+        setLeadStatus({ status: 'ok' });
+      } else {
+        Alert.alert('Success', 'Lead created successfully!');
+        // Re-check status to enable call button
+        checkLead(number);
+      }
     } catch (error) {
       Alert.alert('Error', 'Failed to create lead.');
       console.error(error);
@@ -210,6 +223,7 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
     setLoading(true);
     try {
       await api.assignSelf(leadStatus.leadId, number);
+      PhoneLookup.invalidate(number);
       Alert.alert('Success', 'Lead assigned to you!');
       // Re-check logic or just set status to OK
       setLeadStatus({ status: 'ok' });
@@ -395,7 +409,7 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
                     styles.callButton,
                     (number.length < 10 || leadStatus?.status === 'assigned') && styles.callButtonDisabled
                   ]}
-                  onPress={() => handleCall(0)}
+                  onPress={() => (simCount > 1 ? setShowSimPicker(true) : handleCall(-1))}
                   disabled={number.length < 10 || leadStatus?.status === 'assigned'}
                 >
                   <Phone size={32} color={colors.white} fill={colors.white} />
@@ -405,6 +419,15 @@ export const DialerModal: React.FC<DialerModalProps> = ({ isVisible, onClose, on
           )}
         </View>
       </View>
+      <SIMPickerModal
+        isVisible={showSimPicker}
+        phoneNumber={number}
+        onClose={() => setShowSimPicker(false)}
+        onSelect={(slot) => {
+          setShowSimPicker(false);
+          handleCall(slot);
+        }}
+      />
     </Modal>
   );
 };
@@ -3,7 +3,9 @@ import { Alert } from 'react-native';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { jwtDecode } from 'jwt-decode';
 import { api } from '../services/api';
-import { setLogoutHandler } from '../services/apiClient';
+import { setLogoutHandler, setAuthToken } from '../services/apiClient';
+import { LeadStore } from '../services/LeadStore';
+import { WarmCache } from '../services/WarmCache';
 
 interface User {
   _id: string;
@@ -49,6 +51,8 @@ export const AuthProvider = ({ children }: { children: React.ReactNode }) => {
   const logout = useCallback(async (reason?: string) => {
     try {
       await AsyncStorage.multiRemove(['user', 'token', 'refreshToken']);
+      setAuthToken(null);
+      LeadStore.clear().catch(() => { });
       setUser(null);
       if (reason === 'session_expired') {
         // Must use setTimeout or alert might be swallowed if navigating immediately
@@ -68,7 +72,8 @@ export const AuthProvider = ({ children }: { children: React.ReactNode }) => {
 
   const refreshProfile = useCallback(async () => {
     try {
-      const profileData = await api.getProfile();
+      // The first refresh after launch usually finds the profile already loaded natively
+      const profileData = (await WarmCache.take('profile')) ?? await api.getProfile();
       if (profileData && profileData.data) {
         const u = profileData.data;
         const updatedUser: User = {
@@ -112,6 +117,8 @@ export const AuthProvider = ({ children }: { children: React.ReactNode }) => {
         setIsFirstLaunch(alreadyLaunched === null);
 
         const storedUser = await AsyncStorage.getItem('user');
+        const storedToken = await AsyncStorage.getItem('token');
+        if (storedToken) setAuthToken(storedToken);
         if (storedUser) {
           setUser(JSON.parse(storedUser));
           // Refresh profile in background if we have a user
@@ -151,6 +158,7 @@ export const AuthProvider = ({ children }: { children: React.ReactNode }) => {
         ['token', accessToken],
         ['refreshToken', refreshToken]
       ]);
+      setAuthToken(accessToken);
 
       // Fetch full profile details immediately after login
       await refreshProfile();
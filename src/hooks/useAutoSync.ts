@@ -2,15 +2,54 @@ import { useEffect, useRef } from 'react';
 import { AppState } from 'react-native';
 import { useAuth } from '../context/AuthContext';
 import { CallLogService } from '../services/CallLogService';
-import { api } from '../services/api';
-import AsyncStorage from '@react-native-async-storage/async-storage';
-
-const SYNC_INTERVAL = 60 * 1000; // 1 Minute
+import { Dnc } from '../services/Dnc';
+import { LeadStore } from '../services/LeadStore';
 
+const SYNC_INTERVAL = 15 * 60 * 1000; // JobScheduler's minimum period
+const RESUME_MIN_GAP = 60 * 1000;
 
+/**
+ * Keeps the device call log mirrored to /logs/sync while a user is logged in.
+ * The work is native (LogSyncJob / LogSyncer): only rows newer than the
+ * server-acknowledged watermark are sent, so a run with nothing new costs no
+ * request. The app coming to the foreground triggers an extra pass, at most
+ * once a minute.
+ *
+ * The lead push stream (LeadStream) is kept open only while the app is in
+ * the foreground; on return it resumes from the last event it applied.
+ */
 export const useAutoSync = () => {
-    // Logic removed as per request to stop auto-sync
-    // const { user } = useAuth();
-    // ...
-};
+    const { user } = useAuth();
+    const lastResumeSync = useRef(0);
+
+    useEffect(() => {
+        if (!user?._id) {
+            CallLogService.cancelLogSync();
+            LeadStore.stopStream();
+            return;
+        }
 
+        const syncNow = () => {
+            lastResumeSync.current = Date.now();
+            CallLogService.syncLogsNow().catch(err => console.warn('Log sync failed:', err?.message ?? err));
+            Dnc.sync().catch(err => console.warn('DNC sync failed:', err?.message ?? err));
+        };
+
+        CallLogService.scheduleLogSync(user._id, SYNC_INTERVAL).catch(() => {});
+        syncNow();
+        if (AppState.currentState === 'active') LeadStore.startStream();
+
+        const sub = AppState.addEventListener('change', state => {
+            if (state === 'active') {
+                LeadStore.startStream();
+                if (Date.now() - lastResumeSync.current > RESUME_MIN_GAP) syncNow();
+            } else if (state === 'background') {
+                LeadStore.stopStream();
+            }
+        });
+        return () => {
+            sub.remove();
+            LeadStore.stopStream();
+        };
+    }, [user?._id]);
+};
@@ -0,0 +1,64 @@
+import { useEffect, useRef } from 'react';
+import { Alert } from 'react-native';
+import { useAuth } from '../context/AuthContext';
+import { FailedMutation, Outbox } from '../services/Outbox';
+
+const KIND_LABELS: Record<string, string> = {
+    lead_update: 'Lead update',
+    lead_status: 'Lead status',
+    call: 'Call log',
+    create_lead: 'New lead',
+};
+
+const describe = (m: FailedMutation) => {
+    const label = KIND_LABELS[m.kind] || 'Change';
+    if (m.error === 'HTTP 409') {
+        return m.kind === 'create_lead'
+            ? `${label}: this number is already a lead`
+            : `${label}: this lead was already responded to`;
+    }
+    return `${label}: ${m.error || 'rejected'}`;
+};
+
+/**
+ * Reports mutations the server refused after they were queued in the Outbox
+ * (screens have already told the agent "saved, will sync" by then). Asks once
+ * per new failure whether to retry or discard; "Later" leaves them parked
+ * until the next one.
+ */
+export const useOutboxFailures = () => {
+    const { user } = useAuth();
+    const reported = useRef(0);
+
+    useEffect(() => {
+        if (!user?._id || !Outbox.isAvailable()) return;
+
+        const report = async (failed: number) => {
+            if (failed <= reported.current) {
+                reported.current = failed;
+                return;
+            }
+            reported.current = failed;
+            const rows = await Outbox.getFailed();
+            if (rows.length === 0) return;
+            const lines = rows.slice(0, 5).map(describe);
+            if (rows.length > 5) lines.push(`…and ${rows.length - 5} more`);
+            Alert.alert(
+                'Some changes did not sync',
+                lines.join('\n'),
+                [
+                    { text: 'Later', style: 'cancel' },
+                    { text: 'Discard', style: 'destructive', onPress: () => Outbox.discardFailed() },
+                    { text: 'Retry', onPress: () => Outbox.retryFailed() },
+                ],
+            );
+        };
+
+        Outbox.getStatus()
+            .then(status => status && report(status.failed))
+            .catch(() => { });
+        return Outbox.onChange(status => {
+            report(status.failed).catch(() => { });
+        });
+    }, [user?._id]);
+};
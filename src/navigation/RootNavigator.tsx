@@ -32,6 +32,7 @@ import { OtpVerificationScreen } from '../screens/Auth/OtpVerificationScreen';
 import { AuthProvider, useAuth } from '../context/AuthContext';
 import { View, Text, TouchableOpacity, Alert, BackHandler } from 'react-native';
 import { useAutoSync } from '../hooks/useAutoSync';
+import { useOutboxFailures } from '../hooks/useOutboxFailures';
 import { navigationRef } from '../services/apiClient';
 import { CallScreen } from '../screens/CallScreen';
 import { OnboardingScreen } from '../screens/Onboarding/OnboardingScreen';
@@ -163,6 +164,8 @@ export const RootNavigator = () => {
 
 const RootContent = () => {
   const { user, loading, isFirstLaunch, isServerUp } = useAuth();
+  useAutoSync();
+  useOutboxFailures();
 
   useEffect(() => {
     const checkPendingDispose = async () => {
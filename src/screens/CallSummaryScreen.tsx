@@ -5,6 +5,7 @@ import { useRoute, useNavigation } from '@react-navigation/native';
 import { ArrowLeft, CheckCircle2, Clock, Calendar, FileText } from 'lucide-react-native';
 import { colors } from '../theme/colors';
 import { LeadsService } from '../services/LeadsService';
+import { NotificationService } from '../services/NotificationService';
 
 export const CallSummaryScreen = () => {
     const route = useRoute<any>();
@@ -53,9 +54,16 @@ export const CallSummaryScreen = () => {
             // 2. Submit Lead Update
             console.log("Submitting Payload:", JSON.stringify(payload, null, 2));
 
-            await LeadsService.updateLeadBySalesperson(payload);
+            const result = await LeadsService.updateLeadBySalesperson(payload);
+            // Arm the reminder now; the lead sync confirms it later
+            NotificationService.setFollowUp(leadId, leadName ?? null, Date.parse(formData.followUpDate))
+                .catch(() => { });
 
-            Alert.alert("Success", "Call log stored and lead updated successfully", [
+            // Queued updates go out in the background; a 409 is reported by useOutboxFailures
+            const message = result?.queued
+                ? "Call saved. It will sync in the background."
+                : "Call log stored and lead updated successfully";
+            Alert.alert(result?.queued ? "Saved" : "Success", message, [
                 {
                     text: "OK",
                     onPress: () => {
@@ -1,12 +1,11 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import { View, Text, StyleSheet, FlatList, TouchableOpacity, ActivityIndicator } from 'react-native';
 import { useRoute, useNavigation } from '@react-navigation/native';
+import AsyncStorage from '@react-native-async-storage/async-storage';
 import { colors } from '../theme/colors';
 import { campaignService } from '../services/campaignService';
-
-// Actually the "Start Calling" likely initiates a call flow. 
-// For now, I'll just navigate to the CallScreen or initiate the first call.
-// The user requirement says "Start Calling".
+import { LeadStore } from '../services/LeadStore';
+import { PowerDialer, PowerDialerStatus } from '../services/PowerDialer';
 import { Lead } from '../types/Lead';
 import { Phone, ArrowLeft } from 'lucide-react-native';
 import { NativeStackScreenProps } from '@react-navigation/native-stack';
@@ -18,6 +17,15 @@ type RootStackParamList = {
 
 type Props = NativeStackScreenProps<RootStackParamList, 'CampaignLeads'>;
 
+const WRAP_UP_KEY = 'powerDialerWrapUpSec';
+const WRAP_UP_OPTIONS = [0, 5, 10, 30];
+
+const isActive = (s: PowerDialerStatus | null) =>
+    !!s && s.state !== 'idle' && s.state !== 'finished';
+
+const leadName = (lead: Lead | null) =>
+    lead ? (lead.name || [lead.firstName, lead.lastName].filter(Boolean).join(' ') || lead.phone || lead.number || 'Unknown') : '';
+
 export const CampaignLeadsScreen = () => {
     const route = useRoute<any>();
     const navigation = useNavigation<any>();
@@ -25,10 +33,22 @@ export const CampaignLeadsScreen = () => {
 
     const [leads, setLeads] = useState<Lead[]>([]);
     const [loading, setLoading] = useState(true);
+    const [session, setSession] = useState<PowerDialerStatus | null>(null);
+    const [wrapUpSec, setWrapUpSec] = useState(5);
+    const [, setTick] = useState(0);
+    // Lead index whose dispose screen was already opened by the session
+    const disposeOpenedFor = useRef(-1);
 
     useEffect(() => {
         const fetchDetails = async () => {
             try {
+                // Assigned leads of this campaign are already on disk (LeadStore);
+                // only hit the campaign endpoint when the store has none for it.
+                const stored = await LeadStore.getCampaignLeads(campaignId);
+                if (stored.length > 0) {
+                    setLeads(stored);
+                    return;
+                }
                 const data = await campaignService.getCampaignDetails(campaignId);
 
                 setLeads(data.data.leads || []); // data.leads might be undefined if API structure varies
@@ -42,21 +62,119 @@ export const CampaignLeadsScreen = () => {
         fetchDetails();
     }, [campaignId]);
 
+    useEffect(() => {
+        AsyncStorage.getItem(WRAP_UP_KEY).then((v) => {
+            if (v !== null && !isNaN(Number(v))) setWrapUpSec(Number(v));
+        });
+        PowerDialer.getStatus().then(setSession).catch(() => {});
+        return PowerDialer.onChange(setSession);
+    }, []);
+
+    // After each call the session waits for a disposition: open the dispose screen for it
+    useEffect(() => {
+        if (session?.state === 'wrap_up' && session.lead && disposeOpenedFor.current !== session.index) {
+            disposeOpenedFor.current = session.index;
+            navigation.navigate('LeadDispose', { lead: session.lead, powerDialer: true });
+        }
+    }, [session, navigation]);
+
+    // Countdown to the next call
+    useEffect(() => {
+        if (session?.state !== 'next') return;
+        const timer = setInterval(() => setTick((t) => t + 1), 500);
+        return () => clearInterval(timer);
+    }, [session?.state]);
+
+    const chooseWrapUp = (sec: number) => {
+        setWrapUpSec(sec);
+        AsyncStorage.setItem(WRAP_UP_KEY, String(sec));
+    };
+
     const handleStartCalling = () => {
-        // improved logic: find first 'Open' or 'In Progress' lead and start calling
-        // For now, just a placeholder alert or navigation
-        if (leads.length > 0) {
-            // Navigate to CallScreen with the first lead?
-            // Or maybe a specific "Campaign Call Mode"
-            // For now, let's just log it or pick the first one.
-            // console.log("Starting call with first lead", leads[0]);
-            // navigation.navigate('CallScreen', { lead: leads[0] }); 
-            // Logic to start auto-dialing might be complex. 
-            // I'll just select the first lead for now.
-
-            // Check if 'CallScreen' exists in RootNavigator (it does)
-            navigation.navigate('CallScreen', { lead: leads[0] });
+        const dialable = leads.filter((l) => l.phone || l.number);
+        if (dialable.length === 0) return;
+        if (!PowerDialer.isAvailable()) {
+            navigation.navigate('CallScreen', { lead: dialable[0] });
+            return;
         }
+        disposeOpenedFor.current = -1;
+        PowerDialer.start(dialable, wrapUpSec * 1000).catch((e) =>
+            console.error('Failed to start power dialer', e),
+        );
+    };
+
+    const sessionLine = (s: PowerDialerStatus) => {
+        switch (s.state) {
+            case 'dialing':
+                return `Calling ${leadName(s.lead)}`;
+            case 'wrap_up':
+                return `Dispose ${leadName(s.lead)}`;
+            case 'next':
+                return `Next: ${leadName(s.next)} in ${Math.max(0, Math.ceil((s.advanceAt - Date.now()) / 1000))}s`;
+            case 'paused':
+                return 'Paused';
+            default:
+                return '';
+        }
+    };
+
+    const metricsLine = (s: PowerDialerStatus) =>
+        `${s.metrics.callsPlaced} calls · ${s.metrics.callsPerHour}/h · idle ${Math.round(s.metrics.avgIdleGapMs / 1000)}s avg`;
+
+    const renderSessionBar = () => {
+        if (isActive(session)) {
+            const s = session!;
+            return (
+                <View style={styles.bottomContainer}>
+                    <Text style={styles.sessionTitle} numberOfLines={1}>
+                        {s.index + 1}/{s.total} · {sessionLine(s)}
+                    </Text>
+                    <Text style={styles.sessionMetrics}>{metricsLine(s)}</Text>
+                    <View style={styles.sessionButtons}>
+                        <TouchableOpacity
+                            style={styles.sessionButton}
+                            onPress={() => (s.paused ? PowerDialer.resume() : PowerDialer.pause())}
+                        >
+                            <Text style={styles.sessionButtonText}>{s.paused ? 'Resume' : 'Pause'}</Text>
+                        </TouchableOpacity>
+                        <TouchableOpacity
+                            style={[styles.sessionButton, s.state === 'dialing' && styles.sessionButtonDisabled]}
+                            disabled={s.state === 'dialing'}
+                            onPress={() => PowerDialer.skip()}
+                        >
+                            <Text style={styles.sessionButtonText}>Skip</Text>
+                        </TouchableOpacity>
+                        <TouchableOpacity style={styles.sessionButton} onPress={() => PowerDialer.stop()}>
+                            <Text style={styles.sessionButtonText}>Stop</Text>
+                        </TouchableOpacity>
+                    </View>
+                </View>
+            );
+        }
+        return (
+            <View style={styles.bottomContainer}>
+                {session?.state === 'finished' && (
+                    <Text style={styles.sessionMetrics}>
+                        Last session: {metricsLine(session)}{session.error ? ` · ${session.error}` : ''}
+                    </Text>
+                )}
+                <View style={styles.wrapUpRow}>
+                    <Text style={styles.label}>Wrap-up:</Text>
+                    {WRAP_UP_OPTIONS.map((sec) => (
+                        <TouchableOpacity
+                            key={sec}
+                            style={[styles.wrapUpChip, wrapUpSec === sec && styles.wrapUpChipActive]}
+                            onPress={() => chooseWrapUp(sec)}
+                        >
+                            <Text>{sec}s</Text>
+                        </TouchableOpacity>
+                    ))}
+                </View>
+                <TouchableOpacity style={styles.callButton} onPress={handleStartCalling}>
+                    <Text style={styles.callButtonText}>Start Calling</Text>
+                </TouchableOpacity>
+            </View>
+        );
     };
 
     const renderLeadItem = ({ item }: { item: Lead }) => (
@@ -118,11 +236,7 @@ export const CampaignLeadsScreen = () => {
                 }
             />
 
-            {/* <View style={styles.bottomContainer}>
-                <TouchableOpacity style={styles.callButton} onPress={handleStartCalling}>
-                    <Text style={styles.callButtonText}>Start Calling</Text>
-                </TouchableOpacity>
-            </View> */}
+            {leads.length > 0 && renderSessionBar()}
         </View>
     );
 };
@@ -156,7 +270,7 @@ const styles = StyleSheet.create({
     },
     listContent: {
         padding: 16,
-        paddingBottom: 100, // Space for bottom button
+        paddingBottom: 180, // Space for the session bar
     },
     card: {
         backgroundColor: '#FFF',
@@ -205,6 +319,52 @@ const styles = StyleSheet.create({
         fontWeight: 'bold',
         color: '#000', // Black text on yellow button
     },
+    wrapUpRow: {
+        flexDirection: 'row',
+        alignItems: 'center',
+        marginBottom: 12,
+    },
+    wrapUpChip: {
+        paddingHorizontal: 12,
+        paddingVertical: 6,
+        borderRadius: 16,
+        borderWidth: 1,
+        borderColor: '#DDD',
+        marginRight: 8,
+    },
+    wrapUpChipActive: {
+        backgroundColor: colors.primary,
+        borderColor: colors.primary,
+    },
+    sessionTitle: {
+        fontSize: 16,
+        fontWeight: 'bold',
+        color: '#000',
+    },
+    sessionMetrics: {
+        color: '#555',
+        marginTop: 4,
+        marginBottom: 12,
+    },
+    sessionButtons: {
+        flexDirection: 'row',
+        justifyContent: 'space-between',
+    },
+    sessionButton: {
+        flex: 1,
+        backgroundColor: colors.primary,
+        paddingVertical: 12,
+        borderRadius: 8,
+        alignItems: 'center',
+        marginHorizontal: 4,
+    },
+    sessionButtonDisabled: {
+        opacity: 0.4,
+    },
+    sessionButtonText: {
+        fontWeight: 'bold',
+        color: '#000',
+    },
     emptyContainer: {
         alignItems: 'center',
         marginTop: 50,
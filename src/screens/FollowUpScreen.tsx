@@ -8,19 +8,28 @@ import { Bell, BellOff, ChevronLeft, Clock, User } from 'lucide-react-native';
 import { colors } from '../theme/colors';
 import {
     NotificationService,
-    DEMO_FOLLOWUPS,
     FollowUp,
+    formatFollowUpDate,
+    formatFollowUpTime,
 } from '../services/NotificationService';
 
 export const FollowUpScreen: React.FC<{ navigation: any }> = ({ navigation }) => {
-    const [scheduled, setScheduled] = useState(false);
+    const [followUps, setFollowUps] = useState<FollowUp[]>([]);
+    const [loaded, setLoaded] = useState(false);
+
+    // Reminders are armed natively from the lead store; this screen only lists them
+    const load = useCallback(async () => {
+        setFollowUps(await NotificationService.list());
+        setLoaded(true);
+    }, []);
 
     useEffect(() => {
-        // Schedule all reminders when screen mounts
-        NotificationService.scheduleAll(DEMO_FOLLOWUPS)
-            .then(() => setScheduled(true))
+        NotificationService.init()
+            .then(() => NotificationService.requestPermission())
+            .then(() => NotificationService.cancelLegacyTriggers())
             .catch(console.error);
-    }, []);
+        load();
+    }, [load]);
 
     const handleTestNow = useCallback(async (item: FollowUp) => {
         try {
@@ -31,20 +40,9 @@ export const FollowUpScreen: React.FC<{ navigation: any }> = ({ navigation }) =>
         }
     }, []);
 
-    const handleScheduleAll = useCallback(async () => {
-        try {
-            await NotificationService.scheduleAll(DEMO_FOLLOWUPS);
-            setScheduled(true);
-            Alert.alert('✅ Reminders Scheduled', '1-hour reminders scheduled for all follow-ups.');
-        } catch (e: any) {
-            Alert.alert('Error', e?.message || 'Failed to schedule');
-        }
-    }, []);
-
     const handleCancelAll = useCallback(async () => {
         await NotificationService.cancelAll();
-        setScheduled(false);
-        Alert.alert('Cancelled', 'All scheduled reminders have been cancelled.');
+        Alert.alert('Cleared', 'Reminders on screen have been cleared.');
     }, []);
 
     const renderItem = ({ item }: { item: FollowUp }) => (
@@ -54,14 +52,13 @@ export const FollowUpScreen: React.FC<{ navigation: any }> = ({ navigation }) =>
                     <User size={20} color={colors.white} />
                 </View>
                 <View style={styles.info}>
-                    <Text style={styles.name}>{item.name}</Text>
+                    <Text style={styles.name}>{item.name ?? 'Lead'}</Text>
                     <View style={styles.row}>
                         <Clock size={12} color={colors.textSecondary} />
-                        <Text style={styles.meta}>  {item.followUpDate}  ·  {item.followUpTime}</Text>
+                        <Text style={styles.meta}>  {formatFollowUpDate(item.dueAt)}  ·  {formatFollowUpTime(item.dueAt)}</Text>
                     </View>
-                    <View style={[styles.badge,
-                    item.status === 'Pending' ? styles.badgePending : styles.badgeDone]}>
-                        <Text style={styles.badgeText}>{item.status}</Text>
+                    <View style={[styles.badge, item.notified ? styles.badgeDone : styles.badgePending]}>
+                        <Text style={styles.badgeText}>{item.notified ? 'Reminded' : item.status ?? 'Pending'}</Text>
                     </View>
                 </View>
             </View>
@@ -92,22 +89,24 @@ export const FollowUpScreen: React.FC<{ navigation: any }> = ({ navigation }) =>
             <View style={styles.banner}>
                 <Bell size={16} color={colors.black} />
                 <Text style={styles.bannerText}>
-                    {scheduled
-                        ? 'Reminders scheduled — you\'ll be notified 1 hour before each follow-up.'
-                        : 'Scheduling reminders…'}
+                    {!loaded
+                        ? 'Loading follow-ups…'
+                        : followUps.length > 0
+                            ? 'You\'ll be notified 1 hour before each follow-up.'
+                            : 'No upcoming follow-ups.'}
                 </Text>
             </View>
 
             <FlatList
-                data={DEMO_FOLLOWUPS}
-                keyExtractor={item => item.id}
+                data={followUps}
+                keyExtractor={item => item.leadId}
                 renderItem={renderItem}
                 contentContainerStyle={styles.list}
                 ItemSeparatorComponent={() => <View style={{ height: 10 }} />}
                 ListFooterComponent={
-                    <TouchableOpacity style={styles.scheduleBtn} onPress={handleScheduleAll}>
+                    <TouchableOpacity style={styles.scheduleBtn} onPress={load}>
                         <Bell size={18} color={colors.black} />
-                        <Text style={styles.scheduleBtnText}>Re-schedule All Reminders</Text>
+                        <Text style={styles.scheduleBtnText}>Refresh Follow-ups</Text>
                     </TouchableOpacity>
                 }
             />
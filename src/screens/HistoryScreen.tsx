@@ -25,6 +25,10 @@ import { CallLogItem } from '../components/CallLogItem';
 import { useAuth } from '../context/AuthContext';
 import { api } from '../services/api';
 import { LeadsService } from '../services/LeadsService';
+import { LeadStore } from '../services/LeadStore';
+import { PhoneLookup, cleanPhone } from '../services/PhoneLookup';
+import { WarmCache } from '../services/WarmCache';
+import { PowerDialer } from '../services/PowerDialer';
 
 import { FilterBar } from '../components/FilterBar';
 import { SearchBar } from '../components/SearchBar';
@@ -40,11 +44,6 @@ const { width: SCREEN_WIDTH } = Dimensions.get('window');
 const CATEGORIES = ['all', 'incoming', 'outgoing', 'missed'];
 const POSTED_CALLS_KEY = 'posted_calls'; // AsyncStorage dedup key
 const LATEST_CALL_TS_KEY = 'latest_call_timestamp'; // last processed call timestamp
-const CHECK_PHONE_CACHE_KEY = 'check_phone_cache'; // { [phone]: { result, expiresAt } }
-const CHECK_PHONE_TTL = 30 * 60 * 1000; // 30 minutes (was 5 — reduced API hammering)
-const ASSIGN_SELF_CACHE_KEY = 'assign_self_cache_v2'; // v2 adds isAssignedToOther
-const LEADS_FETCH_MIN_INTERVAL = 60_000; // min 60s between fetchLeads calls
-let lastLeadsFetchAt = 0;
 
 const { PhoneModule } = NativeModules;
 const { OverlayPermission } = NativeModules;
@@ -234,19 +233,15 @@ export const HistoryScreen: React.FC = () => {
 
   // ============ ALL useCallback HOOKS ============
   // Fetch leads function
+  // Delta sync against the on-disk LeadStore (conditional request, usually a 304),
+  // so no time-based throttle is needed; state is only replaced when something changed.
   const fetchLeads = useCallback(async () => {
-    // Debounce: skip if fetched less than 60s ago
-    const now = Date.now();
-    if (now - lastLeadsFetchAt < LEADS_FETCH_MIN_INTERVAL) return;
-    lastLeadsFetchAt = now;
     try {
-      const response = await api.getAssigned();
-      if (response?.data) {
-        setLeads(response.data);
-        leadsRef.current = response.data; // keep ref in sync
-        AsyncStorage.setItem('cached_leads', JSON.stringify(response.data)).catch(err =>
-          console.error('Failed to cache leads:', err)
-        );
+      const result = await LeadStore.sync();
+      if (result?.changed) {
+        const stored = (await LeadStore.getLeads()) as Lead[];
+        setLeads(stored);
+        leadsRef.current = stored; // keep ref in sync
       }
     } catch (error) {
       console.error('Error fetching leads:', error);
@@ -255,100 +250,57 @@ export const HistoryScreen: React.FC = () => {
 
   // ── Enrich personal call logs with lead name/data from checkPhone API ──
   // Uses /leads/checkandgive which returns any lead (assigned or not).
-  // Runs after logs load. Cached per phone (5-min TTL) in ASSIGN_SELF_CACHE_KEY.
+  // Runs after logs load. PhoneLookup dedups and batches the numbers and keeps
+  // answers in a bounded in-memory LRU (30-min TTL).
   const enrichLogsWithCheckPhone = useCallback(async (logsToEnrich: CallLog[]) => {
     const unmatched = logsToEnrich.filter((l: any) => !l.leadId && l.phoneNumber);
     if (unmatched.length === 0) return;
 
-    const uniquePhones = [...new Set(unmatched.map((l: any) => l.phoneNumber as string))];
+    const uniquePhones = [...new Set(unmatched.map((l: any) => l.phoneNumber as string))]
+      .filter(phone => cleanPhone(phone).length >= 7);
 
-    let cache: Record<string, {
-      leadId?: string; leadName?: string; canAssignSelf: boolean;
-      isAssignedToOther?: boolean; assignedToName?: string;
-      leadData?: any; expiresAt: number;
-    }> = {};
-    try {
-      const raw = await AsyncStorage.getItem(ASSIGN_SELF_CACHE_KEY);
-      if (raw) cache = JSON.parse(raw);
-    } catch (_) { }
-
-    const now = Date.now();
     const updates: Record<string, {
       leadId?: string; leadName?: string; canAssignSelf: boolean;
       isAssignedToOther?: boolean; assignedToName?: string; leadData?: any;
     }> = {};
-    const newCacheEntries: typeof cache = {};
 
     const myId = user?._id || null;
 
-    for (const phone of uniquePhones) {
-      const cleaned = phone.replace(/[^0-9+]/g, '');
-      if (!cleaned || cleaned.length < 7) continue;
-
-      const cached = cache[cleaned];
-      if (cached && cached.expiresAt > now) {
-        if (cached.leadId || cached.leadName) {
-          updates[phone] = {
-            leadId: cached.leadId,
-            leadName: cached.leadName,
-            canAssignSelf: cached.canAssignSelf,
-            isAssignedToOther: cached.isAssignedToOther,
-            assignedToName: cached.assignedToName,
-            leadData: cached.leadData,
-          };
-        }
-        continue;
-      }
-
-      try {
-        const lead = await api.checkPhone(cleaned);
-        const hasLead = !!(lead && (lead._id || lead.id));
-
-        if (!hasLead) {
-          newCacheEntries[cleaned] = { canAssignSelf: false, expiresAt: now + CHECK_PHONE_TTL };
-          continue;
-        }
+    // Fired together so PhoneLookup can collapse them into one batch request
+    const leadsFound = await Promise.all(
+      uniquePhones.map(phone => PhoneLookup.checkPhone(phone).catch(() => null))
+    );
 
-        const leadId = lead._id || lead.id;
-        const leadName = `${lead.firstName || ''} ${lead.lastName || ''}`.trim() ||
-          lead.fullName || lead.name || undefined;
+    uniquePhones.forEach((phone, idx) => {
+      const lead = leadsFound[idx];
+      const hasLead = !!(lead && (lead._id || lead.id));
+      if (!hasLead) return;
 
-        // Parse assignedTo
-        const assignedRaw = lead.assigned_to || lead.assignedTo;
-        const assignedId = typeof assignedRaw === 'string'
-          ? assignedRaw
-          : assignedRaw?._id || assignedRaw?.id || null;
-        const isAlreadyMine = !!(myId && assignedId && assignedId === myId);
+      const leadId = lead._id || lead.id;
+      const leadName = `${lead.firstName || ''} ${lead.lastName || ''}`.trim() ||
+        lead.fullName || lead.name || undefined;
 
-        // canAssignSelf = lead is NOT assigned to me (either unassigned or assigned to someone else)
-        const canAssignSelf = !isAlreadyMine;
+      // Parse assignedTo
+      const assignedRaw = lead.assigned_to || lead.assignedTo;
+      const assignedId = typeof assignedRaw === 'string'
+        ? assignedRaw
+        : assignedRaw?._id || assignedRaw?.id || null;
+      const isAlreadyMine = !!(myId && assignedId && assignedId === myId);
 
-        // isAssignedToOther = lead exists AND is assigned AND NOT to me
-        const isAssignedToOther = !!(assignedId && !isAlreadyMine);
+      // canAssignSelf = lead is NOT assigned to me (either unassigned or assigned to someone else)
+      const canAssignSelf = !isAlreadyMine;
 
-        // Resolve agent name for display
-        let assignedToName: string | undefined;
-        if (assignedRaw && typeof assignedRaw === 'object') {
-          assignedToName = (assignedRaw as any).name || (assignedRaw as any).username || undefined;
-        }
+      // isAssignedToOther = lead exists AND is assigned AND NOT to me
+      const isAssignedToOther = !!(assignedId && !isAlreadyMine);
 
-        const entry = {
-          leadId, leadName, canAssignSelf, isAssignedToOther, assignedToName,
-          leadData: lead, expiresAt: now + CHECK_PHONE_TTL,
-        };
-        newCacheEntries[cleaned] = entry;
-        updates[phone] = { leadId, leadName, canAssignSelf, isAssignedToOther, assignedToName, leadData: lead };
-      } catch (e) {
-        // Silently ignore
+      // Resolve agent name for display
+      let assignedToName: string | undefined;
+      if (assignedRaw && typeof assignedRaw === 'object') {
+        assignedToName = (assignedRaw as any).name || (assignedRaw as any).username || undefined;
       }
-    }
 
-    if (Object.keys(newCacheEntries).length > 0) {
-      try {
-        const merged = { ...cache, ...newCacheEntries };
-        await AsyncStorage.setItem(ASSIGN_SELF_CACHE_KEY, JSON.stringify(merged));
-      } catch (_) { }
-    }
+      updates[phone] = { leadId, leadName, canAssignSelf, isAssignedToOther, assignedToName, leadData: lead };
+    });
 
     if (Object.keys(updates).length > 0) {
       setLogs(prev => {
@@ -393,47 +345,21 @@ export const HistoryScreen: React.FC = () => {
             : l
         )
       );
-      // Invalidate cache for this phone
-      try {
-        const cleaned = log.phoneNumber.replace(/[^0-9+]/g, '');
-        const raw = await AsyncStorage.getItem(ASSIGN_SELF_CACHE_KEY);
-        if (raw) {
-          const c = JSON.parse(raw);
-          if (c[cleaned]) {
-            c[cleaned].canAssignSelf = false;
-            c[cleaned].expiresAt = 0;
-            await AsyncStorage.setItem(ASSIGN_SELF_CACHE_KEY, JSON.stringify(c));
-          }
-        }
-      } catch (_) { }
+      // Invalidate cached lookups for this phone
+      PhoneLookup.invalidate(log.phoneNumber);
       fetchLeads();
     } catch (e) {
       Alert.alert('Error', 'Failed to assign lead. Please try again.');
     }
   }, [fetchLeads]);
 
-  // ── checkPhone with AsyncStorage cache (TTL 5 min) ──────────────────────
+  // ── checkPhone through PhoneLookup (deduped, LRU-cached) ────────────────
   const checkPhoneWithCache = useCallback(async (phoneNumber: string): Promise<CheckPhoneResult> => {
-    const cleaned = phoneNumber.replace(/[^0-9+]/g, '');
+    const cleaned = cleanPhone(phoneNumber);
     if (!cleaned) return { found: false, isMyLead: false };
 
-    // Try cache
-    try {
-      const rawCache = await AsyncStorage.getItem(CHECK_PHONE_CACHE_KEY);
-      const cache: Record<string, { result: CheckPhoneResult; expiresAt: number }> =
-        rawCache ? JSON.parse(rawCache) : {};
-      const entry = cache[cleaned];
-      if (entry && entry.expiresAt > Date.now()) {
-        console.log('[checkPhone] cache hit:', cleaned);
-        return entry.result;
-      }
-    } catch (_) { }
-
-    // API call
     try {
-      console.log("clean: ", cleaned)
-      const lead = await api.checkPhone(cleaned);
-      let result: CheckPhoneResult;
+      const lead = await PhoneLookup.checkPhone(cleaned);
       if (lead && lead._id) {
         // Determine if it's the current user's lead
         // assignedTo may be a string (userId) or object {_id, ...}
@@ -444,7 +370,7 @@ export const HistoryScreen: React.FC = () => {
         const currentUserId = user?._id || null;
         const isMyLead = !!assignedId && !!currentUserId && assignedId === currentUserId;
 
-        result = {
+        return {
           found: true,
           isMyLead,
           leadId: lead._id || lead.id,
@@ -452,20 +378,8 @@ export const HistoryScreen: React.FC = () => {
           leadStatus: lead.leadStatus,
           leadData: lead,
         };
-      } else {
-        result = { found: false, isMyLead: false };
       }
-
-      // Write to cache
-      try {
-        const rawCache = await AsyncStorage.getItem(CHECK_PHONE_CACHE_KEY);
-        const cache: Record<string, { result: CheckPhoneResult; expiresAt: number }> =
-          rawCache ? JSON.parse(rawCache) : {};
-        cache[cleaned] = { result, expiresAt: Date.now() + CHECK_PHONE_TTL };
-        await AsyncStorage.setItem(CHECK_PHONE_CACHE_KEY, JSON.stringify(cache));
-      } catch (_) { }
-
-      return result;
+      return { found: false, isMyLead: false };
     } catch (e) {
       console.warn('[checkPhone] API error:', e);
       return { found: false, isMyLead: false };
@@ -474,6 +388,10 @@ export const HistoryScreen: React.FC = () => {
 
   // ── Show the post-call popup for a given ended call ──────────────────────
   const handleCallEnded = useCallback(async (callEnd: PendingCallEnd) => {
+    // A power-dialer session disposes its calls on LeadDispose (CampaignLeadsScreen)
+    const session = await PowerDialer.getStatus().catch(() => null);
+    if (session && session.state !== 'idle' && session.state !== 'finished') return;
+
     // Skip if already showing a popup
     setPendingCallEnd(callEnd);
     setCheckResult(null);
@@ -531,19 +449,11 @@ export const HistoryScreen: React.FC = () => {
     try {
       setIsChecking(true);
       await api.assignSelf(checkResult.leadId, pendingCallEnd.phoneNumber);
-      // Update cache entry to isMyLead: true
+      // Reflect the new assignment in the popup
       const newResult: CheckPhoneResult = { ...checkResult, isMyLead: true };
       setCheckResult(newResult);
-      // Also invalidate cache for this number
-      try {
-        const cleaned = pendingCallEnd.phoneNumber.replace(/[^0-9+]/g, '');
-        const rawCache = await AsyncStorage.getItem(CHECK_PHONE_CACHE_KEY);
-        const cache: Record<string, any> = rawCache ? JSON.parse(rawCache) : {};
-        if (cache[cleaned]) {
-          cache[cleaned].result.isMyLead = true;
-          await AsyncStorage.setItem(CHECK_PHONE_CACHE_KEY, JSON.stringify(cache));
-        }
-      } catch (_) { }
+      // Also invalidate cached lookups for this number
+      PhoneLookup.invalidate(pendingCallEnd.phoneNumber);
     } catch (e) {
       Alert.alert('Error', 'Failed to assign lead. Please try again.');
     } finally {
@@ -582,40 +492,19 @@ export const HistoryScreen: React.FC = () => {
           const inputLast10 = inputDigits.slice(-10);
           if (inputLast10.length < 10) continue;
 
-          // 1. First try matching against local assigned leads (free, no API)
+          // 1. First try matching against the on-disk assigned leads (free, no API)
           let leadId: string | null = null;
-          const currentLeads = leadsRef.current;
-          for (const lead of currentLeads) {
-            const nums = [lead.phone, lead.mobile, lead.alt_phone].filter((n): n is string => !!n);
-            for (const raw of nums) {
-              const last10 = raw.replace(/[^0-9]/g, '').slice(-10);
-              if (last10 === inputLast10) { leadId = lead._id || lead.id || null; break; }
-            }
-            if (leadId) break;
+          const storedLead = await LeadStore.findByNumber(log.phoneNumber);
+          if (storedLead) {
+            leadId = storedLead._id || storedLead.id || null;
           }
 
           // 2. If not in my local leads, call checkPhone to see if it's in DB at all
           if (!leadId) {
             try {
-              const cleanedPhone = log.phoneNumber.replace(/[^0-9+]/g, '');
-              // Check cache first
-              let fromCache = false;
-              const rawCache = await AsyncStorage.getItem(CHECK_PHONE_CACHE_KEY);
-              if (rawCache) {
-                const cacheMap: Record<string, { result: any; expiresAt: number }> = JSON.parse(rawCache);
-                const entry = cacheMap[cleanedPhone];
-                if (entry && entry.expiresAt > Date.now()) {
-                  fromCache = true;
-                  if (entry.result?.found && entry.result?.leadId) {
-                    leadId = entry.result.leadId;
-                  }
-                }
-              }
-              if (!fromCache) {
-                const lead = await api.checkPhone(cleanedPhone);
-                if (lead && (lead._id || lead.id)) {
-                  leadId = lead._id || lead.id;
-                }
+              const lead = await PhoneLookup.checkPhone(log.phoneNumber);
+              if (lead && (lead._id || lead.id)) {
+                leadId = lead._id || lead.id;
               }
             } catch (_) { /* non-fatal */ }
           }
@@ -635,18 +524,31 @@ export const HistoryScreen: React.FC = () => {
     } catch (e) {
       console.warn('[AutoPost] Background check failed:', e);
     }
-  }, []); // reads leadsRef (always fresh) and uses module-level constants
+  }, []); // reads LeadStore (on disk) and uses module-level constants
 
   // Helper function to find lead by phone number
   // Alert.alert(phoneNumber);
 
+  // last-10-digits → lead, rebuilt only when the lead list changes
+  const leadsByNumber = useMemo(() => {
+    const index = new Map<string, Lead>();
+    for (const lead of leads) {
+      for (const raw of [lead.phone, lead.mobile, lead.alt_phone]) {
+        if (!raw) continue;
+        const last10 = raw.replace(/[^0-9]/g, '').slice(-10);
+        if (last10.length === 10 && !index.has(last10)) index.set(last10, lead);
+      }
+    }
+    return index;
+  }, [leads]);
+
   const findLeadByNumber = useCallback((phoneNumber: string): Lead | null => {
     if (!phoneNumber) {
       // console.log('[findLead] No phone number → null');
       return null;
     }
 
-    if (!leads.length) {
+    if (!leadsByNumber.size) {
       // console.log('[findLead] No leads loaded → null');
       return null;
     }
@@ -664,39 +566,10 @@ export const HistoryScreen: React.FC = () => {
       return null;
     }
 
-    // 2. Check every lead
-    for (const lead of leads) {
-      const leadNumbers = [lead.phone, lead.mobile, lead.alt_phone].filter((n): n is string => !!n);
-
-      if (leadNumbers.length === 0) continue;
-
-      // console.log(
-      //   `[findLead] Checking lead: ${lead.firstName} ${lead.lastName} (ID: ${lead._id}) → numbers:`,
-      //   leadNumbers
-      // );
-
-      for (const rawLeadNum of leadNumbers) {
-        const leadDigits = rawLeadNum.replace(/[^0-9]/g, '');
-        const leadLast10 = leadDigits.slice(-10);
-
-        // console.log(
-        //   `  → lead raw: "${rawLeadNum}" → cleaned: ${leadDigits} → last10: ${leadLast10}`
-        // );
-
-        // Match if last 10 digits are exactly the same
-        if (leadLast10 === inputLast10) {
-          // console.log(
-          //   `>>> [MATCH SUCCESS] Lead: ${lead.firstName} ${lead.lastName} ` +
-          //   `| input last10: ${inputLast10} | lead last10: ${leadLast10} | raw lead num: ${rawLeadNum}`
-          // );
-          return lead;
-        }
-      }
-    }
-
-    // console.log(`[findLead] NO MATCH for last10: ${inputLast10}`);
-    return null;
-  }, [leads]);
+    // 2. Indexed lookup on the last 10 digits
+    // console.log(`[findLead] ${leadsByNumber.has(inputLast10) ? 'MATCH' : 'NO MATCH'} for last10: ${inputLast10}`);
+    return leadsByNumber.get(inputLast10) || null;
+  }, [leadsByNumber]);
 
 
   // Fetch personal logs
@@ -980,17 +853,19 @@ export const HistoryScreen: React.FC = () => {
     leadsRef.current = leads;
   }, [leads]);
 
-  // Load cached leads on mount
+  // Drop the old AsyncStorage lookup caches (replaced by PhoneLookup's LRU)
+  useEffect(() => {
+    PhoneLookup.dropLegacyCaches();
+  }, []);
+
+  // Load stored leads on mount (on-disk LeadStore, no network)
   useEffect(() => {
     const loadCachedLeads = async () => {
       try {
-        const cached = await AsyncStorage.getItem('cached_leads');
-        if (cached) {
-          const parsed = JSON.parse(cached);
-          if (Array.isArray(parsed) && parsed.length > 0) {
-            setLeads(parsed);
-            leadsRef.current = parsed; // hydrate ref immediately
-          }
+        const stored = (await LeadStore.getLeads()) as Lead[];
+        if (stored.length > 0) {
+          setLeads(stored);
+          leadsRef.current = stored; // hydrate ref immediately
         }
       } catch (e) {
         console.error('Error loading cached leads', e);
@@ -1043,6 +918,20 @@ export const HistoryScreen: React.FC = () => {
     fetchLeads();
   }, [fetchLeads]);
 
+  // Pushed assignment/status changes are already on disk; just re-read
+  useEffect(() => LeadStore.onChange(async () => {
+    const stored = (await LeadStore.getLeads()) as Lead[];
+    setLeads(stored);
+    leadsRef.current = stored;
+  }), []);
+
+  // Hangup-to-interactive: stop the clock once the popup has painted
+  useEffect(() => {
+    if (!isPopupVisible) return;
+    const frame = requestAnimationFrame(() => WarmCache.markInteractive());
+    return () => cancelAnimationFrame(frame);
+  }, [isPopupVisible]);
+
   // Initial data load - Personal Logs
   useEffect(() => {
     if (source === 'personal') {
@@ -1091,6 +980,9 @@ export const HistoryScreen: React.FC = () => {
     const emitter = new NativeEventEmitter(PhoneModule);
     const sub = emitter.addListener('CallEnded', (event: any) => {
       console.log('[CallEnded] event received:', event);
+      // In the background the native overlay takes the call; whatever it hands
+      // back is picked up from getPendingCall() when the app becomes active
+      if (AppState.currentState !== 'active') return;
       if (event?.phoneNumber) {
         handleCallEnded({
           phoneNumber: event.phoneNumber,
@@ -1381,6 +1273,7 @@ const HistoryPage = React.memo(
     return (
       <View style={styles.pageContainer}>
         <FlatList
+          testID={`history-list-${category}`}
           data={groupedData}
           keyExtractor={(item) => `${source}-${category}-${item.title}-${item.data.length}`}
           refreshControl={
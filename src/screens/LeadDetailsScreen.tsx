@@ -21,10 +21,11 @@ import { ArrowLeft, RefreshCw, PenSquare, ChevronUp, ChevronDown } from 'lucide-
 import { colors } from '../theme/colors';
 import { Lead } from '../types/Lead';
 import RNFS from 'react-native-fs';
-import { CallLogService } from '../services/CallLogService';
+import { CallLogService, LeadCall } from '../services/CallLogService';
 import DateTimePicker from '@react-native-community/datetimepicker';
 import { LeadsService } from '../services/LeadsService';
 import { api } from '../services/api';
+import { Dnc } from '../services/Dnc';
 import { MessageCircle, MessageSquare } from 'lucide-react-native';
 
 // import AudioRecorderPlayer from 'react-native-audio-recorder-player'; // REMOVED
@@ -176,7 +177,7 @@ export const LeadDetailsScreen = () => {
     const hasPermission = await checkPermissions();
     if (hasPermission) {
       // PhoneModule.startCallListener(); // Ensure listener is active
-      PhoneModule.makeCall(lead?.phone || (lead as any)?.number);
+      PhoneModule.makeCall(lead?.phone || (lead as any)?.number, -1, Date.now()).catch(Dnc.alertIfBlocked);
       // navigation.navigate('CallScreen', { number: lead.phone || lead.number, name: getLeadName() });
     } else {
       Alert.alert(
@@ -220,22 +221,34 @@ export const LeadDetailsScreen = () => {
     };
   }, []);
 
-  // Fetch timeline events from backend
+  // Timeline: render the cached copy (prefetched while the call rang) at once,
+  // then revalidate from the backend
   useEffect(() => {
+    let cancelled = false;
     const fetchTimelineLogs = async () => {
-      if (!lead?._id && !lead?.id) return;
-      setTimelineLoading(true);
+      const leadId = lead?._id || lead?.id;
+      if (!leadId) return;
+      const cached = await CallLogService.getCachedLeadTimeline(leadId);
+      if (cancelled) return;
+      if (cached) {
+        setTimelineLogs(cached.events);
+      } else {
+        setTimelineLoading(true);
+      }
       try {
-        const events = await CallLogService.getLeadTimeline(lead?._id || lead?.id || '');
-        // Backend events are already sorted newest-first
-        setTimelineLogs(events);
+        const events = await CallLogService.getLeadTimeline(leadId);
+        // Backend events are already sorted newest-first; keep the cached list if the refresh failed
+        if (!cancelled && (events.length > 0 || !cached)) setTimelineLogs(events);
       } catch (e) {
         console.error('Timeline fetch error', e);
       } finally {
-        setTimelineLoading(false);
+        if (!cancelled) setTimelineLoading(false);
       }
     };
     fetchTimelineLogs();
+    return () => {
+      cancelled = true;
+    };
   }, [lead?._id, lead?.id]);
 
   // // ... render ...
@@ -327,24 +340,14 @@ export const LeadDetailsScreen = () => {
   // --- Dispose Logic ---
 
   const fetchTodayCallLog = async () => {
-    try {
-      // Use CallLogService to get native logs for today to verify call attempt
-      const logs = await CallLogService.getCallLogsByDay(0);
-      const normalize = (num: string) => num.replace(/[^0-9]/g, '');
-      const leadNum = normalize(lead.phone || lead.number || '');
-
-      if (!leadNum) return null;
-
-      // Find the most recent call to/from this number
-      const call = logs.find(log => {
-        const logNum = normalize(log.phoneNumber);
-        return logNum.includes(leadNum) || leadNum.includes(logNum);
-      });
-      return call;
-    } catch (e) {
-      console.error("Error fetching logs", e);
-      return null;
-    }
+    const startOfDay = new Date();
+    startOfDay.setHours(0, 0, 0, 0);
+    // Most recent call to/from this lead today, with its recording when one was made
+    const calls = await CallLogService.getLeadCalls(
+      [lead.phone || lead.number || '', lead.alt_phone || ''],
+      startOfDay.getTime(),
+    );
+    return calls[0] ?? null;
   };
 
   const handleProceed = async () => {
@@ -651,6 +654,14 @@ export const LeadDetailsScreen = () => {
                   <>
                     {renderBasicDetails()}
                     {renderLeadProgress()}
+                    <View style={styles.sectionCard}>
+                      <View style={styles.sectionHeader}>
+                        <Text style={styles.sectionTitle}>Calls on this device</Text>
+                      </View>
+                      <View style={styles.sectionContent}>
+                        <CallHistoryList lead={lead} />
+                      </View>
+                    </View>
                     <View style={{ height: 100 }} />
                   </>
                 ) : (
@@ -805,33 +816,35 @@ export const LeadDetailsScreen = () => {
 
 
 
+const CALL_HISTORY_PAGE = 20;
+
 const CallHistoryList = ({ lead }: { lead: Lead }) => {
-  const [logs, setLogs] = useState<any[]>([]);
+  const [logs, setLogs] = useState<LeadCall[]>([]);
   const [loading, setLoading] = useState(true);
+  const [hasMore, setHasMore] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   // Use ID dependency to prevent infinite reloads if lead object reference changes
   useEffect(() => {
-    loadLogs();
+    let cancelled = false;
+    setLoading(true);
+    CallLogService.getCallsForLead(lead, CALL_HISTORY_PAGE).then(page => {
+      if (cancelled) return;
+      setLogs(page);
+      setHasMore(page.length === CALL_HISTORY_PAGE);
+      setLoading(false);
+    });
+    return () => { cancelled = true; };
   }, [lead._id, lead.id]);
 
-  const loadLogs = async () => {
-    try {
-      // Don't set loading true if we already have logs to avoid flash, or keep it if UX needs it.
-      // Better to check if we are already loading or if id changed.
-      // For now, let's keep it simple but rely on ID stability.
-      setLoading(true);
-      let remoteLogs: any[] = [];
-      if (lead._id || lead.id) {
-        remoteLogs = await CallLogService.getRemoteCallLogs(lead._id || lead.id || '');
-      }
-      // Check if component is mounted or if result is valid before setting state? 
-      // React handles unmount updates with warning, but safe here.
-      setLogs(remoteLogs.sort((a: any, b: any) => b.timestamp - a.timestamp));
-    } catch (e) {
-      console.error(e);
-    } finally {
-      setLoading(false);
-    }
+  // Next page from the native index, older than the last row shown
+  const loadMore = async () => {
+    if (loadingMore || logs.length === 0) return;
+    setLoadingMore(true);
+    const page = await CallLogService.getCallsForLead(lead, CALL_HISTORY_PAGE, logs[logs.length - 1].timestamp);
+    setLogs(prev => [...prev, ...page]);
+    setHasMore(page.length === CALL_HISTORY_PAGE);
+    setLoadingMore(false);
   };
 
   if (loading) return <Text style={{ padding: 10, color: colors.textSecondary }}>Loading call history...</Text>;
@@ -839,8 +852,8 @@ const CallHistoryList = ({ lead }: { lead: Lead }) => {
 
   return (
     <View>
-      {logs.map((log, i) => (
-        <View key={i} style={{
+      {logs.map(log => (
+        <View key={log.callLogId} style={{
           flexDirection: 'row',
           alignItems: 'center',
           backgroundColor: colors.white,
@@ -879,6 +892,11 @@ const CallHistoryList = ({ lead }: { lead: Lead }) => {
           </View>
         </View>
       ))}
+      {hasMore && (
+        <TouchableOpacity onPress={loadMore} disabled={loadingMore} style={{ padding: 10, alignItems: 'center' }}>
+          <Text style={{ color: colors.primary, fontWeight: '600' }}>{loadingMore ? 'Loading...' : 'Load older calls'}</Text>
+        </TouchableOpacity>
+      )}
     </View>
   );
 };
@@ -21,7 +21,12 @@ import DateTimePicker from '@react-native-community/datetimepicker';
 export const LeadDisposeScreen = () => {
     const route = useRoute<any>();
     const navigation = useNavigation<any>();
-    const { lead, callData } = route.params as { lead: Lead, callData?: { path: string, duration: string } };
+    const { lead, callData, powerDialer } = route.params as {
+        lead: Lead,
+        callData?: { path: string, duration: string },
+        // Opened by a power-dialer session: go straight back, the session dials the next lead
+        powerDialer?: boolean,
+    };
 
     const [connected, setConnected] = useState<boolean | null>(null);
 
@@ -35,19 +40,13 @@ export const LeadDisposeScreen = () => {
     const [submitting, setSubmitting] = useState(false);
 
     const fetchTodayCallLog = async () => {
-        try {
-            const logs = await CallLogService.getCallLogsByDay(0);
-            // Normalize numbers for comparison (remove spaces, etc.)
-            const normalize = (num: string) => num.replace(/[^0-9]/g, '');
-            const leadNum = normalize(lead.phone || lead.number || '');
-
-            // Find all calls to/from this number today
-            const calls = logs.filter(log => normalize(log.phoneNumber).includes(leadNum) || leadNum.includes(normalize(log.phoneNumber)));
-            return calls;
-        } catch (e) {
-            console.error("Error fetching logs", e);
-            return [];
-        }
+        const startOfDay = new Date();
+        startOfDay.setHours(0, 0, 0, 0);
+        // All of today's calls to/from this lead, joined natively by number and time
+        return CallLogService.getLeadCalls(
+            [lead.phone || lead.number || '', lead.alt_phone || ''],
+            startOfDay.getTime(),
+        );
     };
 
     const handleSubmit = async () => {
@@ -106,9 +105,17 @@ export const LeadDisposeScreen = () => {
 
             const apiNotes = JSON.stringify(apiNotesObj);
 
-            await LeadsService.updateLeadStatus(lead._id || lead.id!, apiStatus, apiNotes);
+            const result = await LeadsService.updateLeadStatus(lead._id || lead.id!, apiStatus, apiNotes);
 
-            Alert.alert("Success", "Lead updated successfully", [
+            if (powerDialer) {
+                navigation.goBack();
+                return;
+            }
+            // Queued updates go out in the background; a refusal is reported by useOutboxFailures
+            const message = result?.queued
+                ? "Update saved. It will sync in the background."
+                : "Lead updated successfully";
+            Alert.alert(result?.queued ? "Saved" : "Success", message, [
                 { text: "OK", onPress: () => navigation.navigate('Leads') }
             ]);
         } catch (err) {
@@ -22,7 +22,7 @@ import {
 } from 'lucide-react-native';
 import { colors } from '../theme/colors';
 import { useNavigation } from '@react-navigation/native';
-import { LeadsService } from '../services/LeadsService';
+import { LeadStore } from '../services/LeadStore';
 import { Lead } from '../types/Lead';
 
 type ViewType = 'dashboard' | 'list';
@@ -37,13 +37,20 @@ export const LeadsScreen = () => {
   const [searchQuery, setSearchQuery] = useState('');
   const navigation = useNavigation<any>();
 
+  // Render from the on-disk store first, then pull only what changed on the server.
   const fetchLeads = useCallback(async () => {
     try {
-      const data = await LeadsService.getAssignedLeads();
-      setLeads(data);
+      const cached = await LeadStore.getLeads();
+      if (cached.length > 0) {
+        setLeads(cached);
+        setLoading(false);
+      }
+      const result = await LeadStore.sync();
+      if (result?.changed || cached.length === 0) {
+        setLeads(await LeadStore.getLeads());
+      }
     } catch (error: any) {
       console.error('Failed to fetch leads:', error);
-      setLeads([]);
     } finally {
       setLoading(false);
       setRefreshing(false);
@@ -54,6 +61,11 @@ export const LeadsScreen = () => {
     fetchLeads();
   }, [fetchLeads]);
 
+  // Pushed assignment/status changes are already on disk; just re-read
+  useEffect(() => LeadStore.onChange(async () => {
+    setLeads(await LeadStore.getLeads());
+  }), []);
+
   const onRefresh = () => {
     setRefreshing(true);
     fetchLeads();
@@ -0,0 +1,58 @@
+import { NativeModules } from 'react-native';
+
+// Only registered in debug builds (android/app/src/debug)
+const { CallLogFixtures: Native } = NativeModules;
+
+export interface FixtureTiming {
+    name: string;
+    ms: number;
+    rows: number;
+}
+
+/**
+ * Synthetic call log for scale testing (debug builds only).
+ *
+ * `generate` fills a fake CallLog provider with realistic rows (two SIMs,
+ * skewed numbers, years of history); while `setEnabled(true)` is on, the
+ * native call-log readers behind CallLogService read from it instead of the
+ * device call log, so every screen can be tried against 100k rows.
+ * `benchmark` times the native read paths and also logs them
+ * (`adb logcat -s CallLogFixtures`).
+ *
+ *   await CallLogFixtures.generate(100000, 3);
+ *   await CallLogFixtures.setEnabled(true);
+ *   await CallLogFixtures.benchmark();
+ */
+export const CallLogFixtures = {
+    isAvailable: (): boolean => !!Native,
+
+    generate: async (rows: number, years = 3, seed = 42) => {
+        if (!Native) return null;
+        return JSON.parse(await Native.generate(rows, years, seed)) as {
+            rows: number;
+            distinctNumbers: number;
+            topNumber: string;
+            oldest: number;
+            ms: number;
+        };
+    },
+
+    setEnabled: async (enabled: boolean): Promise<boolean> => {
+        if (!Native) return false;
+        return Native.setEnabled(enabled);
+    },
+
+    getStatus: async (): Promise<{ enabled: boolean; rows: number } | null> => {
+        if (!Native) return null;
+        return JSON.parse(await Native.getStatus());
+    },
+
+    clear: async () => Native?.clear(),
+
+    benchmark: async (runs = 3): Promise<FixtureTiming[]> => {
+        if (!Native) return [];
+        const timings: FixtureTiming[] = JSON.parse(await Native.benchmark(runs));
+        timings.forEach(t => console.log(`[CallLogFixtures] ${t.name}: ${t.ms} ms (${t.rows} rows)`));
+        return timings;
+    },
+};
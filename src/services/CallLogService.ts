@@ -1,6 +1,97 @@
 import { CallLog, CallType } from '../types/CallLog';
-import { PermissionsAndroid } from 'react-native';
+import { NativeEventEmitter, NativeModules, PermissionsAndroid } from 'react-native';
 import apiClient from './apiClient';
+import { WarmCache } from './WarmCache';
+
+const { LeadStoreModule, CallsModule } = NativeModules;
+
+const callsEmitter = CallsModule ? new NativeEventEmitter(CallsModule) : null;
+
+export interface CallLogExportResult {
+    path: string;
+    rows: number;
+    bytes: number;
+    ms: number;
+}
+
+/** A running export: `done` rejects with code ERR_CANCELLED after `cancel()`. */
+export interface CallLogExportJob {
+    done: Promise<CallLogExportResult>;
+    cancel: () => void;
+}
+
+/** A call-log row from the native per-lead call index (CallIndex.java). */
+export interface LeadCall {
+    callLogId: string;
+    phoneNumber: string;
+    numberKey: string | null;   // last 10 digits
+    timestamp: number;          // start, ms
+    endedAt: number;
+    duration: number;           // seconds
+    type: string;               // INCOMING | OUTGOING | MISSED | REJECTED | BLOCKED | UNKNOWN
+    phoneAccountId: string | null;
+    simSlot: number | null;     // 0-based
+}
+
+/** Outcome of one native /logs/sync pass (LogSyncer.java). */
+export interface LogSyncResult {
+    chunks: number;
+    rows: number;
+    /** Call log _ID of the last row the server acknowledged. */
+    watermark: number;
+    /** Stopped at the per-pass chunk limit; the next run continues. */
+    more: boolean;
+}
+
+/** One call as joined natively from the call log, our call journal and recordings. */
+export interface ReconciledCall {
+    callId: string;             // stable: first of "rec:<file>", "pj:<uuid>" (journal), "cl:<CallLog _ID>" issued
+    callLogId?: string;
+    phoneNumber: string;
+    numberKey: string | null;   // last 10 digits
+    timestamp: number;          // start, ms
+    endedAt: number;
+    duration: number;           // seconds
+    type: string;               // INCOMING | OUTGOING | MISSED | REJECTED | BLOCKED | UNKNOWN
+    phoneAccountId: string | null;
+    recordingPath: string | null;
+    leadId: string | null;
+    sources: ('calllog' | 'journal' | 'recording')[];
+}
+
+/**
+ * Raw device call-log rows. Prefers the native CallsModule, whose rows come
+ * with contact names already resolved in one batch per page; falls back to
+ * react-native-call-log. Returns null when neither is available.
+ */
+const loadDeviceLogs = async (minTimestamp?: number, maxTimestamp?: number): Promise<any[] | null> => {
+    if (CallsModule?.loadCallLogs) {
+        const json: string = await CallsModule.loadCallLogs(minTimestamp ?? 0, maxTimestamp ?? Number.MAX_SAFE_INTEGER, -1);
+        return JSON.parse(json);
+    }
+    let CallLogs: any = null;
+    try {
+        // runtime require so bundler doesn't throw if native module missing
+        // eslint-disable-next-line @typescript-eslint/no-var-requires
+        CallLogs = require('react-native-call-log');
+    } catch (e) {
+        CallLogs = null;
+    }
+    if (!CallLogs || typeof CallLogs.load !== 'function') return null;
+    if (minTimestamp === undefined && maxTimestamp === undefined) return CallLogs.load(-1);
+    return CallLogs.load(-1, {
+        ...(minTimestamp !== undefined && { minTimestamp }),
+        ...(maxTimestamp !== undefined && { maxTimestamp }),
+    });
+};
+
+const last10 = (num: string) => (num || '').replace(/[^0-9]/g, '').slice(-10);
+
+// Backend returns { success: true, data: { events: [...], lead: {...} } }
+const timelineEvents = (body: any): any[] => {
+    const data = body?.data || body || {};
+    return Array.isArray(data.events) ? data.events : [];
+};
 // Use optional runtime require for native call-log module so the bundle
 // doesn't fail when the native module isn't installed (development mode).
 
@@ -57,17 +148,8 @@ export const CallLogService = {
             );
 
             if (result === PermissionsAndroid.RESULTS.GRANTED) {
-                let CallLogs: any = null;
-                try {
-                    // runtime require so bundler doesn't throw if native module missing
-                    // eslint-disable-next-line @typescript-eslint/no-var-requires
-                    CallLogs = require('react-native-call-log');
-                } catch (e) {
-                    CallLogs = null;
-                }
-
-                if (CallLogs && typeof CallLogs.load === 'function') {
-                    const logs = await CallLogs.load(-1); // -1 fetches all
+                const logs = await loadDeviceLogs(); // all rows
+                if (logs) {
                     const mappedLogs = mapLogs(logs);
 
                     cachedLogs = mappedLogs;
@@ -94,19 +176,8 @@ export const CallLogService = {
             const hasPermission = await CallLogService.requestPermissions();
             if (!hasPermission) return [];
 
-            let CallLogs: any = null;
-            try {
-                // eslint-disable-next-line @typescript-eslint/no-var-requires
-                CallLogs = require('react-native-call-log');
-            } catch (e) {
-                CallLogs = null;
-            }
-
-            if (CallLogs && typeof CallLogs.load === 'function') {
-                const logs = await CallLogs.load(-1, { minTimestamp });
-                return mapLogs(logs);
-            }
-            return [];
+            const logs = await loadDeviceLogs(minTimestamp);
+            return logs ? mapLogs(logs) : [];
         } catch (e) {
             console.error(e);
             return [];
@@ -125,19 +196,10 @@ export const CallLogService = {
 
             const maxTimestamp = minTimestamp + (24 * 60 * 60 * 1000) - 1;
 
-            let CallLogs: any = null;
-            try {
-                // eslint-disable-next-line @typescript-eslint/no-var-requires
-                CallLogs = require('react-native-call-log');
-            } catch (e) {
-                CallLogs = null;
-            }
-
-            if (CallLogs && typeof CallLogs.load === 'function') {
-                const logs = await CallLogs.load(-1, {
-                    minTimestamp,
-                    maxTimestamp
-                });
+            // Today's rows may have been read natively while the bundle loaded
+            const warm = daysOffset === 0 ? await WarmCache.take<any[]>('todayLogs', 1000) : null;
+            const logs = warm ?? await loadDeviceLogs(minTimestamp, maxTimestamp);
+            if (logs) {
                 return mapLogs(logs);
             }
 
@@ -181,6 +243,146 @@ export const CallLogService = {
         }
     },
 
+    /**
+     * Calls with any of the given numbers between fromMs and toMs, newest
+     * first, each with its recording path and lead ID when known.
+     * Without the native module falls back to last-10-digit matching on
+     * the device call log (no recordings, no journal).
+     */
+    getLeadCalls: async (numbers: string[], fromMs: number, toMs: number = Date.now()): Promise<ReconciledCall[]> => {
+        const wanted = numbers.filter(Boolean);
+        if (wanted.length === 0) return [];
+        try {
+            if (CallsModule) {
+                const hasPermission = await CallLogService.requestPermissions();
+                if (!hasPermission) return [];
+                const json: string = await CallsModule.reconcile(fromMs, toMs, wanted);
+                return JSON.parse(json);
+            }
+            const keys = new Set(wanted.map(last10).filter(k => k.length === 10));
+            const logs = await CallLogService.getRecentLogs(fromMs);
+            return logs
+                .filter(log => log.timestamp <= toMs && keys.has(last10(log.phoneNumber)))
+                .sort((a, b) => b.timestamp - a.timestamp)
+                .map(log => ({
+                    callId: `cl:${log.id}`,
+                    callLogId: log.id,
+                    phoneNumber: log.phoneNumber,
+                    numberKey: last10(log.phoneNumber),
+                    timestamp: log.timestamp,
+                    endedAt: log.timestamp + log.duration * 1000,
+                    duration: log.duration,
+                    type: log.type,
+                    phoneAccountId: null,
+                    recordingPath: null,
+                    leadId: null,
+                    sources: ['calllog'],
+                }));
+        } catch (error) {
+            console.warn('Failed to reconcile calls:', error);
+            return [];
+        }
+    },
+
+    /**
+     * A lead's on-device calls (any of its numbers, alt_phone included), newest
+     * first, from the native call index: no scan of the device log. Pass the
+     * last row's timestamp as beforeTs for the next page. Falls back to
+     * getLeadCalls over the last 30 days without the native module.
+     */
+    getCallsForLead: async (lead: { _id?: string; id?: string; phone?: string; number?: string; alt_phone?: string },
+                            limit: number = 50, beforeTs: number = 0): Promise<LeadCall[]> => {
+        const leadId = lead._id || lead.id;
+        try {
+            if (CallsModule?.getCallsForLead && leadId) {
+                const hasPermission = await CallLogService.requestPermissions();
+                if (!hasPermission) return [];
+                return JSON.parse(await CallsModule.getCallsForLead(leadId, limit, beforeTs));
+            }
+            const toMs = beforeTs > 0 ? beforeTs - 1 : Date.now();
+            const calls = await CallLogService.getLeadCalls(
+                [lead.phone || lead.number || '', lead.alt_phone || ''],
+                toMs - 30 * 24 * 60 * 60 * 1000,
+                toMs,
+            );
+            return calls.slice(0, limit).map(call => ({
+                callLogId: call.callLogId ?? call.callId,
+                phoneNumber: call.phoneNumber,
+                numberKey: call.numberKey,
+                timestamp: call.timestamp,
+                endedAt: call.endedAt,
+                duration: call.duration,
+                type: call.type,
+                phoneAccountId: call.phoneAccountId,
+                simSlot: null,
+            }));
+        } catch (error) {
+            console.warn('Failed to load lead calls:', error);
+            return [];
+        }
+    },
+
+    /**
+     * Streams the device call log between fromMs and toMs to a file natively
+     * (CSV or NDJSON, optionally gzipped), joined with stored lead names.
+     * Rows never pass through JS; onProgress gets (rows, total) a few times a
+     * second. Returns null when the native module is missing.
+     */
+    exportCallLog: (
+        fromMs: number,
+        toMs: number,
+        options: { format?: 'csv' | 'ndjson'; gzip?: boolean; onProgress?: (rows: number, total: number) => void } = {},
+    ): CallLogExportJob | null => {
+        if (!CallsModule?.exportCallLog) return null;
+        const id = `export-${Date.now()}-${Math.random().toString(36).slice(2, 8)}`;
+        const sub = options.onProgress && callsEmitter
+            ? callsEmitter.addListener('CallLogExportProgress', (e: { id: string; rows: number; total: number }) => {
+                if (e.id === id) options.onProgress!(e.rows, e.total);
+            })
+            : null;
+        // cancel() can come while the permission prompt is still up, before native knows the id
+        let cancelled = false;
+        const done = (async () => {
+            try {
+                const hasPermission = await CallLogService.requestPermissions();
+                if (!hasPermission) throw new Error('READ_CALL_LOG not granted');
+                if (cancelled) throw Object.assign(new Error('Export cancelled'), { code: 'ERR_CANCELLED' });
+                const json: string = await CallsModule.exportCallLog(id, fromMs, toMs, options.format ?? 'csv', !!options.gzip);
+                return JSON.parse(json) as CallLogExportResult;
+            } finally {
+                sub?.remove();
+            }
+        })();
+        return {
+            done,
+            cancel: () => {
+                cancelled = true;
+                CallsModule.cancelExport(id);
+            },
+        };
+    },
+
+    /**
+     * Schedules the native periodic /logs/sync job (LogSyncJob.java) for userId.
+     * It only sends rows newer than the server-acknowledged watermark, in
+     * gzip chunks, when there is a network and the battery is not low.
+     */
+    scheduleLogSync: async (userId: string, intervalMs: number = 15 * 60 * 1000): Promise<boolean> => {
+        if (!CallsModule?.scheduleLogSync) return false;
+        return CallsModule.scheduleLogSync(userId, intervalMs);
+    },
+
+    cancelLogSync: () => CallsModule?.cancelLogSync?.(),
+
+    /** One sync pass now (e.g. on app resume); null where the native module is missing. */
+    syncLogsNow: async (): Promise<LogSyncResult | null> => {
+        if (!CallsModule?.syncLogsNow) return null;
+        // Never prompts: a background sync has no screen to ask from
+        const granted = await PermissionsAndroid.check(PermissionsAndroid.PERMISSIONS.READ_CALL_LOG);
+        if (!granted) return null;
+        return JSON.parse(await CallsModule.syncLogsNow());
+    },
+
     /**
      * Fetches the pre-computed timeline for a lead from the backend.
      * The backend returns { events: [...], lead: {...} } where each event has
@@ -188,19 +390,34 @@ export const CallLogService = {
      */
     getLeadTimeline: async (leadId: string): Promise<any[]> => {
         try {
+            if (LeadStoreModule?.refreshTimeline) {
+                // Native fetch also refreshes the on-disk copy used by getCachedLeadTimeline
+                const json: string | null = await LeadStoreModule.refreshTimeline(leadId);
+                return json ? timelineEvents(JSON.parse(json)) : [];
+            }
             const response = await apiClient.get<any>(`/leads/timeline/${leadId}`);
-            // Backend returns { success: true, data: { events: [...], lead: {...} } }
-            const data = response.data?.data || response.data || {};
-            const events: any[] = data.events || [];
-
-            // console.log('Timeline events:', events);
-            return events;
+            return timelineEvents(response.data);
         } catch (error) {
             console.warn('Failed to fetch lead timeline:', error);
             return [];
         }
     },
 
+    /**
+     * Timeline from the on-disk cache (prefetched when a call with the lead
+     * starts ringing), or null when nothing is cached. Never hits the network.
+     */
+    getCachedLeadTimeline: async (leadId: string): Promise<{ events: any[]; ageMs: number } | null> => {
+        if (!LeadStoreModule?.getCachedTimeline) return null;
+        try {
+            const entry = await LeadStoreModule.getCachedTimeline(leadId);
+            if (!entry) return null;
+            return { events: timelineEvents(JSON.parse(entry.json)), ageMs: entry.ageMs };
+        } catch (_) {
+            return null;
+        }
+    },
+
     /** @deprecated use getLeadTimeline instead */
     getRemoteCallLogs: async (leadId: string): Promise<CallLog[]> => {
         return [];
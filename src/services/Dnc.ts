@@ -0,0 +1,42 @@
+import { Alert, NativeModules } from 'react-native';
+
+const { DncModule } = NativeModules;
+
+export interface DncStatus {
+    version: number;
+    count: number;
+    bytes: number;
+    bloomBits: number;
+}
+
+/**
+ * Do-not-call list (DncStore.java): a memory-mapped, sorted list of numbers
+ * behind a Bloom filter. PhoneModule.makeCall, the power dialer and the call
+ * service check it natively; makeCall rejects with code ERR_DNC.
+ */
+export const Dnc = {
+    /** Pulls the latest delta; resolves the list version, or null without the native module. */
+    sync: async (): Promise<number | null> => {
+        if (!DncModule) return null;
+        return DncModule.sync();
+    },
+
+    isBlocked: async (phoneNumber: string): Promise<boolean> => {
+        if (!DncModule) return false;
+        return DncModule.isBlocked(phoneNumber);
+    },
+
+    getStatus: async (): Promise<DncStatus | null> => {
+        if (!DncModule) return null;
+        return JSON.parse(await DncModule.getStatus());
+    },
+
+    /** Catch handler for PhoneModule.makeCall: explains a refused DNC dial. */
+    alertIfBlocked: (error: any) => {
+        if (error?.code === 'ERR_DNC') {
+            Alert.alert('Do Not Call', 'This number is on the do-not-call list and cannot be dialled.');
+        } else {
+            console.warn('makeCall failed:', error?.message ?? error);
+        }
+    },
+};
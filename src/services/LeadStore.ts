@@ -0,0 +1,111 @@
+import { NativeEventEmitter, NativeModules } from 'react-native';
+import { Lead } from '../types/Lead';
+import { LeadsService } from './LeadsService';
+import { WarmCache } from './WarmCache';
+
+const { LeadStoreModule } = NativeModules;
+
+export interface LeadSyncResult {
+    full: boolean;
+    notModified: boolean;
+    changed: boolean;
+    upserted: number;
+    removed: number;
+    total: number;
+}
+
+export interface LeadsChange {
+    upserted: string[];
+    removed: string[];
+    /** The whole store may have changed (server-side resync). */
+    full: boolean;
+}
+
+export interface LeadStreamStatus {
+    running: boolean;
+    connected: boolean;
+    events: number;
+    connects: number;
+    lastEventId: string | null;
+}
+
+const emitter = LeadStoreModule ? new NativeEventEmitter(LeadStoreModule) : null;
+
+// Single-flight: screens that mount together share one sync round-trip.
+let inFlightSync: Promise<LeadSyncResult | null> | null = null;
+
+const parseLeads = (json: string | null): Lead[] => {
+    if (!json) return [];
+    try {
+        const parsed = JSON.parse(json);
+        return Array.isArray(parsed) ? parsed : [];
+    } catch (_) {
+        return [];
+    }
+};
+
+/**
+ * On-disk lead store (native LeadStoreModule, SQLite).
+ *
+ * Reads come from disk and never hit the network. `sync()` pulls only what
+ * changed on the server since the last sync (delta + ETag); call it in the
+ * background after rendering from `getLeads()`. While the push stream is
+ * open (`startStream()`), assignment and status changes land on disk as
+ * they happen and `onChange` reports them, coalesced, so screens only need
+ * to re-read.
+ * Falls back to LeadsService when the native module is not available.
+ */
+export const LeadStore = {
+    isAvailable: (): boolean => !!LeadStoreModule,
+
+    sync: (forceFull: boolean = false): Promise<LeadSyncResult | null> => {
+        if (!LeadStoreModule) return Promise.resolve(null);
+        if (inFlightSync) return inFlightSync;
+        // The launch warm-up may already have run this sync natively
+        const warm = forceFull ? Promise.resolve(null) : WarmCache.take<LeadSyncResult>('leads');
+        inFlightSync = warm
+            .then(result => result ?? LeadStoreModule.sync(forceFull))
+            .catch((error: any) => {
+                console.warn('[LeadStore] sync failed:', error?.message || error);
+                return null;
+            })
+            .finally(() => {
+                inFlightSync = null;
+            });
+        return inFlightSync as Promise<LeadSyncResult | null>;
+    },
+
+    getLeads: async (): Promise<Lead[]> => {
+        if (!LeadStoreModule) return LeadsService.getAssignedLeads();
+        return parseLeads(await LeadStoreModule.getLeads());
+    },
+
+    getCampaignLeads: async (campaignId: string): Promise<Lead[]> => {
+        if (!LeadStoreModule) return [];
+        return parseLeads(await LeadStoreModule.getCampaignLeads(campaignId));
+    },
+
+    findByNumber: async (phoneNumber: string): Promise<Lead | null> => {
+        if (!LeadStoreModule || !phoneNumber) return null;
+        const json = await LeadStoreModule.findByNumber(phoneNumber);
+        return json ? JSON.parse(json) : null;
+    },
+
+    clear: async () => {
+        if (LeadStoreModule) await LeadStoreModule.clear();
+    },
+
+    startStream: () => LeadStoreModule?.startStream?.(),
+
+    stopStream: () => LeadStoreModule?.stopStream?.(),
+
+    getStreamStatus: async (): Promise<LeadStreamStatus | null> => {
+        if (!LeadStoreModule?.getStreamStatus) return null;
+        return JSON.parse(await LeadStoreModule.getStreamStatus());
+    },
+
+    onChange: (listener: (change: LeadsChange) => void) => {
+        const subscription = emitter?.addListener('LeadsChanged', listener);
+        return () => subscription?.remove();
+    },
+};
@@ -1,5 +1,7 @@
 import { Platform } from 'react-native';
 import apiClient from './apiClient';
+import { Outbox } from './Outbox';
+import { PowerDialer } from './PowerDialer';
 import { Lead } from '../types/Lead';
 
 export const LeadsService = {
@@ -24,7 +26,13 @@ export const LeadsService = {
 
     updateLeadStatus: async (leadId: string, status: string, notes?: string) => {
         try {
+            const queued = await Outbox.enqueue('lead_status', leadId, 'PUT', `/leads/${leadId}`, { status, notes });
+            if (queued) {
+                PowerDialer.disposed(leadId);
+                return { success: true, queued: true };
+            }
             const response = await apiClient.put(`/leads/${leadId}`, { status, notes });
+            PowerDialer.disposed(leadId);
             return response.data;
         } catch (error) {
             console.error('Error updating lead:', error);
@@ -34,7 +42,16 @@ export const LeadsService = {
 
     updateLeadBySalesperson: async (data: any) => {
         try {
+            const queued = data?.leadId
+                ? await Outbox.enqueue('lead_update', data.leadId, 'PUT', '/leads/update-by-salesperson', data)
+                : null;
+            if (queued) {
+                PowerDialer.disposed(data.leadId);
+                // Sent in the background; a 409 is reported later by useOutboxFailures
+                return { success: true, queued: true };
+            }
             const response = await apiClient.put('/leads/update-by-salesperson', data);
+            if (data?.leadId) PowerDialer.disposed(data.leadId);
             return response.data;
         } catch (error) {
             console.error('Error updating lead by salesperson:', error);
@@ -61,6 +78,14 @@ export const LeadsService = {
 
     logCall: async (data: any) => {
         try {
+            if (data?.leadId) {
+                const { recordingLink, ...fields } = data;
+                // Multipart upload of a local recording is rebuilt natively at send time
+                const isLocal = typeof recordingLink === 'string' && (recordingLink.startsWith('/') || recordingLink.startsWith('file://'));
+                const queued = await Outbox.enqueue('call', data.leadId, 'POST', '/calls', isLocal ? fields : data, isLocal ? recordingLink : null);
+                if (queued) return { success: true, queued: true };
+            }
+
             // If there's a local recording path, use FormData for file upload
             if (data.recordingLink && (data.recordingLink.startsWith('/') || data.recordingLink.startsWith('file://'))) {
                 const formData = new FormData();
@@ -1,65 +1,40 @@
+import { NativeModules } from 'react-native';
 import notifee, {
     AndroidImportance,
-    TimestampTrigger,
-    TriggerType,
     AndroidVisibility,
 } from '@notifee/react-native';
 
-// ─── Demo follow-up records ──────────────────────────────────────────────────
-// These are 5 hard-coded follow-ups used until real API data is wired in.
-// Each entry triggers a notification 1 hour before the followUpTime.
+const { LeadStoreModule } = NativeModules;
+
+// ─── Follow-ups ──────────────────────────────────────────────────────────────
+// Reminders are scheduled natively (FollowUpReminders.java): follow-ups come
+// from the leads in the on-disk store, kept in one queue with a single alarm
+// for the next reminder, 1 hour before each follow-up. Nothing is registered
+// from JS any more.
 
 export interface FollowUp {
-    id: string;
-    name: string;
-    status: string;
-    followUpDate: string;   // "DD.MM.YYYY"
-    followUpTime: string;   // "3:00 PM"
-    followUpTimestamp: number; // epoch ms of the actual follow-up
+    leadId: string;
+    name: string | null;
+    status: string | null;
+    dueAt: number;      // epoch ms of the follow-up
+    remindAt: number;   // epoch ms the reminder goes out
+    notified: boolean;
 }
 
-export const DEMO_FOLLOWUPS: FollowUp[] = [
-    {
-        id: 'fu_1',
-        name: 'Yashodip Shete',
-        status: 'Pending',
-        followUpDate: '27.02.2026',
-        followUpTime: '3:00 PM',
-        followUpTimestamp: new Date('2026-02-27T09:30:00.000Z').getTime(), // 3 PM IST = 9:30 UTC
-    },
-    {
-        id: 'fu_2',
-        name: 'Ajit Sir',
-        status: 'Pending',
-        followUpDate: '27.02.2026',
-        followUpTime: '5:00 PM',
-        followUpTimestamp: new Date('2026-02-27T11:30:00.000Z').getTime(), // 5 PM IST
-    },
-    {
-        id: 'fu_3',
-        name: 'Ravi Kumar',
-        status: 'Pending',
-        followUpDate: '28.02.2026',
-        followUpTime: '10:00 AM',
-        followUpTimestamp: new Date('2026-02-28T04:30:00.000Z').getTime(), // 10 AM IST
-    },
-    {
-        id: 'fu_4',
-        name: 'Priya Sharma',
-        status: 'Pending',
-        followUpDate: '28.02.2026',
-        followUpTime: '2:00 PM',
-        followUpTimestamp: new Date('2026-02-28T08:30:00.000Z').getTime(), // 2 PM IST
-    },
-    {
-        id: 'fu_5',
-        name: 'Sneha Patil',
-        status: 'Pending',
-        followUpDate: '01.03.2026',
-        followUpTime: '11:00 AM',
-        followUpTimestamp: new Date('2026-03-01T05:30:00.000Z').getTime(), // 11 AM IST
-    },
-];
+const pad = (n: number) => String(n).padStart(2, '0');
+
+/** "DD.MM.YYYY" */
+export const formatFollowUpDate = (ts: number): string => {
+    const d = new Date(ts);
+    return `${pad(d.getDate())}.${pad(d.getMonth() + 1)}.${d.getFullYear()}`;
+};
+
+/** "3:00 PM" */
+export const formatFollowUpTime = (ts: number): string => {
+    const d = new Date(ts);
+    const hours = d.getHours() % 12 || 12;
+    return `${hours}:${pad(d.getMinutes())} ${d.getHours() < 12 ? 'AM' : 'PM'}`;
+};
 
 // ─── NotificationService ─────────────────────────────────────────────────────
 
@@ -84,51 +59,36 @@ export const NotificationService = {
         await notifee.requestPermission();
     },
 
+    /** Upcoming follow-ups from the native queue, soonest first. */
+    async list(limit: number = 200): Promise<FollowUp[]> {
+        if (!LeadStoreModule?.getFollowUps) return [];
+        try {
+            return JSON.parse(await LeadStoreModule.getFollowUps(limit));
+        } catch (_) {
+            return [];
+        }
+    },
+
     /**
-     * Schedule a reminder notification 1 hour before the follow-up time.
-     * Skips if the reminder time is already in the past.
+     * Queues a follow-up the agent just set, so its reminder is armed before
+     * the lead syncs back from the server.
      */
-    async scheduleReminder(followUp: FollowUp) {
-        const reminderTs = followUp.followUpTimestamp - 60 * 60 * 1000; // 1 hour before
-        if (reminderTs <= Date.now()) return; // already passed
-
-        const trigger: TimestampTrigger = {
-            type: TriggerType.TIMESTAMP,
-            timestamp: reminderTs,
-        };
-
-        await notifee.createTriggerNotification(
-            {
-                id: followUp.id,
-                title: `📞 Follow-up Reminder — ${followUp.name}`,
-                body: `Status: ${followUp.status} · Due at ${followUp.followUpTime} on ${followUp.followUpDate}`,
-                android: {
-                    channelId: CHANNEL_ID,
-                    importance: AndroidImportance.HIGH,
-                    smallIcon: 'ic_notification', // white icon in res/drawable
-                    pressAction: { id: 'default' },
-                    showTimestamp: true,
-                },
-            },
-            trigger,
-        );
+    async setFollowUp(leadId: string, name: string | null, dueAt: number) {
+        if (!LeadStoreModule?.setFollowUp || !leadId || !Number.isFinite(dueAt)) return;
+        await LeadStoreModule.setFollowUp(leadId, name ?? null, dueAt);
     },
 
-    /** Schedule reminders for ALL demo (or real) follow-ups */
-    async scheduleAll(followUps: FollowUp[] = DEMO_FOLLOWUPS) {
-        await NotificationService.init();
-        await NotificationService.requestPermission();
-        for (const fu of followUps) {
-            await NotificationService.scheduleReminder(fu);
-        }
+    /** Drops trigger notifications registered by the old JS scheduler. */
+    async cancelLegacyTriggers() {
+        await notifee.cancelTriggerNotifications();
     },
 
     /** Show an immediate test notification to verify the channel works */
     async showImmediateTest(followUp: FollowUp) {
         await NotificationService.init();
         await notifee.displayNotification({
-            title: `📞 Follow-up Reminder — ${followUp.name}`,
-            body: `Status: ${followUp.status} · Due at ${followUp.followUpTime} on ${followUp.followUpDate}`,
+            title: `📞 Follow-up Reminder — ${followUp.name ?? 'Lead'}`,
+            body: `Status: ${followUp.status ?? '—'} · Due at ${formatFollowUpTime(followUp.dueAt)} on ${formatFollowUpDate(followUp.dueAt)}`,
             android: {
                 channelId: CHANNEL_ID,
                 importance: AndroidImportance.HIGH,
@@ -137,7 +97,7 @@ export const NotificationService = {
         });
     },
 
-    /** Cancel all scheduled reminders */
+    /** Clears reminders on screen (and any left-over JS triggers) */
     async cancelAll() {
         await notifee.cancelAllNotifications();
     },
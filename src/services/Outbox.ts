@@ -0,0 +1,84 @@
+import { NativeEventEmitter, NativeModules } from 'react-native';
+
+const { OutboxModule } = NativeModules;
+
+export type OutboxKind = 'lead_update' | 'lead_status' | 'call' | 'create_lead';
+
+export interface OutboxStatus {
+    pending: number;
+    failed: number;
+}
+
+export interface FailedMutation {
+    id: number;
+    kind: OutboxKind;
+    leadKey: string;
+    path: string;
+    error: string | null;
+}
+
+const emitter = OutboxModule ? new NativeEventEmitter(OutboxModule) : null;
+
+const localPath = (link: any): string | null => {
+    if (typeof link !== 'string') return null;
+    if (link.startsWith('file://')) return link.replace('file://', '');
+    return link.startsWith('/') ? link : null;
+};
+
+/**
+ * Write-behind outbox for lead mutations (native OutboxModule, SQLite).
+ *
+ * `enqueue` resolves once the mutation is on disk — no network wait; the
+ * native side starts sending right away without holding the caller. Rows the
+ * server refuses are reported through `onChange` / `getFailed` (see
+ * useOutboxFailures). The native side sends rows in order per lead, merges repeated updates to the
+ * same lead, and retries with backoff when offline or rate limited.
+ * Returns null when the native module is missing so callers can fall back to
+ * a direct request.
+ */
+export const Outbox = {
+    isAvailable: (): boolean => !!OutboxModule,
+
+    enqueue: async (
+        kind: OutboxKind,
+        leadKey: string,
+        method: 'POST' | 'PUT',
+        path: string,
+        body: Record<string, any>,
+        recordingLink?: string | null,
+    ): Promise<{ id: number; coalesced: boolean } | null> => {
+        if (!OutboxModule) return null;
+        return OutboxModule.enqueue(kind, leadKey, method, path, JSON.stringify(body), localPath(recordingLink));
+    },
+
+    /** Sends whatever can go now and resolves with what is left. */
+    flush: async (): Promise<OutboxStatus | null> => {
+        if (!OutboxModule) return null;
+        try {
+            return await OutboxModule.flush();
+        } catch (error: any) {
+            console.warn('[Outbox] flush failed:', error?.message || error);
+            return null;
+        }
+    },
+
+    /** Rows the server refused; they stay parked until retried or discarded. */
+    getFailed: async (): Promise<FailedMutation[]> => {
+        if (!OutboxModule) return [];
+        return OutboxModule.getFailed();
+    },
+
+    getStatus: async (): Promise<OutboxStatus | null> => {
+        if (!OutboxModule) return null;
+        return OutboxModule.getStatus();
+    },
+
+    retryFailed: () => OutboxModule?.retryFailed(),
+
+    discardFailed: () => OutboxModule?.discardFailed(),
+
+    onChange: (listener: (status: OutboxStatus) => void) => {
+        const subscription = emitter?.addListener('OutboxChanged', listener);
+        return () => subscription?.remove();
+    },
+};
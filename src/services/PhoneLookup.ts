@@ -0,0 +1,211 @@
+import AsyncStorage from '@react-native-async-storage/async-storage';
+import { api } from './api';
+
+// ─── Tunables ───────────────────────────────────────────────────────────────
+const BATCH_WINDOW_MS = 40;          // gather lookups fired in the same render burst
+const MAX_BATCH_SIZE = 50;           // flush early once this many numbers are queued
+const SINGLE_CONCURRENCY = 4;        // parallel single calls when batching is unavailable
+const CACHE_MAX_ENTRIES = 500;
+const FOUND_TTL = 30 * 60 * 1000;    // 30 minutes
+const NOT_FOUND_TTL = 10 * 60 * 1000; // numbers not in the DB may become leads sooner
+
+// Old unbounded AsyncStorage caches replaced by the in-memory LRU below
+const LEGACY_CACHE_KEYS = ['check_phone_cache', 'assign_self_cache_v2'];
+
+/** Same cleaning the screens used before: keep digits and a leading '+'. */
+export const cleanPhone = (phone: string): string => (phone || '').replace(/[^0-9+]/g, '');
+
+/** Dedup key: last 10 digits, so +91 and 0-prefixed forms share one lookup. */
+const keyOf = (cleaned: string): string => {
+    const digits = cleaned.replace(/[^0-9]/g, '');
+    return digits.length >= 10 ? digits.slice(-10) : digits;
+};
+
+/** Size-bounded LRU with per-entry expiry (Map keeps insertion order). */
+class LruCache<V> {
+    private entries = new Map<string, { value: V; expiresAt: number }>();
+
+    constructor(private readonly maxEntries: number) { }
+
+    get(key: string): V | undefined {
+        const entry = this.entries.get(key);
+        if (!entry) return undefined;
+        if (entry.expiresAt <= Date.now()) {
+            this.entries.delete(key);
+            return undefined;
+        }
+        // bump to most-recently-used
+        this.entries.delete(key);
+        this.entries.set(key, entry);
+        return entry.value;
+    }
+
+    set(key: string, value: V, ttlMs: number) {
+        this.entries.delete(key);
+        this.entries.set(key, { value, expiresAt: Date.now() + ttlMs });
+        while (this.entries.size > this.maxEntries) {
+            const oldest = this.entries.keys().next().value as string;
+            this.entries.delete(oldest);
+        }
+    }
+
+    delete(key: string) {
+        this.entries.delete(key);
+    }
+
+    clear() {
+        this.entries.clear();
+    }
+}
+
+interface LookupOptions<V> {
+    /** One request for many numbers; resolve null when the server has no batch endpoint. */
+    fetchBatch: (phones: string[]) => Promise<Record<string, V> | null>;
+    fetchOne: (phone: string) => Promise<V>;
+    /** Error placeholders (e.g. `{ error: true }`) must not be cached. */
+    isCacheable: (value: V) => boolean;
+    isFound: (value: V) => boolean;
+}
+
+interface Pending<V> {
+    phone: string;
+    resolve: (value: V) => void;
+    reject: (error: any) => void;
+}
+
+/**
+ * Builds a lookup that
+ *  - answers from the LRU when fresh,
+ *  - shares one in-flight promise per normalized number,
+ *  - gathers numbers requested within BATCH_WINDOW_MS into one batch call.
+ */
+const createLookup = <V>(options: LookupOptions<V>) => {
+    const cache = new LruCache<V>(CACHE_MAX_ENTRIES);
+    const inFlight = new Map<string, Promise<V>>();
+    let queue = new Map<string, Pending<V>>();
+    let timer: ReturnType<typeof setTimeout> | null = null;
+    let batchSupported = true;
+
+    const settle = (key: string, pending: Pending<V>, value: V) => {
+        if (options.isCacheable(value)) {
+            cache.set(key, value, options.isFound(value) ? FOUND_TTL : NOT_FOUND_TTL);
+        }
+        pending.resolve(value);
+    };
+
+    const runSingles = async (items: [string, Pending<V>][]) => {
+        let next = 0;
+        const worker = async () => {
+            while (next < items.length) {
+                const [key, pending] = items[next++];
+                try {
+                    settle(key, pending, await options.fetchOne(pending.phone));
+                } catch (e) {
+                    pending.reject(e);
+                }
+            }
+        };
+        await Promise.all(Array.from({ length: Math.min(SINGLE_CONCURRENCY, items.length) }, worker));
+    };
+
+    const flush = async () => {
+        timer = null;
+        const batch = queue;
+        queue = new Map();
+        const items = Array.from(batch.entries());
+        if (items.length === 0) return;
+
+        if (batchSupported && items.length > 1) {
+            try {
+                const results = await options.fetchBatch(items.map(([, p]) => p.phone));
+                if (results) {
+                    const missing: [string, Pending<V>][] = [];
+                    for (const [key, pending] of items) {
+                        // null is an answer (not found); only an absent entry needs a single lookup
+                        const value = pending.phone in results ? results[pending.phone] : results[key];
+                        if (value === undefined) missing.push([key, pending]);
+                        else settle(key, pending, value);
+                    }
+                    if (missing.length > 0) await runSingles(missing);
+                    return;
+                }
+                batchSupported = false;
+            } catch (e) {
+                console.warn('[PhoneLookup] batch failed, falling back to single lookups:', e);
+            }
+        }
+        await runSingles(items);
+    };
+
+    return {
+        get: (phone: string): Promise<V> => {
+            const cleaned = cleanPhone(phone);
+            const key = keyOf(cleaned);
+
+            const cached = cache.get(key);
+            if (cached !== undefined) return Promise.resolve(cached);
+
+            const existing = inFlight.get(key);
+            if (existing) return existing;
+
+            const promise = new Promise<V>((resolve, reject) => {
+                queue.set(key, { phone: cleaned, resolve, reject });
+            }).finally(() => inFlight.delete(key));
+            inFlight.set(key, promise);
+
+            if (queue.size >= MAX_BATCH_SIZE) {
+                if (timer) clearTimeout(timer);
+                flush();
+            } else if (!timer) {
+                timer = setTimeout(flush, BATCH_WINDOW_MS);
+            }
+            return promise;
+        },
+
+        invalidate: (phone: string) => cache.delete(keyOf(cleanPhone(phone))),
+
+        clear: () => cache.clear(),
+    };
+};
+
+const isErrorResult = (value: any) => !!(value && value.error === true && value.success === false);
+
+const checkPhoneLookup = createLookup<any>({
+    fetchBatch: api.checkPhones,
+    fetchOne: api.checkPhone,
+    isCacheable: value => !isErrorResult(value),
+    isFound: value => !!(value && (value._id || value.id)),
+});
+
+const assignmentLookup = createLookup<any>({
+    fetchBatch: api.checkLeadAssignments,
+    fetchOne: api.checkLeadAssignment,
+    isCacheable: value => !isErrorResult(value),
+    isFound: value => !!(value && !value.notexist),
+});
+
+/**
+ * Deduplicated, batched phone lookups backed by a bounded in-memory LRU.
+ * Use these instead of calling api.checkPhone / api.checkLeadAssignment directly.
+ */
+export const PhoneLookup = {
+    /** Lead for a number via /leads/checkandgive (any lead, assigned or not). */
+    checkPhone: (phone: string) => checkPhoneLookup.get(phone),
+
+    /** Assignment status for a number via /leads/check-phone. */
+    checkAssignment: (phone: string) => assignmentLookup.get(phone),
+
+    /** Drop cached answers for a number after it changed (assign-self, new lead). */
+    invalidate: (phone: string) => {
+        checkPhoneLookup.invalidate(phone);
+        assignmentLookup.invalidate(phone);
+    },
+
+    clear: () => {
+        checkPhoneLookup.clear();
+        assignmentLookup.clear();
+    },
+
+    /** One-off cleanup of the AsyncStorage caches this layer replaces. */
+    dropLegacyCaches: () => AsyncStorage.multiRemove(LEGACY_CACHE_KEYS).catch(() => { }),
+};
@@ -0,0 +1,74 @@
+import { NativeEventEmitter, NativeModules } from 'react-native';
+import { Lead } from '../types/Lead';
+
+const { PowerDialerModule } = NativeModules;
+
+export type PowerDialerState = 'idle' | 'dialing' | 'wrap_up' | 'next' | 'paused' | 'finished';
+
+export interface PowerDialerMetrics {
+    callsPlaced: number;
+    callsEnded: number;
+    elapsedMs: number;
+    callsPerHour: number;
+    /** End of one call to the start of the next (disposition + wrap-up). */
+    avgIdleGapMs: number;
+    lastIdleGapMs: number;
+    avgCallMs: number;
+    /** Leads passed over because their number is on the do-not-call list. */
+    skippedDnc: number;
+}
+
+export interface PowerDialerStatus {
+    state: PowerDialerState;
+    paused: boolean;
+    index: number;
+    total: number;
+    lead: Lead | null;
+    /** Already loaded from the local store while the current call is up. */
+    next: Lead | null;
+    wrapUpMs: number;
+    /** Epoch ms the next call is placed at, while state is 'next'. */
+    advanceAt: number;
+    via: 'telecom' | 'intent' | null;
+    error: string | null;
+    metrics: PowerDialerMetrics;
+}
+
+const emitter = PowerDialerModule ? new NativeEventEmitter(PowerDialerModule) : null;
+
+/**
+ * Native power dialer (PowerDialer.java): dials an ordered list of campaign
+ * leads one after another. After each call the agent disposes the lead
+ * (LeadsService reports it here); the next call goes out after the wrap-up
+ * time unless the session is paused.
+ */
+export const PowerDialer = {
+    isAvailable: (): boolean => !!PowerDialerModule,
+
+    start: async (leads: Lead[], wrapUpMs: number = 5000): Promise<void> => {
+        if (!PowerDialerModule) return;
+        await PowerDialerModule.start(JSON.stringify(leads), wrapUpMs);
+    },
+
+    /** Called for every disposed lead; native ignores anything but the current one. */
+    disposed: (leadId: string) => PowerDialerModule?.disposed(leadId),
+
+    pause: () => PowerDialerModule?.pause(),
+    resume: () => PowerDialerModule?.resume(),
+    skip: () => PowerDialerModule?.skip(),
+    stop: () => PowerDialerModule?.stop(),
+
+    getStatus: async (): Promise<PowerDialerStatus | null> => {
+        if (!PowerDialerModule) return null;
+        return JSON.parse(await PowerDialerModule.getStatus());
+    },
+
+    /** Subscribes to session changes; returns the unsubscribe function. */
+    onChange: (listener: (status: PowerDialerStatus) => void): (() => void) => {
+        if (!emitter) return () => {};
+        const sub = emitter.addListener('PowerDialerChanged', (event: { json: string }) => {
+            listener(JSON.parse(event.json));
+        });
+        return () => sub.remove();
+    },
+};
@@ -0,0 +1,290 @@
+// ─── Request scheduler ──────────────────────────────────────────────────────
+// Replaces the old "any 429 blocks everything for 60s" rule in apiClient.
+//
+//  - Priority lanes: critical (dispositions, call posts) > normal (lead fetch,
+//    profile, campaigns) > background (phone enrichment lookups).
+//  - Per-endpoint token buckets; a 429 pauses only that endpoint, for as long
+//    as Retry-After says.
+//  - A circuit breaker opens after repeated 5xx/network failures, probes
+//    /health with backoff, then lets a few requests through (half-open)
+//    before fully closing again.
+
+export type Lane = 'critical' | 'normal' | 'background' | 'bypass';
+
+const LANE_ORDER: Exclude<Lane, 'bypass'>[] = ['critical', 'normal', 'background'];
+
+const MAX_IN_FLIGHT = 6;
+const LANE_MAX_IN_FLIGHT: Record<Exclude<Lane, 'bypass'>, number> = {
+    critical: 6,
+    normal: 4,
+    background: 2,
+};
+// Burst capacity and steady rate per endpoint, by lane
+const LANE_BUCKET: Record<Exclude<Lane, 'bypass'>, { capacity: number; perSecond: number }> = {
+    critical: { capacity: 10, perSecond: 5 },
+    normal: { capacity: 6, perSecond: 2 },
+    background: { capacity: 4, perSecond: 1 },
+};
+const MAX_QUEUE_WAIT_MS: Record<Exclude<Lane, 'bypass'>, number> = {
+    critical: 60_000,
+    normal: 20_000,
+    background: 10_000,
+};
+
+const DEFAULT_RETRY_AFTER_MS = 30_000;
+const FAILURE_THRESHOLD = 5;          // consecutive 5xx / network failures to open
+const PROBE_MIN_MS = 5_000;
+const PROBE_MAX_MS = 60_000;
+const HALF_OPEN_MAX_IN_FLIGHT = 1;
+const HALF_OPEN_SUCCESSES = 3;        // successes needed to close again
+
+/** Decides the lane of a request from its method and path. */
+export const laneFor = (method: string, url: string): Lane => {
+    const m = (method || 'get').toUpperCase();
+    const path = url.split('?')[0];
+    if (path.endsWith('/health')) return 'bypass';
+    if (path.includes('/leads/check') || path.includes('/leads/checkandgive')) return 'background';
+    if (m !== 'GET') return 'critical';
+    return 'normal';
+};
+
+/** Endpoint key for the token bucket: method + path with IDs collapsed. */
+export const endpointFor = (method: string, url: string): string => {
+    const path = url.split('?')[0]
+        .replace(/\/[0-9a-f]{24}(?=\/|$)/gi, '/:id')
+        .replace(/\/\d+(?=\/|$)/g, '/:id');
+    return `${(method || 'get').toUpperCase()} ${path}`;
+};
+
+const parseRetryAfter = (value: any): number => {
+    if (value == null) return DEFAULT_RETRY_AFTER_MS;
+    const seconds = Number(value);
+    if (!Number.isNaN(seconds)) return Math.max(0, seconds * 1000);
+    const date = Date.parse(String(value));
+    return Number.isNaN(date) ? DEFAULT_RETRY_AFTER_MS : Math.max(0, date - Date.now());
+};
+
+class TokenBucket {
+    private tokens: number;
+    private updatedAt = Date.now();
+    pausedUntil = 0;
+
+    constructor(private readonly capacity: number, private readonly perSecond: number) {
+        this.tokens = capacity;
+    }
+
+    private refill(now: number) {
+        const elapsed = (now - this.updatedAt) / 1000;
+        this.tokens = Math.min(this.capacity, this.tokens + elapsed * this.perSecond);
+        this.updatedAt = now;
+    }
+
+    tryTake(now: number): boolean {
+        if (now < this.pausedUntil) return false;
+        this.refill(now);
+        if (this.tokens < 1) return false;
+        this.tokens -= 1;
+        return true;
+    }
+
+    /** ms until a token could be available */
+    waitMs(now: number): number {
+        if (now < this.pausedUntil) return this.pausedUntil - now;
+        this.refill(now);
+        return this.tokens >= 1 ? 0 : Math.ceil(((1 - this.tokens) / this.perSecond) * 1000);
+    }
+
+    pause(ms: number) {
+        this.pausedUntil = Math.max(this.pausedUntil, Date.now() + ms);
+        this.tokens = 0;
+    }
+}
+
+type CircuitState = 'closed' | 'open' | 'half_open';
+
+interface Waiter {
+    lane: Exclude<Lane, 'bypass'>;
+    endpoint: string;
+    enqueuedAt: number;
+    resolve: () => void;
+    reject: (error: Error) => void;
+}
+
+export class SchedulerRejection extends Error {
+    readonly schedulerRejected = true;
+}
+
+export interface SchedulerOptions {
+    /** Raw health check that must not go through the scheduler. */
+    probeHealth: () => Promise<boolean>;
+    /** Called when the circuit opens (e.g. to show ServerDown). */
+    onCircuitOpen?: (reason: 'no_internet' | 'server_error') => void;
+}
+
+export class RequestScheduler {
+    private queues: Record<Exclude<Lane, 'bypass'>, Waiter[]> = { critical: [], normal: [], background: [] };
+    private inFlight: Record<Exclude<Lane, 'bypass'>, number> = { critical: 0, normal: 0, background: 0 };
+    private buckets = new Map<string, TokenBucket>();
+    private pumpTimer: ReturnType<typeof setTimeout> | null = null;
+
+    private circuit: CircuitState = 'closed';
+    private consecutiveFailures = 0;
+    private halfOpenSuccesses = 0;
+    private probeDelay = PROBE_MIN_MS;
+    private probeTimer: ReturnType<typeof setTimeout> | null = null;
+
+    constructor(private readonly options: SchedulerOptions) { }
+
+    get circuitState(): CircuitState {
+        return this.circuit;
+    }
+
+    /** Resolves when the request may be sent; rejects with SchedulerRejection otherwise. */
+    acquire(lane: Lane, endpoint: string): Promise<void> {
+        if (lane === 'bypass') return Promise.resolve();
+        if (this.circuit === 'open' && lane === 'background') {
+            return Promise.reject(new SchedulerRejection('Server unavailable — lookup skipped'));
+        }
+        return new Promise<void>((resolve, reject) => {
+            this.queues[lane].push({ lane, endpoint, enqueuedAt: Date.now(), resolve, reject });
+            this.pump();
+        });
+    }
+
+    /** Report the outcome of a request that was admitted by acquire(). */
+    complete(lane: Lane, endpoint: string, status: number | undefined, retryAfter?: any) {
+        if (lane === 'bypass') return;
+        this.inFlight[lane] = Math.max(0, this.inFlight[lane] - 1);
+
+        if (status === 429) {
+            this.bucket(endpoint, lane).pause(parseRetryAfter(retryAfter));
+            console.warn(`[API] 429 on ${endpoint} — pausing this endpoint only`);
+        } else if (status === undefined || status >= 500) {
+            if (status === 503 && retryAfter != null) {
+                this.bucket(endpoint, lane).pause(parseRetryAfter(retryAfter));
+            }
+            this.recordFailure(status === undefined ? 'no_internet' : 'server_error');
+        } else {
+            this.recordSuccess();
+        }
+        this.pump();
+    }
+
+    private bucket(endpoint: string, lane: Exclude<Lane, 'bypass'>): TokenBucket {
+        let bucket = this.buckets.get(endpoint);
+        if (!bucket) {
+            const spec = LANE_BUCKET[lane];
+            bucket = new TokenBucket(spec.capacity, spec.perSecond);
+            this.buckets.set(endpoint, bucket);
+        }
+        return bucket;
+    }
+
+    private totalInFlight(): number {
+        return this.inFlight.critical + this.inFlight.normal + this.inFlight.background;
+    }
+
+    private pump() {
+        if (this.pumpTimer) {
+            clearTimeout(this.pumpTimer);
+            this.pumpTimer = null;
+        }
+        const now = Date.now();
+        let nextWake = Infinity;
+
+        for (const lane of LANE_ORDER) {
+            const queue = this.queues[lane];
+            for (let i = 0; i < queue.length;) {
+                const waiter = queue[i];
+
+                if (now - waiter.enqueuedAt > MAX_QUEUE_WAIT_MS[lane]) {
+                    queue.splice(i, 1);
+                    waiter.reject(new SchedulerRejection(`Request to ${waiter.endpoint} timed out in queue`));
+                    continue;
+                }
+                nextWake = Math.min(nextWake, waiter.enqueuedAt + MAX_QUEUE_WAIT_MS[lane] - now);
+
+                if (!this.canAdmit(lane)) break; // lane is full; keep FIFO order
+                const bucket = this.bucket(waiter.endpoint, lane);
+                if (!bucket.tryTake(now)) {
+                    nextWake = Math.min(nextWake, bucket.waitMs(now));
+                    i++; // other endpoints in this lane may still have tokens
+                    continue;
+                }
+                queue.splice(i, 1);
+                this.inFlight[lane]++;
+                waiter.resolve();
+            }
+        }
+
+        if (nextWake !== Infinity) {
+            this.pumpTimer = setTimeout(() => this.pump(), Math.max(10, nextWake));
+        }
+    }
+
+    private canAdmit(lane: Exclude<Lane, 'bypass'>): boolean {
+        if (this.circuit === 'open') return false;
+        if (this.circuit === 'half_open') {
+            return lane !== 'background' && this.totalInFlight() < HALF_OPEN_MAX_IN_FLIGHT;
+        }
+        if (this.totalInFlight() >= MAX_IN_FLIGHT) return false;
+        if (this.inFlight[lane] >= LANE_MAX_IN_FLIGHT[lane]) return false;
+        // Keep one slot free for critical work when lower lanes are busy
+        if (lane !== 'critical' && this.totalInFlight() >= MAX_IN_FLIGHT - 1) return false;
+        return true;
+    }
+
+    // ── Circuit breaker ─────────────────────────────────────────────────────
+
+    private recordSuccess() {
+        this.consecutiveFailures = 0;
+        if (this.circuit === 'half_open') {
+            this.halfOpenSuccesses++;
+            if (this.halfOpenSuccesses >= HALF_OPEN_SUCCESSES) {
+                this.circuit = 'closed';
+                this.probeDelay = PROBE_MIN_MS;
+            }
+        }
+    }
+
+    private recordFailure(reason: 'no_internet' | 'server_error') {
+        this.consecutiveFailures++;
+        if (this.circuit === 'half_open' ||
+            (this.circuit === 'closed' && this.consecutiveFailures >= FAILURE_THRESHOLD)) {
+            this.open(reason);
+        }
+    }
+
+    private open(reason: 'no_internet' | 'server_error') {
+        const wasClosed = this.circuit === 'closed';
+        this.circuit = 'open';
+        this.halfOpenSuccesses = 0;
+        // Background lookups are not worth waiting for
+        for (const waiter of this.queues.background.splice(0)) {
+            waiter.reject(new SchedulerRejection('Server unavailable — lookup skipped'));
+        }
+        this.scheduleProbe();
+        if (wasClosed) this.options.onCircuitOpen?.(reason);
+    }
+
+    private scheduleProbe() {
+        if (this.probeTimer) return;
+        this.probeTimer = setTimeout(async () => {
+            this.probeTimer = null;
+            let healthy = false;
+            try {
+                healthy = await this.options.probeHealth();
+            } catch (_) {
+                healthy = false;
+            }
+            if (healthy) {
+                this.circuit = 'half_open';
+                this.consecutiveFailures = 0;
+                this.pump();
+            } else {
+                this.probeDelay = Math.min(PROBE_MAX_MS, this.probeDelay * 2);
+                this.scheduleProbe();
+            }
+        }, this.probeDelay);
+    }
+}
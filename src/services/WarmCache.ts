@@ -0,0 +1,47 @@
+import { NativeModules } from 'react-native';
+
+const { WarmCacheModule } = NativeModules;
+
+export type WarmKey = 'profile' | 'leads' | 'todayLogs';
+
+/**
+ * Results of the native launch warm-up (WarmUp.java): the profile, a lead
+ * sync and today's call log are loaded in parallel while the JS bundle is
+ * still loading.
+ *
+ * `take` resolves the warmed value once, waiting up to `timeoutMs` if it is
+ * still in flight. It resolves null when there is nothing to take (logged
+ * out, failed, stale, already taken); callers then load as usual.
+ */
+export const WarmCache = {
+    take: async <T = any>(key: WarmKey, timeoutMs: number = 2500): Promise<T | null> => {
+        if (!WarmCacheModule) return null;
+        try {
+            const json: string | null = await WarmCacheModule.take(key, timeoutMs);
+            return json ? (JSON.parse(json) as T) : null;
+        } catch (_) {
+            return null;
+        }
+    },
+
+    /** Marks the post-call UI as interactive (hangup-to-interactive timing, ReactPrewarm.java). */
+    markInteractive: () => {
+        WarmCacheModule?.markInteractive?.();
+    },
+
+    /**
+     * Hangup-to-interactive per start kind: `warm` (React started during the
+     * call), `cold` (started when the app was opened), `resumed` (already running).
+     */
+    getPrewarmStats: async (): Promise<Record<string, { count: number; avgMs: number | null; lastMs: number | null }>> => {
+        if (!WarmCacheModule?.getPrewarmStats) return {};
+        const { backoffUntil: _, ...kinds } = JSON.parse(await WarmCacheModule.getPrewarmStats());
+        return kinds;
+    },
+
+    /** ms each warm-up load took (-1 = failed). */
+    getStats: async (): Promise<Record<string, number>> => {
+        if (!WarmCacheModule) return {};
+        return JSON.parse(await WarmCacheModule.getStats());
+    },
+};
@@ -1,4 +1,5 @@
 import apiClient from './apiClient';
+import { Outbox } from './Outbox';
 
 export const api = {
     // Auth
@@ -82,6 +83,31 @@ export const api = {
         }
     },
 
+    /**
+     * Batch variant of checkPhone. Resolves { [phone]: lead | null }, or null when
+     * the server has no batch endpoint (404/405) so callers fall back to checkPhone.
+     */
+    checkPhones: async (phones: string[]): Promise<Record<string, any> | null> => {
+        try {
+            const response = await apiClient.post('/leads/checkandgive/batch', { phones });
+            return response.data?.leads || {};
+        } catch (error: any) {
+            if ([404, 405].includes(error.response?.status)) return null;
+            throw error;
+        }
+    },
+
+    /** Batch variant of checkLeadAssignment, same fallback contract as checkPhones. */
+    checkLeadAssignments: async (phones: string[]): Promise<Record<string, any> | null> => {
+        try {
+            const response = await apiClient.post('/leads/check-phone/batch', { phones });
+            return response.data?.results || {};
+        } catch (error: any) {
+            if ([404, 405].includes(error.response?.status)) return null;
+            throw error;
+        }
+    },
+
     getCampaigns: async () => {
         try {
             const response = await apiClient.get('/campaigns');
@@ -94,6 +120,11 @@ export const api = {
 
     createLead: async (data: { firstName: string; lastName: string; phone: string; campaign: string; date?: string }) => {
         try {
+            const queued = await Outbox.enqueue('create_lead', `phone:${(data.phone || '').replace(/\D/g, '').slice(-10)}`, 'POST', '/leads/create-and-assign', data);
+            if (queued) {
+                // Created in the background; a 409 (already a lead) is reported by useOutboxFailures
+                return { success: true, queued: true };
+            }
             const response = await apiClient.post('/leads/create-and-assign', data);
             return response.data;
         } catch (error: any) {
@@ -1,14 +1,11 @@
 import axios from 'axios';
+import { NativeModules } from 'react-native';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { createNavigationContainerRef } from '@react-navigation/native';
+import { RequestScheduler, laneFor, endpointFor, Lane } from './RequestScheduler';
 
 const BASE_URL = 'https://connect.leadvidya.in/api';
 
-// ── Global 429 backoff ─────────────────────────────────────────────────────
-// When ANY request returns 429, block ALL new requests for BACKOFF_MS.
-const BACKOFF_MS = 60_000; // 60 seconds
-let rateLimitedUntil = 0; // timestamp (ms) until which requests are blocked
-
 const apiClient = axios.create({
     baseURL: BASE_URL,
     timeout: 10000,
@@ -17,19 +14,73 @@ const apiClient = axios.create({
     },
 });
 
+// ── In-memory auth token ───────────────────────────────────────────────────
+// Read from AsyncStorage once, then kept in memory and updated via setAuthToken.
+// On Android the shared native client (HttpModule) also injects the header.
+let authToken: string | null | undefined; // undefined = not loaded yet
+
+const getAuthToken = async (): Promise<string | null> => {
+    if (authToken === undefined) {
+        authToken = await AsyncStorage.getItem('token');
+    }
+    return authToken;
+};
+
+/**
+ * Updates the token used by axios and mirrors it into native code so native
+ * callers (lead sync, background work) share it. Pass null on logout.
+ */
+export const setAuthToken = (token: string | null) => {
+    authToken = token;
+    NativeModules.HttpModule?.setAuthToken(token);
+};
+
+// Helper to get navigation outside of components
+
+export const navigationRef = createNavigationContainerRef<any>();
+
+// ── Scheduling ─────────────────────────────────────────────────────────────
+// Priority lanes + per-endpoint token buckets + circuit breaker
+// (see RequestScheduler). A 429 pauses only the endpoint that got it.
+export const scheduler = new RequestScheduler({
+    // Raw axios so the probe itself is never queued behind the open circuit
+    probeHealth: async () => {
+        try {
+            const response = await axios.get(`${BASE_URL}/health`, { timeout: 5000 });
+            return response.status === 200;
+        } catch (_) {
+            return false;
+        }
+    },
+    onCircuitOpen: (reason) => {
+        if (navigationRef.isReady()) {
+            navigationRef.navigate('ServerDown', { errorType: reason });
+        }
+    },
+});
+
+type ScheduledConfig = { __lane?: Lane; __endpoint?: string };
+
+const completeScheduled = (config: any, status: number | undefined, headers?: any) => {
+    const scheduled = config as ScheduledConfig | undefined;
+    if (!scheduled?.__lane || !scheduled.__endpoint) return;
+    scheduler.complete(scheduled.__lane, scheduled.__endpoint, status, headers?.['retry-after']);
+};
+
 apiClient.interceptors.request.use(
     async (config) => {
-        // Block request if we are in a 429 backoff window
-        if (Date.now() < rateLimitedUntil) {
-            const waitMs = rateLimitedUntil - Date.now();
-            return Promise.reject(
-                new Error(`Rate limited — retrying in ${Math.ceil(waitMs / 1000)}s`)
-            );
-        }
-        const token = await AsyncStorage.getItem('token');
+        const token = await getAuthToken();
         if (token) {
             config.headers.Authorization = token.startsWith('Bearer ') ? token : `Bearer ${token}`;
         }
+
+        // Wait for a slot in this request's lane (may reject if the server is down).
+        // Nothing after this point may throw, or the slot would never be released.
+        const lane = laneFor(config.method || 'get', config.url || '');
+        const endpoint = endpointFor(config.method || 'get', config.url || '');
+        await scheduler.acquire(lane, endpoint);
+        (config as ScheduledConfig).__lane = lane;
+        (config as ScheduledConfig).__endpoint = endpoint;
         return config;
     },
     (error) => {
@@ -37,18 +88,23 @@ apiClient.interceptors.request.use(
     }
 );
 
-// Helper to get navigation outside of components
-
-export const navigationRef = createNavigationContainerRef<any>();
-
 let logoutHandler: (() => void) | null = null;
 export const setLogoutHandler = (handler: () => void) => {
     logoutHandler = handler;
 };
 
 apiClient.interceptors.response.use(
-    (response) => response,
+    (response) => {
+        completeScheduled(response.config, response.status, response.headers);
+        return response;
+    },
     async (error) => {
+        // Rejected by the scheduler before it was sent: nothing to release or report
+        if (error?.schedulerRejected) {
+            return Promise.reject(error);
+        }
+        completeScheduled(error.config, error.response?.status, error.response?.headers);
+
         if (error.response && error.response.status === 401) {
             // Handle unauthorized (session expired)
             console.log('Session expired, logging out...');
@@ -58,6 +114,7 @@ apiClient.interceptors.response.use(
             } else {
                 // Fallback if no handler registered (e.g. before AuthProvider mounts)
                 await AsyncStorage.multiRemove(['user', 'token', 'refreshToken']);
+                setAuthToken(null);
                 if (navigationRef.isReady()) {
                     navigationRef.reset({
                         index: 0,
@@ -67,23 +124,8 @@ apiClient.interceptors.response.use(
             }
         }
 
-        // Handle 429 — set backoff, do NOT navigate away
-        if (error.response?.status === 429) {
-            rateLimitedUntil = Date.now() + BACKOFF_MS;
-            console.warn('[API] 429 received — pausing requests for 60s');
-            return Promise.reject(error);
-        }
-
-        // Handle Server Down / Network Errors (exclude 429)
-        const isNoInternet = !error.response || error.message === 'Network Error';
-        const isServerError = error.response && [500, 502, 503, 504].includes(error.response.status);
-
-        if ((isNoInternet || isServerError) && navigationRef.isReady()) {
-            navigationRef.navigate('ServerDown', {
-                errorType: isNoInternet ? 'no_internet' : 'server_error',
-            });
-        }
-
+        // 429 / 5xx / network errors are handled by the scheduler: 429 pauses the
+        // endpoint, repeated failures open the circuit (which shows ServerDown).
         return Promise.reject(error);
     }
 );
@@ -2,9 +2,12 @@ import { RecordingUploadService } from '../services/RecordingUploadService';
 
 module.exports = async (taskData) => {
     console.log('Headless JS Task: Starting Recording Upload', taskData);
-    const { path, phoneNumber } = taskData;
+    const { path, phoneNumber, silent } = taskData;
 
-    if (path) {
+    if (silent) {
+        // Native health probe found only silence in this file; nothing to upload
+        console.warn('Headless JS Task: Recording is silent, skipping upload', path);
+    } else if (path) {
         try {
             await RecordingUploadService.uploadRecording(path, phoneNumber);
             console.log('Headless JS Task: Upload completed');